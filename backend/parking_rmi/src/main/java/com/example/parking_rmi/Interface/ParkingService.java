@@ -4,9 +4,18 @@ import java.rmi.Remote;
 import java.rmi.RemoteException;
 import java.util.List;
 
+import com.example.parking_rmi.dto.GateEventDTO;
+import com.example.parking_rmi.dto.GateEventResultDTO;
+import com.example.parking_rmi.dto.MethodMetricsDTO;
+import com.example.parking_rmi.dto.PageDTO;
 import com.example.parking_rmi.dto.ParkingLotDTO;
+import com.example.parking_rmi.dto.ParkingLotSnapshotDTO;
+import com.example.parking_rmi.dto.ParkingLotStatsDTO;
 import com.example.parking_rmi.dto.ParkingSpotDTO;
 import com.example.parking_rmi.dto.ReservationDTO;
+import com.example.parking_rmi.dto.SpotChangesDTO;
+import com.example.parking_rmi.dto.SpotPreferenceDTO;
+import com.example.parking_rmi.dto.SpotTransitionDTO;
 import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
 
 public interface ParkingService extends Remote {
@@ -25,6 +34,11 @@ public interface ParkingService extends Remote {
 
     public List<ParkingLotDTO> getActiveParkingLots() throws RemoteException;
 
+    public ParkingLotSnapshotDTO getParkingLotSnapshot(Long parkingLotId) throws RemoteException;
+
+    // Keyset pages (size capped by the server): lots by id, afterId = nextCursor of the previous page or null
+    public PageDTO<ParkingLotDTO> getParkingLotsPage(Long afterId, int size) throws RemoteException;
+
     public List<ParkingSpotDTO> getAllSpotsByParkingLot(Long parkingLotId) throws RemoteException;
 
     public List<ParkingSpotDTO> getAvailableSpots(Long parkingLotId) throws RemoteException;
@@ -35,6 +49,9 @@ public interface ParkingService extends Remote {
 
     public ReservationDTO createReservation(ReservationDTO reservationDTO) throws RemoteException;
 
+    // Reserves the best free spot of reservationDTO.parkingLotId (parkingSpotId ignored); null if none matches
+    public ReservationDTO reserveBestAvailableSpot(ReservationDTO reservationDTO, SpotPreferenceDTO preferences) throws RemoteException;
+
     public ReservationDTO getReservationById(Long id) throws RemoteException;
 
     public List<ReservationDTO> getReservationsByUserEmail(String email) throws RemoteException;
@@ -43,12 +60,34 @@ public interface ParkingService extends Remote {
 
     public List<ReservationDTO> getReservationDTOsByParkingLot(long id) throws RemoteException;
 
+    // Keyset pages, newest first: beforeId = nextCursor of the previous page or null
+    public PageDTO<ReservationDTO> getReservationsByUserEmailPage(String email, Long beforeId, int size) throws RemoteException;
+
+    public PageDTO<ReservationDTO> getReservationsByParkingLotPage(long parkingLotId, Long beforeId, int size) throws RemoteException;
+
     public boolean simulateCarExit(long spotId) throws RemoteException;
 
     public boolean simulateCarEntry(long spotId) throws RemoteException;
 
+    // Entries/exits of many spots in one transaction: one result per event, same order
+    public List<GateEventResultDTO> applyGateEvents(List<GateEventDTO> events) throws RemoteException;
+
+    // Spots changed since the client's version, or every spot if it is too far behind
+    public SpotChangesDTO getSpotChangesSince(Long parkingLotId, long sinceVersion) throws RemoteException;
+
+    // Status changes of a spot, newest first: beforeSeq = nextCursor of the previous page or null
+    public PageDTO<SpotTransitionDTO> getSpotHistory(long spotId, Long beforeSeq, int size) throws RemoteException;
+
+    // Push spot changes of one lot (or every lot when parkingLotId is null) to listener
+    public void subscribeSpotEvents(SpotEventListener listener, Long parkingLotId) throws RemoteException;
+
+    public void unsubscribeSpotEvents(SpotEventListener listener) throws RemoteException;
+
     List<ParkingSpotDTO> findByStatus(SpotStatus status) throws RemoteException;
 
+    // Keyset pages of findByStatus, by spot id
+    PageDTO<ParkingSpotDTO> findByStatusPage(SpotStatus status, Long afterId, int size) throws RemoteException;
+
     List<ParkingSpotDTO> findByParkingLotIdAndStatus(Long parkingLotId, SpotStatus status)
         throws RemoteException;
 
@@ -58,4 +97,9 @@ public interface ParkingService extends Remote {
 
     Double getTotalRevenueByParkingLotId(Long parkingLotId) throws RemoteException;
 
+    List<ParkingLotStatsDTO> getParkingLotStats(List<Long> parkingLotIds) throws RemoteException;
+
+    // Per-method call counts and latency percentiles of the server
+    List<MethodMetricsDTO> getMethodMetrics() throws RemoteException;
+
 }
\ No newline at end of file
@@ -1,27 +1,111 @@
 package com.example.parking_rmi.config;
 
-import java.rmi.registry.LocateRegistry;
-import java.rmi.registry.Registry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 
 import com.example.parking_rmi.Interface.ParkingService;
+import com.example.parking_rmi.rmi.CallPolicy;
+import com.example.parking_rmi.rmi.ParkingServiceClient;
+import com.example.parking_rmi.rmi.RmiEndpoint;
+import com.example.parking_rmi.rmi.ShardedParkingService;
+import com.example.parking_rmi.rmi.SpotEventReceiver;
 
 @Configuration
 public class RmiConfig {
 
+    @Value("${rmi.endpoints:localhost:1099}")
+    private String endpoints;
+
+    @Value("${rmi.service-name:parkingService}")
+    private String serviceName;
+
+    @Value("${rmi.retry-delay-ms:5000}")
+    private long retryDelayMillis;
+
+    @Value("${rmi.shards:}")
+    private String shards;
+
+    @Value("${rmi.policy.enabled:true}")
+    private boolean policyEnabled;
+
+    @Value("${rmi.policy.hedge.endpoint:}")
+    private String hedgeEndpoint;
+
+    @Bean
+    public CallPolicy.Settings callPolicySettings(
+            @Value("${rmi.policy.timeout-ms:5000}") long timeoutMillis,
+            @Value("${rmi.policy.timeouts:}") String timeouts,
+            @Value("${rmi.policy.failure-threshold:5}") int failureThreshold,
+            @Value("${rmi.policy.open-ms:10000}") long openMillis,
+            @Value("${rmi.policy.hedge.methods:getAllParkingLots,getParkingLotById,getSpotById}") Set<String> hedgedMethods,
+            @Value("${rmi.policy.hedge.delay-ms:150}") long hedgeDelayMillis) {
+        return new CallPolicy.Settings(timeoutMillis, CallPolicy.Settings.parseTimeouts(timeouts),
+                failureThreshold, openMillis, hedgedMethods, hedgeDelayMillis);
+    }
+
+    @Bean
+    public ParkingServiceClient parkingServiceClient(CallPolicy.Settings policySettings) {
+        List<RmiEndpoint> list = parseEndpoints(endpoints);
+        System.out.println("🔌 RMI endpoints: " + list);
+        ParkingServiceClient client = new ParkingServiceClient(list, retryDelayMillis);
+        if (policyEnabled) {
+            // Hedged reads go to a server outside the round-robin (e.g. a read replica)
+            ParkingService hedge = hedgeEndpoint.isBlank() ? null
+                    : new ParkingServiceClient(parseEndpoints(hedgeEndpoint), retryDelayMillis).rawProxy();
+            client.withPolicy(policySettings, hedge);
+        }
+        return client;
+    }
+
+    // Several parking-rmi instances, each serving the lots whose rmiHost/rmiPort point to it
     @Bean
-    public ParkingService parkingService() {
-        try {
-            System.out.println("🔌 Connecting to ClientService...");
-            Registry registry = LocateRegistry.getRegistry("localhost", 1099);
-            ParkingService service = (ParkingService) registry.lookup("parkingService");
-            System.out.println("✅ ClientService connected");
-            return service;
-        } catch (Exception e) {
-            System.err.println("❌ Failed to connect ClientService");
-            throw new RuntimeException("the error in connection : "+e);
+    @ConditionalOnProperty("rmi.shards")
+    public ShardedParkingService shardedParkingService(CallPolicy.Settings policySettings) {
+        List<RmiEndpoint> list = parseEndpoints(shards);
+        System.out.println("🔌 RMI shards: " + list);
+        // One breaker per instance (host:port); no hedging, a lot is only served by its own instance
+        return new ShardedParkingService(list, endpoint -> {
+            ParkingServiceClient client = new ParkingServiceClient(List.of(endpoint), retryDelayMillis);
+            return policyEnabled ? client.withPolicy(policySettings, null) : client;
+        });
+    }
+
+    // Spot status changes pushed by the RMI server(s) instead of polling
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(value = "rmi.events.enabled", havingValue = "true", matchIfMissing = true)
+    public SpotEventReceiver spotEventReceiver(ParkingService parkingService,
+            @Value("${rmi.events.callback-port:0}") int callbackPort,
+            @Value("${rmi.events.renew-ms:30000}") long renewMillis) {
+        return new SpotEventReceiver(parkingService, callbackPort, renewMillis);
+    }
+
+    private List<RmiEndpoint> parseEndpoints(String addresses) {
+        List<RmiEndpoint> list = new ArrayList<>();
+        for (String address : addresses.split(",")) {
+            if (!address.isBlank()) {
+                list.add(RmiEndpoint.parse(address, serviceName));
+            }
         }
+        return list;
+    }
+
+    // No lookup at startup: the stub is resolved on first use and refreshed after
+    // server restarts. The stub carries the server's RMIClientSocketFactory
+    // (rmi.TunedClientSocketFactory), so compression / TCP options always match
+    // the server's rmi.socket.* settings.
+    @Bean
+    @Primary
+    public ParkingService parkingService(ParkingServiceClient parkingServiceClient,
+            ObjectProvider<ShardedParkingService> shardedParkingService) {
+        ShardedParkingService sharded = shardedParkingService.getIfAvailable();
+        return sharded != null ? sharded : parkingServiceClient.proxy();
     }
 }
@@ -1,23 +1,40 @@
 package com.example.parking_rmi.controller;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.example.parking_rmi.Interface.ParkingService;
+import com.example.parking_rmi.dto.GateEventDTO;
+import com.example.parking_rmi.dto.GateEventResultDTO;
+import com.example.parking_rmi.dto.MethodMetricsDTO;
+import com.example.parking_rmi.dto.PageDTO;
 import com.example.parking_rmi.dto.ParkingLotDTO;
+import com.example.parking_rmi.dto.ParkingLotStatsDTO;
+import com.example.parking_rmi.dto.ParkingSpotDTO;
+import com.example.parking_rmi.dto.ReservationDTO;
+import com.example.parking_rmi.dto.SpotTransitionDTO;
 import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
+import com.example.parking_rmi.rmi.CallPolicy;
+import com.example.parking_rmi.rmi.ParkingServiceClient;
+import com.example.parking_rmi.rmi.ShardedParkingService;
+import com.example.parking_rmi.rmi.SpotEventReceiver;
+import com.example.parking_rmi.service.OccupancyStreamService;
+import com.example.parking_rmi.service.ParkingServ;
 
-import lombok.var;
 
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -26,6 +43,21 @@ public class AdminController {
     @Autowired
     private ParkingService parkingService;
 
+    @Autowired
+    private ParkingServiceClient parkingServiceClient;
+
+    @Autowired
+    private ParkingServ clientService;
+
+    @Autowired(required = false)
+    private ShardedParkingService shardedParkingService;
+
+    @Autowired(required = false)
+    private SpotEventReceiver spotEventReceiver;
+
+    @Autowired
+    private OccupancyStreamService occupancyStream;
+
     @PostMapping("/addParking")
     public ResponseEntity<?> createParkingLResponseEnt(@RequestBody ParkingLotDTO entity) throws Exception {
         ParkingLotDTO parkingLotDTO = parkingService.createParkingLot(entity);
@@ -36,21 +68,95 @@ public class AdminController {
     }
 
     @PostMapping("/simulate/enter/{spotId}")
-    public ResponseEntity<?> simulateEntry(@PathVariable long spotId) throws Exception {
-        var test = parkingService.simulateCarEntry(spotId);
-        if (test) {
-            return ResponseEntity.ok("car enter");
-        }
-        return ResponseEntity.ok("error");
+    public CompletableFuture<ResponseEntity<?>> simulateEntry(@PathVariable long spotId) {
+        return clientService.async(() -> parkingService.simulateCarEntry(spotId))
+                .thenApply(test -> ResponseEntity.ok(test ? "car enter" : "error"));
     }
 
     @PostMapping("/simulate/exit/{spotId}")
-    public ResponseEntity<?> simulateExite(@PathVariable long spotId) throws Exception {
-        var test = parkingService.simulateCarExit(spotId);
-        if (test) {
-            return ResponseEntity.ok("car exit");
+    public CompletableFuture<ResponseEntity<?>> simulateExite(@PathVariable long spotId) {
+        return clientService.async(() -> parkingService.simulateCarExit(spotId))
+                .thenApply(test -> ResponseEntity.ok(test ? "car exit" : "error"));
+    }
+
+    // Gate events of many spots in one call: [{"spotId":1,"event":"ENTRY","timestampMillis":...}, ...],
+    // one result per event in the same order (APPLIED, UNCHANGED, NOT_FOUND, CONFLICT, ...)
+    @PostMapping("/gate-events")
+    public CompletableFuture<ResponseEntity<List<GateEventResultDTO>>> applyGateEvents(
+            @RequestBody List<GateEventDTO> events) {
+        return clientService.async(() -> parkingService.applyGateEvents(events)).thenApply(ResponseEntity::ok);
+    }
+
+    // Connection state of every configured RMI endpoint
+    @GetMapping("/rmi/health")
+    public ResponseEntity<?> getRmiHealth() {
+        if (shardedParkingService != null) {
+            return ResponseEntity.ok(Map.of(
+                    "endpoints", shardedParkingService.getHealth(),
+                    "lotRoutes", shardedParkingService.getLotRoutes()));
         }
-        return ResponseEntity.ok("error");
+        return ResponseEntity.ok(parkingServiceClient.getHealth());
+    }
+
+    // Circuit breaker state, trips, timeouts and hedged reads of the RMI call policy
+    @GetMapping("/rmi/policy")
+    public ResponseEntity<?> getRmiPolicy() {
+        if (shardedParkingService != null) {
+            return ResponseEntity.ok(shardedParkingService.getPolicyHealth());
+        }
+        CallPolicy policy = parkingServiceClient.getPolicy();
+        return ResponseEntity.ok(policy != null ? policy.toHealth() : Map.of("enabled", false));
+    }
+
+    // State of the spot event subscription (pushed changes received, last renewal) and of the browser streams
+    @GetMapping("/rmi/events")
+    public ResponseEntity<?> getSpotEventsHealth() {
+        if (spotEventReceiver == null) {
+            return ResponseEntity.ok(Map.of("enabled", false, "stream", occupancyStream.getStats()));
+        }
+        Map<String, Object> health = new LinkedHashMap<>(spotEventReceiver.toHealth());
+        health.put("stream", occupancyStream.getStats());
+        return ResponseEntity.ok(health);
+    }
+
+    // Per-method call counts, errors, in-flight and latency percentiles of the RMI server(s)
+    @GetMapping("/metrics")
+    public CompletableFuture<ResponseEntity<List<MethodMetricsDTO>>> getMetrics() {
+        return clientService.async(parkingService::getMethodMetrics).thenApply(ResponseEntity::ok);
+    }
+
+    // All lots in one RMI call: /stats/overview or /stats/overview?ids=1,2,3
+    @GetMapping("/stats/overview")
+    public CompletableFuture<ResponseEntity<List<ParkingLotStatsDTO>>> getStatsOverview(
+            @RequestParam(required = false) List<Long> ids) {
+        return clientService.async(() -> parkingService.getParkingLotStats(ids)).thenApply(ResponseEntity::ok);
+    }
+
+    // Keyset pages of the spots in a status across all lots: ?size=100, then ?after=<nextCursor>
+    @GetMapping("/spots/status/{status}/page")
+    public CompletableFuture<ResponseEntity<PageDTO<ParkingSpotDTO>>> getSpotsByStatusPage(
+            @PathVariable SpotStatus status, @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "100") int size) {
+        return clientService.async(() -> parkingService.findByStatusPage(status, after, size))
+                .thenApply(ResponseEntity::ok);
+    }
+
+    // Status changes of a spot (entry, exit, reserve, cancel, operator), newest first:
+    // ?size=100, then ?before=<nextCursor>
+    @GetMapping("/spots/{spotId}/history")
+    public CompletableFuture<ResponseEntity<PageDTO<SpotTransitionDTO>>> getSpotHistory(@PathVariable long spotId,
+            @RequestParam(required = false) Long before, @RequestParam(defaultValue = "100") int size) {
+        return clientService.async(() -> parkingService.getSpotHistory(spotId, before, size))
+                .thenApply(ResponseEntity::ok);
+    }
+
+    // Reservation history of a lot, newest first: ?size=100, then ?before=<nextCursor>
+    @GetMapping("/parking/{parkingId}/reservations/page")
+    public CompletableFuture<ResponseEntity<PageDTO<ReservationDTO>>> getReservationsByParkingPage(
+            @PathVariable long parkingId, @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "100") int size) {
+        return clientService.async(() -> parkingService.getReservationsByParkingLotPage(parkingId, before, size))
+                .thenApply(ResponseEntity::ok);
     }
 
     @GetMapping("/stats/{status}")
@@ -77,24 +183,18 @@ public class AdminController {
     public ResponseEntity<?> getStatofParking(@PathVariable long parkingId)throws Exception{
         Map<String, Object> stats = new HashMap<>();
 
-        Long available = parkingService.countAvailableSpots(parkingId);
-        var list = parkingService.getAllSpotsByParkingLot(parkingId);
-        System.out.println(list.size());
-        Long occupied = list.size()-available;
-        
-        Double revenue = parkingService.getTotalRevenueByParkingLotId(parkingId);
+        // One aggregate RMI call instead of count + full spot list + revenue
+        List<ParkingLotStatsDTO> list = parkingService.getParkingLotStats(List.of(parkingId));
+        ParkingLotStatsDTO lotStats = list.isEmpty() ? new ParkingLotStatsDTO() : list.get(0);
+
+        long available = lotStats.getAvailableSpots();
+        long occupied = lotStats.getTotalSpots() - available;
 
-        // 3. Build the response map
         stats.put("parkingLotId", parkingId);
         stats.put("availableSpots", available);
         stats.put("occupiedSpots", occupied);
-        stats.put("totalRevenue", revenue);
-        double total =available+occupied;
-        // Calculate Occupancy Rate manually here (since we have the raw numbers)
-        double occupancyRate = (total == 0) ? 0.0 : ((double) occupied / total) * 100;
-        stats.put("occupancyRate", Math.round(occupancyRate * 100.0) / 100.0); // Round to 2 decimals
-        stats.put("occupancyRate", occupancyRate);
-        System.out.println(stats);
+        stats.put("totalRevenue", lotStats.getTotalRevenue());
+        stats.put("occupancyRate", lotStats.getOccupancyRate());
 
         return ResponseEntity.ok(stats);
     }
@@ -2,15 +2,20 @@ package com.example.parking_rmi.controller;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.example.parking_rmi.service.OccupancyStreamService;
 import com.example.parking_rmi.service.ParkingServ;
-import com.example.parking_rmi.Interface.ParkingService;
+import com.example.parking_rmi.dto.PageDTO;
 import com.example.parking_rmi.dto.ParkingLotDTO;
 import com.example.parking_rmi.dto.ParkingSpotDTO;
-import com.example.parking_rmi.dto.ReservationDTO;
+import com.example.parking_rmi.dto.SpotChangesDTO;
 import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
 
 @RestController
@@ -21,42 +26,70 @@ public class ParkingController {
     private ParkingServ clientService;
 
     @Autowired
-    private ParkingService parkingService;
+    private OccupancyStreamService occupancyStream;
 
     @GetMapping("/lots")
-    public ResponseEntity<List<ParkingLotDTO>> getAllParkingLots() {
-        return ResponseEntity.ok(clientService.getAllParkingLots());
+    public CompletableFuture<ResponseEntity<List<ParkingLotDTO>>> getAllParkingLots() {
+        return clientService.getAllParkingLotsAsync().thenApply(ResponseEntity::ok);
+    }
+
+    // Keyset pages: /lots/page?size=50, then ?after=<nextCursor> until nextCursor is null
+    @GetMapping("/lots/page")
+    public CompletableFuture<ResponseEntity<PageDTO<ParkingLotDTO>>> getParkingLotsPage(
+            @RequestParam(required = false) Long after, @RequestParam(defaultValue = "50") int size) {
+        return clientService.getParkingLotsPageAsync(after, size).thenApply(ResponseEntity::ok);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ParkingLotDTO> getParkingLotById(@PathVariable Long id) throws Exception {
-        ParkingLotDTO lot = parkingService.getParkingLotById(id);
-        List <ParkingSpotDTO> parkingSpotDTOs = parkingService.getAllSpotsByParkingLot(id);
-        List<ReservationDTO> reservationDTOs = parkingService.getReservationDTOsByParkingLot(id);
-        lot.setSpots(parkingSpotDTOs);
-        lot.setReservations(reservationDTOs);
-        return ResponseEntity.ok(lot);
+    public CompletableFuture<ResponseEntity<ParkingLotDTO>> getParkingLotById(@PathVariable Long id) {
+        return clientService.getParkingLotWithDetailsAsync(id).thenApply(lot -> {
+            if (lot == null) {
+                return ResponseEntity.notFound().<ParkingLotDTO>build();
+            }
+            return ResponseEntity.ok(lot);
+        });
     }
 
     @GetMapping("/{id}/spots/available")
-    public ResponseEntity<List<ParkingSpotDTO>> getAvailableSpots(@PathVariable Long id)throws Exception {
-        List<ParkingSpotDTO> parkingSpotDTOs =parkingService.getAllSpotsByParkingLot(id);
-        List<ParkingSpotDTO> resulta = new ArrayList<>();
-        for (ParkingSpotDTO parkingSpotDTO : parkingSpotDTOs) {
-            if (parkingSpotDTO.getStatus().equals(SpotStatus.AVAILABLE.name())) {
-                resulta.add(parkingSpotDTO);
+    public CompletableFuture<ResponseEntity<List<ParkingSpotDTO>>> getAvailableSpots(@PathVariable Long id) {
+        return clientService.getAllSpotsByParkingLotAsync(id).thenApply(parkingSpotDTOs -> {
+            List<ParkingSpotDTO> resulta = new ArrayList<>();
+            for (ParkingSpotDTO parkingSpotDTO : parkingSpotDTOs) {
+                if (parkingSpotDTO.getStatus().equals(SpotStatus.AVAILABLE.name())) {
+                    resulta.add(parkingSpotDTO);
+                }
             }
-        }
-        return ResponseEntity.ok(resulta);
+            return ResponseEntity.ok(resulta);
+        });
     }
     
 
+    // Only the spots changed since the version returned by the previous call
+    // (since=0 or a stale version -> every spot, with full=true)
+    @GetMapping("/{id}/spots/changes")
+    public CompletableFuture<ResponseEntity<SpotChangesDTO>> getSpotChanges(@PathVariable Long id,
+            @RequestParam(defaultValue = "0") long since) {
+        return clientService.getSpotChangesSinceAsync(id, since).thenApply(ResponseEntity::ok);
+    }
+
+    // Live spot changes of one lot (Server-Sent Events): "snapshot" then "spots" batches
+    @GetMapping(path = "/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamParkingLot(@PathVariable Long id) {
+        return occupancyStream.subscribe(id);
+    }
+
+    // Live available counters of every lot: "lots" events (lotId -> availableSpots)
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAllParkingLots() {
+        return occupancyStream.subscribe(null);
+    }
+
     // Zid had l method f ParkingController.java
 
     @GetMapping("/{id}/spots") // <--- Hada howa l path li kan na9s
-    public ResponseEntity<List<ParkingSpotDTO>> getSpotsByParkingId(@PathVariable Long id) throws Exception {
+    public CompletableFuture<ResponseEntity<List<ParkingSpotDTO>>> getSpotsByParkingId(@PathVariable Long id) {
         // Hna kansta3mlo nafss service li déjà knti dayr f getParkingLotById
-        return ResponseEntity.ok(parkingService.getAllSpotsByParkingLot(id));
+        return clientService.getAllSpotsByParkingLotAsync(id).thenApply(ResponseEntity::ok);
     }
 
     
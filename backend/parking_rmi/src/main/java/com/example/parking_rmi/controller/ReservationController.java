@@ -2,13 +2,16 @@ package com.example.parking_rmi.controller;
 
 import com.example.parking_rmi.service.ParkingServ; // ✅ Import Wrapper
 import com.example.parking_rmi.Interface.ParkingService;
+import com.example.parking_rmi.dto.PageDTO;
 import com.example.parking_rmi.dto.ReservationDTO;
+import com.example.parking_rmi.dto.SpotPreferenceDTO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/reservations")
@@ -24,38 +27,62 @@ public class ReservationController {
      * 1. Créer une réservation
      */
     @PostMapping
-    public ResponseEntity<ReservationDTO> createReservation(@RequestBody ReservationDTO reservationDTO) {
+    public CompletableFuture<ResponseEntity<ReservationDTO>> createReservation(@RequestBody ReservationDTO reservationDTO) {
         // Validation simple
         if (reservationDTO.getParkingLotId() == null || reservationDTO.getParkingSpotId() == null) {
-            return ResponseEntity.badRequest().build();
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
         }
 
-        ReservationDTO created = clientService.createReservation(reservationDTO);
-
-        if (created != null) {
-            return new ResponseEntity<>(created, HttpStatus.CREATED);
-        } else {
+        return clientService.createReservationAsync(reservationDTO).thenApply(created -> {
+            if (created != null) {
+                return new ResponseEntity<>(created, HttpStatus.CREATED);
+            }
             // Ila rje3 null, ya3ni blassa 3amra ola parking makaynch
-            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            return ResponseEntity.status(HttpStatus.CONFLICT).<ReservationDTO>build();
+        });
+    }
+
+    /**
+     * Réserver la meilleure place libre du parking: le serveur choisit la place
+     * selon ?spotType=&floorNumber=&section=&accessible=&covered=&electricCharging=&strict=
+     */
+    @PostMapping("/best")
+    public CompletableFuture<ResponseEntity<ReservationDTO>> reserveBestAvailableSpot(
+            @RequestBody ReservationDTO reservationDTO, @ModelAttribute SpotPreferenceDTO preferences) {
+        if (reservationDTO.getParkingLotId() == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
         }
+        return clientService.async(() -> parkingService.reserveBestAvailableSpot(reservationDTO, preferences))
+                .thenApply(created -> created != null
+                        ? new ResponseEntity<>(created, HttpStatus.CREATED)
+                        : ResponseEntity.status(HttpStatus.CONFLICT).<ReservationDTO>build());
     }
 
     /**
      * 2. Annuler une réservation
      */
     @PostMapping("/{id}")
-    public ResponseEntity<Void> cancelReservation(@PathVariable Long id) {
-        boolean isCancelled = clientService.cancelReservation(id);
-        if (isCancelled) {
-            return ResponseEntity.ok().build();
-        } else {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-        }
+    public CompletableFuture<ResponseEntity<Void>> cancelReservation(@PathVariable Long id) {
+        return clientService.cancelReservationAsync(id).thenApply(isCancelled -> {
+            if (isCancelled) {
+                return ResponseEntity.ok().<Void>build();
+            }
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).<Void>build();
+        });
     }
 
     @GetMapping("/user/{email}")
-    public ResponseEntity<List<ReservationDTO>> getReservationByEmail(@PathVariable String email)throws Exception {
-        List<ReservationDTO> reservations =parkingService.getReservationsByUserEmail(email);
-        return ResponseEntity.ok(reservations);
+    public CompletableFuture<ResponseEntity<List<ReservationDTO>>> getReservationByEmail(@PathVariable String email) {
+        return clientService.async(() -> parkingService.getReservationsByUserEmail(email))
+                .thenApply(ResponseEntity::ok);
+    }
+
+    // Keyset pages, newest first: ?size=20, then ?before=<nextCursor> until nextCursor is null
+    @GetMapping("/user/{email}/page")
+    public CompletableFuture<ResponseEntity<PageDTO<ReservationDTO>>> getReservationPageByEmail(
+            @PathVariable String email, @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "20") int size) {
+        return clientService.async(() -> parkingService.getReservationsByUserEmailPage(email, before, size))
+                .thenApply(ResponseEntity::ok);
     }
 }
\ No newline at end of file
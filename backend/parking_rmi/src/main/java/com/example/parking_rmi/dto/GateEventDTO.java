@@ -0,0 +1,24 @@
+package com.example.parking_rmi.dto;
+
+import java.io.Serializable;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One car entry or exit reported by a gate (applyGateEvents).
+ *
+ * event is ENTRY or EXIT; timestampMillis is when the gate saw it (stored as
+ * the spot's last occupation and update time), null for now.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GateEventDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private Long spotId;
+    private String event;
+    private Long timestampMillis;
+}
@@ -0,0 +1,22 @@
+package com.example.parking_rmi.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One page of a keyset-paginated listing.
+ * nextCursor is the id to pass back for the following page, null on the last one.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageDTO<T> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private List<T> items;
+    private Long nextCursor;
+}
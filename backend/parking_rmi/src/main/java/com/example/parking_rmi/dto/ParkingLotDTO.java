@@ -1,10 +1,15 @@
 package com.example.parking_rmi.dto;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+
+import com.example.parking_rmi.model.ParkingLot.ParkingStatus;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -12,7 +17,7 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class ParkingLotDTO implements Serializable {
+public class ParkingLotDTO implements Externalizable {
     private static final long serialVersionUID = 1L;
 
     private Long id;
@@ -35,4 +40,91 @@ public class ParkingLotDTO implements Serializable {
 
     private List<ParkingSpotDTO> spots = new ArrayList<>();
     private List<ReservationDTO> reservations = new ArrayList<>();
-}
\ No newline at end of file
+
+    // Compact RMI encoding, see DtoWire.
+    // Lists are written by position, so the list field names may differ between server and backend.
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        DtoWire.writeVersion(out);
+        int nulls = DtoWire.bit(0, id) | DtoWire.bit(1, name) | DtoWire.bit(2, address)
+                | DtoWire.bit(3, city) | DtoWire.bit(4, latitude) | DtoWire.bit(5, longitude)
+                | DtoWire.bit(6, totalSpots) | DtoWire.bit(7, availableSpots) | DtoWire.bit(8, rmiHost)
+                | DtoWire.bit(9, rmiPort) | DtoWire.bit(10, rmiServiceName) | DtoWire.bit(11, status)
+                | DtoWire.bit(12, hourlyRate) | DtoWire.bit(13, openingTime) | DtoWire.bit(14, closingTime)
+                | DtoWire.bit(15, createdAt) | DtoWire.bit(16, updatedAt)
+                | DtoWire.bit(17, spots) | DtoWire.bit(18, reservations);
+        out.writeInt(nulls);
+        if (id != null) out.writeLong(id);
+        if (name != null) out.writeUTF(name);
+        if (address != null) out.writeUTF(address);
+        if (city != null) out.writeUTF(city);
+        if (latitude != null) DtoWire.writeDecimal(out, latitude);
+        if (longitude != null) DtoWire.writeDecimal(out, longitude);
+        if (totalSpots != null) out.writeInt(totalSpots);
+        if (availableSpots != null) out.writeInt(availableSpots);
+        if (rmiHost != null) out.writeUTF(rmiHost);
+        if (rmiPort != null) out.writeInt(rmiPort);
+        if (rmiServiceName != null) out.writeUTF(rmiServiceName);
+        if (status != null) DtoWire.writeEnum(out, status, ParkingStatus.values());
+        if (hourlyRate != null) DtoWire.writeDecimal(out, hourlyRate);
+        if (openingTime != null) out.writeUTF(openingTime);
+        if (closingTime != null) out.writeUTF(closingTime);
+        if (createdAt != null) DtoWire.writeTime(out, createdAt);
+        if (updatedAt != null) DtoWire.writeTime(out, updatedAt);
+        if (spots != null) {
+            out.writeInt(spots.size());
+            for (ParkingSpotDTO spot : spots) {
+                spot.writeExternal(out);
+            }
+        }
+        if (reservations != null) {
+            out.writeInt(reservations.size());
+            for (ReservationDTO reservation : reservations) {
+                reservation.writeExternal(out);
+            }
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        DtoWire.readVersion(in);
+        int nulls = in.readInt();
+        id = DtoWire.has(nulls, 0) ? in.readLong() : null;
+        name = DtoWire.has(nulls, 1) ? in.readUTF() : null;
+        address = DtoWire.has(nulls, 2) ? in.readUTF() : null;
+        city = DtoWire.has(nulls, 3) ? in.readUTF() : null;
+        latitude = DtoWire.has(nulls, 4) ? DtoWire.readDecimal(in) : null;
+        longitude = DtoWire.has(nulls, 5) ? DtoWire.readDecimal(in) : null;
+        totalSpots = DtoWire.has(nulls, 6) ? in.readInt() : null;
+        availableSpots = DtoWire.has(nulls, 7) ? in.readInt() : null;
+        rmiHost = DtoWire.has(nulls, 8) ? in.readUTF() : null;
+        rmiPort = DtoWire.has(nulls, 9) ? in.readInt() : null;
+        rmiServiceName = DtoWire.has(nulls, 10) ? in.readUTF() : null;
+        status = DtoWire.has(nulls, 11) ? DtoWire.readEnum(in, ParkingStatus.values()) : null;
+        hourlyRate = DtoWire.has(nulls, 12) ? DtoWire.readDecimal(in) : null;
+        openingTime = DtoWire.has(nulls, 13) ? in.readUTF() : null;
+        closingTime = DtoWire.has(nulls, 14) ? in.readUTF() : null;
+        createdAt = DtoWire.has(nulls, 15) ? DtoWire.readTime(in) : null;
+        updatedAt = DtoWire.has(nulls, 16) ? DtoWire.readTime(in) : null;
+        spots = null;
+        if (DtoWire.has(nulls, 17)) {
+            int size = in.readInt();
+            spots = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                ParkingSpotDTO spot = new ParkingSpotDTO();
+                spot.readExternal(in);
+                spots.add(spot);
+            }
+        }
+        reservations = null;
+        if (DtoWire.has(nulls, 18)) {
+            int size = in.readInt();
+            reservations = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                ReservationDTO reservation = new ReservationDTO();
+                reservation.readExternal(in);
+                reservations.add(reservation);
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.parking_rmi.dto;
+
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per-lot counters for the admin stats screen.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParkingLotStatsDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private Long parkingLotId;
+    private String name;
+    private long availableSpots;
+    private long occupiedSpots;
+    private long reservedSpots;
+    private long maintenanceSpots;
+    private long totalSpots;
+    private double totalRevenue;
+    private double occupancyRate;
+}
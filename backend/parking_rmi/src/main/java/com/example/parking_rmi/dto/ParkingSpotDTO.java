@@ -1,7 +1,14 @@
 package com.example.parking_rmi.dto;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.time.LocalDateTime;
+
+import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
+import com.example.parking_rmi.model.ParkingSpot.SpotType;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -9,7 +16,7 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class ParkingSpotDTO implements Serializable {
+public class ParkingSpotDTO implements Externalizable {
     private static final long serialVersionUID = 1L;
 
     private Long id;
@@ -23,4 +30,43 @@ public class ParkingSpotDTO implements Serializable {
     private Boolean isElectricCharging;
     private LocalDateTime lastOccupiedAt;
     private Long parkingLotId; // ID only to prevent circular reference
-}
\ No newline at end of file
+
+    // Compact RMI encoding, see DtoWire
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        DtoWire.writeVersion(out);
+        int nulls = DtoWire.bit(0, id) | DtoWire.bit(1, spotNumber) | DtoWire.bit(2, status)
+                | DtoWire.bit(3, spotType) | DtoWire.bit(4, floorNumber) | DtoWire.bit(5, section)
+                | DtoWire.bit(6, isAccessible) | DtoWire.bit(7, isCovered) | DtoWire.bit(8, isElectricCharging)
+                | DtoWire.bit(9, lastOccupiedAt) | DtoWire.bit(10, parkingLotId);
+        out.writeInt(nulls);
+        if (id != null) out.writeLong(id);
+        if (spotNumber != null) out.writeUTF(spotNumber);
+        if (status != null) DtoWire.writeEnum(out, status, SpotStatus.values());
+        if (spotType != null) DtoWire.writeEnum(out, spotType, SpotType.values());
+        if (floorNumber != null) out.writeInt(floorNumber);
+        if (section != null) out.writeUTF(section);
+        if (isAccessible != null) out.writeBoolean(isAccessible);
+        if (isCovered != null) out.writeBoolean(isCovered);
+        if (isElectricCharging != null) out.writeBoolean(isElectricCharging);
+        if (lastOccupiedAt != null) DtoWire.writeTime(out, lastOccupiedAt);
+        if (parkingLotId != null) out.writeLong(parkingLotId);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        DtoWire.readVersion(in);
+        int nulls = in.readInt();
+        id = DtoWire.has(nulls, 0) ? in.readLong() : null;
+        spotNumber = DtoWire.has(nulls, 1) ? in.readUTF() : null;
+        status = DtoWire.has(nulls, 2) ? DtoWire.readEnum(in, SpotStatus.values()) : null;
+        spotType = DtoWire.has(nulls, 3) ? DtoWire.readEnum(in, SpotType.values()) : null;
+        floorNumber = DtoWire.has(nulls, 4) ? in.readInt() : null;
+        section = DtoWire.has(nulls, 5) ? in.readUTF() : null;
+        isAccessible = DtoWire.has(nulls, 6) ? in.readBoolean() : null;
+        isCovered = DtoWire.has(nulls, 7) ? in.readBoolean() : null;
+        isElectricCharging = DtoWire.has(nulls, 8) ? in.readBoolean() : null;
+        lastOccupiedAt = DtoWire.has(nulls, 9) ? DtoWire.readTime(in) : null;
+        parkingLotId = DtoWire.has(nulls, 10) ? in.readLong() : null;
+    }
+}
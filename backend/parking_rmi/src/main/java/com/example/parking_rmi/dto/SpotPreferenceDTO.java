@@ -0,0 +1,30 @@
+package com.example.parking_rmi.dto;
+
+import java.io.Serializable;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What a driver would like for reserveBestAvailableSpot. Null fields do not
+ * matter; accessible and electricCharging only count when true.
+ *
+ * Preferences are ranked (spot type, accessible, EV charging, covered, floor,
+ * section) and the free spot matching best is taken; with strict = true a
+ * spot must match every preference given, or nothing is reserved.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpotPreferenceDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String spotType;
+    private Integer floorNumber;
+    private String section;
+    private Boolean accessible;
+    private Boolean covered;
+    private Boolean electricCharging;
+    private boolean strict;
+}
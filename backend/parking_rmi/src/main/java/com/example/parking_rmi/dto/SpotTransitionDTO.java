@@ -0,0 +1,29 @@
+package com.example.parking_rmi.dto;
+
+import java.io.Serializable;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One recorded status change of a spot (getSpotHistory).
+ *
+ * seq orders the changes of the RMI server that owns the spot; kind is
+ * ENTRY, EXIT, RESERVE, CANCEL or STATUS (set by an operator). fromStatus is
+ * null when the previous status was not known.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpotTransitionDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private long seq;
+    private Long parkingLotId;
+    private Long spotId;
+    private String kind;
+    private String fromStatus;
+    private String toStatus;
+    private long timestampMillis;
+}
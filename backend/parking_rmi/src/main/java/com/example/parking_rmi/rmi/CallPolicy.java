@@ -0,0 +1,265 @@
+package com.example.parking_rmi.rmi;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.rmi.RemoteException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.example.parking_rmi.Interface.ParkingService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Deadlines, circuit breaker and hedged reads around a ParkingService proxy.
+ *
+ * - every call gets a deadline (Settings.timeoutFor): past it the caller gets
+ *   a CallTimeoutException and the call thread is abandoned (interrupted)
+ * - after failureThreshold failures in a row (connection errors, timeouts)
+ *   the breaker opens and calls fail at once with CircuitOpenException; after
+ *   openMillis one probe call goes through and closes it again on success
+ * - a hedged method (idempotent reads only) still unanswered after
+ *   hedgeDelayMillis is sent to the hedge target too and the first successful
+ *   answer wins
+ *
+ * An answer from the server, even an exception (business error,
+ * ServerBusyException, WrongShardException), counts as a success for the
+ * breaker and is passed through unchanged.
+ */
+@Slf4j
+public class CallPolicy implements InvocationHandler {
+
+    public record Settings(long defaultTimeoutMillis, Map<String, Long> timeouts, int failureThreshold,
+            long openMillis, Set<String> hedgedMethods, long hedgeDelayMillis) {
+
+        public Settings {
+            timeouts = Map.copyOf(timeouts);
+            hedgedMethods = Set.copyOf(hedgedMethods);
+        }
+
+        long timeoutFor(String method) {
+            return timeouts.getOrDefault(method, defaultTimeoutMillis);
+        }
+
+        /** Parses "method:ms,method:ms". */
+        public static Map<String, Long> parseTimeouts(String value) {
+            Map<String, Long> timeouts = new HashMap<>();
+            for (String entry : value.split(",")) {
+                int colon = entry.indexOf(':');
+                if (colon > 0) {
+                    timeouts.put(entry.substring(0, colon).trim(), Long.parseLong(entry.substring(colon + 1).trim()));
+                }
+            }
+            return timeouts;
+        }
+    }
+
+    private enum State { CLOSED, OPEN, HALF_OPEN }
+
+    // Call threads are virtual: one blocked on a dead socket costs almost nothing
+    private static final ExecutorService CALLS =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("rmi-call-", 0).factory());
+
+    private final String name;
+    private final ParkingService target;
+    private final ParkingService hedgeTarget;
+    private final Settings settings;
+
+    // Breaker; state is read without the lock on the fast path
+    private volatile State state = State.CLOSED;
+    private volatile int consecutiveFailures;
+    private long openedAt;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder trips = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final Map<String, LongAdder> timeoutsByMethod = new ConcurrentHashMap<>();
+
+    /** hedgeTarget: second endpoint for hedged reads, or null to disable hedging. */
+    public CallPolicy(String name, ParkingService target, ParkingService hedgeTarget, Settings settings) {
+        this.name = name;
+        this.target = target;
+        this.hedgeTarget = hedgeTarget;
+        this.settings = settings;
+    }
+
+    public ParkingService proxy() {
+        return (ParkingService) Proxy.newProxyInstance(ParkingService.class.getClassLoader(),
+                new Class<?>[] { ParkingService.class }, this);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> "CallPolicy[" + name + "]";
+            };
+        }
+        if (!allowCall()) {
+            rejected.increment();
+            throw new CircuitOpenException("RMI circuit open for " + name + ", failing fast");
+        }
+        calls.increment();
+        boolean hedged = hedgeTarget != null && settings.hedgedMethods().contains(method.getName());
+        try {
+            Object result = call(method, args, hedged);
+            onSuccess();
+            return result;
+        } catch (CallTimeoutException e) {
+            timeouts.increment();
+            timeoutsByMethod.computeIfAbsent(method.getName(), m -> new LongAdder()).increment();
+            onFailure(e);
+            throw e;
+        } catch (RemoteException e) {
+            if (answered(e)) {
+                onSuccess();
+            } else {
+                onFailure(e);
+            }
+            throw e;
+        } catch (RuntimeException | Error e) {
+            onSuccess();
+            throw e;
+        }
+    }
+
+    private Object call(Method method, Object[] args, boolean hedged) throws Throwable {
+        long timeout = settings.timeoutFor(method.getName());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        // Attempts still able to answer: the result fails only when none is left
+        AtomicInteger pending = new AtomicInteger(hedged ? 2 : 1);
+        Future<?> first = CALLS.submit(() -> attempt(target, method, args, result, pending, false));
+        Future<?> second = null;
+        try {
+            if (hedged && !result.isDone()) {
+                try {
+                    return result.get(Math.min(settings.hedgeDelayMillis(), timeout), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException slow) {
+                    hedges.increment();
+                    second = CALLS.submit(() -> attempt(hedgeTarget, method, args, result, pending, true));
+                }
+            }
+            return result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            throw new CallTimeoutException(method.getName() + " on " + name + " exceeded its " + timeout + " ms deadline");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CallTimeoutException(method.getName() + " on " + name + " interrupted");
+        } finally {
+            first.cancel(true);
+            if (second != null) {
+                second.cancel(true);
+            }
+        }
+    }
+
+    private void attempt(ParkingService service, Method method, Object[] args, CompletableFuture<Object> result,
+            AtomicInteger pending, boolean hedge) {
+        try {
+            Object value = method.invoke(service, args);
+            // Counted before completing, so the caller sees it once it has the result
+            if (hedge) {
+                hedgeWins.increment();
+            }
+            if (!result.complete(value) && hedge) {
+                hedgeWins.decrement();
+            }
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            // A connection failure leaves room for the other attempt; an answer ends the call
+            if (!(cause instanceof RemoteException remote) || answered(remote) || pending.decrementAndGet() == 0) {
+                result.completeExceptionally(cause);
+            }
+        } catch (IllegalAccessException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    // Exceptions sent back by a server that is up and answering
+    private static boolean answered(RemoteException e) {
+        return e instanceof ServerBusyException || e instanceof WrongShardException;
+    }
+
+    // ==================== CIRCUIT BREAKER ====================
+
+    private boolean allowCall() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.OPEN && System.currentTimeMillis() - openedAt >= settings.openMillis()) {
+                state = State.HALF_OPEN; // this call is the probe, the others keep failing fast
+                return true;
+            }
+            return state == State.CLOSED;
+        }
+    }
+
+    private void onSuccess() {
+        if (state == State.CLOSED && consecutiveFailures == 0) {
+            return;
+        }
+        synchronized (this) {
+            consecutiveFailures = 0;
+            if (state != State.CLOSED) {
+                state = State.CLOSED;
+                log.info("RMI circuit for {} closed", name);
+            }
+        }
+    }
+
+    private void onFailure(RemoteException e) {
+        failures.increment();
+        synchronized (this) {
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN
+                    || (state == State.CLOSED && consecutiveFailures >= settings.failureThreshold())) {
+                state = State.OPEN;
+                openedAt = System.currentTimeMillis();
+                trips.increment();
+                log.warn("RMI circuit for {} opened after {} failure(s), last: {}", name, consecutiveFailures, e.toString());
+            }
+        }
+    }
+
+    public Map<String, Object> toHealth() {
+        Map<String, Object> health = new LinkedHashMap<>();
+        health.put("name", name);
+        health.put("state", state.name());
+        health.put("consecutiveFailures", consecutiveFailures);
+        health.put("calls", calls.sum());
+        health.put("failures", failures.sum());
+        health.put("timeouts", timeouts.sum());
+        health.put("trips", trips.sum());
+        health.put("rejected", rejected.sum());
+        health.put("hedges", hedges.sum());
+        health.put("hedgeWins", hedgeWins.sum());
+        Map<String, Long> byMethod = new LinkedHashMap<>();
+        timeoutsByMethod.forEach((method, count) -> byMethod.put(method, count.sum()));
+        health.put("timeoutsByMethod", byMethod);
+        return health;
+    }
+}
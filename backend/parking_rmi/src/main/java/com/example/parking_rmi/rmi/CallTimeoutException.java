@@ -0,0 +1,16 @@
+package com.example.parking_rmi.rmi;
+
+import java.rmi.RemoteException;
+
+/**
+ * Thrown by CallPolicy when a remote call misses its deadline. The call may
+ * still complete on the server: only idempotent calls can be replayed.
+ */
+public class CallTimeoutException extends RemoteException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CallTimeoutException(String message) {
+        super(message);
+    }
+}
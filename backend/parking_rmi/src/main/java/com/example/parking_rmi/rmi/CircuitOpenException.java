@@ -0,0 +1,16 @@
+package com.example.parking_rmi.rmi;
+
+import java.rmi.RemoteException;
+
+/**
+ * Thrown by CallPolicy without calling the server while its circuit breaker
+ * is open. Nothing was sent; the call can be retried once the server recovers.
+ */
+public class CircuitOpenException extends RemoteException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.parking_rmi.rmi;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.rmi.ConnectException;
+import java.rmi.ConnectIOException;
+import java.rmi.NoSuchObjectException;
+import java.rmi.NotBoundException;
+import java.rmi.RemoteException;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.example.parking_rmi.Interface.ParkingService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Managed RMI client behind the ParkingService bean.
+ *
+ * - the stub is looked up lazily, so the backend boots even if no RMI server is up
+ * - calls are spread round-robin over the configured endpoints
+ * - when a call fails before reaching the server (connection refused, stale stub
+ *   after a server restart) the stub is dropped and the call is retried on the
+ *   next endpoint; the failed endpoint is retried after a short delay
+ * - a call refused by the server's admission control (ServerBusyException) is
+ *   tried on the next endpoint without marking the busy one down
+ * - with a CallPolicy, proxy() adds deadlines, a circuit breaker over the
+ *   whole endpoint list and hedged reads
+ */
+@Slf4j
+public class ParkingServiceClient implements InvocationHandler {
+
+    /** Resolves a stub for an endpoint (registry lookup in production). */
+    public interface StubLookup {
+        ParkingService lookup(RmiEndpoint endpoint) throws RemoteException, NotBoundException;
+    }
+
+    private static final Object RETRY_FAILED = new Object();
+
+    private final List<RmiEndpoint> endpoints;
+    private final StubLookup stubLookup;
+    private final long retryDelayMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile CallPolicy policy;
+
+    public ParkingServiceClient(List<RmiEndpoint> endpoints, long retryDelayMillis) {
+        this(endpoints, retryDelayMillis, ParkingServiceClient::registryLookup);
+    }
+
+    ParkingServiceClient(List<RmiEndpoint> endpoints, long retryDelayMillis, StubLookup stubLookup) {
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("At least one RMI endpoint is required");
+        }
+        this.endpoints = List.copyOf(endpoints);
+        this.retryDelayMillis = retryDelayMillis;
+        this.stubLookup = stubLookup;
+    }
+
+    private static ParkingService registryLookup(RmiEndpoint endpoint) throws RemoteException, NotBoundException {
+        Registry registry = LocateRegistry.getRegistry(endpoint.getHost(), endpoint.getPort());
+        return (ParkingService) registry.lookup(endpoint.getServiceName());
+    }
+
+    /** Routes proxy() calls through a CallPolicy; hedgeTarget may be null. */
+    public ParkingServiceClient withPolicy(CallPolicy.Settings settings, ParkingService hedgeTarget) {
+        this.policy = new CallPolicy(endpoints.toString(), rawProxy(), hedgeTarget, settings);
+        return this;
+    }
+
+    public CallPolicy getPolicy() {
+        return policy;
+    }
+
+    public ParkingService proxy() {
+        CallPolicy current = policy;
+        return current != null ? current.proxy() : rawProxy();
+    }
+
+    /** Failover only, without the CallPolicy. */
+    public ParkingService rawProxy() {
+        return (ParkingService) Proxy.newProxyInstance(ParkingService.class.getClassLoader(),
+                new Class<?>[] { ParkingService.class }, this);
+    }
+
+    public List<RmiEndpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    public List<Map<String, Object>> getHealth() {
+        List<Map<String, Object>> health = new ArrayList<>();
+        for (RmiEndpoint endpoint : endpoints) {
+            health.add(endpoint.toHealth());
+        }
+        return health;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> "ParkingServiceClient" + endpoints;
+            };
+        }
+
+        Exception lastFailure = null;
+        boolean refreshed = false;
+        for (int attempt = 0; attempt < endpoints.size(); attempt++) {
+            RmiEndpoint endpoint = select();
+            try {
+                ParkingService stub = resolve(endpoint);
+                Object result = method.invoke(stub, args);
+                endpoint.markSuccess();
+                return result;
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof ServerBusyException busy) {
+                    // Refused before running: another server may have room, this one stays healthy
+                    lastFailure = busy;
+                    continue;
+                }
+                if (!isRetryable(cause)) {
+                    // The server answered (business error or failure mid-call): not safe to replay
+                    throw cause;
+                }
+                lastFailure = (Exception) cause;
+                if (cause instanceof NoSuchObjectException && !refreshed) {
+                    // Server restarted behind the same registry: a fresh lookup is enough
+                    endpoint.setStub(null);
+                    refreshed = true;
+                    Object result = retryOn(endpoint, method, args);
+                    if (result != RETRY_FAILED) {
+                        return result;
+                    }
+                }
+                endpoint.markFailure(lastFailure, retryDelayMillis);
+                log.warn("RMI endpoint {} unavailable ({}), failing over", endpoint, cause.toString());
+            } catch (RemoteException | NotBoundException e) {
+                lastFailure = e;
+                endpoint.markFailure(e, retryDelayMillis);
+                log.warn("RMI lookup on {} failed ({})", endpoint, e.toString());
+            }
+        }
+
+        if (lastFailure instanceof RemoteException) {
+            throw lastFailure;
+        }
+        throw new ConnectException("No RMI endpoint available for " + method.getName(), lastFailure);
+    }
+
+    private Object retryOn(RmiEndpoint endpoint, Method method, Object[] args) throws Throwable {
+        try {
+            Object result = method.invoke(resolve(endpoint), args);
+            endpoint.markSuccess();
+            log.info("RMI stub for {} refreshed", endpoint);
+            return result;
+        } catch (InvocationTargetException e) {
+            if (!isRetryable(e.getCause())) {
+                throw e.getCause();
+            }
+            return RETRY_FAILED;
+        } catch (RemoteException | NotBoundException e) {
+            return RETRY_FAILED;
+        }
+    }
+
+    private ParkingService resolve(RmiEndpoint endpoint) throws RemoteException, NotBoundException {
+        ParkingService stub = endpoint.getStub();
+        if (stub == null) {
+            synchronized (endpoint) {
+                stub = endpoint.getStub();
+                if (stub == null) {
+                    stub = stubLookup.lookup(endpoint);
+                    endpoint.setStub(stub);
+                    log.info("✅ Connected to RMI endpoint {}", endpoint);
+                }
+            }
+        }
+        return stub;
+    }
+
+    // Round-robin over endpoints, skipping the ones still in their retry delay
+    private RmiEndpoint select() {
+        long now = System.currentTimeMillis();
+        int start = Math.floorMod(next.getAndIncrement(), endpoints.size());
+        for (int i = 0; i < endpoints.size(); i++) {
+            RmiEndpoint candidate = endpoints.get((start + i) % endpoints.size());
+            if (candidate.isSelectable(now)) {
+                return candidate;
+            }
+        }
+        // Everything is down: try anyway rather than failing without a connection attempt
+        return endpoints.get(start);
+    }
+
+    // Failures where the call cannot have executed on the server
+    private static boolean isRetryable(Throwable cause) {
+        return cause instanceof ConnectException
+                || cause instanceof ConnectIOException
+                || cause instanceof NoSuchObjectException;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.parking_rmi.rmi;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.example.parking_rmi.Interface.ParkingService;
+
+import lombok.Getter;
+
+/**
+ * One RMI server the backend can talk to, with its cached stub and health.
+ */
+@Getter
+public class RmiEndpoint {
+
+    private final String host;
+    private final int port;
+    private final String serviceName;
+
+    private volatile ParkingService stub;
+    private volatile boolean healthy = true;
+    private volatile long retryAfter;
+    private volatile long lastSuccessAt;
+    private volatile String lastError;
+    private volatile int consecutiveFailures;
+
+    public RmiEndpoint(String host, int port, String serviceName) {
+        this.host = host;
+        this.port = port;
+        this.serviceName = serviceName;
+    }
+
+    /** Parses "host:port" (port defaults to 1099). */
+    public static RmiEndpoint parse(String address, String serviceName) {
+        String value = address.trim();
+        int colon = value.lastIndexOf(':');
+        if (colon < 0) {
+            return new RmiEndpoint(value, 1099, serviceName);
+        }
+        return new RmiEndpoint(value.substring(0, colon), Integer.parseInt(value.substring(colon + 1)), serviceName);
+    }
+
+    boolean isSelectable(long now) {
+        return healthy || now >= retryAfter;
+    }
+
+    void setStub(ParkingService stub) {
+        this.stub = stub;
+    }
+
+    void markSuccess() {
+        healthy = true;
+        consecutiveFailures = 0;
+        lastSuccessAt = System.currentTimeMillis();
+    }
+
+    void markFailure(Exception e, long retryDelayMillis) {
+        stub = null; // force a new registry lookup next time
+        healthy = false;
+        consecutiveFailures++;
+        lastError = e.getClass().getSimpleName() + ": " + e.getMessage();
+        retryAfter = System.currentTimeMillis() + retryDelayMillis;
+    }
+
+    public Map<String, Object> toHealth() {
+        Map<String, Object> health = new LinkedHashMap<>();
+        health.put("endpoint", toString());
+        health.put("healthy", healthy);
+        health.put("connected", stub != null);
+        health.put("consecutiveFailures", consecutiveFailures);
+        health.put("lastSuccessAt", lastSuccessAt);
+        health.put("lastError", lastError);
+        return health;
+    }
+
+    @Override
+    public String toString() {
+        return host + ":" + port + "/" + serviceName;
+    }
+}
@@ -0,0 +1,640 @@
+package com.example.parking_rmi.rmi;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import com.example.parking_rmi.Interface.ParkingService;
+import com.example.parking_rmi.Interface.SpotEventListener;
+import com.example.parking_rmi.dto.GateEventDTO;
+import com.example.parking_rmi.dto.GateEventResultDTO;
+import com.example.parking_rmi.dto.MethodMetricsDTO;
+import com.example.parking_rmi.dto.PageDTO;
+import com.example.parking_rmi.dto.ParkingLotDTO;
+import com.example.parking_rmi.dto.ParkingLotSnapshotDTO;
+import com.example.parking_rmi.dto.ParkingLotStatsDTO;
+import com.example.parking_rmi.dto.ParkingSpotDTO;
+import com.example.parking_rmi.dto.ReservationDTO;
+import com.example.parking_rmi.dto.SpotChangesDTO;
+import com.example.parking_rmi.dto.SpotPreferenceDTO;
+import com.example.parking_rmi.dto.SpotTransitionDTO;
+import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ParkingService over several parking-rmi instances, each serving a subset of lots.
+ *
+ * - lot-scoped calls go to the lot's rmiHost:rmiPort/rmiServiceName, learned
+ *   from the lot listings (refreshed on a miss or a WrongShardException)
+ * - spot / reservation calls go to the lot of the spot / reservation when it
+ *   has been seen before, otherwise each instance is tried until one owns it
+ * - global calls (all lots, spots by status, totals, a user's reservations)
+ *   are sent to every instance in parallel and merged; an instance that is down
+ *   (failed call, open breaker) is left out and the others still answer
+ * - there is one client, breaker and socket pool per instance (host:port): every
+ *   name an instance binds, global or per lot, refers to the same exported service
+ */
+@Slf4j
+public class ShardedParkingService implements ParkingService, AutoCloseable {
+
+    /** Opens the client for one endpoint (a ParkingServiceClient in production). */
+    public interface ClientFactory {
+        ParkingServiceClient open(RmiEndpoint endpoint);
+    }
+
+    @FunctionalInterface
+    interface ShardCall<T> {
+        T call(ParkingService service) throws RemoteException;
+    }
+
+    private record Connection(ParkingServiceClient client, ParkingService service) {
+    }
+
+    private final List<RmiEndpoint> shards;
+    private final ClientFactory clientFactory;
+    // host:port -> client of that instance
+    private final Map<String, Connection> connections = new ConcurrentHashMap<>();
+
+    // Routing table: lot -> owning endpoint, spot / reservation -> lot
+    private final Map<Long, RmiEndpoint> lotRoutes = new ConcurrentHashMap<>();
+    private final Map<Long, Long> spotLots = new ConcurrentHashMap<>();
+    private final Map<Long, Long> reservationLots = new ConcurrentHashMap<>();
+
+    private final ExecutorService scatterExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ShardedParkingService(List<RmiEndpoint> shards, ClientFactory clientFactory) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one RMI shard is required");
+        }
+        this.shards = List.copyOf(shards);
+        this.clientFactory = clientFactory;
+    }
+
+    public List<Map<String, Object>> getHealth() {
+        List<Map<String, Object>> health = new ArrayList<>();
+        for (Connection connection : connections.values()) {
+            health.addAll(connection.client().getHealth());
+        }
+        return health;
+    }
+
+    public List<Map<String, Object>> getPolicyHealth() {
+        List<Map<String, Object>> health = new ArrayList<>();
+        for (Connection connection : connections.values()) {
+            if (connection.client().getPolicy() != null) {
+                health.add(connection.client().getPolicy().toHealth());
+            }
+        }
+        return health;
+    }
+
+    public Map<Long, String> getLotRoutes() {
+        Map<Long, String> routes = new LinkedHashMap<>();
+        lotRoutes.forEach((lotId, endpoint) -> routes.put(lotId, endpoint.toString()));
+        return routes;
+    }
+
+    @Override
+    public void close() {
+        scatterExecutor.shutdown();
+    }
+
+    // ==================== PARKING LOTS ====================
+
+    @Override
+    public List<ParkingLotDTO> getAllParkingLots() throws RemoteException {
+        List<ParkingLotDTO> lots = gatherLists(ParkingService::getAllParkingLots);
+        lots.sort(Comparator.comparing(ParkingLotDTO::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        lots.forEach(this::learnLot);
+        return lots;
+    }
+
+    @Override
+    public List<ParkingLotDTO> getActiveParkingLots() throws RemoteException {
+        List<ParkingLotDTO> lots = gatherLists(ParkingService::getActiveParkingLots);
+        lots.sort(Comparator.comparing(ParkingLotDTO::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        lots.forEach(this::learnLot);
+        return lots;
+    }
+
+    @Override
+    public PageDTO<ParkingLotDTO> getParkingLotsPage(Long afterId, int size) throws RemoteException {
+        PageDTO<ParkingLotDTO> page = mergePages(s -> s.getParkingLotsPage(afterId, size), size,
+                ParkingLotDTO::getId, false);
+        page.getItems().forEach(this::learnLot);
+        return page;
+    }
+
+    @Override
+    public ParkingLotDTO getParkingLotById(Long id) throws RemoteException {
+        ParkingLotDTO lot = onLot(id, s -> s.getParkingLotById(id));
+        learnLot(lot);
+        return lot;
+    }
+
+    @Override
+    public ParkingLotDTO createParkingLot(ParkingLotDTO parkingLotDTO) throws RemoteException {
+        // Same defaults as the server: a lot without RMI settings lives on localhost:1099
+        String host = parkingLotDTO.getRmiHost() != null ? parkingLotDTO.getRmiHost() : "localhost";
+        int port = parkingLotDTO.getRmiPort() != null ? parkingLotDTO.getRmiPort() : 1099;
+        RmiEndpoint shard = shards.stream()
+                .filter(s -> s.getHost().equalsIgnoreCase(host) && s.getPort() == port)
+                .findFirst()
+                .orElseThrow(() -> new RemoteException("No RMI instance configured for " + host + ":" + port));
+        ParkingLotDTO created = connection(shard).service().createParkingLot(parkingLotDTO);
+        learnLot(created);
+        return created;
+    }
+
+    @Override
+    public ParkingLotSnapshotDTO getParkingLotSnapshot(Long parkingLotId) throws RemoteException {
+        ParkingLotSnapshotDTO snapshot = onLot(parkingLotId, s -> s.getParkingLotSnapshot(parkingLotId));
+        if (snapshot != null) {
+            learnLot(snapshot.getParkingLot());
+            learnSpots(snapshot.getSpots());
+            learnReservations(snapshot.getReservations());
+        }
+        return snapshot;
+    }
+
+    @Override
+    public int getTotalAvailableSpots() throws RemoteException {
+        int total = 0;
+        for (Integer count : gather(ParkingService::getTotalAvailableSpots)) {
+            total += count;
+        }
+        return total;
+    }
+
+    @Override
+    public int getAvailableSpotsCount(Long parkingLotId) throws RemoteException {
+        return onLot(parkingLotId, s -> s.getAvailableSpotsCount(parkingLotId));
+    }
+
+    @Override
+    public double getOccupancyRate(Long parkingLotId) throws RemoteException {
+        return onLot(parkingLotId, s -> s.getOccupancyRate(parkingLotId));
+    }
+
+    // ==================== SPOTS ====================
+
+    @Override
+    public List<ParkingSpotDTO> getAllSpotsByParkingLot(Long parkingLotId) throws RemoteException {
+        return learnSpots(onLot(parkingLotId, s -> s.getAllSpotsByParkingLot(parkingLotId)));
+    }
+
+    @Override
+    public List<ParkingSpotDTO> getAvailableSpots(Long parkingLotId) throws RemoteException {
+        return learnSpots(onLot(parkingLotId, s -> s.getAvailableSpots(parkingLotId)));
+    }
+
+    @Override
+    public SpotChangesDTO getSpotChangesSince(Long parkingLotId, long sinceVersion) throws RemoteException {
+        SpotChangesDTO changes = onLot(parkingLotId, s -> s.getSpotChangesSince(parkingLotId, sinceVersion));
+        if (changes != null) {
+            learnSpots(changes.getSpots());
+        }
+        return changes;
+    }
+
+    @Override
+    public PageDTO<SpotTransitionDTO> getSpotHistory(long spotId, Long beforeSeq, int size) throws RemoteException {
+        // Sequence numbers are per server: the spot's owner has its whole history
+        return onSpot(spotId, s -> s.getSpotHistory(spotId, beforeSeq, size));
+    }
+
+    @Override
+    public void subscribeSpotEvents(SpotEventListener listener, Long parkingLotId) throws RemoteException {
+        if (parkingLotId != null) {
+            onLot(parkingLotId, s -> {
+                s.subscribeSpotEvents(listener, parkingLotId);
+                return null;
+            });
+        } else {
+            gatherEvery(s -> {
+                s.subscribeSpotEvents(listener, null);
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public void unsubscribeSpotEvents(SpotEventListener listener) throws RemoteException {
+        gatherEvery(s -> {
+            s.unsubscribeSpotEvents(listener);
+            return null;
+        });
+    }
+
+    @Override
+    public ParkingSpotDTO getSpotById(Long spotId) throws RemoteException {
+        ParkingSpotDTO spot = onSpot(spotId, s -> s.getSpotById(spotId));
+        if (spot != null) {
+            learnSpots(List.of(spot));
+        }
+        return spot;
+    }
+
+    @Override
+    public boolean updateSpotStatus(Long spotId, String status) throws RemoteException {
+        return onSpot(spotId, s -> s.updateSpotStatus(spotId, status));
+    }
+
+    @Override
+    public boolean simulateCarExit(long spotId) throws RemoteException {
+        return onSpot(spotId, s -> s.simulateCarExit(spotId));
+    }
+
+    @Override
+    public boolean simulateCarEntry(long spotId) throws RemoteException {
+        return onSpot(spotId, s -> s.simulateCarEntry(spotId));
+    }
+
+    /**
+     * One call per instance with the events of its spots (one transaction
+     * each, not one across instances). Spots not seen before go to any
+     * instance, whose WRONG_SHARD answer names their lot; a lot that moved
+     * gets its route reloaded. Each event is tried at most once per instance.
+     */
+    @Override
+    public List<GateEventResultDTO> applyGateEvents(List<GateEventDTO> events) throws RemoteException {
+        GateEventResultDTO[] results = new GateEventResultDTO[events.size()];
+        int[] attempts = new int[events.size()];
+        Long[] routedLots = new Long[events.size()];
+        List<Integer> pending = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            pending.add(i);
+        }
+        while (!pending.isEmpty()) {
+            Map<String, RmiEndpoint> endpoints = new LinkedHashMap<>();
+            Map<String, List<Integer>> groups = new LinkedHashMap<>();
+            for (int i : pending) {
+                Long spotId = events.get(i) != null ? events.get(i).getSpotId() : null;
+                Long parkingLotId = spotId != null ? spotLots.get(spotId) : null;
+                routedLots[i] = parkingLotId;
+                RmiEndpoint endpoint = parkingLotId != null ? lotEndpoint(parkingLotId)
+                        : shards.get(attempts[i] % shards.size());
+                attempts[i]++;
+                endpoints.putIfAbsent(endpoint.toString(), endpoint);
+                groups.computeIfAbsent(endpoint.toString(), key -> new ArrayList<>()).add(i);
+            }
+            List<Integer> retry = new ArrayList<>();
+            boolean moved = false;
+            for (Map.Entry<String, List<Integer>> group : groups.entrySet()) {
+                List<Integer> indexes = group.getValue();
+                List<GateEventResultDTO> answered = connection(endpoints.get(group.getKey())).service()
+                        .applyGateEvents(indexes.stream().map(events::get).toList());
+                for (int k = 0; k < indexes.size(); k++) {
+                    int i = indexes.get(k);
+                    GateEventResultDTO result = answered.get(k);
+                    results[i] = result;
+                    Long spotId = result.getSpotId();
+                    Long parkingLotId = result.getParkingLotId();
+                    if (spotId == null || parkingLotId == null) {
+                        continue;
+                    }
+                    spotLots.put(spotId, parkingLotId);
+                    if ("WRONG_SHARD".equals(result.getResult()) && attempts[i] <= shards.size()) {
+                        if (parkingLotId.equals(routedLots[i])) {
+                            // Sent to the lot's route and refused: the lot moved
+                            lotRoutes.remove(parkingLotId);
+                            moved = true;
+                        }
+                        retry.add(i);
+                    }
+                }
+            }
+            if (moved) {
+                log.info("Parking lot(s) of gate events moved, refreshing routes");
+                refreshRoutes();
+            }
+            pending = retry;
+        }
+        return List.of(results);
+    }
+
+    @Override
+    public List<ParkingSpotDTO> findByStatus(SpotStatus status) throws RemoteException {
+        return learnSpots(gatherLists(s -> s.findByStatus(status)));
+    }
+
+    @Override
+    public PageDTO<ParkingSpotDTO> findByStatusPage(SpotStatus status, Long afterId, int size) throws RemoteException {
+        PageDTO<ParkingSpotDTO> page = mergePages(s -> s.findByStatusPage(status, afterId, size), size,
+                ParkingSpotDTO::getId, false);
+        learnSpots(page.getItems());
+        return page;
+    }
+
+    @Override
+    public List<ParkingSpotDTO> findByParkingLotIdAndStatus(Long parkingLotId, SpotStatus status) throws RemoteException {
+        return learnSpots(onLot(parkingLotId, s -> s.findByParkingLotIdAndStatus(parkingLotId, status)));
+    }
+
+    @Override
+    public Long countAvailableSpots(Long parkingLotId) throws RemoteException {
+        return onLot(parkingLotId, s -> s.countAvailableSpots(parkingLotId));
+    }
+
+    @Override
+    public Long countOccupiedSpots(Long parkingLotId) throws RemoteException {
+        return onLot(parkingLotId, s -> s.countOccupiedSpots(parkingLotId));
+    }
+
+    // ==================== RESERVATIONS ====================
+
+    @Override
+    public ReservationDTO reserveBestAvailableSpot(ReservationDTO reservationDTO, SpotPreferenceDTO preferences)
+            throws RemoteException {
+        ReservationDTO created = onLot(reservationDTO.getParkingLotId(),
+                s -> s.reserveBestAvailableSpot(reservationDTO, preferences));
+        if (created != null) {
+            learnReservations(List.of(created));
+        }
+        return created;
+    }
+
+    @Override
+    public ReservationDTO createReservation(ReservationDTO reservationDTO) throws RemoteException {
+        ReservationDTO created = onLot(reservationDTO.getParkingLotId(), s -> s.createReservation(reservationDTO));
+        if (created != null) {
+            learnReservations(List.of(created));
+        }
+        return created;
+    }
+
+    @Override
+    public ReservationDTO getReservationById(Long id) throws RemoteException {
+        return onReservation(id, s -> s.getReservationById(id));
+    }
+
+    @Override
+    public List<ReservationDTO> getReservationsByUserEmail(String email) throws RemoteException {
+        return learnReservations(gatherLists(s -> s.getReservationsByUserEmail(email)));
+    }
+
+    @Override
+    public PageDTO<ReservationDTO> getReservationsByUserEmailPage(String email, Long beforeId, int size)
+            throws RemoteException {
+        PageDTO<ReservationDTO> page = mergePages(s -> s.getReservationsByUserEmailPage(email, beforeId, size), size,
+                ReservationDTO::getId, true);
+        learnReservations(page.getItems());
+        return page;
+    }
+
+    @Override
+    public PageDTO<ReservationDTO> getReservationsByParkingLotPage(long parkingLotId, Long beforeId, int size)
+            throws RemoteException {
+        PageDTO<ReservationDTO> page = onLot(parkingLotId,
+                s -> s.getReservationsByParkingLotPage(parkingLotId, beforeId, size));
+        learnReservations(page.getItems());
+        return page;
+    }
+
+    @Override
+    public boolean cancelReservation(Long id) throws RemoteException {
+        return onReservation(id, s -> s.cancelReservation(id));
+    }
+
+    @Override
+    public List<ReservationDTO> getReservationDTOsByParkingLot(long id) throws RemoteException {
+        return learnReservations(onLot(id, s -> s.getReservationDTOsByParkingLot(id)));
+    }
+
+    @Override
+    public Double getTotalRevenueByParkingLotId(Long parkingLotId) throws RemoteException {
+        return onLot(parkingLotId, s -> s.getTotalRevenueByParkingLotId(parkingLotId));
+    }
+
+    @Override
+    public List<ParkingLotStatsDTO> getParkingLotStats(List<Long> parkingLotIds) throws RemoteException {
+        List<ParkingLotStatsDTO> stats;
+        if (parkingLotIds == null || parkingLotIds.isEmpty()) {
+            stats = gatherLists(s -> s.getParkingLotStats(null));
+        } else {
+            // One call per instance with the ids it serves
+            Map<String, List<Long>> byInstance = new LinkedHashMap<>();
+            for (Long id : parkingLotIds) {
+                RmiEndpoint endpoint = lotEndpoint(id);
+                byInstance.computeIfAbsent(instanceKey(endpoint), k -> new ArrayList<>()).add(id);
+            }
+            stats = new ArrayList<>();
+            for (List<Long> ids : byInstance.values()) {
+                stats.addAll(onLot(ids.get(0), s -> s.getParkingLotStats(ids)));
+            }
+        }
+        stats.sort(Comparator.comparing(ParkingLotStatsDTO::getParkingLotId,
+                Comparator.nullsLast(Comparator.naturalOrder())));
+        return stats;
+    }
+
+    @Override
+    public List<MethodMetricsDTO> getMethodMetrics() throws RemoteException {
+        return gatherLists(ParkingService::getMethodMetrics);
+    }
+
+    // ==================== ROUTING ====================
+
+    private <T> T onLot(Long parkingLotId, ShardCall<T> call) throws RemoteException {
+        try {
+            return call.call(connection(lotEndpoint(parkingLotId)).service());
+        } catch (WrongShardException e) {
+            // The lot moved to another instance: reload the routing table once
+            log.info("Parking lot {} moved, refreshing routes", parkingLotId);
+            lotRoutes.remove(parkingLotId);
+            refreshRoutes();
+            return call.call(connection(lotEndpoint(parkingLotId)).service());
+        }
+    }
+
+    private <T> T onSpot(Long spotId, ShardCall<T> call) throws RemoteException {
+        Long parkingLotId = spotLots.get(spotId);
+        return parkingLotId != null ? onLot(parkingLotId, call) : probe(call);
+    }
+
+    private <T> T onReservation(Long reservationId, ShardCall<T> call) throws RemoteException {
+        Long parkingLotId = reservationLots.get(reservationId);
+        return parkingLotId != null ? onLot(parkingLotId, call) : probe(call);
+    }
+
+    // Unknown owner: every instance refuses ids it does not serve, so try them in turn
+    private <T> T probe(ShardCall<T> call) throws RemoteException {
+        WrongShardException last = null;
+        for (RmiEndpoint shard : shards) {
+            try {
+                return call.call(connection(shard).service());
+            } catch (WrongShardException e) {
+                last = e;
+            }
+        }
+        throw last;
+    }
+
+    private RmiEndpoint lotEndpoint(Long parkingLotId) throws RemoteException {
+        RmiEndpoint endpoint = lotRoutes.get(parkingLotId);
+        if (endpoint == null) {
+            refreshRoutes();
+            endpoint = lotRoutes.get(parkingLotId);
+        }
+        // Unknown everywhere: any instance can answer "not found"
+        return endpoint != null ? endpoint : shards.get(0);
+    }
+
+    private void refreshRoutes() throws RemoteException {
+        for (ParkingLotDTO lot : gatherLists(ParkingService::getAllParkingLots)) {
+            learnLot(lot);
+        }
+    }
+
+    private void learnLot(ParkingLotDTO lot) {
+        if (lot != null && lot.getId() != null && lot.getRmiHost() != null && lot.getRmiPort() != null
+                && lot.getRmiServiceName() != null) {
+            lotRoutes.put(lot.getId(), new RmiEndpoint(lot.getRmiHost(), lot.getRmiPort(), lot.getRmiServiceName()));
+        }
+    }
+
+    private List<ParkingSpotDTO> learnSpots(List<ParkingSpotDTO> spots) {
+        if (spots != null) {
+            for (ParkingSpotDTO spot : spots) {
+                if (spot.getId() != null && spot.getParkingLotId() != null) {
+                    spotLots.put(spot.getId(), spot.getParkingLotId());
+                }
+            }
+        }
+        return spots;
+    }
+
+    private List<ReservationDTO> learnReservations(List<ReservationDTO> reservations) {
+        if (reservations != null) {
+            for (ReservationDTO reservation : reservations) {
+                if (reservation.getId() != null && reservation.getParkingLotId() != null) {
+                    reservationLots.put(reservation.getId(), reservation.getParkingLotId());
+                }
+            }
+        }
+        return reservations;
+    }
+
+    // A lot's route names the lot's own binding; the instance's client is shared by all its lots
+    private Connection connection(RmiEndpoint endpoint) {
+        return connections.computeIfAbsent(instanceKey(endpoint), key -> {
+            RmiEndpoint target = shards.stream()
+                    .filter(shard -> instanceKey(shard).equals(key))
+                    .findFirst()
+                    .orElse(endpoint);
+            ParkingServiceClient client = clientFactory.open(target);
+            return new Connection(client, client.proxy());
+        });
+    }
+
+    private static String instanceKey(RmiEndpoint endpoint) {
+        return endpoint.getHost().toLowerCase() + ":" + endpoint.getPort();
+    }
+
+    // ==================== SCATTER / GATHER ====================
+
+    /**
+     * Results of the instances that answered. One that cannot be reached (or whose
+     * breaker is open) is logged and left out, so a global read shows the lots that
+     * are up; it fails only when no instance answers. Errors raised by a server that
+     * did answer are rethrown.
+     */
+    private <T> List<T> gather(ShardCall<T> call) throws RemoteException {
+        return gather(call, true);
+    }
+
+    // Every instance must answer (listener registration): the first failure is rethrown
+    private <T> List<T> gatherEvery(ShardCall<T> call) throws RemoteException {
+        return gather(call, false);
+    }
+
+    private <T> List<T> gather(ShardCall<T> call, boolean partial) throws RemoteException {
+        List<Future<T>> futures = new ArrayList<>();
+        for (RmiEndpoint shard : shards) {
+            ParkingService service = connection(shard).service();
+            futures.add(scatterExecutor.submit(() -> call.call(service)));
+        }
+        List<T> results = new ArrayList<>();
+        RemoteException unreachable = null;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.add(futures.get(i).get());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RemoteException remote) {
+                    if (!partial) {
+                        throw remote;
+                    }
+                    log.warn("RMI instance {} left out of a global call ({})", shards.get(i), remote.toString());
+                    unreachable = remote;
+                    continue;
+                }
+                if (cause instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw new RemoteException("Scatter call failed", cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RemoteException("Interrupted while waiting for RMI instances", e);
+            }
+        }
+        if (results.isEmpty() && unreachable != null) {
+            throw unreachable;
+        }
+        return results;
+    }
+
+    private <T> List<T> gatherLists(ShardCall<List<T>> call) throws RemoteException {
+        List<T> merged = new ArrayList<>();
+        for (List<T> part : gather(call)) {
+            if (part != null) {
+                merged.addAll(part);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Merges the page each instance returned for the same cursor. An instance
+     * that has more rows only vouches for ids up to its last one, so the merged
+     * page stops at the lowest such id (highest when descending); the rest is
+     * fetched again with the next cursor.
+     */
+    private <T> PageDTO<T> mergePages(ShardCall<PageDTO<T>> call, int size, Function<T, Long> id, boolean descending)
+            throws RemoteException {
+        Comparator<Long> order = descending ? Comparator.reverseOrder() : Comparator.naturalOrder();
+        List<T> all = new ArrayList<>();
+        Long horizon = null;
+        for (PageDTO<T> page : gather(call)) {
+            if (page == null) {
+                continue;
+            }
+            all.addAll(page.getItems());
+            if (page.getNextCursor() != null
+                    && (horizon == null || order.compare(page.getNextCursor(), horizon) < 0)) {
+                horizon = page.getNextCursor();
+            }
+        }
+        all.sort(Comparator.comparing(id, order));
+        int limit = size > 0 ? size : Integer.MAX_VALUE; // <= 0: server default size
+        List<T> items = new ArrayList<>();
+        for (T item : all) {
+            if (items.size() >= limit || (horizon != null && order.compare(id.apply(item), horizon) > 0)) {
+                break;
+            }
+            items.add(item);
+        }
+        boolean more = horizon != null || items.size() < all.size();
+        return new PageDTO<>(items, more && !items.isEmpty() ? id.apply(items.get(items.size() - 1)) : null);
+    }
+}
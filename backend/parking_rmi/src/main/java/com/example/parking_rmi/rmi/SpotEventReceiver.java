@@ -0,0 +1,133 @@
+package com.example.parking_rmi.rmi;
+
+import java.rmi.NoSuchObjectException;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import com.example.parking_rmi.Interface.ParkingService;
+import com.example.parking_rmi.Interface.SpotEventListener;
+import com.example.parking_rmi.dto.SpotEventDTO;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * RMI callback receiving spot status changes pushed by the RMI server(s).
+ *
+ * The receiver is exported on rmi.events.callback-port and subscribed to every
+ * lot. The subscription is renewed every renewMillis: the server drops
+ * listeners it cannot reach and forgets them on restart, and with several
+ * rmi.endpoints each renewal goes to the next endpoint, so every server ends
+ * up with the subscription (renewing is idempotent on the server side).
+ *
+ * Batches are handed to the local consumers on the RMI thread that delivered
+ * them; consumers must not block.
+ */
+@Slf4j
+public class SpotEventReceiver implements SpotEventListener, AutoCloseable {
+
+    private final ParkingService parkingService;
+    private final int callbackPort;
+    private final long renewMillis;
+    private final List<Consumer<List<SpotEventDTO>>> consumers = new CopyOnWriteArrayList<>();
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder resyncs = new LongAdder();
+    private volatile long lastEventAt;
+    private volatile long lastRenewedAt;
+    private volatile String lastError;
+
+    private ScheduledExecutorService renewer;
+
+    public SpotEventReceiver(ParkingService parkingService, int callbackPort, long renewMillis) {
+        this.parkingService = parkingService;
+        this.callbackPort = callbackPort;
+        this.renewMillis = renewMillis;
+    }
+
+    public void start() throws RemoteException {
+        UnicastRemoteObject.exportObject(this, callbackPort);
+        renewer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "spot-events-renewer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        renewer.scheduleWithFixedDelay(this::renew, 0, renewMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** consumer gets every batch pushed by the server(s). */
+    public void addConsumer(Consumer<List<SpotEventDTO>> consumer) {
+        consumers.add(consumer);
+    }
+
+    public void removeConsumer(Consumer<List<SpotEventDTO>> consumer) {
+        consumers.remove(consumer);
+    }
+
+    @Override
+    public void onSpotEvents(List<SpotEventDTO> events) {
+        received.add(events.size());
+        lastEventAt = System.currentTimeMillis();
+        for (SpotEventDTO event : events) {
+            if (event.isResync()) {
+                resyncs.increment();
+            }
+        }
+        for (Consumer<List<SpotEventDTO>> consumer : consumers) {
+            try {
+                consumer.accept(events);
+            } catch (RuntimeException e) {
+                log.warn("Spot event consumer failed: {}", e.toString());
+            }
+        }
+    }
+
+    private void renew() {
+        try {
+            parkingService.subscribeSpotEvents(this, null);
+            lastRenewedAt = System.currentTimeMillis();
+            lastError = null;
+        } catch (RemoteException | RuntimeException e) {
+            // Server down: the next renewal subscribes again
+            lastError = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.debug("Spot event subscription failed: {}", lastError);
+        }
+    }
+
+    public Map<String, Object> toHealth() {
+        Map<String, Object> health = new LinkedHashMap<>();
+        health.put("callbackPort", callbackPort);
+        health.put("eventsReceived", received.sum());
+        health.put("resyncs", resyncs.sum());
+        health.put("lastEventAt", lastEventAt);
+        health.put("lastRenewedAt", lastRenewedAt);
+        health.put("lastError", lastError);
+        health.put("consumers", consumers.size());
+        return health;
+    }
+
+    @Override
+    public void close() {
+        if (renewer != null) {
+            renewer.shutdownNow();
+        }
+        try {
+            parkingService.unsubscribeSpotEvents(this);
+        } catch (RemoteException | RuntimeException e) {
+            log.debug("Spot event unsubscribe failed: {}", e.toString());
+        }
+        try {
+            UnicastRemoteObject.unexportObject(this, true);
+        } catch (NoSuchObjectException e) {
+            // never exported
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.parking_rmi.rmi;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.rmi.server.RMIClientSocketFactory;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Client side of the RMI transport. Shipped to the backend inside the stub;
+ * equals/hashCode let RMI reuse pooled connections.
+ */
+@Getter
+@EqualsAndHashCode
+public class TunedClientSocketFactory implements RMIClientSocketFactory, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final RmiSocketOptions options;
+
+    public TunedClientSocketFactory(RmiSocketOptions options) {
+        this.options = options;
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        TunedSocket socket = new TunedSocket(options);
+        // Buffer sizes must be set before connect to affect the TCP window
+        socket.applyOptions();
+        socket.connect(new InetSocketAddress(host, port));
+        return socket;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.parking_rmi.rmi;
+
+import java.rmi.RemoteException;
+
+/**
+ * Thrown when a lot-scoped call reaches an RMI instance that does not serve
+ * the lot (see ParkingLot.rmiHost / rmiPort). Nothing was executed; the
+ * caller should refresh its routing table and call the owning instance.
+ *
+ * Mirror of the RMI server class, needed to deserialize the exception.
+ */
+public class WrongShardException extends RemoteException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long parkingLotId;
+
+    public WrongShardException(Long parkingLotId, String message) {
+        super(message);
+        this.parkingLotId = parkingLotId;
+    }
+
+    public Long getParkingLotId() {
+        return parkingLotId;
+    }
+}
@@ -0,0 +1,334 @@
+package com.example.parking_rmi.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.parking_rmi.Interface.ParkingService;
+import com.example.parking_rmi.dto.ParkingLotDTO;
+import com.example.parking_rmi.dto.SpotEventDTO;
+import com.example.parking_rmi.rmi.SpotEventReceiver;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Live occupancy for browsers over Server-Sent Events.
+ *
+ * One topic per lot (spot status changes) plus one for all lots (available
+ * counters). Changes pushed by the RMI server (SpotEventReceiver) are
+ * coalesced per topic and sent every stream.batch-ms as one event, whatever
+ * the number of connected browsers; a comment line every stream.heartbeat-ms
+ * keeps idle connections and proxies open. Heartbeats are sent off the ticker,
+ * one task per browser, and a browser still blocked on the previous one is
+ * dropped.
+ *
+ * SseEmitter runs on servlet async I/O: an open stream holds a connection, not
+ * a request thread. The only RMI calls are the snapshot sent on connect and
+ * one reload per topic when the server reports a resync.
+ *
+ * Events: "snapshot" (SpotChangesDTO of the lot) and "spots"
+ * (List<SpotEventDTO>) on lot topics; "lots" (lotId -> availableSpots) on the
+ * all-lots topic.
+ */
+@Slf4j
+@Service
+public class OccupancyStreamService {
+
+    private final ParkingServ clientService;
+    private final ParkingService parkingService;
+    private final ObjectProvider<SpotEventReceiver> spotEventReceiver;
+    private final long batchMillis;
+    private final long heartbeatMillis;
+    private final long timeoutMillis;
+    private final int maxConnections;
+
+    private final Map<Long, Topic> lotTopics = new ConcurrentHashMap<>();
+    private final Topic allLots = new Topic(null);
+    private final AtomicInteger connections = new AtomicInteger();
+    private final Set<SseEmitter> heartbeatsInFlight = ConcurrentHashMap.newKeySet();
+    private final LongAdder eventsSent = new LongAdder();
+
+    // Flushes run on virtual threads so one slow socket only delays its own topic
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+    private ScheduledExecutorService ticker;
+
+    public OccupancyStreamService(ParkingServ clientService, ParkingService parkingService,
+            ObjectProvider<SpotEventReceiver> spotEventReceiver,
+            @Value("${stream.batch-ms:250}") long batchMillis,
+            @Value("${stream.heartbeat-ms:15000}") long heartbeatMillis,
+            @Value("${stream.timeout-ms:1800000}") long timeoutMillis,
+            @Value("${stream.max-connections:10000}") int maxConnections) {
+        this.clientService = clientService;
+        this.parkingService = parkingService;
+        this.spotEventReceiver = spotEventReceiver;
+        this.batchMillis = batchMillis;
+        this.heartbeatMillis = heartbeatMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.maxConnections = maxConnections;
+    }
+
+    @PostConstruct
+    public void start() {
+        spotEventReceiver.ifAvailable(receiver -> receiver.addConsumer(this::onSpotEvents));
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "occupancy-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(this::flush, batchMillis, batchMillis, TimeUnit.MILLISECONDS);
+        ticker.scheduleWithFixedDelay(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+        sender.shutdownNow();
+        allLots.completeAll();
+        lotTopics.values().forEach(Topic::completeAll);
+    }
+
+    /** Opens a stream on one lot, or on the counters of every lot when parkingLotId is null. */
+    public SseEmitter subscribe(Long parkingLotId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        register(parkingLotId, emitter);
+        return emitter;
+    }
+
+    void register(Long parkingLotId, SseEmitter emitter) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many live streams");
+        }
+        Topic topic;
+        if (parkingLotId == null) {
+            topic = allLots;
+            topic.emitters.add(emitter);
+        } else {
+            // Added inside compute so a concurrent unregister cannot drop the topic in between
+            topic = lotTopics.compute(parkingLotId, (id, existing) -> {
+                Topic t = existing != null ? existing : new Topic(id);
+                t.emitters.add(emitter);
+                return t;
+            });
+        }
+        Runnable remove = () -> unregister(topic, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> remove.run());
+
+        // Current state first; changes that raced with it carry a higher version
+        if (parkingLotId == null) {
+            clientService.async(parkingService::getAllParkingLots)
+                    .thenAccept(lots -> send(emitter, "lots", counters(lots)));
+        } else {
+            clientService.async(() -> parkingService.getSpotChangesSince(parkingLotId, 0))
+                    .thenAccept(snapshot -> send(emitter, "snapshot", snapshot));
+        }
+    }
+
+    private void unregister(Topic topic, SseEmitter emitter) {
+        if (topic.emitters.remove(emitter)) {
+            connections.decrementAndGet();
+        }
+        if (topic.lotId != null) {
+            lotTopics.computeIfPresent(topic.lotId, (id, t) -> t.emitters.isEmpty() ? null : t);
+        }
+    }
+
+    // Called on the RMI callback thread: only queues
+    void onSpotEvents(List<SpotEventDTO> events) {
+        for (SpotEventDTO event : events) {
+            Topic topic = lotTopics.get(event.getParkingLotId());
+            if (topic != null) {
+                topic.offer(event);
+            }
+            if (!allLots.emitters.isEmpty()) {
+                allLots.offer(event);
+            }
+        }
+    }
+
+    void flush() {
+        flush(allLots);
+        for (Topic topic : lotTopics.values()) {
+            flush(topic);
+        }
+    }
+
+    private void flush(Topic topic) {
+        if (topic.hasPending() && topic.flushing.compareAndSet(false, true)) {
+            sender.execute(() -> {
+                try {
+                    topic.flush();
+                } finally {
+                    topic.flushing.set(false);
+                }
+            });
+        }
+    }
+
+    void heartbeat() {
+        heartbeat(allLots);
+        for (Topic topic : lotTopics.values()) {
+            heartbeat(topic);
+        }
+    }
+
+    private void heartbeat(Topic topic) {
+        for (SseEmitter emitter : topic.emitters) {
+            if (!heartbeatsInFlight.add(emitter)) {
+                // The last heartbeat is still blocked on the socket: the browser stopped reading
+                log.debug("Dropping an SSE client that did not read its last heartbeat");
+                unregister(topic, emitter);
+                emitter.completeWithError(new IOException("SSE client stopped reading"));
+                continue;
+            }
+            sender.execute(() -> {
+                try {
+                    // An SseEventBuilder can only be built once: one per emitter
+                    send(emitter, SseEmitter.event().comment("heartbeat"));
+                } finally {
+                    heartbeatsInFlight.remove(emitter);
+                }
+            });
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connections", connections.get());
+        stats.put("lotTopics", lotTopics.size());
+        stats.put("allLotsSubscribers", allLots.emitters.size());
+        stats.put("eventsSent", eventsSent.sum());
+        return stats;
+    }
+
+    private static Map<Long, Integer> counters(List<ParkingLotDTO> lots) {
+        Map<Long, Integer> counters = new LinkedHashMap<>();
+        for (ParkingLotDTO lot : lots) {
+            counters.put(lot.getId(), lot.getAvailableSpots());
+        }
+        return counters;
+    }
+
+    private void send(SseEmitter emitter, String name, Object data) {
+        send(emitter, SseEmitter.event().name(name).data(data));
+    }
+
+    private void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            eventsSent.increment();
+        } catch (IOException | IllegalStateException e) {
+            // Browser gone: completion callbacks remove it from its topic
+            emitter.completeWithError(e);
+        }
+    }
+
+    private final class Topic {
+        private final Long lotId;
+        private final Set<SseEmitter> emitters = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean flushing = new AtomicBoolean();
+
+        // Guarded by this: latest event per spot (lot topic) or counter per lot (all lots)
+        private LinkedHashMap<Long, SpotEventDTO> pendingSpots = new LinkedHashMap<>();
+        private LinkedHashMap<Long, Integer> pendingCounters = new LinkedHashMap<>();
+        private Set<Long> resyncLots = new LinkedHashSet<>();
+
+        Topic(Long lotId) {
+            this.lotId = lotId;
+        }
+
+        synchronized void offer(SpotEventDTO event) {
+            if (event.isResync()) {
+                resyncLots.add(event.getParkingLotId());
+            } else if (lotId == null) {
+                if (event.getAvailableSpots() != null) {
+                    pendingCounters.put(event.getParkingLotId(), event.getAvailableSpots());
+                }
+            } else {
+                pendingSpots.remove(event.getSpotId());
+                pendingSpots.put(event.getSpotId(), event);
+            }
+        }
+
+        synchronized boolean hasPending() {
+            return !pendingSpots.isEmpty() || !pendingCounters.isEmpty() || !resyncLots.isEmpty();
+        }
+
+        void flush() {
+            List<SpotEventDTO> spots;
+            Map<Long, Integer> counters;
+            Set<Long> resync;
+            synchronized (this) {
+                spots = new ArrayList<>(pendingSpots.values());
+                counters = pendingCounters;
+                resync = resyncLots;
+                pendingSpots = new LinkedHashMap<>();
+                pendingCounters = new LinkedHashMap<>();
+                resyncLots = new LinkedHashSet<>();
+            }
+            if (!resync.isEmpty()) {
+                reload(resync, counters);
+                if (lotId != null) {
+                    return; // the snapshot already covers the queued spots
+                }
+            }
+            for (SseEmitter emitter : emitters) {
+                if (!spots.isEmpty()) {
+                    send(emitter, "spots", spots);
+                }
+                if (!counters.isEmpty()) {
+                    send(emitter, "lots", counters);
+                }
+            }
+        }
+
+        // The RMI server dropped events: one reload for the whole topic, not one per browser
+        private void reload(Set<Long> lots, Map<Long, Integer> counters) {
+            try {
+                if (lotId != null) {
+                    Object snapshot = parkingService.getSpotChangesSince(lotId, 0);
+                    for (SseEmitter emitter : emitters) {
+                        send(emitter, "snapshot", snapshot);
+                    }
+                } else {
+                    for (Long id : lots) {
+                        counters.put(id, parkingService.getAvailableSpotsCount(id));
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("Could not reload parking lot(s) {} after resync: {}", lots, e.toString());
+            }
+        }
+
+        void completeAll() {
+            for (SseEmitter emitter : emitters) {
+                emitter.complete();
+            }
+        }
+    }
+}
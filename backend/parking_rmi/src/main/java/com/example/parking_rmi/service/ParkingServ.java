@@ -2,15 +2,27 @@ package com.example.parking_rmi.service;
 
 import java.rmi.RemoteException;
 import java.util.List;
-import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import jakarta.annotation.PreDestroy;
 
 import com.example.parking_rmi.Interface.ParkingService;
+import com.example.parking_rmi.dto.PageDTO;
 import com.example.parking_rmi.dto.ParkingLotDTO;
+import com.example.parking_rmi.dto.ParkingLotSnapshotDTO;
 import com.example.parking_rmi.dto.ParkingSpotDTO;
 import com.example.parking_rmi.dto.ReservationDTO;
+import com.example.parking_rmi.dto.SpotChangesDTO;
+import com.example.parking_rmi.rmi.CallTimeoutException;
+import com.example.parking_rmi.rmi.CircuitOpenException;
+import com.example.parking_rmi.rmi.ServerBusyException;
 
 @Service
 public class ParkingServ {
@@ -18,12 +30,38 @@ public class ParkingServ {
     @Autowired
     private ParkingService parkingService; // This is the RMI Proxy from RmiConfig
 
+    /** A remote call, for running on the RMI executor. */
+    @FunctionalInterface
+    public interface RmiCall<T> {
+        T call() throws RemoteException;
+    }
+
+    // One virtual thread per RMI call: a request blocked on the network no longer
+    // pins a servlet thread, so the number of in-flight calls is not capped by the Tomcat pool
+    private final ExecutorService rmiExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Saturated RMI server or open circuit -> 503 so clients back off, missed deadline -> 504,
+    // anything else stays a 500
+    private static RuntimeException rmiFailure(String message, RemoteException e) {
+        if (e instanceof ServerBusyException || e instanceof CircuitOpenException) {
+            return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e);
+        }
+        if (e instanceof CallTimeoutException) {
+            return new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, e.getMessage(), e);
+        }
+        return new RuntimeException(message, e);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rmiExecutor.shutdown();
+    }
+
     public List<ParkingLotDTO> getAllParkingLots() {
         try {
             return parkingService.getAllParkingLots();
         } catch (RemoteException e) {
-            e.printStackTrace();
-            return new ArrayList<>(); // Return empty list or throw custom runtime exception
+            throw rmiFailure("RMI Error: Could not fetch parking lots", e);
         }
     }
 
@@ -31,7 +69,23 @@ public class ParkingServ {
         try {
             return parkingService.getParkingLotById(id);
         } catch (RemoteException e) {
-            throw new RuntimeException("RMI Error: Could not fetch parking lot " + id, e);
+            throw rmiFailure("RMI Error: Could not fetch parking lot " + id, e);
+        }
+    }
+
+    // Lot + spots + reservations in a single RMI round trip
+    public ParkingLotDTO getParkingLotWithDetails(Long id) {
+        try {
+            ParkingLotSnapshotDTO snapshot = parkingService.getParkingLotSnapshot(id);
+            if (snapshot == null) {
+                return null;
+            }
+            ParkingLotDTO lot = snapshot.getParkingLot();
+            lot.setSpots(snapshot.getSpots());
+            lot.setReservations(snapshot.getReservations());
+            return lot;
+        } catch (RemoteException e) {
+            throw rmiFailure("RMI Error: Could not fetch parking lot " + id, e);
         }
     }
 
@@ -39,7 +93,7 @@ public class ParkingServ {
         try {
             return parkingService.getAvailableSpots(parkingId);
         } catch (RemoteException e) {
-            throw new RuntimeException("RMI Error fetching spots", e);
+            throw rmiFailure("RMI Error fetching spots", e);
         }
     }
 
@@ -47,7 +101,7 @@ public class ParkingServ {
         try {
             return parkingService.createReservation(reservation);
         } catch (RemoteException e) {
-            throw new RuntimeException("RMI Error creating reservation", e);
+            throw rmiFailure("RMI Error creating reservation", e);
         }
     }
 
@@ -57,18 +111,60 @@ public class ParkingServ {
         try {
             return parkingService.cancelReservation(id);
         } catch (RemoteException e) {
-            e.printStackTrace();
-            return false;
+            throw rmiFailure("RMI Error cancelling reservation " + id, e);
         }
     }
 
     //Get By Email
     public List<ReservationDTO> getReservationsByUserEmail(String email) {
-    try {
-        // Hna kan3iyto l RMI Server
-        return parkingService.getReservationsByUserEmail(email);
-    } catch (Exception e) {         e.printStackTrace();
-        return new ArrayList<>(); // Rjje3 list khawya ila kan mochkil
+        try {
+            return parkingService.getReservationsByUserEmail(email);
+        } catch (RemoteException e) {
+            throw rmiFailure("RMI Error fetching reservations", e);
+        }
+    }
+
+    // ===================== Async variants =====================
+
+    /**
+     * Runs a remote call on a virtual thread. A RemoteException completes the
+     * future with a RuntimeException, like the blocking methods above.
+     */
+    public <T> CompletableFuture<T> async(RmiCall<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.call();
+            } catch (RemoteException e) {
+                throw rmiFailure("RMI Error: " + e.getMessage(), e);
+            }
+        }, rmiExecutor);
+    }
+
+    public CompletableFuture<List<ParkingLotDTO>> getAllParkingLotsAsync() {
+        return CompletableFuture.supplyAsync(this::getAllParkingLots, rmiExecutor);
+    }
+
+    public CompletableFuture<ParkingLotDTO> getParkingLotWithDetailsAsync(Long id) {
+        return CompletableFuture.supplyAsync(() -> getParkingLotWithDetails(id), rmiExecutor);
+    }
+
+    public CompletableFuture<List<ParkingSpotDTO>> getAllSpotsByParkingLotAsync(Long parkingId) {
+        return async(() -> parkingService.getAllSpotsByParkingLot(parkingId));
+    }
+
+    public CompletableFuture<PageDTO<ParkingLotDTO>> getParkingLotsPageAsync(Long afterId, int size) {
+        return async(() -> parkingService.getParkingLotsPage(afterId, size));
+    }
+
+    public CompletableFuture<SpotChangesDTO> getSpotChangesSinceAsync(Long parkingId, long sinceVersion) {
+        return async(() -> parkingService.getSpotChangesSince(parkingId, sinceVersion));
+    }
+
+    public CompletableFuture<ReservationDTO> createReservationAsync(ReservationDTO reservation) {
+        return CompletableFuture.supplyAsync(() -> createReservation(reservation), rmiExecutor);
+    }
+
+    public CompletableFuture<Boolean> cancelReservationAsync(Long id) {
+        return CompletableFuture.supplyAsync(() -> cancelReservation(id), rmiExecutor);
     }
 }
-}
\ No newline at end of file
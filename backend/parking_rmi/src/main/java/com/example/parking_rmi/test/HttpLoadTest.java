@@ -0,0 +1,103 @@
+package com.example.parking_rmi.test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop HTTP load test: N concurrent clients (one virtual thread each)
+ * hammer a backend endpoint for a fixed time, then throughput, error count and
+ * latency percentiles are printed. Needs the backend and an RMI server running.
+ *
+ * Run it against the blocking and the async build of the backend with the same
+ * arguments to compare them; with 1000 clients the blocking controllers are
+ * capped by the 200 Tomcat threads waiting on RMI.
+ *
+ * Usage: HttpLoadTest [url] [clients] [seconds]
+ */
+public class HttpLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "http://localhost:8081/api/parking/1";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+
+        // Warm-up: JIT, connection pools, RMI stub lookup
+        for (int i = 0; i < 50; i++) {
+            http.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+
+        LongAdder errors = new LongAdder();
+        List<long[]> perClient = new ArrayList<>();
+        int[] counts = new int[clients];
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+
+        System.out.println(clients + " clients on " + url + " for " + seconds + "s");
+        long start = System.nanoTime();
+        try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                long[] samples = new long[1 << 12];
+                perClient.add(samples);
+                int id = c;
+                clientThreads.submit(() -> {
+                    int n = 0;
+                    while (System.nanoTime() < deadline) {
+                        long t0 = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.increment();
+                            }
+                        } catch (Exception e) {
+                            errors.increment();
+                        }
+                        if (n < samples.length) {
+                            samples[n] = System.nanoTime() - t0;
+                        }
+                        n++;
+                    }
+                    counts[id] = Math.min(n, samples.length);
+                    return null;
+                });
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        int total = 0;
+        for (int n : counts) {
+            total += n;
+        }
+        long[] all = new long[total];
+        int pos = 0;
+        for (int c = 0; c < clients; c++) {
+            System.arraycopy(perClient.get(c), 0, all, pos, counts[c]);
+            pos += counts[c];
+        }
+        Arrays.sort(all);
+
+        System.out.printf("requests=%,d  throughput=%.0f req/s  errors=%,d%n", total, total / elapsed, errors.sum());
+        if (total > 0) {
+            System.out.printf("p50=%.1fms p99=%.1fms p999=%.1fms max=%.1fms%n",
+                    all[total / 2] / 1e6, all[(int) (total * 0.99)] / 1e6,
+                    all[(int) (total * 0.999)] / 1e6, all[total - 1] / 1e6);
+        }
+        System.exit(0);
+    }
+}
@@ -12,9 +12,11 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -43,13 +45,17 @@ public class ReservationControllerTest {
         dto.setUserEmail("fatima@test.com");
 
         // Simulation du service
-        when(clientService.createReservation(any(ReservationDTO.class)))
-                .thenReturn(dto);
+        when(clientService.createReservationAsync(any(ReservationDTO.class)))
+                .thenReturn(CompletableFuture.completedFuture(dto));
 
         // Appel POST
-        mockMvc.perform(post("/api/reservations")
+        var result = mockMvc.perform(post("/api/reservations")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isCreated());
     }
 
@@ -57,9 +63,13 @@ public class ReservationControllerTest {
     public void testCancelReservation() throws Exception {
         Long id = 123L;
 
-        when(clientService.cancelReservation(id)).thenReturn(true);
+        when(clientService.cancelReservationAsync(id)).thenReturn(CompletableFuture.completedFuture(true));
+
+        var result = mockMvc.perform(post("/api/reservations/" + id))
+                .andExpect(request().asyncStarted())
+                .andReturn();
 
-        mockMvc.perform(post("/api/reservations/" + id))
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk());
     }
 }
@@ -0,0 +1,98 @@
+package com.example.parking_rmi.rmi;
+
+import java.rmi.ConnectException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.parking_rmi.Interface.ParkingService;
+import com.example.parking_rmi.dto.ParkingLotDTO;
+
+public class CallPolicyTest {
+
+    private static CallPolicy.Settings settings(long timeoutMillis, int failureThreshold, long openMillis) {
+        return new CallPolicy.Settings(timeoutMillis, Map.of(), failureThreshold, openMillis,
+                Set.of("getAllParkingLots"), 50);
+    }
+
+    @Test
+    void testBreakerOpensAfterFailures_AndClosesAfterProbe() throws Exception {
+        ParkingService target = mock(ParkingService.class);
+        when(target.getTotalAvailableSpots())
+                .thenThrow(new ConnectException("refused"))
+                .thenThrow(new ConnectException("refused"))
+                .thenReturn(42);
+        CallPolicy policy = new CallPolicy("test", target, null, settings(1000, 2, 100));
+        ParkingService service = policy.proxy();
+
+        assertThrows(ConnectException.class, service::getTotalAvailableSpots);
+        assertThrows(ConnectException.class, service::getTotalAvailableSpots);
+        // Open: fails fast without calling the server
+        assertThrows(CircuitOpenException.class, service::getTotalAvailableSpots);
+        verify(target, times(2)).getTotalAvailableSpots();
+
+        Thread.sleep(150);
+        assertEquals(42, service.getTotalAvailableSpots());
+        assertEquals("CLOSED", policy.toHealth().get("state"));
+        assertEquals(1L, policy.toHealth().get("trips"));
+        assertEquals(1L, policy.toHealth().get("rejected"));
+    }
+
+    @Test
+    void testHungCall_TimesOut_AndBusinessErrorsDoNotTrip() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ParkingService target = mock(ParkingService.class);
+        when(target.getTotalAvailableSpots()).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return 1;
+        });
+        when(target.cancelReservation(1L)).thenThrow(new IllegalArgumentException("unknown reservation"));
+        CallPolicy policy = new CallPolicy("test", target, null, settings(100, 1, 60_000));
+        ParkingService service = policy.proxy();
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(IllegalArgumentException.class, () -> service.cancelReservation(1L));
+        }
+        assertEquals("CLOSED", policy.toHealth().get("state"));
+
+        long start = System.nanoTime();
+        assertThrows(CallTimeoutException.class, service::getTotalAvailableSpots);
+        assertEquals(true, System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        assertEquals(1L, policy.toHealth().get("timeouts"));
+        assertEquals("OPEN", policy.toHealth().get("state"));
+        release.countDown();
+    }
+
+    @Test
+    void testSlowRead_IsHedgedOnSecondEndpoint() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<ParkingLotDTO> fast = List.of(new ParkingLotDTO());
+        ParkingService slow = mock(ParkingService.class);
+        ParkingService hedge = mock(ParkingService.class);
+        when(slow.getAllParkingLots()).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        when(hedge.getAllParkingLots()).thenReturn(fast);
+        CallPolicy policy = new CallPolicy("test", slow, hedge, settings(2000, 5, 60_000));
+
+        assertSame(fast, policy.proxy().getAllParkingLots());
+        assertEquals(1L, policy.toHealth().get("hedges"));
+        assertEquals(1L, policy.toHealth().get("hedgeWins"));
+        // Not in the hedged methods: never sent to the hedge target
+        policy.proxy().getTotalAvailableSpots();
+        verify(hedge, times(0)).getTotalAvailableSpots();
+        release.countDown();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.parking_rmi.rmi;
+
+import java.rmi.ConnectException;
+import java.rmi.NoSuchObjectException;
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.example.parking_rmi.Interface.ParkingService;
+
+public class ParkingServiceClientTest {
+
+    @Test
+    void testFailover_WhenFirstEndpointRefusesConnection() throws Exception {
+        RmiEndpoint down = new RmiEndpoint("down", 1099, "parkingService");
+        RmiEndpoint up = new RmiEndpoint("up", 1099, "parkingService");
+        ParkingService downStub = mock(ParkingService.class);
+        ParkingService upStub = mock(ParkingService.class);
+        when(downStub.getTotalAvailableSpots()).thenThrow(new ConnectException("refused"));
+        when(upStub.getTotalAvailableSpots()).thenReturn(42);
+
+        ParkingServiceClient client = new ParkingServiceClient(List.of(down, up), 60_000,
+                endpoint -> endpoint == down ? downStub : upStub);
+        ParkingService service = client.proxy();
+
+        assertEquals(42, service.getTotalAvailableSpots());
+        assertEquals(42, service.getTotalAvailableSpots());
+        assertFalse(down.isHealthy());
+        assertTrue(up.isHealthy());
+    }
+
+    @Test
+    void testStaleStub_IsLookedUpAgain() throws Exception {
+        RmiEndpoint endpoint = new RmiEndpoint("localhost", 1099, "parkingService");
+        ParkingService staleStub = mock(ParkingService.class);
+        ParkingService freshStub = mock(ParkingService.class);
+        when(staleStub.getTotalAvailableSpots()).thenThrow(new NoSuchObjectException("restarted"));
+        when(freshStub.getTotalAvailableSpots()).thenReturn(7);
+
+        AtomicInteger lookups = new AtomicInteger();
+        ParkingServiceClient client = new ParkingServiceClient(List.of(endpoint), 60_000,
+                e -> lookups.getAndIncrement() == 0 ? staleStub : freshStub);
+
+        assertEquals(7, client.proxy().getTotalAvailableSpots());
+        assertEquals(2, lookups.get());
+        assertTrue(endpoint.isHealthy());
+    }
+
+    @Test
+    void testServerSideError_IsNotRetried() throws Exception {
+        RmiEndpoint a = new RmiEndpoint("a", 1099, "parkingService");
+        RmiEndpoint b = new RmiEndpoint("b", 1099, "parkingService");
+        ParkingService stub = mock(ParkingService.class);
+        when(stub.cancelReservation(1L)).thenThrow(new RemoteException("Reservation failed"));
+        AtomicInteger lookups = new AtomicInteger();
+
+        ParkingServiceClient client = new ParkingServiceClient(List.of(a, b), 60_000, e -> {
+            lookups.incrementAndGet();
+            return stub;
+        });
+
+        assertThrows(RemoteException.class, () -> client.proxy().cancelReservation(1L));
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    void testBusyServer_FailsOverWithoutMarkingDown() throws Exception {
+        RmiEndpoint busy = new RmiEndpoint("busy", 1099, "parkingService");
+        RmiEndpoint idle = new RmiEndpoint("idle", 1099, "parkingService");
+        ParkingService busyStub = mock(ParkingService.class);
+        ParkingService idleStub = mock(ParkingService.class);
+        when(busyStub.getTotalAvailableSpots()).thenThrow(new ServerBusyException("Server busy"));
+        when(idleStub.getTotalAvailableSpots()).thenReturn(5);
+
+        ParkingServiceClient client = new ParkingServiceClient(List.of(busy, idle), 60_000,
+                endpoint -> endpoint == busy ? busyStub : idleStub);
+
+        assertEquals(5, client.proxy().getTotalAvailableSpots());
+        assertTrue(busy.isHealthy());
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.parking_rmi.rmi;
+
+import java.rmi.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.parking_rmi.Interface.ParkingService;
+import com.example.parking_rmi.dto.GateEventDTO;
+import com.example.parking_rmi.dto.GateEventResultDTO;
+import com.example.parking_rmi.dto.PageDTO;
+import com.example.parking_rmi.dto.ParkingLotDTO;
+
+@SuppressWarnings("unchecked")
+public class ShardedParkingServiceTest {
+
+    private final ParkingService north = mock(ParkingService.class);
+    private final ParkingService south = mock(ParkingService.class);
+
+    // host:port -> stub of that instance, whatever the bound name
+    private final Map<String, ParkingService> instances = Map.of("north:1099", north, "south:1100", south);
+
+    private final List<RmiEndpoint> opened = new ArrayList<>();
+
+    private final ShardedParkingService service = new ShardedParkingService(
+            List.of(new RmiEndpoint("north", 1099, "parkingService"), new RmiEndpoint("south", 1100, "parkingService")),
+            endpoint -> {
+                opened.add(endpoint);
+                return new ParkingServiceClient(List.of(endpoint), 60_000,
+                        e -> instances.get(e.getHost() + ":" + e.getPort()));
+            });
+
+    private static ParkingLotDTO lot(long id, String host, int port) {
+        ParkingLotDTO lot = new ParkingLotDTO();
+        lot.setId(id);
+        lot.setRmiHost(host);
+        lot.setRmiPort(port);
+        lot.setRmiServiceName("parking-" + id);
+        return lot;
+    }
+
+    @Test
+    void testGlobalCalls_AreMergedAcrossInstances() throws Exception {
+        when(north.getAllParkingLots()).thenReturn(List.of(lot(2, "north", 1099)));
+        when(south.getAllParkingLots()).thenReturn(List.of(lot(1, "south", 1100)));
+        when(north.getTotalAvailableSpots()).thenReturn(30);
+        when(south.getTotalAvailableSpots()).thenReturn(12);
+
+        List<ParkingLotDTO> lots = service.getAllParkingLots();
+
+        assertEquals(List.of(1L, 2L), lots.stream().map(ParkingLotDTO::getId).toList());
+        assertEquals(42, service.getTotalAvailableSpots());
+    }
+
+    @Test
+    void testLotCall_GoesToOwningInstance() throws Exception {
+        when(north.getAllParkingLots()).thenReturn(List.of(lot(2, "north", 1099)));
+        when(south.getAllParkingLots()).thenReturn(List.of(lot(1, "south", 1100)));
+        when(south.getAvailableSpotsCount(1L)).thenReturn(7);
+
+        assertEquals(7, service.getAvailableSpotsCount(1L));
+        verify(north, never()).getAvailableSpotsCount(1L);
+        assertEquals("south:1100/parking-1", service.getLotRoutes().get(1L));
+    }
+
+    @Test
+    void testLotsOfOneInstance_ShareItsClient() throws Exception {
+        when(south.getAllParkingLots()).thenReturn(List.of(lot(1, "south", 1100), lot(3, "south", 1100)));
+        when(south.getAvailableSpotsCount(any())).thenReturn(7);
+
+        service.getAvailableSpotsCount(1L);
+        service.getAvailableSpotsCount(3L);
+
+        // One client (breaker, sockets) per host:port, opened on the configured endpoint
+        assertEquals(2, opened.size());
+        assertEquals(List.of("north:1099/parkingService", "south:1100/parkingService"),
+                opened.stream().map(RmiEndpoint::toString).sorted().toList());
+    }
+
+    @Test
+    void testGlobalCalls_LeaveOutAnInstanceThatIsDown() throws Exception {
+        when(north.getAllParkingLots()).thenThrow(new ConnectException("refused"));
+        when(south.getAllParkingLots()).thenReturn(List.of(lot(1, "south", 1100)));
+        when(north.getTotalAvailableSpots()).thenThrow(new CircuitOpenException("north open"));
+        when(south.getTotalAvailableSpots()).thenReturn(12);
+
+        assertEquals(List.of(1L), service.getAllParkingLots().stream().map(ParkingLotDTO::getId).toList());
+        assertEquals(12, service.getTotalAvailableSpots());
+
+        when(south.getTotalAvailableSpots()).thenThrow(new ConnectException("refused"));
+        assertThrows(ConnectException.class, service::getTotalAvailableSpots);
+    }
+
+    @Test
+    void testUnknownSpot_IsProbedUntilOwnerAnswers() throws Exception {
+        when(north.simulateCarEntry(5L)).thenThrow(new WrongShardException(1L, "not here"));
+        when(south.simulateCarEntry(5L)).thenReturn(true);
+
+        assertTrue(service.simulateCarEntry(5L));
+    }
+
+    @Test
+    void testGateEvents_AreSplitByOwner_ResultsInOrder() throws Exception {
+        when(north.getAllParkingLots()).thenReturn(List.of(lot(2, "north", 1099)));
+        when(south.getAllParkingLots()).thenReturn(List.of(lot(1, "south", 1100)));
+        // Spot 5 is in lot 1 (south), spot 7 in lot 2 (north)
+        when(north.applyGateEvents(any())).thenAnswer(call -> ((List<GateEventDTO>) call.getArgument(0)).stream()
+                .map(e -> e.getSpotId() == 7L ? new GateEventResultDTO(7L, 2L, "APPLIED")
+                        : new GateEventResultDTO(e.getSpotId(), 1L, "WRONG_SHARD"))
+                .toList());
+        when(south.applyGateEvents(any())).thenAnswer(call -> ((List<GateEventDTO>) call.getArgument(0)).stream()
+                .map(e -> new GateEventResultDTO(e.getSpotId(), 1L, "APPLIED")).toList());
+
+        List<GateEventResultDTO> results = service.applyGateEvents(List.of(new GateEventDTO(5L, "ENTRY", null),
+                new GateEventDTO(7L, "ENTRY", null), new GateEventDTO(5L, "EXIT", null)));
+        assertEquals(List.of(5L, 7L, 5L), results.stream().map(GateEventResultDTO::getSpotId).toList());
+        assertTrue(results.stream().allMatch(r -> r.getResult().equals("APPLIED")));
+
+        // Owners known now: one call to south only
+        service.applyGateEvents(List.of(new GateEventDTO(5L, "ENTRY", null)));
+        verify(south, times(2)).applyGateEvents(any());
+        verify(north, times(1)).applyGateEvents(any());
+    }
+
+    @Test
+    void testPages_AreMergedInIdOrderAcrossInstances() throws Exception {
+        // north has more lots after 3, south has none after 4
+        when(north.getParkingLotsPage(null, 3)).thenReturn(
+                new PageDTO<>(List.of(lot(1, "north", 1099), lot(3, "north", 1099), lot(6, "north", 1099)), 6L));
+        when(south.getParkingLotsPage(null, 3)).thenReturn(
+                new PageDTO<>(List.of(lot(2, "south", 1100), lot(4, "south", 1100)), null));
+
+        PageDTO<ParkingLotDTO> first = service.getParkingLotsPage(null, 3);
+        assertEquals(List.of(1L, 2L, 3L), first.getItems().stream().map(ParkingLotDTO::getId).toList());
+        assertEquals(3L, first.getNextCursor());
+
+        when(north.getParkingLotsPage(3L, 3)).thenReturn(new PageDTO<>(List.of(lot(6, "north", 1099)), null));
+        when(south.getParkingLotsPage(3L, 3)).thenReturn(new PageDTO<>(List.of(lot(4, "south", 1100)), null));
+
+        PageDTO<ParkingLotDTO> second = service.getParkingLotsPage(3L, 3);
+        assertEquals(List.of(4L, 6L), second.getItems().stream().map(ParkingLotDTO::getId).toList());
+        assertNull(second.getNextCursor());
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.parking_rmi.service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.parking_rmi.Interface.ParkingService;
+import com.example.parking_rmi.dto.SpotEventDTO;
+
+public class OccupancyStreamServiceTest {
+
+    /** Keeps what would be written to the browser. */
+    private static class CapturingEmitter extends SseEmitter {
+        final BlockingQueue<Object> sent = new LinkedBlockingQueue<>();
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            for (var part : builder.build()) {
+                if (!(part.getData() instanceof String)) {
+                    sent.add(part.getData());
+                }
+            }
+        }
+    }
+
+    /** Blocks every send until released, like a browser that stopped reading. */
+    private static class StuckEmitter extends SseEmitter {
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Counts the heartbeat comments. */
+    private static class HeartbeatEmitter extends SseEmitter {
+        final BlockingQueue<Object> heartbeats = new LinkedBlockingQueue<>();
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            for (var part : builder.build()) {
+                if (part.getData() instanceof String text && text.contains("heartbeat")) {
+                    heartbeats.add(text);
+                }
+            }
+        }
+    }
+
+    private final ParkingServ clientService = mock(ParkingServ.class);
+
+    @SuppressWarnings("unchecked")
+    private final OccupancyStreamService stream = new OccupancyStreamService(clientService,
+            mock(ParkingService.class), mock(ObjectProvider.class), 250, 15000, 0, 10);
+
+    @AfterEach
+    void tearDown() {
+        stream.stop();
+    }
+
+    private static SpotEventDTO event(long lotId, long spotId, String status, int available, long version) {
+        return new SpotEventDTO(lotId, spotId, "S" + spotId, status, available, version, false);
+    }
+
+    @Test
+    void testLotTopic_GetsOneCoalescedBatch() throws Exception {
+        doReturn(new CompletableFuture<>()).when(clientService).async(any());
+        CapturingEmitter browser = new CapturingEmitter();
+        stream.register(1L, browser);
+
+        stream.onSpotEvents(List.of(event(1, 10, "OCCUPIED", 4, 1), event(1, 11, "RESERVED", 3, 2)));
+        stream.onSpotEvents(List.of(event(1, 10, "AVAILABLE", 4, 3), event(2, 20, "OCCUPIED", 9, 1)));
+        stream.flush();
+
+        List<?> batch = (List<?>) browser.sent.poll(5, TimeUnit.SECONDS);
+        assertNotNull(batch);
+        assertEquals(2, batch.size());
+        assertEquals("RESERVED", ((SpotEventDTO) batch.get(0)).getStatus());
+        assertEquals("AVAILABLE", ((SpotEventDTO) batch.get(1)).getStatus());
+        assertNull(browser.sent.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testAllLotsTopic_GetsLatestCounters() throws Exception {
+        doReturn(new CompletableFuture<>()).when(clientService).async(any());
+        CapturingEmitter browser = new CapturingEmitter();
+        stream.register(null, browser);
+
+        stream.onSpotEvents(List.of(event(1, 10, "OCCUPIED", 4, 1), event(2, 20, "OCCUPIED", 9, 1),
+                event(1, 11, "OCCUPIED", 3, 2)));
+        stream.flush();
+
+        Object counters = browser.sent.poll(5, TimeUnit.SECONDS);
+        assertEquals(Map.of(1L, 3, 2L, 9), counters);
+    }
+
+    @Test
+    void testStuckClient_DoesNotDelayHeartbeats_AndIsDropped() throws Exception {
+        doReturn(new CompletableFuture<>()).when(clientService).async(any());
+        StuckEmitter stuck = new StuckEmitter();
+        stream.register(1L, stuck);
+        stream.heartbeat(); // returns while the stuck client's heartbeat stays blocked
+
+        HeartbeatEmitter browser = new HeartbeatEmitter();
+        stream.register(1L, browser);
+        stream.heartbeat();
+        assertNotNull(browser.heartbeats.poll(5, TimeUnit.SECONDS));
+
+        assertEquals(1, stream.getStats().get("connections"));
+        stuck.release.countDown();
+    }
+
+    @Test
+    void testConnectionLimit() {
+        doReturn(new CompletableFuture<>()).when(clientService).async(any());
+        for (int i = 0; i < 10; i++) {
+            stream.register((long) i, new CapturingEmitter());
+        }
+        assertThrows(ResponseStatusException.class, () -> stream.register(1L, new CapturingEmitter()));
+        assertEquals(10, stream.getStats().get("connections"));
+    }
+}
@@ -1,29 +1,23 @@
 import React, { useEffect, useState } from "react";
 import ParkingCircleChart from "../components/ParkingCircleChart";
-import { getAllParkingLots, parkingStats } from "../../services/apiService";
+import { parkingStatsOverview, openParkingsStream } from "../../services/apiService";
 
 const AdminStats = () => {
   const [parkings, setParkings] = useState([]);
   const [selectedParking, setSelectedParking] = useState(null);
 
-  // Fetch all parkings
+  // Fetch all parkings with their stats (one request for all lots)
   useEffect(() => {
     const fetchParkings = async () => {
       try {
-        const data = await getAllParkingLots();
-        
-        // For each parking, fetch its stats (occupied, available, total)
-        const parkingsWithStats = await Promise.all(
-          data.map(async (p) => {
-            const stats = await parkingStats(p.id);
-            return {
-              id: p.id,
-              name: p.name,
-              occupied: stats.occupiedSpots,
-              total: stats.availableSpots + stats.occupiedSpots,
-            };
-          })
-        );
+        const data = await parkingStatsOverview();
+
+        const parkingsWithStats = data.map((s) => ({
+          id: s.parkingLotId,
+          name: s.name,
+          occupied: s.totalSpots - s.availableSpots,
+          total: s.totalSpots,
+        }));
 
         setParkings(parkingsWithStats);
       } catch (err) {
@@ -32,6 +26,14 @@ const AdminStats = () => {
     };
 
     fetchParkings();
+
+    // Occupation en temps réel : le flux des places libres met à jour les graphiques
+    const source = openParkingsStream((counters) => {
+      setParkings((list) =>
+        list.map((p) => (counters[p.id] != null ? { ...p, occupied: p.total - counters[p.id] } : p))
+      );
+    });
+    return () => source.close();
   }, []);
 
 
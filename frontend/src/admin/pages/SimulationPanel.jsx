@@ -1,8 +1,7 @@
 import React, { useState, useEffect } from "react";
 import {
   getAllParkingLots,
-  getParkingSpots,
-  getParkingById,
+  openParkingStream,
 } from "../../services/apiService";
 import { simulateCarEnter, simulateCarExit, parkingStats } from "../../services/apiService";
 import { Car } from "lucide-react";
@@ -24,14 +23,33 @@ const SimulationPanel = () => {
 
   useEffect(() => {
     if (selectedParking) {
-      const fetchSpots = async () => {
-        const parkingData = await getParkingById(selectedParking);
-        const parkingStatsData = await parkingStats(selectedParking);
-        setSpots(parkingData.spots);
-        setStats(parkingStatsData)
-      };
+      parkingStats(selectedParking).then(setStats);
 
-      fetchSpots();
+      // Les places arrivent par le flux : snapshot puis changements
+      let version = 0;
+      const source = openParkingStream(selectedParking, {
+        onSnapshot: (snapshot) => {
+          version = snapshot.version;
+          setSpots(snapshot.spots);
+        },
+        onSpots: (events) => {
+          const changed = new Map(
+            events.filter((e) => e.version > version).map((e) => [e.spotId, e])
+          );
+          setSpots((prev) =>
+            prev.map((s) => (changed.has(s.id) ? { ...s, status: changed.get(s.id).status } : s))
+          );
+          const last = events[events.length - 1];
+          if (last && last.availableSpots != null) {
+            setStats((prev) => ({
+              ...prev,
+              availableSpots: last.availableSpots,
+              occupiedSpots: prev.availableSpots + prev.occupiedSpots - last.availableSpots,
+            }));
+          }
+        },
+      });
+      return () => source.close();
     }
     if(setSelectedParking == null) {
       setStats({availableSpots: 0,
@@ -50,9 +68,8 @@ const SimulationPanel = () => {
     try {
       if (action === "enter") await simulateCarEnter(spotId);
       else await simulateCarExit(spotId);
-      const updatedData = await getParkingSpots(selectedParking);
-      setSpots(updatedData);
-      
+      // La place mise à jour arrive par le flux du parking
+
     } catch (err) {
       alert("Erreur simulation: " + err.message);
     };
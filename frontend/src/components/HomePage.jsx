@@ -6,7 +6,7 @@ import ParkingGrid from './ParkingGrid';
 import ParkingDetails from './ParkingDetails';
 import ReservationModal from './ReservationModal';
 import Toast from './Toast';
-import { getAllParkingLots } from '../services/apiService';
+import { getAllParkingLots, openParkingsStream } from '../services/apiService';
 import { MAP_CONFIG } from '../utils/constants';
 
 const HomePage = () => {
@@ -22,6 +22,15 @@ const HomePage = () => {
 
   useEffect(() => {
     fetchParkings();
+
+    // Places libres en temps réel, sans recharger la liste
+    const source = openParkingsStream((counters) => {
+      const update = (list) =>
+        list.map((p) => (counters[p.id] != null ? { ...p, availableSpots: counters[p.id] } : p));
+      setParkings(update);
+      setFilteredParkings(update);
+    });
+    return () => source.close();
   }, []);
 
   const fetchParkings = async () => {
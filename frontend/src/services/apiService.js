@@ -93,6 +93,37 @@ export const getParkingSpots = async (parkingId) => {
   return response.data;
 };
 
+/**
+ * Places modifiées depuis une version (PUBLIC)
+ * Retourne { version, full, spots } : full = true -> liste complète
+ */
+export const getSpotChanges = async (parkingId, since = 0) => {
+  const response = await publicApi.get(ENDPOINTS.SPOT_CHANGES(parkingId, since));
+  return response.data;
+};
+
+/**
+ * Flux temps réel d'un parking (SSE, PUBLIC)
+ * onSnapshot({ version, spots }) puis onSpots([{ spotId, status, availableSpots, version }])
+ * Retourne l'EventSource : appeler close() pour se désabonner
+ */
+export const openParkingStream = (parkingId, { onSnapshot, onSpots }) => {
+  const source = new EventSource(API_BASE_URL + ENDPOINTS.PARKING_STREAM(parkingId));
+  source.addEventListener("snapshot", (e) => onSnapshot(JSON.parse(e.data)));
+  source.addEventListener("spots", (e) => onSpots(JSON.parse(e.data)));
+  return source;
+};
+
+/**
+ * Flux temps réel des places libres de tous les parkings (SSE, PUBLIC)
+ * onLots({ parkingLotId: availableSpots })
+ */
+export const openParkingsStream = (onLots) => {
+  const source = new EventSource(API_BASE_URL + ENDPOINTS.PARKINGS_STREAM);
+  source.addEventListener("lots", (e) => onLots(JSON.parse(e.data)));
+  return source;
+};
+
 /**
  * Créer une réservation (PUBLIC - Sans Token)
  * 
@@ -156,6 +187,12 @@ export const parkingStats = async (id) => {
   return response.data;
 };
 
+// stats of all parkings in one call
+export const parkingStatsOverview = async () => {
+  const response = await api.get(ENDPOINTS.PARKING_STATS_OVERVIEW);
+  return response.data;
+};
+
 
 // Par défaut on export l'instance privée
 export default api;
\ No newline at end of file
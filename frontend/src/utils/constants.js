@@ -51,6 +51,9 @@ export const ENDPOINTS = {
   PARKING_LOTS: "/parking/lots",
   PARKING_BY_ID: (id) => `/parking/${id}`,
   PARKING_SPOTS: (id) => `/parking/${id}/spots`,
+  SPOT_CHANGES: (id, since) => `/parking/${id}/spots/changes?since=${since}`,
+  PARKING_STREAM: (id) => `/parking/${id}/stream`,
+  PARKINGS_STREAM: "/parking/stream",
   RESERVATIONS: "/reservations",
   RESERVATION_BY_ID: (id) => `/reservations/${id}`,
   USER_RESERVATIONS: (email) => `/reservations/user/${email}`,
@@ -61,4 +64,5 @@ export const ENDPOINTS = {
   ENTER_SIMULATION : (id) => `/admin/simulate/enter/${id}`,
   EXIT_SIMULATION : (id) => `/admin/simulate/exit/${id}`,
   PARKING_STATS : (id) => `/admin/stats/parking/${id}`,
+  PARKING_STATS_OVERVIEW : "/admin/stats/overview",
 };
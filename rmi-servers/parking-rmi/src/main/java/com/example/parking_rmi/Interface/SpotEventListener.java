@@ -0,0 +1,17 @@
+package com.example.parking_rmi.Interface;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.util.List;
+
+import com.example.parking_rmi.dto.SpotEventDTO;
+
+/**
+ * Callback exported by an RMI client and registered with
+ * ParkingService.subscribeSpotEvents to receive spot status changes.
+ */
+public interface SpotEventListener extends Remote {
+
+    // One batch of coalesced events, in version order per lot
+    void onSpotEvents(List<SpotEventDTO> events) throws RemoteException;
+}
@@ -1,14 +1,37 @@
 package com.example.parking_rmi;
 
-import java.rmi.registry.LocateRegistry;
-import java.rmi.registry.Registry;
+import java.util.Collection;
 
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.ApplicationContext;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
 
-import com.example.parking_rmi.Interface.ParkingService;
 import com.example.parking_rmi.impliment.ParkingServiceImp;
+import com.example.parking_rmi.rmi.CallClass;
+import com.example.parking_rmi.rmi.CallDispatcher;
+import com.example.parking_rmi.rmi.CallLimiter;
+import com.example.parking_rmi.rmi.RmiRegistryBinder;
+import com.example.parking_rmi.rmi.RmiSocketOptions;
+import com.example.parking_rmi.rmi.SpotEventDispatcher;
+import com.example.parking_rmi.rmi.StartupWarmup;
+import com.example.parking_rmi.rmi.TunedClientSocketFactory;
+import com.example.parking_rmi.rmi.TunedServerSocketFactory;
+import com.example.parking_rmi.service.LotCounters;
+import com.example.parking_rmi.service.LotShardService;
+import com.example.parking_rmi.service.ParkingLotService;
+import com.example.parking_rmi.service.ParkingStatsService;
+import com.example.parking_rmi.service.ReservationDeadlines;
+import com.example.parking_rmi.service.ReservationIndex;
+import com.example.parking_rmi.service.SpotChangeLog;
+import com.example.parking_rmi.service.SpotHistory;
+import com.example.parking_rmi.service.SpotStateStore;
 
 import lombok.extern.slf4j.Slf4j;
 @Slf4j
@@ -17,29 +40,132 @@ public class ParkingRmiApplication {
 
 	public static void main(String[] args) {
 		System.out.println("🚀 Starting Spring Boot Application...\n");
-        ApplicationContext context = SpringApplication.run(ParkingRmiApplication.class, args);
-        
-        // Wait a moment for JPA to fully initialize
-        try {
-            Thread.sleep(2000);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
-		ParkingService parkingService;
-		try {
-			parkingService=context.getBean(ParkingServiceImp.class);
-			if (parkingService==null) {
-				throw new RuntimeException("ERROR IN THE BEANS");
+		// The registry is created and bound by RmiRegistryBinder once the context is ready
+		SpringApplication.run(ParkingRmiApplication.class, args);
+	}
+
+	@Bean
+	public RmiRegistryBinder rmiRegistryBinder(ParkingServiceImp parkingService,
+			TunedClientSocketFactory csf, TunedServerSocketFactory ssf, DataSource dataSource,
+			ObjectProvider<StartupWarmup> warmups, LotShardService lotShard,
+			@Value("${rmi.registry.port:1099}") int port) {
+		return new RmiRegistryBinder(parkingService, csf, ssf, dataSource, warmups.orderedStream().toList(),
+				lotShard, port);
+	}
+
+	// Run before binding, in this order (rmi.warmup.enabled=false to skip): owned lots,
+	// spot states of those lots (from the last snapshot when there is one), lot counters,
+	// reservation windows and deadlines, Hikari pool and Hibernate query plans of the dashboard aggregate and the lot listing
+	@Bean
+	@Order(0)
+	@ConditionalOnProperty(value = "rmi.warmup.enabled", havingValue = "true", matchIfMissing = true)
+	public StartupWarmup lotRoutingWarmup(LotShardService lotShard) {
+		return StartupWarmup.of("owned lots", lotShard::refresh);
+	}
+
+	@Bean
+	@Order(1)
+	@ConditionalOnProperty(value = "rmi.warmup.enabled", havingValue = "true", matchIfMissing = true)
+	public StartupWarmup spotStateWarmup(SpotStateStore spotStates, SpotHistory spotHistory,
+			LotShardService lotShard) {
+		return StartupWarmup.of("spot state store", () -> {
+			if (spotStates.isEnabled()) {
+				Collection<Long> lots = lotShard.isEnabled() ? lotShard.getOwnedLotIds() : null;
+				if (!spotHistory.recover(lots)) {
+					spotStates.load(lots);
+					spotHistory.snapshot(); // the next start restores from it
+				}
 			}
-			Registry registry = LocateRegistry.createRegistry(1099);
-			
-			registry.bind("parkingService", parkingService);
-			System.out.println("-------------------------------------------");
-			System.out.println("                SERVER RUNNING             ");
-			System.out.println("-------------------------------------------");
-		} catch (Exception e) {
-			log.info("the server rmi shutdown !!");
-		}
+		});
+	}
+
+	// Not optional: lots without loaded counters fall back to the (lagging) available_spots column
+	// Already done when the spot states were restored from a snapshot
+	@Bean
+	@Order(2)
+	public StartupWarmup lotCountersWarmup(LotCounters lotCounters, SpotHistory spotHistory,
+			LotShardService lotShard) {
+		return StartupWarmup.of("lot counters", () -> {
+			if (!spotHistory.isRestored()) {
+				lotCounters.load(lotShard.isEnabled() ? lotShard.getOwnedLotIds() : null);
+			}
+		});
+	}
+
+	// Not optional either: until loaded, every reservation checks its window with a range query
+	@Bean
+	@Order(3)
+	public StartupWarmup reservationIndexWarmup(ReservationIndex reservationIndex) {
+		return StartupWarmup.of("reservation windows", reservationIndex::load);
+	}
+
+	// Not optional: reservations past their end are completed (and their spots freed) from here
+	@Bean
+	@Order(4)
+	public StartupWarmup reservationDeadlinesWarmup(ReservationDeadlines reservationDeadlines) {
+		return StartupWarmup.of("reservation deadlines", reservationDeadlines::reseed);
+	}
+
+	@Bean
+	@Order(5)
+	@ConditionalOnProperty(value = "rmi.warmup.enabled", havingValue = "true", matchIfMissing = true)
+	public StartupWarmup queryWarmup(ParkingLotService parkingLotService, ParkingStatsService parkingStatsService) {
+		return StartupWarmup.of("lot listing + stats queries", () -> {
+			parkingLotService.getAllParkingLots();
+			parkingStatsService.getParkingLotStats(null);
+		});
+	}
+
+	// RMI transport used to export parkingService (see rmi.socket.* properties)
+	@Bean
+	public RmiSocketOptions rmiSocketOptions(
+			@Value("${rmi.socket.compression:false}") boolean compression,
+			@Value("${rmi.socket.compression-level:1}") int compressionLevel,
+			@Value("${rmi.socket.tcp-no-delay:true}") boolean tcpNoDelay,
+			@Value("${rmi.socket.send-buffer-size:0}") int sendBufferSize,
+			@Value("${rmi.socket.receive-buffer-size:0}") int receiveBufferSize) {
+		return new RmiSocketOptions(compression, compressionLevel, tcpNoDelay, sendBufferSize, receiveBufferSize);
+	}
+
+	@Bean
+	public TunedClientSocketFactory rmiClientSocketFactory(RmiSocketOptions options) {
+		return new TunedClientSocketFactory(options);
+	}
+
+	@Bean
+	public TunedServerSocketFactory rmiServerSocketFactory(RmiSocketOptions options) {
+		return new TunedServerSocketFactory(options);
+	}
+
+	// Admission control for parkingService (see rmi.dispatch.* properties)
+	@Bean
+	public CallDispatcher callDispatcher(Environment env) {
+		CallDispatcher dispatcher = new CallDispatcher(
+				callLimiter(env, CallClass.READ, 10, 200, 1000),
+				callLimiter(env, CallClass.WRITE, 6, 100, 3000),
+				callLimiter(env, CallClass.ADMIN, 2, 20, 5000));
+		dispatcher.registerMBeans();
+		return dispatcher;
+	}
+
+	// Remote spot event listeners, fed by every committed spot change (see rmi.events.* properties)
+	@Bean(destroyMethod = "close")
+	public SpotEventDispatcher spotEventDispatcher(Environment env, SpotChangeLog spotChangeLog) {
+		SpotEventDispatcher dispatcher = new SpotEventDispatcher(
+				env.getProperty("rmi.events.queue-capacity", Integer.class, 1000),
+				env.getProperty("rmi.events.max-batch", Integer.class, 200),
+				env.getProperty("rmi.events.max-failures", Integer.class, 3));
+		spotChangeLog.addObserver(dispatcher::publish);
+		return dispatcher;
+	}
+
+	private static CallLimiter callLimiter(Environment env, CallClass callClass,
+			int maxConcurrent, int maxQueue, long queueTimeoutMillis) {
+		String prefix = "rmi.dispatch." + callClass.name().toLowerCase() + ".";
+		return new CallLimiter(callClass,
+				env.getProperty(prefix + "max-concurrent", Integer.class, maxConcurrent),
+				env.getProperty(prefix + "max-queue", Integer.class, maxQueue),
+				env.getProperty(prefix + "queue-timeout-ms", Long.class, queueTimeoutMillis));
 	}
 
 }
@@ -1,14 +1,18 @@
 package com.example.parking_rmi.Repository;
 
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.parking_rmi.model.ParkingLot;
 import com.example.parking_rmi.model.ParkingLot.ParkingStatus;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -50,9 +54,43 @@ public interface ParkingLotRepository extends JpaRepository<ParkingLot, Long> {
 
     Long countByStatus(ParkingStatus status);
 
+    // Rows: [id, name] - lightweight listing for aggregate screens
+    @Query("SELECT p.id, p.name FROM ParkingLot p ORDER BY p.id")
+    List<Object[]> findAllIdsAndNames();
+
+    @Query("SELECT p.id, p.name FROM ParkingLot p WHERE p.id IN :ids ORDER BY p.id")
+    List<Object[]> findIdsAndNamesByIdIn(@Param("ids") Collection<Long> ids);
+
     @Query("SELECT SUM(p.availableSpots) FROM ParkingLot p WHERE p.status = 'ACTIVE'")
     Integer getTotalAvailableSpots();
 
+    // Write-behind of service.LotCounters: relative update, no read of the row
+    @Modifying
+    @Transactional
+    @Query("UPDATE ParkingLot p SET p.availableSpots = p.availableSpots + :delta WHERE p.id = :id")
+    int addAvailableSpots(@Param("id") Long id, @Param("delta") int delta);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ParkingLot p SET p.availableSpots = :available WHERE p.id = :id AND p.availableSpots <> :available")
+    int setAvailableSpotsIfDifferent(@Param("id") Long id, @Param("available") int available);
+
+    @Query("SELECT SUM(p.availableSpots) FROM ParkingLot p WHERE p.status = 'ACTIVE' AND p.id IN :ids")
+    Integer getTotalAvailableSpots(@Param("ids") Collection<Long> ids);
+
+    // Rows: [id, rmiServiceName] - lots served by the RMI instance at host:port
+    @Query("SELECT p.id, p.rmiServiceName FROM ParkingLot p WHERE p.rmiHost = :host AND p.rmiPort = :port")
+    List<Object[]> findIdsAndServiceNamesByRmiHostAndRmiPort(@Param("host") String host, @Param("port") Integer port);
+
+    // Rows: [rmiHost, rmiPort] (empty if the lot does not exist)
+    @Query("SELECT p.rmiHost, p.rmiPort FROM ParkingLot p WHERE p.id = :id")
+    List<Object[]> findRmiHostAndPortById(@Param("id") Long id);
+
+    // Keyset pages (ids after afterId), see service.Pages
+    List<ParkingLot> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    List<ParkingLot> findByIdInAndIdGreaterThanOrderByIdAsc(Collection<Long> ids, Long afterId, Limit limit);
+
     @Query("SELECT SUM(p.totalSpots) FROM ParkingLot p WHERE p.status = 'ACTIVE'")
     Integer getTotalSpots();
 
@@ -1,7 +1,9 @@
 package com.example.parking_rmi.Repository;
 
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -10,6 +12,8 @@ import com.example.parking_rmi.model.ParkingSpot;
 import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
 import com.example.parking_rmi.model.ParkingSpot.SpotType;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -44,6 +48,33 @@ public interface ParkingSpotRepository extends JpaRepository<ParkingSpot, Long>
 
     Long countByParkingLotIdAndStatus(Long parkingLotId, SpotStatus status);
 
+    // Rows: [parkingLotId, spotId, status], for SpotStateStore
+    @Query("SELECT s.parkingLot.id, s.id, s.status FROM ParkingSpot s ORDER BY s.parkingLot.id, s.id")
+    List<Object[]> findSpotStates();
+
+    @Query("SELECT s.parkingLot.id, s.id, s.status FROM ParkingSpot s WHERE s.parkingLot.id IN :parkingLotIds " +
+           "ORDER BY s.parkingLot.id, s.id")
+    List<Object[]> findSpotStates(@Param("parkingLotIds") Collection<Long> parkingLotIds);
+
+    // Compare-and-set of one spot's status: 1 if it was from and is now to, 0 if someone changed it first
+    @Modifying
+    @Query("UPDATE ParkingSpot s SET s.status = :to, s.updatedAt = :now WHERE s.id = :spotId AND s.status = :from")
+    int compareAndSetStatus(@Param("spotId") Long spotId, @Param("from") SpotStatus from, @Param("to") SpotStatus to,
+            @Param("now") LocalDateTime now);
+
+    // Rows: [spotId, status, spotType, floor, section, accessible, covered, electric], for SpotAllocator
+    @Query("SELECT s.id, s.status, s.spotType, s.floorNumber, s.section, s.isAccessible, s.isCovered, " +
+           "s.isElectricCharging FROM ParkingSpot s WHERE s.parkingLot.id = :parkingLotId ORDER BY s.id")
+    List<Object[]> findAllocationRows(@Param("parkingLotId") Long parkingLotId);
+
+    // Same rows for the spots written since a time (SpotHistory recovery, idx_spot_updated_at)
+    @Query("SELECT s.parkingLot.id, s.id, s.status FROM ParkingSpot s WHERE s.updatedAt >= :since ORDER BY s.id")
+    List<Object[]> findSpotStatesUpdatedSince(@Param("since") LocalDateTime since);
+
+    // Same rows for given spots (GateEventService)
+    @Query("SELECT s.parkingLot.id, s.id, s.status FROM ParkingSpot s WHERE s.id IN :spotIds")
+    List<Object[]> findSpotStatesByIdIn(@Param("spotIds") Collection<Long> spotIds);
+
     // ✅ This is the method used by your Service implementation
     @Query("SELECT COUNT(s) FROM ParkingSpot s WHERE s.parkingLot.id = :parkingLotId AND s.status = 'AVAILABLE'")
     Long countAvailableSpots(@Param("parkingLotId") Long parkingLotId);//3
@@ -54,6 +85,27 @@ public interface ParkingSpotRepository extends JpaRepository<ParkingSpot, Long>
     @Query("SELECT COUNT(s) FROM ParkingSpot s WHERE s.parkingLot.id = :parkingLotId AND s.status = 'RESERVED'")
     Long countReservedSpots(@Param("parkingLotId") Long parkingLotId);
 
+    // Rows: [parkingLotId, status, count]
+    @Query("SELECT s.parkingLot.id, s.status, COUNT(s) FROM ParkingSpot s " +
+           "GROUP BY s.parkingLot.id, s.status")
+    List<Object[]> countSpotsGroupedByParkingLotAndStatus();
+
+    @Query("SELECT s.parkingLot.id, s.status, COUNT(s) FROM ParkingSpot s " +
+           "WHERE s.parkingLot.id IN :parkingLotIds " +
+           "GROUP BY s.parkingLot.id, s.status")
+    List<Object[]> countSpotsGroupedByParkingLotAndStatus(@Param("parkingLotIds") Collection<Long> parkingLotIds);
+
+    List<ParkingSpot> findByParkingLotIdInAndStatus(Collection<Long> parkingLotIds, SpotStatus status);
+
+    // Keyset pages (ids after afterId), see service.Pages
+    List<ParkingSpot> findByStatusAndIdGreaterThanOrderByIdAsc(SpotStatus status, Long afterId, Limit limit);
+
+    List<ParkingSpot> findByParkingLotIdInAndStatusAndIdGreaterThanOrderByIdAsc(Collection<Long> parkingLotIds,
+            SpotStatus status, Long afterId, Limit limit);
+
+    @Query("SELECT s.parkingLot.id FROM ParkingSpot s WHERE s.id = :spotId")
+    Long findParkingLotIdBySpotId(@Param("spotId") Long spotId);
+
     boolean existsByParkingLotIdAndSpotNumber(Long parkingLotId, String spotNumber);
 
     List<ParkingSpot> findByParkingLotIdAndFloorNumber(Long parkingLotId, Integer floorNumber);
@@ -1,7 +1,9 @@
 package com.example.parking_rmi.Repository;
 
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -9,7 +11,10 @@ import org.springframework.stereotype.Repository;
 import com.example.parking_rmi.model.Reservation;
 import com.example.parking_rmi.model.Reservation.ReservationStatus;
 
+import jakarta.persistence.LockModeType;
+
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,6 +28,14 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
 
    List<Reservation> findByUserEmail(String userEmail);
 
+    // Row locked until commit: a deadline writing the same reservation waits, or is waited for
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Reservation r WHERE r.id = :id")
+    Optional<Reservation> findByIdForUpdate(@Param("id") Long id);
+
+    @Query("SELECT r.parkingLot.id FROM Reservation r WHERE r.id = :reservationId")
+    Long findParkingLotIdByReservationId(@Param("reservationId") Long reservationId);
+
     // ✅ OPTIMIZATION: Fetches Parking Lot & Spot details eagerly to avoid lazy errors in user history
     @Query("SELECT r FROM Reservation r " +
            "LEFT JOIN FETCH r.parkingLot " +
@@ -34,6 +47,37 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
 
     List<Reservation> findByParkingLotId(Long parkingLotId);
 
+    // Keyset pages, newest first (ids before beforeId), see service.Pages
+    @Query("SELECT r FROM Reservation r " +
+           "LEFT JOIN FETCH r.parkingLot " +
+           "LEFT JOIN FETCH r.parkingSpot " +
+           "WHERE r.parkingLot.id = :parkingLotId AND r.id < :beforeId " +
+           "ORDER BY r.id DESC")
+    List<Reservation> findPageByParkingLotId(@Param("parkingLotId") Long parkingLotId,
+                                             @Param("beforeId") Long beforeId, Limit limit);
+
+    @Query("SELECT r FROM Reservation r " +
+           "LEFT JOIN FETCH r.parkingLot " +
+           "LEFT JOIN FETCH r.parkingSpot " +
+           "WHERE r.userEmail = :email " +
+           "AND r.status IN ('PENDING', 'CONFIRMED') " +
+           "AND r.id < :beforeId " +
+           "ORDER BY r.id DESC")
+    List<Reservation> findActivePageByUserEmail(@Param("email") String email,
+                                                @Param("beforeId") Long beforeId, Limit limit);
+
+    @Query("SELECT r FROM Reservation r " +
+           "LEFT JOIN FETCH r.parkingLot " +
+           "LEFT JOIN FETCH r.parkingSpot " +
+           "WHERE r.userEmail = :email " +
+           "AND r.status IN ('PENDING', 'CONFIRMED') " +
+           "AND r.parkingLot.id IN :parkingLotIds " +
+           "AND r.id < :beforeId " +
+           "ORDER BY r.id DESC")
+    List<Reservation> findActivePageByUserEmail(@Param("email") String email,
+                                                @Param("parkingLotIds") Collection<Long> parkingLotIds,
+                                                @Param("beforeId") Long beforeId, Limit limit);
+
     List<Reservation> findByParkingSpotId(Long parkingSpotId);
 
     @Query("SELECT r FROM Reservation r WHERE r.parkingSpot.id = :spotId " +
@@ -60,6 +104,22 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
                                                   @Param("startTime") LocalDateTime startTime,
                                                   @Param("endTime") LocalDateTime endTime);
 
+    // Rows: [reservationId, spotId, startTime, endTime], for ReservationIndex
+    @Query("SELECT r.id, r.parkingSpot.id, r.startTime, r.endTime FROM Reservation r " +
+           "WHERE r.status IN ('PENDING', 'CONFIRMED') AND r.endTime > :now AND r.parkingSpot IS NOT NULL " +
+           "ORDER BY r.parkingSpot.id, r.startTime")
+    List<Object[]> findActiveWindows(@Param("now") LocalDateTime now);
+
+    // Rows: [reservationId, parkingLotId, startTime, endTime, createdAt], for ReservationDeadlines
+    @Query("SELECT r.id, r.parkingLot.id, r.startTime, r.endTime, r.createdAt FROM Reservation r " +
+           "WHERE r.status IN ('PENDING', 'CONFIRMED')")
+    List<Object[]> findActiveDeadlines();
+
+    // Rows: [reservationId, status, checkInTime, parkingLotId, spotId, spotStatus]
+    @Query("SELECT r.id, r.status, r.checkInTime, r.parkingLot.id, s.id, s.status FROM Reservation r " +
+           "JOIN r.parkingSpot s WHERE r.id IN :reservationIds")
+    List<Object[]> findDeadlineStates(@Param("reservationIds") Collection<Long> reservationIds);
+
     @Query("SELECT r FROM Reservation r WHERE r.status = 'CONFIRMED' " +
            "AND r.endTime < :now")
     List<Reservation> findExpiredReservations(@Param("now") LocalDateTime now);
@@ -75,6 +135,17 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
            "AND r.status = 'COMPLETED'")
     Double getTotalRevenueByParkingLotId(@Param("parkingLotId") Long parkingLotId);//1
 
+    // Rows: [parkingLotId, revenue]
+    @Query("SELECT r.parkingLot.id, SUM(r.totalAmount) FROM Reservation r " +
+           "WHERE r.status = 'COMPLETED' " +
+           "GROUP BY r.parkingLot.id")
+    List<Object[]> getTotalRevenueGroupedByParkingLot();
+
+    @Query("SELECT r.parkingLot.id, SUM(r.totalAmount) FROM Reservation r " +
+           "WHERE r.status = 'COMPLETED' AND r.parkingLot.id IN :parkingLotIds " +
+           "GROUP BY r.parkingLot.id")
+    List<Object[]> getTotalRevenueGroupedByParkingLot(@Param("parkingLotIds") Collection<Long> parkingLotIds);
+
     @Query("SELECT SUM(r.totalAmount) FROM Reservation r " +
            "WHERE r.status = 'COMPLETED' " +
            "AND r.startTime BETWEEN :startDate AND :endDate")
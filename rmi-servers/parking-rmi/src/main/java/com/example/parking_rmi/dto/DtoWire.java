@@ -0,0 +1,104 @@
+package com.example.parking_rmi.dto;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Compact wire encoding shared by the Externalizable DTOs.
+ * The same class exists on the RMI server and in the backend: any change
+ * here must be made on both sides.
+ *
+ * - enum-like Strings: one byte (ordinal), or -1 followed by the raw String
+ * - LocalDateTime: epoch second (UTC) + nanos
+ * - BigDecimal: scale byte + unscaled long, or -128 followed by the String form
+ * - nullable fields: one bit per field in a leading int bitmap
+ */
+final class DtoWire {
+
+    static final byte VERSION = 1;
+
+    private static final byte UNKNOWN_ENUM = -1;
+    private static final byte BIG_DECIMAL_AS_STRING = Byte.MIN_VALUE;
+
+    private DtoWire() {
+    }
+
+    static void writeVersion(ObjectOutput out) throws IOException {
+        out.writeByte(VERSION);
+    }
+
+    static void readVersion(ObjectInput in) throws IOException {
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported DTO wire version " + version);
+        }
+    }
+
+    static int bit(int index, Object value) {
+        return value != null ? 1 << index : 0;
+    }
+
+    static boolean has(int nulls, int index) {
+        return (nulls & (1 << index)) != 0;
+    }
+
+    static void writeEnum(ObjectOutput out, String name, Enum<?>[] values) throws IOException {
+        for (Enum<?> value : values) {
+            if (value.name().equals(name)) {
+                out.writeByte(value.ordinal());
+                return;
+            }
+        }
+        out.writeByte(UNKNOWN_ENUM);
+        out.writeUTF(name);
+    }
+
+    static String readEnum(ObjectInput in, Enum<?>[] values) throws IOException {
+        byte ordinal = in.readByte();
+        if (ordinal == UNKNOWN_ENUM) {
+            return in.readUTF();
+        }
+        if (ordinal < 0 || ordinal >= values.length) {
+            // Newer enum on the sending side, or a corrupt stream
+            throw new InvalidObjectException("Unknown " + values.getClass().getComponentType().getSimpleName()
+                    + " ordinal " + ordinal);
+        }
+        return values[ordinal].name();
+    }
+
+    static void writeTime(ObjectOutput out, LocalDateTime time) throws IOException {
+        out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(time.getNano());
+    }
+
+    static LocalDateTime readTime(ObjectInput in) throws IOException {
+        long seconds = in.readLong();
+        int nanos = in.readInt();
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    static void writeDecimal(ObjectOutput out, BigDecimal value) throws IOException {
+        BigInteger unscaled = value.unscaledValue();
+        if (unscaled.bitLength() < 64 && value.scale() > BIG_DECIMAL_AS_STRING && value.scale() <= Byte.MAX_VALUE) {
+            out.writeByte(value.scale());
+            out.writeLong(unscaled.longValue());
+        } else {
+            out.writeByte(BIG_DECIMAL_AS_STRING);
+            out.writeUTF(value.toString());
+        }
+    }
+
+    static BigDecimal readDecimal(ObjectInput in) throws IOException {
+        byte scale = in.readByte();
+        if (scale == BIG_DECIMAL_AS_STRING) {
+            return new BigDecimal(in.readUTF());
+        }
+        return BigDecimal.valueOf(in.readLong(), scale);
+    }
+}
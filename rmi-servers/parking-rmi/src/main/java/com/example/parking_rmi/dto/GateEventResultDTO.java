@@ -0,0 +1,27 @@
+package com.example.parking_rmi.dto;
+
+import java.io.Serializable;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one GateEventDTO, at the same index in the result list.
+ *
+ * result is APPLIED, UNCHANGED (entry on an occupied spot, exit from an
+ * available one), NOT_FOUND, INVALID (no spot id or an unknown event),
+ * WRONG_SHARD (the spot's lot is served by another RMI server) or CONFLICT
+ * (the spot changed while the batch was applied; nothing of it was written).
+ * parkingLotId is set when the spot was found.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GateEventResultDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private Long spotId;
+    private Long parkingLotId;
+    private String result;
+}
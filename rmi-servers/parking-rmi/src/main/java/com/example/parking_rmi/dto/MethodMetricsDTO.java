@@ -0,0 +1,28 @@
+package com.example.parking_rmi.dto;
+
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Call counters and latency percentiles of one remote method, since startup.
+ * Latencies are server-side (queueing + execution), in microseconds.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MethodMetricsDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String instance;
+    private String method;
+    private long calls;
+    private long errors;
+    private int inFlight;
+    private double meanMicros;
+    private long p50Micros;
+    private long p99Micros;
+    private long p999Micros;
+    private long maxMicros;
+}
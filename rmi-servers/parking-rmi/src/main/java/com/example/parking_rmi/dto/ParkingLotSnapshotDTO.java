@@ -0,0 +1,23 @@
+package com.example.parking_rmi.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Lot + spots + reservations returned in a single RMI round trip
+ * (used by the lot detail page).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParkingLotSnapshotDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private ParkingLotDTO parkingLot;
+    private List<ParkingSpotDTO> spots = new ArrayList<>();
+    private List<ReservationDTO> reservations = new ArrayList<>();
+}
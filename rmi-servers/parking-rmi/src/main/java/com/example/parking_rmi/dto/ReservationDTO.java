@@ -1,8 +1,15 @@
 package com.example.parking_rmi.dto;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+
+import com.example.parking_rmi.model.Reservation.PaymentStatus;
+import com.example.parking_rmi.model.Reservation.ReservationStatus;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -12,7 +19,7 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class ReservationDTO implements Serializable {
+public class ReservationDTO implements Externalizable {
     private static final long serialVersionUID = 1L;
 
     private Long id;
@@ -32,4 +39,55 @@ public class ReservationDTO implements Serializable {
     
     private Long parkingLotId;  // ID only
     private Long parkingSpotId; // ID only
-}
\ No newline at end of file
+
+    // Compact RMI encoding, see DtoWire
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        DtoWire.writeVersion(out);
+        int nulls = DtoWire.bit(0, id) | DtoWire.bit(1, userName) | DtoWire.bit(2, userEmail)
+                | DtoWire.bit(3, userPhone) | DtoWire.bit(4, licensePlate) | DtoWire.bit(5, startTime)
+                | DtoWire.bit(6, endTime) | DtoWire.bit(7, durationHours) | DtoWire.bit(8, status)
+                | DtoWire.bit(9, totalAmount) | DtoWire.bit(10, paymentStatus) | DtoWire.bit(11, checkInTime)
+                | DtoWire.bit(12, checkOutTime) | DtoWire.bit(13, cancellationReason)
+                | DtoWire.bit(14, parkingLotId) | DtoWire.bit(15, parkingSpotId);
+        out.writeInt(nulls);
+        if (id != null) out.writeLong(id);
+        if (userName != null) out.writeUTF(userName);
+        if (userEmail != null) out.writeUTF(userEmail);
+        if (userPhone != null) out.writeUTF(userPhone);
+        if (licensePlate != null) out.writeUTF(licensePlate);
+        if (startTime != null) DtoWire.writeTime(out, startTime);
+        if (endTime != null) DtoWire.writeTime(out, endTime);
+        if (durationHours != null) out.writeInt(durationHours);
+        if (status != null) DtoWire.writeEnum(out, status, ReservationStatus.values());
+        if (totalAmount != null) DtoWire.writeDecimal(out, totalAmount);
+        if (paymentStatus != null) DtoWire.writeEnum(out, paymentStatus, PaymentStatus.values());
+        if (checkInTime != null) DtoWire.writeTime(out, checkInTime);
+        if (checkOutTime != null) DtoWire.writeTime(out, checkOutTime);
+        if (cancellationReason != null) out.writeUTF(cancellationReason);
+        if (parkingLotId != null) out.writeLong(parkingLotId);
+        if (parkingSpotId != null) out.writeLong(parkingSpotId);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        DtoWire.readVersion(in);
+        int nulls = in.readInt();
+        id = DtoWire.has(nulls, 0) ? in.readLong() : null;
+        userName = DtoWire.has(nulls, 1) ? in.readUTF() : null;
+        userEmail = DtoWire.has(nulls, 2) ? in.readUTF() : null;
+        userPhone = DtoWire.has(nulls, 3) ? in.readUTF() : null;
+        licensePlate = DtoWire.has(nulls, 4) ? in.readUTF() : null;
+        startTime = DtoWire.has(nulls, 5) ? DtoWire.readTime(in) : null;
+        endTime = DtoWire.has(nulls, 6) ? DtoWire.readTime(in) : null;
+        durationHours = DtoWire.has(nulls, 7) ? in.readInt() : null;
+        status = DtoWire.has(nulls, 8) ? DtoWire.readEnum(in, ReservationStatus.values()) : null;
+        totalAmount = DtoWire.has(nulls, 9) ? DtoWire.readDecimal(in) : null;
+        paymentStatus = DtoWire.has(nulls, 10) ? DtoWire.readEnum(in, PaymentStatus.values()) : null;
+        checkInTime = DtoWire.has(nulls, 11) ? DtoWire.readTime(in) : null;
+        checkOutTime = DtoWire.has(nulls, 12) ? DtoWire.readTime(in) : null;
+        cancellationReason = DtoWire.has(nulls, 13) ? in.readUTF() : null;
+        parkingLotId = DtoWire.has(nulls, 14) ? in.readLong() : null;
+        parkingSpotId = DtoWire.has(nulls, 15) ? in.readLong() : null;
+    }
+}
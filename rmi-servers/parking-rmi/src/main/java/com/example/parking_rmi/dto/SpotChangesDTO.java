@@ -0,0 +1,25 @@
+package com.example.parking_rmi.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Spots of a lot that changed since a client's version.
+ * When full is true, spots is the whole lot and replaces the client's copy.
+ * The client sends back version on its next poll.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpotChangesDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private Long parkingLotId;
+    private long version;
+    private boolean full;
+    private List<ParkingSpotDTO> spots;
+}
@@ -0,0 +1,30 @@
+package com.example.parking_rmi.dto;
+
+import java.io.Serializable;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A committed spot status change pushed to SpotEventListeners.
+ *
+ * availableSpots is the lot counter after the change. Events are coalesced per
+ * spot, so a listener only sees the latest status of each spot since its last
+ * batch. resync = true (spotId null) means events for the lot were dropped
+ * because the listener fell behind: reload it with getSpotChangesSince.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpotEventDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private Long parkingLotId;
+    private Long spotId;
+    private String spotNumber;
+    private String status;
+    private Integer availableSpots;
+    private long version;
+    private boolean resync;
+}
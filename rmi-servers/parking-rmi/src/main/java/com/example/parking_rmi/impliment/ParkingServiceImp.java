@@ -1,160 +1,381 @@
 package com.example.parking_rmi.impliment;
 
 import com.example.parking_rmi.Interface.ParkingService;
+import com.example.parking_rmi.Interface.SpotEventListener;
 import com.example.parking_rmi.dto.*;
 import com.example.parking_rmi.model.ParkingSpot;
 import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
+import com.example.parking_rmi.rmi.CallDispatcher;
+import com.example.parking_rmi.rmi.SpotEventDispatcher;
+import com.example.parking_rmi.service.GateEventService;
+import com.example.parking_rmi.service.GateWriteBehind;
+import com.example.parking_rmi.service.LotShardService;
 import com.example.parking_rmi.service.ParkingLotService;
+import com.example.parking_rmi.service.ParkingSnapshotService;
 import com.example.parking_rmi.service.ParkingSpotService;
+import com.example.parking_rmi.service.ParkingStatsService;
 import com.example.parking_rmi.service.ReservationService;
+import com.example.parking_rmi.service.SpotAllocator;
+import com.example.parking_rmi.service.SpotHistory;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.rmi.RemoteException;
-import java.rmi.server.UnicastRemoteObject;
+import java.util.Collection;
 import java.util.List;
 
 @Slf4j
 @Component
-public class ParkingServiceImp extends UnicastRemoteObject implements ParkingService {
+public class ParkingServiceImp implements ParkingService {
 
     private final ParkingLotService parkingLotService;
     private final ParkingSpotService parkingSpotService;
     private final ReservationService reservationService;
+    private final ParkingSnapshotService parkingSnapshotService;
+    private final ParkingStatsService parkingStatsService;
+    private final CallDispatcher dispatcher;
+    private final LotShardService lotShard;
+    private final SpotEventDispatcher spotEvents;
+    private final GateWriteBehind writeBehind;
+    private final SpotHistory spotHistory;
+    private final SpotAllocator spotAllocator;
+    private final GateEventService gateEvents;
 
     // Constructor Injection of Services
-    public ParkingServiceImp(ParkingLotService s1, ParkingSpotService s2, ReservationService s3)
-            throws RemoteException {
-        super();
+    public ParkingServiceImp(ParkingLotService s1, ParkingSpotService s2, ReservationService s3,
+            ParkingSnapshotService s4, ParkingStatsService s5,
+            CallDispatcher dispatcher, LotShardService lotShard, SpotEventDispatcher spotEvents,
+            GateWriteBehind writeBehind, SpotHistory spotHistory, SpotAllocator spotAllocator,
+            GateEventService gateEvents) {
+        // Exported by RmiRegistryBinder once the context is ready, with the configured transport
         this.parkingLotService = s1;
         this.parkingSpotService = s2;
         this.reservationService = s3;
+        this.parkingSnapshotService = s4;
+        this.parkingStatsService = s5;
+        this.dispatcher = dispatcher;
+        this.lotShard = lotShard;
+        this.spotEvents = spotEvents;
+        this.writeBehind = writeBehind;
+        this.spotHistory = spotHistory;
+        this.spotAllocator = spotAllocator;
+        this.gateEvents = gateEvents;
     }
 
     // ==================== PARKING LOTS ====================
     @Override
     public ParkingLotDTO createParkingLot(ParkingLotDTO dto) throws RemoteException {
-        return parkingLotService.createParkingLot(dto);
+        return dispatcher.write("createParkingLot", () -> {
+            lotShard.checkNewLot(dto.getRmiHost(), dto.getRmiPort());
+            ParkingLotDTO created = parkingLotService.createParkingLot(dto);
+            lotShard.lotCreated(created.getId());
+            return created;
+        });
     }
 
     @Override
     public List<ParkingLotDTO> getAllParkingLots() throws RemoteException {
-        return parkingLotService.getAllParkingLots();
+        return dispatcher.read("getAllParkingLots",
+                () -> lotShard.filterOwned(parkingLotService.getAllParkingLots(), ParkingLotDTO::getId));
+    }
+
+    @Override
+    public PageDTO<ParkingLotDTO> getParkingLotsPage(Long afterId, int size) throws RemoteException {
+        return dispatcher.read("getParkingLotsPage",
+                () -> parkingLotService.getParkingLotsPage(ownedLotsOrAll(), afterId, size));
     }
 
     @Override
     public ParkingLotDTO getParkingLotById(Long id) throws RemoteException {
-        return parkingLotService.getParkingLotById(id);
+        return dispatcher.read("getParkingLotById", () -> {
+            lotShard.checkLot(id);
+            return parkingLotService.getParkingLotById(id);
+        });
     }
 
     @Override
     public List<ParkingLotDTO> getActiveParkingLots() throws RemoteException {
-        return parkingLotService.getActiveParkingLots();
+        return dispatcher.read("getActiveParkingLots",
+                () -> lotShard.filterOwned(parkingLotService.getActiveParkingLots(), ParkingLotDTO::getId));
     }
 
     @Override
     public int getTotalAvailableSpots() throws RemoteException {
-        return parkingLotService.getTotalAvailableSpots();
+        return dispatcher.read("getTotalAvailableSpots", () -> lotShard.isEnabled()
+                ? parkingLotService.getTotalAvailableSpots(lotShard.getOwnedLotIds())
+                : parkingLotService.getTotalAvailableSpots());
+    }
+
+    @Override
+    public ParkingLotSnapshotDTO getParkingLotSnapshot(Long parkingLotId) throws RemoteException {
+        return dispatcher.read("getParkingLotSnapshot", () -> {
+            lotShard.checkLot(parkingLotId);
+            return parkingSnapshotService.getParkingLotSnapshot(parkingLotId);
+        });
     }
 
     // ==================== SPOTS ====================
 
     @Override
     public boolean simulateCarExit(long spotId) throws RemoteException {
-        return parkingSpotService.simulateCarExit(spotId);
+        return dispatcher.write("simulateCarExit", () -> {
+            Boolean journaled = writeBehind.exit(spotId);
+            if (journaled != null) {
+                return journaled;
+            }
+            lotShard.checkSpot(spotId);
+            return writeBehind.exclusiveForSpot(spotId, () -> parkingSpotService.simulateCarExit(spotId));
+        });
     }
 
     @Override
     public boolean simulateCarEntry(long spotId) throws RemoteException {
-        return parkingSpotService.simulateCarEntry(spotId);
+        return dispatcher.write("simulateCarEntry", () -> {
+            Boolean journaled = writeBehind.enter(spotId);
+            if (journaled != null) {
+                return journaled;
+            }
+            lotShard.checkSpot(spotId);
+            return writeBehind.exclusiveForSpot(spotId, () -> parkingSpotService.simulateCarEntry(spotId));
+        });
+    }
+
+    // Spots of lots served elsewhere are answered WRONG_SHARD, not refused as a whole
+    @Override
+    public List<GateEventResultDTO> applyGateEvents(List<GateEventDTO> events) throws RemoteException {
+        return dispatcher.write("applyGateEvents", () -> writeBehind.exclusive(null, () -> gateEvents.apply(events)));
     }
 
     @Override
     public List<ParkingSpotDTO> getAllSpotsByParkingLot(Long parkingLotId) throws RemoteException {
-        return parkingSpotService.getAllSpotsByParkingLot(parkingLotId);
+        return dispatcher.read("getAllSpotsByParkingLot", () -> {
+            lotShard.checkLot(parkingLotId);
+            return parkingSpotService.getAllSpotsByParkingLot(parkingLotId);
+        });
     }
 
     @Override
     public List<ParkingSpotDTO> getAvailableSpots(Long parkingLotId) throws RemoteException {
-        return parkingSpotService.getAvailableSpots(parkingLotId);
+        return dispatcher.read("getAvailableSpots", () -> {
+            lotShard.checkLot(parkingLotId);
+            return parkingSpotService.getAvailableSpots(parkingLotId);
+        });
+    }
+
+    @Override
+    public SpotChangesDTO getSpotChangesSince(Long parkingLotId, long sinceVersion) throws RemoteException {
+        return dispatcher.read("getSpotChangesSince", () -> {
+            lotShard.checkLot(parkingLotId);
+            return parkingSpotService.getSpotChangesSince(parkingLotId, sinceVersion);
+        });
+    }
+
+    @Override
+    public PageDTO<SpotTransitionDTO> getSpotHistory(long spotId, Long beforeSeq, int size) throws RemoteException {
+        return dispatcher.read("getSpotHistory", () -> {
+            lotShard.checkSpot(spotId);
+            return spotHistory.history(spotId, beforeSeq, size);
+        });
+    }
+
+    @Override
+    public void subscribeSpotEvents(SpotEventListener listener, Long parkingLotId) throws RemoteException {
+        dispatcher.read("subscribeSpotEvents", () -> {
+            lotShard.checkLot(parkingLotId);
+            spotEvents.subscribe(listener, parkingLotId);
+            return null;
+        });
+    }
+
+    @Override
+    public void unsubscribeSpotEvents(SpotEventListener listener) throws RemoteException {
+        dispatcher.read("unsubscribeSpotEvents", () -> {
+            spotEvents.unsubscribe(listener);
+            return null;
+        });
     }
 
     @Override
     public ParkingSpotDTO getSpotById(Long spotId) throws RemoteException {
-        return parkingSpotService.getSpotById(spotId);
+        return dispatcher.read("getSpotById", () -> {
+            lotShard.checkSpot(spotId);
+            return parkingSpotService.getSpotById(spotId);
+        });
     }
 
     @Override
     public boolean updateSpotStatus(Long spotId, String status) throws RemoteException {
-        return parkingSpotService.updateSpotStatus(spotId, status);
+        return dispatcher.write("updateSpotStatus", () -> {
+            lotShard.checkSpot(spotId);
+            return writeBehind.exclusiveForSpot(spotId, () -> parkingSpotService.updateSpotStatus(spotId, status));
+        });
     }
 
     @Override
     public int getAvailableSpotsCount(Long parkingLotId) throws RemoteException {
-        return parkingSpotService.getAvailableSpotsCount(parkingLotId);
+        return dispatcher.read("getAvailableSpotsCount", () -> {
+            lotShard.checkLot(parkingLotId);
+            return parkingSpotService.getAvailableSpotsCount(parkingLotId);
+        });
     }
 
     @Override
     public double getOccupancyRate(Long parkingLotId) throws RemoteException {
-        return parkingSpotService.getOccupancyRate(parkingLotId);
+        return dispatcher.read("getOccupancyRate", () -> {
+            lotShard.checkLot(parkingLotId);
+            return parkingSpotService.getOccupancyRate(parkingLotId);
+        });
     }
 
     // ==================== RESERVATIONS ====================
 
     @Override
     public ReservationDTO createReservation(ReservationDTO dto) throws RemoteException {
-        try {
-            return reservationService.createReservation(dto);
-        } catch (Exception e) {
-            log.error("Error creating reservation", e);
-            throw new RemoteException("Reservation failed: " + e.getMessage());
-        }
+        return dispatcher.write("createReservation", () -> {
+            lotShard.checkLot(dto.getParkingLotId());
+            // The spot's compare-and-set runs with no entry or exit of its lot in flight
+            return writeBehind.exclusiveForSpot(dto.getParkingSpotId(), () -> {
+                try {
+                    return reservationService.createReservation(dto);
+                } catch (Exception e) {
+                    log.error("Error creating reservation", e);
+                    throw new RemoteException("Reservation failed: " + e.getMessage());
+                }
+            });
+        });
+    }
+
+    @Override
+    public ReservationDTO reserveBestAvailableSpot(ReservationDTO dto, SpotPreferenceDTO preferences)
+            throws RemoteException {
+        return dispatcher.write("reserveBestAvailableSpot", () -> {
+            lotShard.checkLot(dto.getParkingLotId());
+            return writeBehind.exclusive(dto.getParkingLotId(), () -> {
+                try {
+                    return spotAllocator.reserve(dto, preferences);
+                } catch (Exception e) {
+                    log.error("Error reserving best spot of lot {}", dto.getParkingLotId(), e);
+                    throw new RemoteException("Reservation failed: " + e.getMessage());
+                }
+            });
+        });
     }
 
     @Override
     public ReservationDTO getReservationById(Long id) throws RemoteException {
-        return reservationService.getReservationById(id);
+        return dispatcher.read("getReservationById", () -> {
+            lotShard.checkReservation(id);
+            return reservationService.getReservationById(id);
+        });
     }
 
     @Override
     public List<ReservationDTO> getReservationsByUserEmail(String email) throws RemoteException {
-        return reservationService.getReservationsByUserEmail(email);
+        // Each instance returns the reservations of its own lots; the backend merges them
+        return dispatcher.read("getReservationsByUserEmail", () -> lotShard.filterOwned(
+                reservationService.getReservationsByUserEmail(email), ReservationDTO::getParkingLotId));
+    }
+
+    @Override
+    public PageDTO<ReservationDTO> getReservationsByUserEmailPage(String email, Long beforeId, int size)
+            throws RemoteException {
+        return dispatcher.read("getReservationsByUserEmailPage",
+                () -> reservationService.getReservationsByUserEmailPage(email, ownedLotsOrAll(), beforeId, size));
+    }
+
+    @Override
+    public PageDTO<ReservationDTO> getReservationsByParkingLotPage(long parkingLotId, Long beforeId, int size)
+            throws RemoteException {
+        return dispatcher.read("getReservationsByParkingLotPage", () -> {
+            lotShard.checkLot(parkingLotId);
+            return reservationService.getReservationsByParkingLotPage(parkingLotId, beforeId, size);
+        });
     }
 
     @Override
     public List<ReservationDTO> getReservationDTOsByParkingLot(long id) throws RemoteException {
-        return reservationService.getReservationDTOsByParkingLot(id);
+        return dispatcher.read("getReservationDTOsByParkingLot", () -> {
+            lotShard.checkLot(id);
+            return reservationService.getReservationDTOsByParkingLot(id);
+        });
     }
 
     @Override
     public boolean cancelReservation(Long id) throws RemoteException {
-        return reservationService.cancelReservation(id);
+        return dispatcher.write("cancelReservation", () -> {
+            lotShard.checkReservation(id);
+            return writeBehind.exclusive(reservationService.getParkingLotId(id),
+                    () -> reservationService.cancelReservation(id));
+        });
     }
 
     @Override
     public List<ParkingSpotDTO> findByStatus(SpotStatus status)throws RemoteException {
-        // TODO Auto-generated method stub
-        return parkingSpotService.findByStatus(status);
+        return dispatcher.admin("findByStatus", () -> lotShard.isEnabled()
+                ? parkingSpotService.findByParkingLotIdInAndStatus(lotShard.getOwnedLotIds(), status)
+                : parkingSpotService.findByStatus(status));
+    }
+
+    @Override
+    public PageDTO<ParkingSpotDTO> findByStatusPage(SpotStatus status, Long afterId, int size) throws RemoteException {
+        return dispatcher.read("findByStatusPage",
+                () -> parkingSpotService.findByStatusPage(ownedLotsOrAll(), status, afterId, size));
     }
 
     @Override
     public List<ParkingSpotDTO> findByParkingLotIdAndStatus(Long parkingLotId, SpotStatus status)throws RemoteException {
-        return parkingSpotService.findByParkingLotIdAndStatus(parkingLotId, status);
+        return dispatcher.read("findByParkingLotIdAndStatus", () -> {
+            lotShard.checkLot(parkingLotId);
+            return parkingSpotService.findByParkingLotIdAndStatus(parkingLotId, status);
+        });
     }
 
     @Override
     public Long countAvailableSpots(Long parkingLotId)throws RemoteException {
-        return parkingSpotService.countAvailableSpots(parkingLotId);
+        return dispatcher.read("countAvailableSpots", () -> {
+            lotShard.checkLot(parkingLotId);
+            return parkingSpotService.countAvailableSpots(parkingLotId);
+        });
     }
 
     @Override
     public Long countOccupiedSpots(Long parkingLotId)throws RemoteException {
-       return parkingSpotService.countOccupiedSpots(parkingLotId);
+        return dispatcher.read("countOccupiedSpots", () -> {
+            lotShard.checkLot(parkingLotId);
+            return parkingSpotService.countOccupiedSpots(parkingLotId);
+        });
     }
 
     @Override
     public Double getTotalRevenueByParkingLotId(Long parkingLotId)throws RemoteException {
-        return reservationService.getTotalRevenueByParkingLotId(parkingLotId);
+        return dispatcher.admin("getTotalRevenueByParkingLotId", () -> {
+            lotShard.checkLot(parkingLotId);
+            return reservationService.getTotalRevenueByParkingLotId(parkingLotId);
+        });
+    }
+
+    @Override
+    public List<ParkingLotStatsDTO> getParkingLotStats(List<Long> parkingLotIds) throws RemoteException {
+        return dispatcher.admin("getParkingLotStats", () -> {
+            if (!lotShard.isEnabled()) {
+                return parkingStatsService.getParkingLotStats(parkingLotIds);
+            }
+            List<Long> owned = parkingLotIds == null || parkingLotIds.isEmpty()
+                    ? List.copyOf(lotShard.getOwnedLotIds())
+                    : lotShard.filterOwned(parkingLotIds, id -> id);
+            return owned.isEmpty() ? List.of() : parkingStatsService.getParkingLotStats(owned);
+        });
+    }
+
+    // Not admission-controlled: monitoring must keep working when the server is saturated
+    @Override
+    public List<MethodMetricsDTO> getMethodMetrics() throws RemoteException {
+        return dispatcher.getMethodMetrics(lotShard.getInstance());
+    }
+
+    // Global pages are filtered in SQL to the lots served here (null: no filter)
+    private Collection<Long> ownedLotsOrAll() {
+        return lotShard.isEnabled() ? lotShard.getOwnedLotIds() : null;
     }
 
-}
\ No newline at end of file
+}
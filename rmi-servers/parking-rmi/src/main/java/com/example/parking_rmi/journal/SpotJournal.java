@@ -0,0 +1,568 @@
+package com.example.parking_rmi.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only, memory-mapped log of SpotTransitions.
+ *
+ * The log is a directory of segment files named after their first sequence
+ * number, each holding fixed-size 40-byte records:
+ *   seq(8) lotId(8) spotId(8) timestamp(8) kind(1) from(1) to(1) pad(1) crc32c(4)
+ * A zero seq or a bad CRC (torn write at crash) ends a segment; the log goes
+ * on with the next segment if it starts right after.
+ *
+ * append() writes into the mapped segment and waits until a force() covers
+ * its record. A single sync thread forces the mapping: every append that
+ * arrives while a force is running is made durable by the next one (group
+ * commit), so the fsync cost is shared by all concurrent writers. Durable
+ * records are handed, in sequence order, to the onDurable callback.
+ *
+ * Segments whose records are all at or below the checkpoint are deleted; a
+ * log that is never checkpointed (SpotHistory) is cut by age and size with
+ * trim() instead. Each sealed segment has an in-memory summary, built as it
+ * is written or on first read after a restart: the time of its newest record
+ * and a Bloom filter of its spot ids, so history() skips the segments that
+ * cannot hold the spot.
+ */
+@Slf4j
+public class SpotJournal implements AutoCloseable {
+
+    static final int RECORD_BYTES = 40;
+    private static final String SEGMENT_PREFIX = "spot-journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT = "checkpoint";
+    private static final SpotStatus[] STATUSES = SpotStatus.values();
+    private static final SpotTransition.Kind[] KINDS = SpotTransition.Kind.values();
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final Consumer<List<SpotTransition>> onDurable;
+    // Sealed segments by first seq
+    private final Map<Long, Segment> sealed = new ConcurrentHashMap<>();
+
+    // Guarded by this
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int position;
+    private long nextSeq;
+    private long currentFirstSeq;
+    private Segment current;
+    private List<SpotTransition> unsynced = new ArrayList<>();
+    private final byte[] record = new byte[RECORD_BYTES];
+
+    // Guarded by durableLock
+    private final Object durableLock = new Object();
+    private long durableSeq;
+    private IOException failure;
+
+    private volatile boolean closed;
+    private Thread syncer;
+
+    public SpotJournal(Path dir, int segmentBytes, Consumer<List<SpotTransition>> onDurable) {
+        this.dir = dir;
+        this.segmentBytes = Math.max(RECORD_BYTES, segmentBytes - segmentBytes % RECORD_BYTES);
+        this.onDurable = onDurable;
+    }
+
+    /**
+     * Replays the records after the checkpoint, in order, and returns the last
+     * sequence number found in the log (the checkpoint if there is none).
+     */
+    public long replay(Consumer<SpotTransition> consumer) throws IOException {
+        return replay(readCheckpoint(), consumer);
+    }
+
+    /** Same, for the records after afterSeq (a snapshot) whatever the checkpoint. */
+    public long replay(long afterSeq, Consumer<SpotTransition> consumer) throws IOException {
+        long checkpoint = afterSeq;
+        long last = checkpoint;
+        List<Path> segments = segments();
+        for (int i = 0; i < segments.size(); i++) {
+            Path segment = segments.get(i);
+            if (i + 1 < segments.size() && firstSeq(segments.get(i + 1)) <= afterSeq + 1) {
+                continue; // entirely before afterSeq
+            }
+            if (firstSeq(segment) > last + 1) {
+                log.warn("Journal gap before {}: replay stops at {}", segment.getFileName(), last);
+                return last;
+            }
+            try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+                ByteBuffer data = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+                for (int offset = 0; offset + RECORD_BYTES <= data.limit(); offset += RECORD_BYTES) {
+                    SpotTransition transition = read(data, offset);
+                    if (transition == null) {
+                        break;
+                    }
+                    if (transition.seq() == -1) {
+                        // Torn write: nothing after it was acknowledged; a later segment starts after it
+                        log.warn("Journal {} ends with a torn record at offset {}", segment.getFileName(), offset);
+                        break;
+                    }
+                    if (transition.seq() > checkpoint) {
+                        consumer.accept(transition);
+                    }
+                    last = Math.max(last, transition.seq());
+                }
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Last sequence number in the log, reading only the newest segment (for
+     * a log that is not replayed on startup, like the history).
+     */
+    public long lastLoggedSeq() throws IOException {
+        List<Path> segments = segments();
+        if (segments.isEmpty()) {
+            return readCheckpoint();
+        }
+        Path segment = segments.get(segments.size() - 1);
+        long last = firstSeq(segment) - 1;
+        try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer data = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            for (int offset = 0; offset + RECORD_BYTES <= data.limit(); offset += RECORD_BYTES) {
+                SpotTransition transition = read(data, offset);
+                if (transition == null || transition.seq() == -1) {
+                    break;
+                }
+                last = transition.seq();
+            }
+        }
+        return last;
+    }
+
+    /** Starts appending after lastSeq (see replay) in a new segment. */
+    public synchronized void open(long lastSeq) throws IOException {
+        Files.createDirectories(dir);
+        nextSeq = lastSeq + 1;
+        // Records past a torn one were never acknowledged: drop their segments
+        for (Path segment : segments()) {
+            if (firstSeq(segment) >= nextSeq) {
+                Files.delete(segment);
+                sealed.remove(firstSeq(segment));
+            }
+        }
+        synchronized (durableLock) {
+            durableSeq = lastSeq;
+        }
+        roll();
+        syncer = Thread.ofPlatform().daemon().name("spot-journal-sync").start(this::syncLoop);
+    }
+
+    /**
+     * Appends the transition built by next, called under the journal lock so
+     * the order of the log is the order in which callers validated their
+     * change; next returns null to append nothing (and -1 is returned).
+     * Returns once the record is on disk.
+     */
+    public long append(Supplier<SpotTransition> next) throws IOException {
+        long seq = add(next);
+        if (seq > 0) {
+            awaitDurable(seq);
+        }
+        return seq;
+    }
+
+    /**
+     * Appends without waiting for the disk: the record is forced with the
+     * next group, and lost if the machine crashes before that.
+     */
+    public long submit(SpotTransition transition) throws IOException {
+        return add(() -> transition);
+    }
+
+    /** Sequence number of the last record appended (durable or not). */
+    public synchronized long lastSeq() {
+        return nextSeq - 1;
+    }
+
+    /**
+     * Records of spotId with a sequence number below beforeSeq (all when
+     * null), newest first, at most limit. Reads the segments from the newest
+     * one back, skipping those whose summary rules the spot out.
+     */
+    public List<SpotTransition> history(long spotId, Long beforeSeq, int limit) throws IOException {
+        List<SpotTransition> found = new ArrayList<>();
+        List<Path> segments = segments();
+        for (int i = segments.size() - 1; i >= 0 && found.size() < limit; i--) {
+            Path segment = segments.get(i);
+            long first = firstSeq(segment);
+            if (beforeSeq != null && first >= beforeSeq) {
+                continue;
+            }
+            // The last segment may still be written to: always read, never summarized
+            boolean last = i == segments.size() - 1;
+            Segment summary = last ? null : sealed.get(first);
+            if (summary != null && !summary.mayHave(spotId)) {
+                continue;
+            }
+            Segment building = last || summary != null ? null : new Segment();
+            List<SpotTransition> matches = new ArrayList<>();
+            try {
+                scan(segment, transition -> {
+                    if (building != null) {
+                        building.add(transition);
+                    }
+                    if (beforeSeq != null && transition.seq() >= beforeSeq) {
+                        return building != null; // the rest is newer, only the summary needs it
+                    }
+                    if (transition.spotId() == spotId) {
+                        matches.add(transition);
+                    }
+                    return true;
+                });
+            } catch (NoSuchFileException e) {
+                continue; // removed by a checkpoint or trim meanwhile
+            }
+            if (building != null) {
+                sealed.putIfAbsent(first, building);
+            }
+            for (int j = matches.size() - 1; j >= 0 && found.size() < limit; j--) {
+                found.add(matches.get(j));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Deletes segments, oldest first, whose records are all at or below
+     * upToSeq, as long as their newest record is older than olderThanMillis
+     * or the log is larger than maxBytes; the segment being written stays.
+     * Returns the number of segments deleted.
+     */
+    public int trim(long upToSeq, long olderThanMillis, long maxBytes) throws IOException {
+        List<Path> segments = segments();
+        long bytes = 0;
+        for (Path segment : segments) {
+            bytes += Files.size(segment);
+        }
+        int deleted = 0;
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            Path segment = segments.get(i);
+            if (firstSeq(segments.get(i + 1)) - 1 > upToSeq) {
+                break;
+            }
+            if (bytes <= maxBytes && summary(segment).lastMillis >= olderThanMillis) {
+                break;
+            }
+            long size = Files.size(segment);
+            Files.deleteIfExists(segment);
+            sealed.remove(firstSeq(segment));
+            bytes -= size;
+            deleted++;
+        }
+        return deleted;
+    }
+
+    private long add(Supplier<SpotTransition> next) throws IOException {
+        long seq;
+        synchronized (this) {
+            if (closed || channel == null) {
+                throw new IOException("Journal is closed");
+            }
+            if (position + RECORD_BYTES > segmentBytes) {
+                roll();
+            }
+            SpotTransition transition = next.get();
+            if (transition == null) {
+                return -1;
+            }
+            transition = transition.withSeq(nextSeq++);
+            write(transition);
+            unsynced.add(transition);
+            seq = transition.seq();
+            notifyAll();
+        }
+        return seq;
+    }
+
+    public boolean isOpen() {
+        return !closed && channel != null;
+    }
+
+    /** Everything up to seq is applied elsewhere: fully covered segments can go. */
+    public void checkpoint(long seq) throws IOException {
+        Path file = dir.resolve(CHECKPOINT);
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            out.write(ByteBuffer.allocate(Long.BYTES).putLong(0, seq), 0);
+            out.force(true);
+        }
+        List<Path> segments = segments();
+        // A segment is covered when the next one starts at or below seq + 1; the last one stays
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (firstSeq(segments.get(i + 1)) - 1 <= seq) {
+                Files.deleteIfExists(segments.get(i));
+                sealed.remove(firstSeq(segments.get(i)));
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        if (syncer != null) {
+            try {
+                syncer.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            if (buffer != null) {
+                buffer.force();
+            }
+            closeChannel();
+        }
+    }
+
+    // ==================== SYNC (group commit) ====================
+
+    private void syncLoop() {
+        while (true) {
+            List<SpotTransition> batch;
+            MappedByteBuffer current;
+            synchronized (this) {
+                while (unsynced.isEmpty() && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (unsynced.isEmpty()) {
+                    return; // closed and drained
+                }
+                batch = unsynced;
+                unsynced = new ArrayList<>();
+                current = buffer;
+            }
+            try {
+                current.force(); // earlier segments were forced when rolled
+            } catch (RuntimeException e) {
+                fail(new IOException("Journal force failed", e));
+                return;
+            }
+            synchronized (durableLock) {
+                durableSeq = batch.get(batch.size() - 1).seq();
+                durableLock.notifyAll();
+            }
+            try {
+                onDurable.accept(batch);
+            } catch (RuntimeException e) {
+                log.error("Journal consumer failed: {}", e.toString(), e);
+            }
+        }
+    }
+
+    private void awaitDurable(long seq) throws IOException {
+        synchronized (durableLock) {
+            while (durableSeq < seq) {
+                if (failure != null) {
+                    throw failure;
+                }
+                try {
+                    durableLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for the journal", e);
+                }
+            }
+        }
+    }
+
+    private void fail(IOException e) {
+        log.error("Spot journal failed, appends are refused: {}", e.toString());
+        synchronized (durableLock) {
+            failure = e;
+            durableLock.notifyAll();
+        }
+        synchronized (this) {
+            closed = true;
+        }
+    }
+
+    // ==================== FILES ====================
+
+    // Called with the lock held
+    private void roll() throws IOException {
+        if (buffer != null) {
+            buffer.force();
+            closeChannel();
+            sealed.put(currentFirstSeq, current);
+        }
+        currentFirstSeq = nextSeq;
+        current = new Segment();
+        Path file = dir.resolve(SEGMENT_PREFIX + String.format("%020d", nextSeq) + SEGMENT_SUFFIX);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        // Mapping past the end grows the file with zeros: an unwritten record reads as seq 0
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        position = 0;
+    }
+
+    private void closeChannel() {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            log.warn("Closing journal segment failed: {}", e.toString());
+        }
+        channel = null;
+    }
+
+    private void write(SpotTransition t) {
+        ByteBuffer out = ByteBuffer.wrap(record);
+        out.putLong(0, t.seq());
+        out.putLong(8, t.parkingLotId());
+        out.putLong(16, t.spotId());
+        out.putLong(24, t.timestampMillis());
+        out.put(32, (byte) t.kind().ordinal());
+        out.put(33, (byte) (t.from() != null ? t.from().ordinal() : -1));
+        out.put(34, (byte) t.to().ordinal());
+        out.put(35, (byte) 0);
+        CRC32C crc = new CRC32C();
+        crc.update(record, 0, 36);
+        out.putInt(36, (int) crc.getValue());
+        buffer.put(position, record);
+        position += RECORD_BYTES;
+        current.add(t);
+    }
+
+    // Summary of a sealed segment, read from it the first time
+    private Segment summary(Path file) throws IOException {
+        Segment summary = sealed.get(firstSeq(file));
+        if (summary == null) {
+            Segment built = new Segment();
+            scan(file, transition -> {
+                built.add(transition);
+                return true;
+            });
+            summary = sealed.putIfAbsent(firstSeq(file), built);
+            if (summary == null) {
+                summary = built;
+            }
+        }
+        return summary;
+    }
+
+    // Records of a segment in order, up to its end or a torn record, while visitor returns true
+    private static void scan(Path file, Predicate<SpotTransition> visitor) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer data = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            for (int offset = 0; offset + RECORD_BYTES <= data.limit(); offset += RECORD_BYTES) {
+                SpotTransition transition = read(data, offset);
+                if (transition == null || transition.seq() == -1 || !visitor.test(transition)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // null = end of segment; seq -1 = corrupt record
+    static SpotTransition read(ByteBuffer data, int offset) {
+        long seq = data.getLong(offset);
+        if (seq == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[RECORD_BYTES];
+        data.get(offset, bytes);
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, 0, 36);
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        if (in.getInt(36) != (int) crc.getValue()) {
+            return new SpotTransition(-1, null, null, null, null, null, 0);
+        }
+        byte from = in.get(33);
+        return new SpotTransition(seq, in.getLong(8), in.getLong(16), KINDS[in.get(32)],
+                from >= 0 ? STATUSES[from] : null, STATUSES[in.get(34)], in.getLong(24));
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path file = dir.resolve(CHECKPOINT);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        return bytes.length >= Long.BYTES ? ByteBuffer.wrap(bytes).getLong() : 0;
+    }
+
+    private List<Path> segments() throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long firstSeq(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * What a segment holds: the time of its newest record and a Bloom filter
+     * of its spot ids (two bits per spot, 128 KB; a few percent of false
+     * positives at 100k distinct spots, which only cost a read).
+     */
+    private static final class Segment {
+        private static final int FILTER_BITS = 1 << 20;
+
+        private final long[] spots = new long[FILTER_BITS / Long.SIZE];
+        private long lastMillis;
+
+        void add(SpotTransition transition) {
+            long hash = mix(transition.spotId());
+            set((int) hash);
+            set((int) (hash >>> 32));
+            lastMillis = Math.max(lastMillis, transition.timestampMillis());
+        }
+
+        boolean mayHave(long spotId) {
+            long hash = mix(spotId);
+            return isSet((int) hash) && isSet((int) (hash >>> 32));
+        }
+
+        private void set(int bit) {
+            bit &= FILTER_BITS - 1;
+            spots[bit >>> 6] |= 1L << bit;
+        }
+
+        private boolean isSet(int bit) {
+            bit &= FILTER_BITS - 1;
+            return (spots[bit >>> 6] & (1L << bit)) != 0;
+        }
+
+        private static long mix(long value) {
+            value *= 0x9E3779B97F4A7C15L;
+            return value ^ (value >>> 31);
+        }
+    }
+}
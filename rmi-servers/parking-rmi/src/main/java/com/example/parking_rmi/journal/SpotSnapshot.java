@@ -0,0 +1,192 @@
+package com.example.parking_rmi.journal;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Status of every spot of every lot at one sequence number of the spot event
+ * log, in a compact binary file: recovery loads it and replays the log after
+ * seq instead of reading every spot from MySQL.
+ *
+ * Layout: magic(4) version(1) seq(8) takenAt(8) lotCount(4), then per lot
+ * lotId(8) spotCount(4) and per spot the zigzag varint of its id minus the
+ * previous id plus its status ordinal (1 byte), so about 2 bytes per spot;
+ * a CRC32C of everything before it ends the file. Files are written to a
+ * temporary name and renamed, so a crash never leaves a partial snapshot.
+ */
+@Slf4j
+public record SpotSnapshot(long seq, long takenAtMillis, Map<Long, Lot> lots) {
+
+    /** Spots of one lot and their status ordinals, index by index. */
+    public record Lot(long[] spotIds, byte[] statuses) {
+    }
+
+    private static final int MAGIC = 0x53505354; // "SPST"
+    private static final byte VERSION = 1;
+    private static final String PREFIX = "spot-snapshot-";
+    private static final String SUFFIX = ".bin";
+
+    /** Writes this snapshot to dir, keeps the keep newest ones and returns the file size. */
+    public long write(Path dir, int keep) throws IOException {
+        Files.createDirectories(dir);
+        Path target = dir.resolve(PREFIX + String.format("%020d", seq) + SUFFIX);
+        Path tmp = dir.resolve(target.getFileName() + ".tmp");
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream file = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+            DataOutputStream out = new DataOutputStream(new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    crc.update(b);
+                    file.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    crc.update(b, off, len);
+                    file.write(b, off, len);
+                }
+            });
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(seq);
+            out.writeLong(takenAtMillis);
+            out.writeInt(lots.size());
+            ByteArrayOutputStream lotBytes = new ByteArrayOutputStream();
+            for (Map.Entry<Long, Lot> entry : lots.entrySet()) {
+                Lot lot = entry.getValue();
+                lotBytes.reset();
+                long previous = 0;
+                for (int i = 0; i < lot.spotIds().length; i++) {
+                    writeVarLong(lotBytes, zigzag(lot.spotIds()[i] - previous));
+                    lotBytes.write(lot.statuses()[i]);
+                    previous = lot.spotIds()[i];
+                }
+                out.writeLong(entry.getKey());
+                out.writeInt(lot.spotIds().length);
+                lotBytes.writeTo(out);
+            }
+            out.flush();
+            file.write(ByteBuffer.allocate(Integer.BYTES).putInt((int) crc.getValue()).array());
+            file.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        List<Path> files = snapshots(dir);
+        for (int i = 0; i < files.size() - Math.max(1, keep); i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+        return Files.size(target);
+    }
+
+    /** Newest readable snapshot in dir, null if there is none. */
+    public static SpotSnapshot readLatest(Path dir) throws IOException {
+        List<Path> files = snapshots(dir);
+        for (int i = files.size() - 1; i >= 0; i--) {
+            try {
+                return read(Files.readAllBytes(files.get(i)));
+            } catch (IOException | RuntimeException e) {
+                log.warn("Skipping unreadable snapshot {}: {}", files.get(i).getFileName(), e.toString());
+            }
+        }
+        return null;
+    }
+
+    /** Seq of the oldest snapshot kept in dir (readLatest may fall back to it), -1 if there is none. */
+    public static long oldestSeq(Path dir) throws IOException {
+        List<Path> files = snapshots(dir);
+        if (files.isEmpty()) {
+            return -1;
+        }
+        String name = files.get(0).getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    static SpotSnapshot read(byte[] bytes) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, 0, bytes.length - Integer.BYTES);
+        if (in.getInt(bytes.length - Integer.BYTES) != (int) crc.getValue()) {
+            throw new IOException("Bad snapshot checksum");
+        }
+        if (in.getInt() != MAGIC || in.get() != VERSION) {
+            throw new IOException("Not a spot snapshot, or an unsupported version");
+        }
+        long seq = in.getLong();
+        long takenAt = in.getLong();
+        int lotCount = in.getInt();
+        Map<Long, Lot> lots = new LinkedHashMap<>(lotCount * 2);
+        for (int l = 0; l < lotCount; l++) {
+            long lotId = in.getLong();
+            int count = in.getInt();
+            long[] spotIds = new long[count];
+            byte[] statuses = new byte[count];
+            long previous = 0;
+            for (int i = 0; i < count; i++) {
+                previous += unzigzag(readVarLong(in));
+                spotIds[i] = previous;
+                statuses[i] = in.get();
+            }
+            lots.put(lotId, new Lot(spotIds, statuses));
+        }
+        return new SpotSnapshot(seq, takenAt, lots);
+    }
+
+    private static List<Path> snapshots(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+}
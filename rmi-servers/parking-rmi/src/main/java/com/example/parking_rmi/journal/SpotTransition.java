@@ -0,0 +1,24 @@
+package com.example.parking_rmi.journal;
+
+import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
+
+/**
+ * One spot status change as written to a SpotJournal. seq is assigned by the
+ * journal (0 until appended); from is null when the previous status is unknown.
+ */
+public record SpotTransition(long seq, Long parkingLotId, Long spotId, Kind kind, SpotStatus from, SpotStatus to,
+        long timestampMillis) {
+
+    // Stored by ordinal: add new kinds at the end
+    public enum Kind {
+        ENTRY, EXIT, RESERVE, CANCEL, STATUS, EXPIRE
+    }
+
+    public static SpotTransition of(Long parkingLotId, Long spotId, Kind kind, SpotStatus from, SpotStatus to) {
+        return new SpotTransition(0, parkingLotId, spotId, kind, from, to, System.currentTimeMillis());
+    }
+
+    SpotTransition withSeq(long seq) {
+        return new SpotTransition(seq, parkingLotId, spotId, kind, from, to, timestampMillis);
+    }
+}
@@ -21,7 +21,8 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 }, indexes = {
         @Index(name = "idx_spot_status", columnList = "status"),
         @Index(name = "idx_spot_parking_lot", columnList = "parking_lot_id"),
-        @Index(name = "idx_spot_type", columnList = "spot_type")
+        @Index(name = "idx_spot_type", columnList = "spot_type"),
+        @Index(name = "idx_spot_updated_at", columnList = "updated_at")
 })
 @Data
 @NoArgsConstructor
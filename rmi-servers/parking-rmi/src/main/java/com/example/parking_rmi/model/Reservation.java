@@ -97,6 +97,10 @@ public class Reservation implements Serializable {
     @Column(name = "cancelled_at")
     private LocalDateTime cancelledAt;
 
+    // When an advance booking's HOLD deadline set its spot RESERVED (null until then)
+    @Column(name = "spot_held_at")
+    private LocalDateTime spotHeldAt;
+
     // TIMESTAMPS
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
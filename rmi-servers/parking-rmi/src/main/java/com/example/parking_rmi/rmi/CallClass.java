@@ -0,0 +1,14 @@
+package com.example.parking_rmi.rmi;
+
+/**
+ * Admission class of a remote method. Each class has its own concurrency
+ * limit so that a burst of one kind cannot starve the others.
+ */
+public enum CallClass {
+    /** Lot / spot / reservation lookups. */
+    READ,
+    /** Entry/exit, reservations, status changes. */
+    WRITE,
+    /** Aggregations over many lots (revenue, global status scans). */
+    ADMIN
+}
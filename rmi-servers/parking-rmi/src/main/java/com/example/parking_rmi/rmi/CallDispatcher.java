@@ -0,0 +1,146 @@
+package com.example.parking_rmi.rmi;
+
+import java.lang.management.ManagementFactory;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.example.parking_rmi.dto.MethodMetricsDTO;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Admission control in front of ParkingServiceImp.
+ *
+ * RMI runs every incoming call on its own connection thread with no upper
+ * bound, and each call opens a JPA transaction. Limiting reads, writes and
+ * admin aggregations separately keeps the connection pool from being drained
+ * by one kind of traffic (e.g. dashboard refreshes starving reservations).
+ *
+ * Every call is also timed per method (MethodMetrics): count, errors,
+ * in-flight and a latency histogram covering queueing + execution.
+ *
+ * The call still runs on the RMI connection thread: that thread has to wait
+ * for the result to send the reply anyway, so handing the body to another
+ * thread would only add a hop.
+ */
+@Slf4j
+public class CallDispatcher implements AutoCloseable {
+
+    private final Map<CallClass, CallLimiter> limiters = new EnumMap<>(CallClass.class);
+    private final Map<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+    private final List<ObjectName> registered = new CopyOnWriteArrayList<>();
+    private volatile boolean jmx;
+
+    public CallDispatcher(CallLimiter... callLimiters) {
+        for (CallLimiter limiter : callLimiters) {
+            limiters.put(limiter.getCallClass(), limiter);
+        }
+        for (CallClass callClass : CallClass.values()) {
+            if (!limiters.containsKey(callClass)) {
+                throw new IllegalArgumentException("No limiter configured for " + callClass);
+            }
+        }
+    }
+
+    public <T> T read(String method, CallLimiter.RemoteCall<T> call) throws RemoteException {
+        return dispatch(CallClass.READ, method, call);
+    }
+
+    public <T> T write(String method, CallLimiter.RemoteCall<T> call) throws RemoteException {
+        return dispatch(CallClass.WRITE, method, call);
+    }
+
+    public <T> T admin(String method, CallLimiter.RemoteCall<T> call) throws RemoteException {
+        return dispatch(CallClass.ADMIN, method, call);
+    }
+
+    private <T> T dispatch(CallClass callClass, String method, CallLimiter.RemoteCall<T> call) throws RemoteException {
+        CallLimiter limiter = limiters.get(callClass);
+        return metrics(method).record(() -> limiter.call(method, call));
+    }
+
+    public MethodMetrics metrics(String method) {
+        MethodMetrics metrics = methods.get(method);
+        if (metrics == null) {
+            metrics = methods.computeIfAbsent(method, name -> {
+                MethodMetrics created = new MethodMetrics(name);
+                if (jmx) {
+                    register(created, "type=RemoteMethod,name=" + name);
+                }
+                return created;
+            });
+        }
+        return metrics;
+    }
+
+    public List<MethodMetricsDTO> getMethodMetrics(String instance) {
+        List<MethodMetricsDTO> list = new ArrayList<>();
+        for (MethodMetrics metrics : methods.values()) {
+            list.add(metrics.toDTO(instance));
+        }
+        list.sort(Comparator.comparing(MethodMetricsDTO::getMethod));
+        return list;
+    }
+
+    public CallLimiter getLimiter(CallClass callClass) {
+        return limiters.get(callClass);
+    }
+
+    public List<Map<String, Object>> getStats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (CallLimiter limiter : limiters.values()) {
+            stats.add(limiter.toStats());
+        }
+        return stats;
+    }
+
+    /**
+     * Publishes one MXBean per admission class, and one per remote method as
+     * methods are first called, on the platform MBean server.
+     */
+    public void registerMBeans() {
+        jmx = true;
+        for (CallLimiter limiter : limiters.values()) {
+            register(limiter, "type=CallLimiter,name=" + limiter.getCallClass().name().toLowerCase());
+        }
+        for (MethodMetrics metrics : methods.values()) {
+            register(metrics, "type=RemoteMethod,name=" + metrics.getMethod());
+        }
+    }
+
+    private void register(Object bean, String keys) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName("com.example.parking_rmi:" + keys);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(bean, name);
+            registered.add(name);
+        } catch (Exception e) {
+            log.warn("Could not register JMX bean {}: {}", keys, e.toString());
+        }
+    }
+
+    @Override
+    public void close() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            } catch (Exception e) {
+                // already gone
+            }
+        }
+        registered.clear();
+    }
+}
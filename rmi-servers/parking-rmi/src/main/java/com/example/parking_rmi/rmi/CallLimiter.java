@@ -0,0 +1,146 @@
+package com.example.parking_rmi.rmi;
+
+import java.rmi.RemoteException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Concurrency limit for one {@link CallClass}.
+ *
+ * - up to maxConcurrent calls run at once
+ * - up to maxQueue more wait for a slot, each at most queueTimeoutMillis
+ * - anything beyond that is refused immediately with a ServerBusyException
+ */
+@Slf4j
+public class CallLimiter implements CallLimiterMXBean {
+
+    /** A remote method body. */
+    @FunctionalInterface
+    public interface RemoteCall<T> {
+        T call() throws RemoteException;
+    }
+
+    private final CallClass callClass;
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final long queueTimeoutMillis;
+
+    private final Semaphore permits;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    public CallLimiter(CallClass callClass, int maxConcurrent, int maxQueue, long queueTimeoutMillis) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent must be >= 1 for " + callClass);
+        }
+        this.callClass = callClass;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = Math.max(0, maxQueue);
+        this.queueTimeoutMillis = Math.max(0, queueTimeoutMillis);
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    public <T> T call(String method, RemoteCall<T> call) throws RemoteException {
+        acquire(method);
+        inFlight.incrementAndGet();
+        admitted.increment();
+        try {
+            return call.call();
+        } finally {
+            inFlight.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    private void acquire(String method) throws ServerBusyException {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        if (waiting.incrementAndGet() > maxQueue) {
+            waiting.decrementAndGet();
+            rejected.increment();
+            log.debug("Rejected {} ({} queue full)", method, callClass);
+            throw new ServerBusyException("Server busy: " + callClass + " queue full, " + method + " rejected");
+        }
+        try {
+            if (!permits.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timedOut.increment();
+                log.debug("Timed out {} after {} ms in {} queue", method, queueTimeoutMillis, callClass);
+                throw new ServerBusyException("Server busy: " + method + " waited " + queueTimeoutMillis
+                        + " ms for a " + callClass + " slot");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected.increment();
+            throw new ServerBusyException("Interrupted while waiting for a " + callClass + " slot");
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    public CallClass getCallClass() {
+        return callClass;
+    }
+
+    @Override
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    @Override
+    public int getMaxQueue() {
+        return maxQueue;
+    }
+
+    @Override
+    public long getQueueTimeoutMillis() {
+        return queueTimeoutMillis;
+    }
+
+    @Override
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return waiting.get();
+    }
+
+    @Override
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    @Override
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public long getTimedOut() {
+        return timedOut.sum();
+    }
+
+    public Map<String, Object> toStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("class", callClass.name());
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("maxQueue", maxQueue);
+        stats.put("inFlight", getInFlight());
+        stats.put("queueDepth", getQueueDepth());
+        stats.put("admitted", getAdmitted());
+        stats.put("rejected", getRejected());
+        stats.put("timedOut", getTimedOut());
+        return stats;
+    }
+}
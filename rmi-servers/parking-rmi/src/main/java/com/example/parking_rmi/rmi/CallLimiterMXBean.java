@@ -0,0 +1,23 @@
+package com.example.parking_rmi.rmi;
+
+/**
+ * JMX view of one admission class (com.example.parking_rmi:type=CallLimiter,name=...).
+ */
+public interface CallLimiterMXBean {
+
+    int getMaxConcurrent();
+
+    int getMaxQueue();
+
+    long getQueueTimeoutMillis();
+
+    int getInFlight();
+
+    int getQueueDepth();
+
+    long getAdmitted();
+
+    long getRejected();
+
+    long getTimedOut();
+}
@@ -0,0 +1,97 @@
+package com.example.parking_rmi.rmi;
+
+import java.rmi.RemoteException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.example.parking_rmi.dto.MethodMetricsDTO;
+
+/**
+ * Counters and latency histogram of one remote method.
+ */
+public class MethodMetrics implements MethodMetricsMXBean {
+
+    private final String method;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public MethodMetrics(String method) {
+        this.method = method;
+    }
+
+    public <T> T record(CallLimiter.RemoteCall<T> call) throws RemoteException {
+        inFlight.incrementAndGet();
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = call.call();
+            failed = false;
+            return result;
+        } finally {
+            latency.record(System.nanoTime() - start);
+            calls.increment();
+            if (failed) {
+                errors.increment();
+            }
+            inFlight.decrementAndGet();
+        }
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latency.getMeanNanos() / 1_000.0;
+    }
+
+    @Override
+    public long getP50Micros() {
+        return latency.percentileNanos(0.50) / 1_000;
+    }
+
+    @Override
+    public long getP99Micros() {
+        return latency.percentileNanos(0.99) / 1_000;
+    }
+
+    @Override
+    public long getP999Micros() {
+        return latency.percentileNanos(0.999) / 1_000;
+    }
+
+    @Override
+    public long getMaxMicros() {
+        return latency.getMaxNanos() / 1_000;
+    }
+
+    @Override
+    public void reset() {
+        calls.reset();
+        errors.reset();
+        latency.reset();
+    }
+
+    public MethodMetricsDTO toDTO(String instance) {
+        return new MethodMetricsDTO(instance, method, getCalls(), getErrors(), getInFlight(), getMeanMicros(),
+                getP50Micros(), getP99Micros(), getP999Micros(), getMaxMicros());
+    }
+}
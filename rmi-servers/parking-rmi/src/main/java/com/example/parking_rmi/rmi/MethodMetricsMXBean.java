@@ -0,0 +1,26 @@
+package com.example.parking_rmi.rmi;
+
+/**
+ * JMX view of one remote method (com.example.parking_rmi:type=RemoteMethod,name=...).
+ */
+public interface MethodMetricsMXBean {
+
+    long getCalls();
+
+    long getErrors();
+
+    int getInFlight();
+
+    double getMeanMicros();
+
+    long getP50Micros();
+
+    long getP99Micros();
+
+    long getP999Micros();
+
+    long getMaxMicros();
+
+    /** Clears counters and histogram (in-flight is kept). */
+    void reset();
+}
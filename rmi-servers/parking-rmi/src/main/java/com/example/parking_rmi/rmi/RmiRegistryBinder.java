@@ -0,0 +1,148 @@
+package com.example.parking_rmi.rmi;
+
+import java.lang.management.ManagementFactory;
+import java.rmi.NoSuchObjectException;
+import java.rmi.Remote;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+
+import com.example.parking_rmi.service.LotShardService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Publishes the RMI service once the application is actually ready.
+ *
+ * On ApplicationReadyEvent (every bean created, JPA initialised):
+ * 1. checks a datasource connection,
+ * 2. runs the StartupWarmup beans,
+ * 3. exports the service and creates the registry,
+ * 4. binds "parkingService" and the lot names.
+ * then logs how long each phase took, from JVM start.
+ *
+ * Any failure is rethrown: Spring Boot then closes the context and the
+ * process exits instead of running without a bound service.
+ */
+@Slf4j
+public class RmiRegistryBinder implements ApplicationListener<ApplicationReadyEvent>, DisposableBean {
+
+    public static final String SERVICE_NAME = "parkingService";
+
+    private final Remote service;
+    private final TunedClientSocketFactory clientSocketFactory;
+    private final TunedServerSocketFactory serverSocketFactory;
+    private final DataSource dataSource;
+    private final List<StartupWarmup> warmups;
+    private final LotShardService lotShard;
+    private final int port;
+
+    private final List<String> phases = new ArrayList<>();
+    private Registry registry;
+    private boolean exported;
+
+    public RmiRegistryBinder(Remote service, TunedClientSocketFactory clientSocketFactory,
+            TunedServerSocketFactory serverSocketFactory, DataSource dataSource, List<StartupWarmup> warmups,
+            LotShardService lotShard, int port) {
+        this.service = service;
+        this.clientSocketFactory = clientSocketFactory;
+        this.serverSocketFactory = serverSocketFactory;
+        this.dataSource = dataSource;
+        this.warmups = warmups;
+        this.lotShard = lotShard;
+        this.port = port;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        long contextMillis = event.getTimeTaken() != null ? event.getTimeTaken().toMillis() : 0;
+        record("JVM start -> SpringApplication.run", uptime - contextMillis);
+        record("Spring context (beans, JPA, Hikari)", contextMillis);
+
+        try {
+            long start = System.nanoTime();
+            try (Connection connection = dataSource.getConnection()) {
+                if (!connection.isValid(5)) {
+                    throw new IllegalStateException("Datasource connection is not valid");
+                }
+            }
+            start = phase("Datasource check", start);
+
+            for (StartupWarmup warmup : warmups) {
+                warmup.warmUp();
+                start = phase("Warm-up: " + warmup.name(), start);
+            }
+
+            // Exported only now: no remote call can reach a half-initialised server
+            Remote stub = UnicastRemoteObject.exportObject(service, 0, clientSocketFactory, serverSocketFactory);
+            exported = true;
+            registry = LocateRegistry.createRegistry(port);
+            start = phase("Export + registry on port " + port, start);
+
+            registry.bind(SERVICE_NAME, stub);
+            // Each lot served here is also reachable under its own rmiServiceName
+            lotShard.bindLotNames(registry, stub);
+            phase("Bind names", start);
+        } catch (Exception e) {
+            report("RMI server failed to start");
+            throw new IllegalStateException("Could not publish the RMI service on port " + port, e);
+        }
+
+        report("RMI server ready in " + ManagementFactory.getRuntimeMXBean().getUptime() + " ms");
+        System.out.println("-------------------------------------------");
+        System.out.println("                SERVER RUNNING             ");
+        System.out.println("-------------------------------------------");
+    }
+
+    @Override
+    public void destroy() {
+        if (registry != null) {
+            try {
+                registry.unbind(SERVICE_NAME);
+            } catch (Exception e) {
+                log.debug("Unbind failed: {}", e.toString());
+            }
+            unexport(registry);
+        }
+        if (exported) {
+            unexport(service);
+        }
+    }
+
+    private static void unexport(Remote remote) {
+        try {
+            UnicastRemoteObject.unexportObject(remote, true);
+        } catch (NoSuchObjectException e) {
+            // already gone
+        }
+    }
+
+    private long phase(String name, long startNanos) {
+        long now = System.nanoTime();
+        record(name, (now - startNanos) / 1_000_000);
+        return now;
+    }
+
+    private void record(String name, long millis) {
+        phases.add(String.format("  %-45s %7d ms", name, millis));
+    }
+
+    private void report(String title) {
+        StringBuilder sb = new StringBuilder("⏱️ Startup timing\n");
+        for (String line : phases) {
+            sb.append(line).append('\n');
+        }
+        sb.append("  ").append(title);
+        log.info(sb.toString());
+    }
+}
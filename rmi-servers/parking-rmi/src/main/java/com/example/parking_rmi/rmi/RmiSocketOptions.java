@@ -0,0 +1,26 @@
+package com.example.parking_rmi.rmi;
+
+import java.io.Serializable;
+import java.util.zip.Deflater;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Transport settings shared by the RMI socket factories.
+ * Serialized inside the client factory, so the backend always uses
+ * the same settings as the server that exported the stub.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RmiSocketOptions implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private boolean compression = false;
+    private int compressionLevel = Deflater.BEST_SPEED;
+    private boolean tcpNoDelay = true;
+    private int sendBufferSize = 0;    // 0 = OS default
+    private int receiveBufferSize = 0; // 0 = OS default
+}
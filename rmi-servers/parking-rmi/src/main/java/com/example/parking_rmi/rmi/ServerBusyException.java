@@ -0,0 +1,19 @@
+package com.example.parking_rmi.rmi;
+
+import java.rmi.RemoteException;
+
+/**
+ * Thrown when a call is refused by admission control, before any work is
+ * done. The call did not execute and can safely be retried later or on
+ * another server.
+ *
+ * Same class in the backend so the client can deserialize it.
+ */
+public class ServerBusyException extends RemoteException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ServerBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.parking_rmi.rmi;
+
+import java.rmi.ConnectException;
+import java.rmi.ConnectIOException;
+import java.rmi.NoSuchObjectException;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.example.parking_rmi.Interface.SpotEventListener;
+import com.example.parking_rmi.dto.SpotEventDTO;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pushes committed spot changes to remote SpotEventListeners.
+ *
+ * publish() runs on the committing thread and only touches the subscriber's
+ * pending map: events are coalesced per spot (latest status wins) and
+ * delivered in batches from the dispatcher's own threads, one drain at a time
+ * per subscriber, so a slow or dead client never holds up a write.
+ *
+ * A subscriber's pending map is bounded: when more than queueCapacity spots
+ * are waiting, they are dropped and replaced by one resync event per lot, and
+ * the client reloads those lots with getSpotChangesSince. A subscriber whose
+ * callback fails gets resync markers for the lots of the lost batch and is
+ * retried on the next event; after maxFailures failures in a row (or as soon
+ * as its stub is gone) it is removed. Clients re-subscribe periodically to
+ * survive this and server restarts.
+ */
+@Slf4j
+public class SpotEventDispatcher implements AutoCloseable {
+
+    private final int queueCapacity;
+    private final int maxBatch;
+    private final int maxFailures;
+    private final ExecutorService executor;
+
+    private final Map<SpotEventListener, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder overflows = new LongAdder();
+
+    public SpotEventDispatcher(int queueCapacity, int maxBatch, int maxFailures) {
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.maxBatch = Math.max(1, maxBatch);
+        this.maxFailures = Math.max(1, maxFailures);
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("spot-events-", 0).factory());
+    }
+
+    /**
+     * Registers listener for one lot, or every lot when parkingLotId is null.
+     * Subscribing again adds lots to an existing subscription (a null lot makes it global).
+     */
+    public void subscribe(SpotEventListener listener, Long parkingLotId) {
+        Objects.requireNonNull(listener, "listener");
+        subscriptions.computeIfAbsent(listener, Subscription::new).addLot(parkingLotId);
+    }
+
+    public void unsubscribe(SpotEventListener listener) {
+        if (listener != null && subscriptions.remove(listener) != null) {
+            log.info("Spot event listener unsubscribed ({} left)", subscriptions.size());
+        }
+    }
+
+    public void publish(SpotEventDTO event) {
+        if (event.getParkingLotId() == null) {
+            return;
+        }
+        for (Subscription subscription : subscriptions.values()) {
+            if (subscription.accepts(event.getParkingLotId()) && subscription.offer(event)) {
+                executor.execute(subscription::drain);
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    public long getOverflows() {
+        return overflows.sum();
+    }
+
+    @Override
+    public void close() {
+        subscriptions.clear();
+        executor.shutdownNow();
+    }
+
+    private final class Subscription {
+        private final SpotEventListener listener;
+        private volatile boolean allLots;
+        private volatile Set<Long> lots = Set.of();
+
+        // spotId (or -lotId for a resync marker) -> latest event; guarded by this
+        private LinkedHashMap<Long, SpotEventDTO> pending = new LinkedHashMap<>();
+        private boolean draining;
+        private int failures;
+
+        Subscription(SpotEventListener listener) {
+            this.listener = listener;
+        }
+
+        synchronized void addLot(Long parkingLotId) {
+            if (parkingLotId == null) {
+                allLots = true;
+            } else if (!lots.contains(parkingLotId)) {
+                Set<Long> updated = new HashSet<>(lots);
+                updated.add(parkingLotId);
+                lots = Set.copyOf(updated);
+            }
+        }
+
+        boolean accepts(Long parkingLotId) {
+            return allLots || lots.contains(parkingLotId);
+        }
+
+        /** Queues event; true if the caller must schedule a drain. */
+        synchronized boolean offer(SpotEventDTO event) {
+            if (pending.remove(event.getSpotId()) != null) {
+                coalesced.increment();
+            }
+            pending.put(event.getSpotId(), event);
+            if (pending.size() > queueCapacity) {
+                overflow();
+            }
+            if (draining) {
+                return false;
+            }
+            draining = true;
+            return true;
+        }
+
+        // Too far behind: keep one resync marker per lot instead of the spots
+        private void overflow() {
+            overflows.increment();
+            LinkedHashMap<Long, SpotEventDTO> markers = new LinkedHashMap<>();
+            for (SpotEventDTO event : pending.values()) {
+                SpotEventDTO marker = markers.get(-event.getParkingLotId());
+                long version = marker != null ? Math.max(marker.getVersion(), event.getVersion()) : event.getVersion();
+                markers.put(-event.getParkingLotId(),
+                        new SpotEventDTO(event.getParkingLotId(), null, null, null, null, version, true));
+            }
+            pending = markers;
+        }
+
+        // Lost batch: the client must reload its lots; the next publish restarts the drain
+        private synchronized void requeueAsResync(List<SpotEventDTO> lost) {
+            for (SpotEventDTO event : lost) {
+                pending.putIfAbsent(-event.getParkingLotId(),
+                        new SpotEventDTO(event.getParkingLotId(), null, null, null, null, event.getVersion(), true));
+            }
+            draining = false;
+        }
+
+        private synchronized List<SpotEventDTO> take() {
+            if (pending.isEmpty()) {
+                draining = false;
+                return List.of();
+            }
+            List<SpotEventDTO> batch = new ArrayList<>(Math.min(pending.size(), maxBatch));
+            Iterator<SpotEventDTO> it = pending.values().iterator();
+            while (it.hasNext() && batch.size() < maxBatch) {
+                batch.add(it.next());
+                it.remove();
+            }
+            return batch;
+        }
+
+        void drain() {
+            List<SpotEventDTO> batch;
+            while (!(batch = take()).isEmpty()) {
+                if (subscriptions.get(listener) != this) {
+                    return;
+                }
+                try {
+                    listener.onSpotEvents(batch);
+                    delivered.add(batch.size());
+                    failures = 0;
+                } catch (RemoteException e) {
+                    if (++failures >= maxFailures || isGone(e)) {
+                        subscriptions.remove(listener, this);
+                        log.warn("Dropping spot event listener after {} failure(s): {}", failures, e.toString());
+                        return;
+                    }
+                    log.debug("Spot event delivery failed ({}), retrying on the next event", e.toString());
+                    requeueAsResync(batch);
+                    return;
+                } catch (RuntimeException e) {
+                    log.warn("Spot event listener threw {}", e.toString());
+                }
+            }
+        }
+    }
+
+    private static boolean isGone(RemoteException e) {
+        return e instanceof NoSuchObjectException || e instanceof ConnectException || e instanceof ConnectIOException;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.parking_rmi.rmi;
+
+/**
+ * Work run by RmiRegistryBinder after the context is ready and before the
+ * service is bound, so the first remote calls do not pay for cold caches.
+ * Declare one as a bean; a failing warm-up aborts the startup.
+ */
+public interface StartupWarmup {
+
+    String name();
+
+    void warmUp() throws Exception;
+
+    static StartupWarmup of(String name, Action action) {
+        return new StartupWarmup() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public void warmUp() throws Exception {
+                action.run();
+            }
+        };
+    }
+
+    @FunctionalInterface
+    interface Action {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.parking_rmi.rmi;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.rmi.server.RMIServerSocketFactory;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Server side of the RMI transport, matching {@link TunedClientSocketFactory}.
+ */
+@Getter
+@EqualsAndHashCode
+public class TunedServerSocketFactory implements RMIServerSocketFactory {
+
+    private final RmiSocketOptions options;
+
+    public TunedServerSocketFactory(RmiSocketOptions options) {
+        this.options = options;
+    }
+
+    @Override
+    public ServerSocket createServerSocket(int port) throws IOException {
+        ServerSocket server = new ServerSocket() {
+            @Override
+            public Socket accept() throws IOException {
+                TunedSocket socket = new TunedSocket(options);
+                implAccept(socket);
+                socket.applyOptions();
+                return socket;
+            }
+        };
+        if (options.getReceiveBufferSize() > 0) {
+            server.setReceiveBufferSize(options.getReceiveBufferSize());
+        }
+        server.bind(new InetSocketAddress(port));
+        return server;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.parking_rmi.rmi;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Socket used by the RMI socket factories: applies TCP options and, when
+ * enabled, wraps the streams in deflate/inflate with SYNC_FLUSH so every
+ * RMI flush reaches the peer immediately.
+ * Raw bytes on the wire are counted for benchmarks and metrics.
+ */
+public class TunedSocket extends Socket {
+
+    private static final int STREAM_BUFFER = 8192;
+
+    private static final LongAdder BYTES_SENT = new LongAdder();
+    private static final LongAdder BYTES_RECEIVED = new LongAdder();
+
+    private final RmiSocketOptions options;
+    private InputStream in;
+    private OutputStream out;
+    private Inflater inflater;
+    private Deflater deflater;
+
+    public TunedSocket(RmiSocketOptions options) {
+        this.options = options;
+    }
+
+    void applyOptions() throws SocketException {
+        setTcpNoDelay(options.isTcpNoDelay());
+        if (options.getSendBufferSize() > 0) {
+            setSendBufferSize(options.getSendBufferSize());
+        }
+        if (options.getReceiveBufferSize() > 0) {
+            setReceiveBufferSize(options.getReceiveBufferSize());
+        }
+    }
+
+    @Override
+    public synchronized InputStream getInputStream() throws IOException {
+        if (in == null) {
+            InputStream raw = new CountingInputStream(super.getInputStream());
+            if (options.isCompression()) {
+                inflater = new Inflater();
+                in = new InflaterInputStream(raw, inflater, STREAM_BUFFER);
+            } else {
+                in = raw;
+            }
+        }
+        return in;
+    }
+
+    @Override
+    public synchronized OutputStream getOutputStream() throws IOException {
+        if (out == null) {
+            OutputStream raw = new CountingOutputStream(super.getOutputStream());
+            if (options.isCompression()) {
+                deflater = new Deflater(options.getCompressionLevel());
+                out = new DeflaterOutputStream(raw, deflater, STREAM_BUFFER, true);
+            } else {
+                out = raw;
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            // Native zlib memory is not released by the streams themselves
+            if (inflater != null) {
+                inflater.end();
+            }
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+
+    public static long getBytesSent() {
+        return BYTES_SENT.sum();
+    }
+
+    public static long getBytesReceived() {
+        return BYTES_RECEIVED.sum();
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                BYTES_RECEIVED.increment();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                BYTES_RECEIVED.add(n);
+            }
+            return n;
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            BYTES_SENT.increment();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            BYTES_SENT.add(len);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.parking_rmi.service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.parking_rmi.Repository.ParkingSpotRepository;
+import com.example.parking_rmi.dto.GateEventDTO;
+import com.example.parking_rmi.dto.GateEventResultDTO;
+import com.example.parking_rmi.journal.SpotTransition;
+import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Car entries and exits of many spots in one call (applyGateEvents), for
+ * gate controllers and replays that would otherwise pay one RMI round trip
+ * and one transaction per car.
+ *
+ * One transaction: the statuses of the spots are read in one query, the
+ * events are applied in memory in the order given (same rules as
+ * simulateCarEntry/Exit), then each changed spot gets one UPDATE from its
+ * first to its last status, conditional on the first, sent as a JDBC batch.
+ * A spot whose row changed meanwhile is left alone and its events answered
+ * CONFLICT. Each lot's counters move once by the net change of its spots;
+ * events and history are recorded per spot and per event after commit.
+ *
+ * An event's timestamp only sets last_occupied_at. updated_at and the
+ * history events carry the server's clock: SpotHistory.recover re-reads the
+ * rows updated since its newest event, so neither may be back-dated (nor
+ * pushed forward by a client's clock).
+ */
+@Slf4j
+@Service
+public class GateEventService {
+
+    static final String APPLIED = "APPLIED";
+    static final String UNCHANGED = "UNCHANGED";
+    static final String NOT_FOUND = "NOT_FOUND";
+    static final String INVALID = "INVALID";
+    static final String WRONG_SHARD = "WRONG_SHARD";
+    static final String CONFLICT = "CONFLICT";
+
+    private static final String UPDATE_SPOT = "UPDATE parking_spots SET status = ?,"
+            + " last_occupied_at = COALESCE(?, last_occupied_at), updated_at = ? WHERE id = ? AND status = ?";
+    private static final int READ_CHUNK = 1000;
+    private static final int STATUSES = SpotStatus.values().length;
+
+    private final ParkingSpotRepository parkingSpotRepository;
+    private final LotCounters lotCounters;
+    private final SpotChangeLog spotChangeLog;
+    private final SpotHistory spotHistory;
+    private final LotShardService lotShard;
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxBatch;
+
+    public GateEventService(ParkingSpotRepository parkingSpotRepository, LotCounters lotCounters,
+            SpotChangeLog spotChangeLog, SpotHistory spotHistory, LotShardService lotShard,
+            JdbcTemplate jdbcTemplate, @Value("${parking.gate-events.max-batch:5000}") int maxBatch) {
+        this.parkingSpotRepository = parkingSpotRepository;
+        this.lotCounters = lotCounters;
+        this.spotChangeLog = spotChangeLog;
+        this.spotHistory = spotHistory;
+        this.lotShard = lotShard;
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxBatch = maxBatch;
+    }
+
+    /** One result per event, same order. */
+    @Transactional
+    public List<GateEventResultDTO> apply(List<GateEventDTO> events) {
+        if (events == null || events.isEmpty()) {
+            return List.of();
+        }
+        if (events.size() > maxBatch) {
+            throw new IllegalArgumentException("At most " + maxBatch + " gate events per call, got " + events.size());
+        }
+        Map<Long, Spot> spots = load(events);
+        Map<Long, Boolean> owned = new HashMap<>();
+        GateEventResultDTO[] results = new GateEventResultDTO[events.size()];
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < events.size(); i++) {
+            GateEventDTO event = events.get(i);
+            SpotTransition.Kind kind = kind(event);
+            Long spotId = event != null ? event.getSpotId() : null;
+            Spot spot = spotId != null ? spots.get(spotId) : null;
+            if (spotId == null || kind == null) {
+                results[i] = new GateEventResultDTO(spotId, null, INVALID);
+            } else if (spot == null) {
+                results[i] = new GateEventResultDTO(spotId, null, NOT_FOUND);
+            } else if (!owned.computeIfAbsent(spot.lotId, lotShard::owns)) {
+                results[i] = new GateEventResultDTO(spotId, spot.lotId, WRONG_SHARD);
+            } else {
+                long at = event.getTimestampMillis() != null ? event.getTimestampMillis() : now;
+                results[i] = new GateEventResultDTO(spotId, spot.lotId, spot.apply(i, kind, at) ? APPLIED : UNCHANGED);
+            }
+        }
+
+        List<Spot> changed = spots.values().stream().filter(s -> !s.applied.isEmpty()).toList();
+        if (changed.isEmpty()) {
+            return List.of(results);
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_SPOT, changed, changed.size(), (ps, s) -> {
+            ps.setString(1, s.status.name());
+            ps.setTimestamp(2, s.enteredAt != null ? new Timestamp(s.enteredAt) : null);
+            ps.setTimestamp(3, new Timestamp(now)); // not a replayed event's time: recovery goes by it
+            ps.setLong(4, s.spotId);
+            ps.setString(5, s.initial.name());
+        });
+
+        Map<Long, int[]> deltas = new LinkedHashMap<>();
+        List<Spot> written = new ArrayList<>(changed.size());
+        int index = 0;
+        for (int[] chunk : counts) {
+            for (int rows : chunk) {
+                Spot s = changed.get(index++);
+                if (rows == 0) {
+                    // Changed by another writer since it was read: none of its events happened
+                    for (int i : s.applied) {
+                        results[i].setResult(CONFLICT);
+                    }
+                    continue;
+                }
+                written.add(s);
+                if (s.status != s.initial) {
+                    int[] delta = deltas.computeIfAbsent(s.lotId, id -> new int[STATUSES]);
+                    delta[s.initial.ordinal()]--;
+                    delta[s.status.ordinal()]++;
+                }
+            }
+        }
+        // Counters first: change events carry the lot's count after the batch
+        deltas.forEach(lotCounters::add);
+        for (Spot s : written) {
+            if (s.status != s.initial) {
+                spotChangeLog.spotChanged(s.lotId, s.spotId, s.status);
+            }
+            for (Step step : s.steps) {
+                spotHistory.record(s.lotId, s.spotId, step.kind(), step.from(), step.to());
+            }
+        }
+        log.debug("Gate events: {} event(s), {} spot(s) written, {} lot(s)", events.size(), written.size(),
+                deltas.size());
+        return List.of(results);
+    }
+
+    private Map<Long, Spot> load(List<GateEventDTO> events) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (GateEventDTO event : events) {
+            if (event != null && event.getSpotId() != null) {
+                ids.add(event.getSpotId());
+            }
+        }
+        Map<Long, Spot> spots = new LinkedHashMap<>();
+        List<Long> all = new ArrayList<>(ids);
+        for (int from = 0; from < all.size(); from += READ_CHUNK) {
+            Collection<Long> chunk = all.subList(from, Math.min(all.size(), from + READ_CHUNK));
+            for (Object[] row : parkingSpotRepository.findSpotStatesByIdIn(chunk)) {
+                spots.put((Long) row[1], new Spot((Long) row[0], (Long) row[1], (SpotStatus) row[2]));
+            }
+        }
+        return spots;
+    }
+
+    private static SpotTransition.Kind kind(GateEventDTO event) {
+        if (event == null || event.getEvent() == null) {
+            return null;
+        }
+        return switch (event.getEvent().trim().toUpperCase()) {
+            case "ENTRY" -> SpotTransition.Kind.ENTRY;
+            case "EXIT" -> SpotTransition.Kind.EXIT;
+            default -> null;
+        };
+    }
+
+    private record Step(SpotTransition.Kind kind, SpotStatus from, SpotStatus to) {
+    }
+
+    // One spot of the batch: its status as read, and as the events leave it
+    private static final class Spot {
+        private final Long lotId;
+        private final Long spotId;
+        private final SpotStatus initial;
+        private SpotStatus status;
+        private Long enteredAt;
+        private final List<Integer> applied = new ArrayList<>(2);
+        private final List<Step> steps = new ArrayList<>(2);
+
+        Spot(Long lotId, Long spotId, SpotStatus status) {
+            this.lotId = lotId;
+            this.spotId = spotId;
+            this.initial = status;
+            this.status = status;
+        }
+
+        boolean apply(int index, SpotTransition.Kind kind, long at) {
+            SpotStatus to = kind == SpotTransition.Kind.ENTRY ? SpotStatus.OCCUPIED : SpotStatus.AVAILABLE;
+            if (status == to) {
+                return false;
+            }
+            steps.add(new Step(kind, status, to));
+            applied.add(index);
+            status = to;
+            if (kind == SpotTransition.Kind.ENTRY) {
+                enteredAt = at;
+            }
+            return true;
+        }
+    }
+}
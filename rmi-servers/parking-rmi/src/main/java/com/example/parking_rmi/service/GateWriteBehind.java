@@ -0,0 +1,433 @@
+package com.example.parking_rmi.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.rmi.RemoteException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.parking_rmi.Repository.ParkingSpotRepository;
+import com.example.parking_rmi.journal.SpotJournal;
+import com.example.parking_rmi.journal.SpotTransition;
+import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
+import com.example.parking_rmi.rmi.ServerBusyException;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write-behind for car entries and exits (parking.write-behind.enabled).
+ *
+ * An entry or exit on a spot of a lot held by SpotStateStore is checked
+ * against the store, appended to the SpotJournal and, once the journal has it
+ * on disk, applied to the store and acknowledged: no transaction, no row
+ * lock. Transitions of one spot are serialized; a failed append leaves the
+ * store as it was. Durable transitions go to LotCounters and SpotChangeLog
+ * (events), then to a queue that a background flusher writes to
+ * parking_spots every flush-ms, up to batch-size rows per JDBC batch in one
+ * transaction, and the journal is checkpointed after each batch.
+ *
+ * Each row update is conditional on the status the transition started from,
+ * so applying a transition twice is harmless: on startup, transitions after
+ * the checkpoint (a crash before their flush) are replayed into MySQL before
+ * the caches are loaded. Replay runs even when write-behind is disabled, so
+ * switching it off never loses acknowledged transitions.
+ *
+ * Other writes that touch spot status run through exclusive(): entries and
+ * exits of the lot wait while every acknowledged one is flushed and the
+ * write commits, so its compare-and-set sees the rows as the store does and
+ * the store gets its result before the next entry is checked. A row that
+ * still does not match when flushed (a writer outside this process) is a
+ * conflict: the spot is re-read from MySQL into the store and the counters.
+ * Reads served from MySQL lag behind by up to flush-ms.
+ */
+@Slf4j
+@Service
+public class GateWriteBehind {
+
+    private static final String UPDATE_SPOT = "UPDATE parking_spots SET status = ?,"
+            + " last_occupied_at = COALESCE(?, last_occupied_at), updated_at = ? WHERE id = ? AND status = ?";
+    private static final int LOT_LOCKS = 64;
+    private static final int SPOT_LOCKS = 1024;
+
+    /** A write that sets spot statuses in MySQL itself (see exclusive). */
+    public interface SpotWrite<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    private final SpotStateStore spotStates;
+    private final LotCounters lotCounters;
+    private final SpotChangeLog spotChangeLog;
+    private final SpotHistory spotHistory;
+    private final LotShardService lotShard;
+    private final ParkingSpotRepository parkingSpotRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Path dir;
+    private final int segmentBytes;
+    private final int batchSize;
+    private final long flushMillis;
+    private final int maxPending;
+
+    private final Queue<SpotTransition> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    // Taken from pending but not written yet (failed flush); guarded by this
+    private final List<SpotTransition> retry = new ArrayList<>();
+    // Flushed transitions whose row did not match, for the flusher thread to reconcile
+    private final Queue<SpotTransition> conflicts = new ConcurrentLinkedQueue<>();
+    // Entries and exits hold their lot's read lock, exclusive() the write lock
+    private final ReentrantReadWriteLock[] lotLocks = new ReentrantReadWriteLock[LOT_LOCKS];
+    private final Object[] spotLocks = new Object[SPOT_LOCKS];
+    // Last seq handed to onDurable's side effects; guarded by itself
+    private final long[] queuedSeq = new long[1];
+
+    private SpotJournal journal;
+    private ScheduledExecutorService flusher;
+
+    public GateWriteBehind(SpotStateStore spotStates, LotCounters lotCounters, SpotChangeLog spotChangeLog,
+            SpotHistory spotHistory, LotShardService lotShard, ParkingSpotRepository parkingSpotRepository,
+            JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            @Value("${parking.write-behind.enabled:false}") boolean enabled,
+            @Value("${parking.journal.dir:data/journal}") String dir,
+            @Value("${parking.journal.segment-mb:64}") int segmentMb,
+            @Value("${parking.write-behind.batch-size:1000}") int batchSize,
+            @Value("${parking.write-behind.flush-ms:200}") long flushMillis,
+            @Value("${parking.write-behind.max-pending:200000}") int maxPending) {
+        this.spotStates = spotStates;
+        this.lotCounters = lotCounters;
+        this.spotChangeLog = spotChangeLog;
+        this.spotHistory = spotHistory;
+        this.lotShard = lotShard;
+        this.parkingSpotRepository = parkingSpotRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled && spotStates.isEnabled();
+        this.dir = Path.of(dir);
+        this.segmentBytes = Math.max(1, segmentMb) * 1024 * 1024;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushMillis = flushMillis;
+        this.maxPending = maxPending;
+        for (int i = 0; i < LOT_LOCKS; i++) {
+            lotLocks[i] = new ReentrantReadWriteLock();
+        }
+        for (int i = 0; i < SPOT_LOCKS; i++) {
+            spotLocks[i] = new Object();
+        }
+        if (enabled && !spotStates.isEnabled()) {
+            log.warn("parking.write-behind.enabled needs parking.spot-state.enabled: entries and exits stay synchronous");
+        }
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        journal = new SpotJournal(dir, segmentBytes, this::onDurable);
+        long lastSeq = recover();
+        if (!enabled) {
+            return;
+        }
+        journal.open(lastSeq);
+        synchronized (queuedSeq) {
+            queuedSeq[0] = lastSeq;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "gate-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(() -> {
+            flushQuietly();
+            reconcileQuietly();
+        }, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        log.info("Gate write-behind enabled: journal in {}, flush every {} ms", dir.toAbsolutePath(), flushMillis);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        if (journal != null && enabled) {
+            journal.close(); // hands the last durable transitions to pending
+            flushQuietly();
+        }
+    }
+
+    /** Car entry: true if applied, false if the spot is already occupied, null to use the synchronous path. */
+    public Boolean enter(Long spotId) throws RemoteException {
+        return apply(spotId, SpotTransition.Kind.ENTRY, SpotStatus.OCCUPIED);
+    }
+
+    /** Car exit: true if applied, false if the spot is already available, null to use the synchronous path. */
+    public Boolean exit(Long spotId) throws RemoteException {
+        return apply(spotId, SpotTransition.Kind.EXIT, SpotStatus.AVAILABLE);
+    }
+
+    /**
+     * Runs a write that sets spot statuses of a lot in MySQL (every lot when
+     * lotId is null) with no entry or exit of the lot in flight: acknowledged
+     * ones are flushed first, new ones wait until the write has returned, so
+     * its transaction must be committed by then. When the flush fails the
+     * write is refused (ServerBusyException): the rows lack journaled
+     * transitions its compare-and-set would not see.
+     */
+    public <T, E extends Exception> T exclusive(Long lotId, SpotWrite<T, E> write) throws E, ServerBusyException {
+        if (!enabled) {
+            return write.run();
+        }
+        List<Lock> locks = new ArrayList<>(lotId != null ? 1 : LOT_LOCKS);
+        if (lotId != null) {
+            locks.add(lotLock(lotId).writeLock());
+        } else {
+            for (ReentrantReadWriteLock lock : lotLocks) {
+                locks.add(lock.writeLock()); // always in the same order
+            }
+        }
+        for (Lock lock : locks) {
+            lock.lock();
+        }
+        try {
+            awaitQueued();
+            if (pendingCount.get() > 0) {
+                try {
+                    flush();
+                } catch (RuntimeException e) {
+                    log.warn("Write-behind flush failed, refusing a spot status write: {}", e.toString());
+                    throw new ServerBusyException("Pending entries and exits could not be written: " + e.getMessage());
+                }
+            }
+            return write.run();
+        } finally {
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+        }
+    }
+
+    /** Same, for the lot of a spot (every lot when the store does not know it). */
+    public <T, E extends Exception> T exclusiveForSpot(Long spotId, SpotWrite<T, E> write)
+            throws E, ServerBusyException {
+        return exclusive(enabled ? spotStates.lotOf(spotId) : null, write);
+    }
+
+    private Boolean apply(Long spotId, SpotTransition.Kind kind, SpotStatus to) throws RemoteException {
+        Long lotId = enabled && journal.isOpen() ? spotStates.lotOf(spotId) : null;
+        if (lotId == null) {
+            return null;
+        }
+        lotShard.checkLot(lotId);
+        if (pendingCount.get() >= maxPending) {
+            throw new ServerBusyException("Write-behind backlog full (" + maxPending + " transitions)");
+        }
+        Lock lotLock = lotLock(lotId).readLock();
+        lotLock.lock();
+        try {
+            // One transition of a spot at a time; the store changes only once the record is durable
+            synchronized (spotLocks[Math.floorMod(Long.hashCode(spotId), SPOT_LOCKS)]) {
+                SpotStatus from = spotStates.status(lotId, spotId);
+                if (from == null) {
+                    return null; // lot dropped from the store (changed while loading): synchronous path
+                }
+                if (from == to) {
+                    return false;
+                }
+                journal.append(() -> SpotTransition.of(lotId, spotId, kind, from, to));
+                spotStates.swap(lotId, spotId, to);
+                return true;
+            }
+        } catch (IOException e) {
+            log.error("Spot journal append failed for spot {}: {}", spotId, e.toString());
+            throw new RemoteException("Journal write failed", e);
+        } finally {
+            lotLock.unlock();
+        }
+    }
+
+    private ReentrantReadWriteLock lotLock(Long lotId) {
+        return lotLocks[Math.floorMod(Long.hashCode(lotId), LOT_LOCKS)];
+    }
+
+    // Journal sync thread, in sequence order
+    private void onDurable(List<SpotTransition> transitions) {
+        for (SpotTransition t : transitions) {
+            lotCounters.transition(t.parkingLotId(), t.from(), t.to());
+            spotChangeLog.spotChanged(t.parkingLotId(), t.spotId(), t.to());
+            spotHistory.record(t.parkingLotId(), t.spotId(), t.kind(), t.from(), t.to());
+            pending.add(t);
+        }
+        pendingCount.addAndGet(transitions.size());
+        synchronized (queuedSeq) {
+            queuedSeq[0] = transitions.get(transitions.size() - 1).seq();
+            queuedSeq.notifyAll();
+        }
+    }
+
+    // Acknowledged appends are durable, but onDurable may not have queued them yet
+    private void awaitQueued() {
+        long seq = journal.lastSeq();
+        synchronized (queuedSeq) {
+            while (queuedSeq[0] < seq && journal.isOpen()) {
+                try {
+                    queuedSeq.wait(flushMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Write-behind flush failed, retrying in {} ms: {}", flushMillis, e.toString());
+        }
+    }
+
+    /** Writes the waiting transitions, batch by batch; returns the number written. */
+    synchronized int flush() {
+        int written = 0;
+        while (true) {
+            List<SpotTransition> batch = new ArrayList<>(retry);
+            retry.clear();
+            SpotTransition next;
+            while (batch.size() < batchSize && (next = pending.poll()) != null) {
+                batch.add(next);
+            }
+            if (batch.isEmpty()) {
+                return written;
+            }
+            List<SpotTransition> unmatched;
+            try {
+                unmatched = write(batch);
+            } catch (RuntimeException e) {
+                retry.addAll(batch);
+                throw e;
+            }
+            if (!unmatched.isEmpty()) {
+                // Acknowledged and counted, but the row had changed: the store is re-read from MySQL
+                log.warn("Write-behind: {} of {} transition(s) did not match the row status, spot(s) {} reloaded",
+                        unmatched.size(), batch.size(), unmatched.stream().map(SpotTransition::spotId).toList());
+                conflicts.addAll(unmatched);
+            }
+            pendingCount.addAndGet(-batch.size());
+            written += batch.size();
+            checkpoint(batch.get(batch.size() - 1).seq());
+        }
+    }
+
+    // Returns the transitions whose row did not have their from status
+    private List<SpotTransition> write(List<SpotTransition> batch) {
+        int[][] counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(UPDATE_SPOT, batch,
+                batch.size(), (ps, t) -> {
+                    Timestamp at = new Timestamp(t.timestampMillis());
+                    ps.setString(1, t.to().name());
+                    ps.setTimestamp(2, t.kind() == SpotTransition.Kind.ENTRY ? at : null);
+                    ps.setTimestamp(3, at);
+                    ps.setLong(4, t.spotId());
+                    ps.setString(5, t.from().name());
+                }));
+        List<SpotTransition> unmatched = new ArrayList<>();
+        int index = 0;
+        for (int[] chunk : counts) {
+            for (int rows : chunk) {
+                if (rows == 0) {
+                    unmatched.add(batch.get(index));
+                }
+                index++;
+            }
+        }
+        return unmatched;
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.warn("Write-behind reconcile failed, retrying in {} ms: {}", flushMillis, e.toString());
+        }
+    }
+
+    /**
+     * Sets the spots of unmatched transitions to their MySQL status, lot by
+     * lot with its entries and exits held off, and moves the counters by the
+     * difference (undoing what the lost transitions counted). Flusher thread
+     * only: it holds no other lock.
+     */
+    void reconcile() {
+        Map<Long, Map<Long, SpotTransition>> byLot = new LinkedHashMap<>();
+        SpotTransition next;
+        while ((next = conflicts.poll()) != null) {
+            byLot.computeIfAbsent(next.parkingLotId(), id -> new LinkedHashMap<>()).put(next.spotId(), next);
+        }
+        byLot.forEach((lotId, spots) -> {
+            Lock lock = lotLock(lotId).writeLock();
+            lock.lock();
+            try {
+                awaitQueued();
+                flush(); // later transitions of these spots are in the rows read below; if not, retried
+                for (Object[] row : parkingSpotRepository.findSpotStatesByIdIn(spots.keySet())) {
+                    Long spotId = (Long) row[1];
+                    SpotStatus actual = (SpotStatus) row[2];
+                    SpotStatus memory = spotStates.swap(lotId, spotId, actual);
+                    if (memory != null && memory != actual) {
+                        lotCounters.transition(lotId, memory, actual);
+                        spotChangeLog.spotChanged(lotId, spotId, actual);
+                        spotHistory.record(lotId, spotId, SpotTransition.Kind.STATUS, memory, actual);
+                    }
+                }
+            } catch (RuntimeException e) {
+                conflicts.addAll(spots.values());
+                throw e;
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    private void checkpoint(long seq) {
+        try {
+            journal.checkpoint(seq);
+        } catch (IOException e) {
+            // Harmless: the next checkpoint covers it, replay is idempotent
+            log.warn("Journal checkpoint {} failed: {}", seq, e.toString());
+        }
+    }
+
+    // Transitions acknowledged but not flushed before the last stop
+    private long recover() throws IOException {
+        List<SpotTransition> unflushed = new ArrayList<>();
+        long lastSeq = journal.replay(unflushed::add);
+        int skipped = 0;
+        for (int from = 0; from < unflushed.size(); from += batchSize) {
+            skipped += write(unflushed.subList(from, Math.min(unflushed.size(), from + batchSize))).size();
+        }
+        if (skipped > 0) {
+            // Written before the crash, only the checkpoint was missing
+            log.debug("Write-behind: {} replayed transition(s) were already in MySQL", skipped);
+        }
+        if (!unflushed.isEmpty()) {
+            journal.checkpoint(lastSeq);
+            log.info("Write-behind: replayed {} journaled transition(s) into MySQL", unflushed.size());
+        }
+        return lastSeq;
+    }
+}
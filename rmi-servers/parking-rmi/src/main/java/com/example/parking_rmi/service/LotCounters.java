@@ -0,0 +1,252 @@
+package com.example.parking_rmi.service;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.parking_rmi.Repository.ParkingLotRepository;
+import com.example.parking_rmi.Repository.ParkingSpotRepository;
+import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Spot counts per lot and status, updated by deltas without locks, and
+ * the write-behind of parking_lots.available_spots.
+ *
+ * A status change calls transition(lot, from, to) inside its transaction;
+ * after commit the counts move by one. Counts are LongAdders: threads adding
+ * to the same lot hit different cells instead of retrying a CAS on one
+ * word, and readers sum the cells without blocking. The pending delta of a
+ * lot is its available count minus the value last written, so every
+ * flush-ms the pending deltas are written as
+ * UPDATE parking_lots SET available_spots = available_spots + ?, so writers
+ * no longer load and rewrite the lot row and concurrent changes cannot
+ * overwrite each other. A failed flush keeps its delta for the next round.
+ *
+ * Counts are loaded at startup (the column is corrected at the same time if
+ * it drifted from the spot rows); lots not loaded only get their column
+ * updated, and readers fall back to the column for them. Transitions keep
+ * committing while the counts are queried, so a load is a baseline: the
+ * counts become the query result plus whatever moved them since the query
+ * started, and those changes stay pending for the next flush.
+ */
+@Slf4j
+@Service
+public class LotCounters {
+
+    private static final int STATUSES = SpotStatus.values().length;
+
+    private final ParkingLotRepository parkingLotRepository;
+    private final ParkingSpotRepository parkingSpotRepository;
+    private final long flushMillis;
+    private final Map<Long, Counter> lots = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService flusher;
+
+    public LotCounters(ParkingLotRepository parkingLotRepository, ParkingSpotRepository parkingSpotRepository,
+            SpotChangeLog spotChangeLog, @Value("${parking.counters.flush-ms:500}") long flushMillis) {
+        this.parkingLotRepository = parkingLotRepository;
+        this.parkingSpotRepository = parkingSpotRepository;
+        this.flushMillis = flushMillis;
+        if (spotChangeLog != null) {
+            spotChangeLog.setAvailableSpotsSource(this::available);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "lot-counters-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        flush(); // nothing pending is lost on a clean shutdown
+    }
+
+    /**
+     * Loads the counts of the given lots (every lot when null) from the spot
+     * rows and corrects available_spots where it differs.
+     */
+    public void load(Collection<Long> parkingLotIds) {
+        if (parkingLotIds != null && parkingLotIds.isEmpty()) {
+            return;
+        }
+        // Counts before the query: what is added to them from here on is not in its result
+        Map<Long, long[]> before = new LinkedHashMap<>();
+        lots.forEach((id, counter) -> {
+            if (parkingLotIds == null || parkingLotIds.contains(id)) {
+                before.put(id, counter.sums());
+            }
+        });
+        List<Object[]> rows = parkingLotIds == null
+                ? parkingSpotRepository.countSpotsGroupedByParkingLotAndStatus()
+                : parkingSpotRepository.countSpotsGroupedByParkingLotAndStatus(parkingLotIds);
+        Map<Long, int[]> counts = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            counts.computeIfAbsent((Long) row[0], id -> new int[STATUSES])[((SpotStatus) row[1]).ordinal()] =
+                    ((Number) row[2]).intValue();
+        }
+        int corrected = reset(counts, before);
+        log.info("Lot counters: {} lot(s) loaded, available_spots corrected on {}", counts.size(), corrected);
+    }
+
+    /**
+     * Same from counts already known (SpotStateStore after a recovery from a
+     * snapshot): status ordinal -> spots, per lot.
+     */
+    public void restore(Map<Long, int[]> counts) {
+        int corrected = reset(counts, null);
+        log.info("Lot counters: {} lot(s) restored, available_spots corrected on {}", counts.size(), corrected);
+    }
+
+    // before: counts when the values were read (null: now); later changes are kept on top
+    private int reset(Map<Long, int[]> counts, Map<Long, long[]> before) {
+        int corrected = 0;
+        for (Map.Entry<Long, int[]> entry : counts.entrySet()) {
+            Counter counter = lots.computeIfAbsent(entry.getKey(), id -> new Counter());
+            // No flush between the two: the column holds the baseline, the later changes stay pending
+            synchronized (this) {
+                counter.reset(entry.getValue(), before == null ? counter.sums()
+                        : before.getOrDefault(entry.getKey(), new long[STATUSES]));
+                corrected += parkingLotRepository.setAvailableSpotsIfDifferent(entry.getKey(),
+                        entry.getValue()[SpotStatus.AVAILABLE.ordinal()]);
+            }
+        }
+        return corrected;
+    }
+
+    /** A new lot whose spots are all AVAILABLE (after commit). */
+    public void lotCreated(Long parkingLotId, int totalSpots) {
+        AfterCommit.run(() -> {
+            int[] counts = new int[STATUSES];
+            counts[SpotStatus.AVAILABLE.ordinal()] = totalSpots;
+            Counter counter = lots.computeIfAbsent(parkingLotId, id -> new Counter());
+            synchronized (this) {
+                counter.reset(counts, counter.sums()); // the column was written by the insert
+            }
+        });
+    }
+
+    /** A spot of the lot went from one status to another; applied after commit. */
+    public void transition(Long parkingLotId, SpotStatus from, SpotStatus to) {
+        if (parkingLotId == null || from == to) {
+            return;
+        }
+        AfterCommit.run(() -> apply(parkingLotId, from, to));
+    }
+
+    /**
+     * Net change of many spots of the lot at once, spots per status ordinal
+     * (GateEventService): one update of the counts after commit.
+     */
+    public void add(Long parkingLotId, int[] deltas) {
+        if (parkingLotId == null) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            Counter counter = lots.computeIfAbsent(parkingLotId, id -> new Counter());
+            for (int i = 0; i < STATUSES; i++) {
+                if (deltas[i] != 0) {
+                    counter.counts[i].add(deltas[i]);
+                }
+            }
+        });
+    }
+
+    void apply(Long parkingLotId, SpotStatus from, SpotStatus to) {
+        Counter counter = lots.get(parkingLotId);
+        if (counter == null) {
+            counter = lots.computeIfAbsent(parkingLotId, id -> new Counter());
+        }
+        if (from != null) {
+            counter.counts[from.ordinal()].decrement();
+        }
+        if (to != null) {
+            counter.counts[to.ordinal()].increment();
+        }
+    }
+
+    /** Current available spots of a loaded lot, null if the lot is not tracked. */
+    public Integer available(Long parkingLotId) {
+        return count(parkingLotId, SpotStatus.AVAILABLE);
+    }
+
+    public Integer count(Long parkingLotId, SpotStatus status) {
+        Counter counter = lots.get(parkingLotId);
+        return counter != null && counter.loaded ? (int) counter.counts[status.ordinal()].sum() : null;
+    }
+
+    /** Writes every pending delta; returns the number of UPDATE statements run. */
+    public synchronized int flush() {
+        int statements = 0;
+        for (Map.Entry<Long, Counter> entry : lots.entrySet()) {
+            Counter counter = entry.getValue();
+            // Changes landing during sum() are part of the next delta: nothing is counted twice or lost
+            long available = counter.counts[SpotStatus.AVAILABLE.ordinal()].sum();
+            long delta = available - counter.flushedAvailable;
+            if (delta == 0) {
+                continue;
+            }
+            try {
+                parkingLotRepository.addAvailableSpots(entry.getKey(), (int) delta);
+                counter.flushedAvailable = available;
+                statements++;
+            } catch (RuntimeException e) {
+                // Kept in the difference: retried on the next flush
+                log.warn("Could not flush available_spots of lot {} ({}): {}", entry.getKey(), delta, e.toString());
+            }
+        }
+        return statements;
+    }
+
+    private static final class Counter {
+        private final LongAdder[] counts = new LongAdder[STATUSES];
+        // Available count already in available_spots; guarded by LotCounters.this
+        private long flushedAvailable;
+        private volatile boolean loaded;
+
+        Counter() {
+            for (int i = 0; i < STATUSES; i++) {
+                counts[i] = new LongAdder();
+            }
+        }
+
+        long[] sums() {
+            long[] sums = new long[STATUSES];
+            for (int i = 0; i < STATUSES; i++) {
+                sums[i] = counts[i].sum();
+            }
+            return sums;
+        }
+
+        // Counts read from MySQL when the counter stood at base, column set to them:
+        // only the changes made since base are pending
+        void reset(int[] values, long[] base) {
+            for (int i = 0; i < STATUSES; i++) {
+                counts[i].add(values[i] - base[i]);
+            }
+            flushedAvailable = values[SpotStatus.AVAILABLE.ordinal()];
+            loaded = true;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.parking_rmi.service;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.rmi.registry.Registry;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.parking_rmi.Repository.ParkingLotRepository;
+import com.example.parking_rmi.Repository.ParkingSpotRepository;
+import com.example.parking_rmi.Repository.ReservationRepository;
+import com.example.parking_rmi.rmi.WrongShardException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Which lots this RMI instance serves.
+ *
+ * A lot belongs to the instance whose rmi.shard.host / rmi.registry.port match
+ * its rmiHost / rmiPort. Every owned lot is bound in the registry under its
+ * rmiServiceName, next to the global "parkingService" name.
+ *
+ * With rmi.shard.enabled=false (single instance) every lot is served here and
+ * no check is made.
+ */
+@Slf4j
+@Service
+public class LotShardService {
+
+    private final ParkingLotRepository parkingLotRepository;
+    private final ParkingSpotRepository parkingSpotRepository;
+    private final ReservationRepository reservationRepository;
+
+    private final boolean enabled;
+    private final String host;
+    private final int port;
+
+    // lotId -> rmiServiceName of the lots served here
+    private volatile Map<Long, String> ownedLots = Map.of();
+    private volatile boolean loaded;
+
+    private volatile Registry registry;
+    private volatile Remote service;
+
+    public LotShardService(ParkingLotRepository parkingLotRepository, ParkingSpotRepository parkingSpotRepository,
+            ReservationRepository reservationRepository,
+            @Value("${rmi.shard.enabled:false}") boolean enabled,
+            @Value("${rmi.shard.host:localhost}") String host,
+            @Value("${rmi.registry.port:1099}") int port) {
+        this.parkingLotRepository = parkingLotRepository;
+        this.parkingSpotRepository = parkingSpotRepository;
+        this.reservationRepository = reservationRepository;
+        this.enabled = enabled;
+        this.host = host;
+        this.port = port;
+    }
+
+    /** host:port of this instance, as stored in ParkingLot.rmiHost / rmiPort. */
+    public String getInstance() {
+        return host + ":" + port;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Lots served by this instance (every lot when sharding is disabled). */
+    public Set<Long> getOwnedLotIds() {
+        ensureLoaded();
+        return ownedLots.keySet();
+    }
+
+    public synchronized void refresh() {
+        List<Object[]> rows = enabled
+                ? parkingLotRepository.findIdsAndServiceNamesByRmiHostAndRmiPort(host, port)
+                : parkingLotRepository.findAll().stream()
+                        .map(lot -> new Object[] { lot.getId(), lot.getRmiServiceName() }).toList();
+        Map<Long, String> lots = new HashMap<>();
+        for (Object[] row : rows) {
+            lots.put((Long) row[0], row[1] != null ? (String) row[1] : "");
+        }
+        ownedLots = lots;
+        loaded = true;
+        log.info("🗂️ Serving {} parking lots on {}:{}", ownedLots.size(), host, port);
+    }
+
+    public boolean owns(Long parkingLotId) {
+        if (!enabled || parkingLotId == null) {
+            return true;
+        }
+        ensureLoaded();
+        if (ownedLots.containsKey(parkingLotId)) {
+            return true;
+        }
+        // Created by another instance or reassigned since the last refresh
+        List<Object[]> rows = parkingLotRepository.findRmiHostAndPortById(parkingLotId);
+        if (rows.isEmpty()) {
+            return true; // unknown lot: let the service answer "not found"
+        }
+        return host.equalsIgnoreCase((String) rows.get(0)[0]) && Integer.valueOf(port).equals(rows.get(0)[1]);
+    }
+
+    public void checkLot(Long parkingLotId) throws WrongShardException {
+        if (!owns(parkingLotId)) {
+            throw new WrongShardException(parkingLotId,
+                    "Parking lot " + parkingLotId + " is not served by " + host + ":" + port);
+        }
+    }
+
+    /** A new lot must be created on the instance that will serve it (defaults as in createParkingLot). */
+    public void checkNewLot(String rmiHost, Integer rmiPort) throws WrongShardException {
+        if (!enabled) {
+            return;
+        }
+        String lotHost = rmiHost != null ? rmiHost : "localhost";
+        int lotPort = rmiPort != null ? rmiPort : 1099;
+        if (!host.equalsIgnoreCase(lotHost) || port != lotPort) {
+            throw new WrongShardException(null, "New parking lot for " + lotHost + ":" + lotPort
+                    + " must be created on that instance, not " + host + ":" + port);
+        }
+    }
+
+    public void checkSpot(Long spotId) throws WrongShardException {
+        if (enabled) {
+            checkLot(parkingSpotRepository.findParkingLotIdBySpotId(spotId));
+        }
+    }
+
+    public void checkReservation(Long reservationId) throws WrongShardException {
+        if (enabled) {
+            checkLot(reservationRepository.findParkingLotIdByReservationId(reservationId));
+        }
+    }
+
+    /** Keeps the items of owned lots, for global listings (uses the cached set only). */
+    public <T> List<T> filterOwned(Collection<T> items, Function<T, Long> parkingLotId) {
+        if (!enabled) {
+            return List.copyOf(items);
+        }
+        Set<Long> owned = getOwnedLotIds();
+        return items.stream().filter(item -> owned.contains(parkingLotId.apply(item))).toList();
+    }
+
+    /** Binds every owned lot under its rmiServiceName; new lots are bound by {@link #lotCreated}. */
+    public void bindLotNames(Registry registry, Remote service) throws RemoteException {
+        this.registry = registry;
+        this.service = service;
+        refresh();
+        for (String name : ownedLots.values()) {
+            if (!name.isBlank()) {
+                registry.rebind(name, service);
+            }
+        }
+    }
+
+    public void lotCreated(Long parkingLotId) {
+        refresh();
+        String name = ownedLots.get(parkingLotId);
+        if (registry != null && name != null && !name.isBlank()) {
+            try {
+                registry.rebind(name, service);
+                log.info("Bound {} for parking lot {}", name, parkingLotId);
+            } catch (RemoteException e) {
+                log.warn("Could not bind {} for parking lot {}: {}", name, parkingLotId, e.toString());
+            }
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            refresh();
+        }
+    }
+}
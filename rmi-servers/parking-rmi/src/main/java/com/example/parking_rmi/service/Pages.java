@@ -0,0 +1,59 @@
+package com.example.parking_rmi.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.data.domain.Limit;
+
+import com.example.parking_rmi.dto.PageDTO;
+
+/**
+ * Keyset pagination helpers: a page is "rows after the cursor id", never an
+ * OFFSET, so every page costs one index range scan whatever its position, and
+ * at most MAX_SIZE rows are loaded per call.
+ */
+final class Pages {
+
+    static final int DEFAULT_SIZE = 50;
+    static final int MAX_SIZE = 500;
+
+    private Pages() {
+    }
+
+    static int size(int requested) {
+        return requested <= 0 ? DEFAULT_SIZE : Math.min(requested, MAX_SIZE);
+    }
+
+    /** One row more than the page, to know whether there is a next page. */
+    static Limit limit(int size) {
+        return Limit.of(size + 1);
+    }
+
+    static long after(Long cursor) {
+        return cursor != null ? cursor : 0L;
+    }
+
+    static long before(Long cursor) {
+        return cursor != null ? cursor : Long.MAX_VALUE;
+    }
+
+    /** An empty set of lots (e.g. shard serving nothing) must not reach an IN () clause. */
+    static boolean noLots(Collection<Long> parkingLotIds) {
+        return parkingLotIds != null && parkingLotIds.isEmpty();
+    }
+
+    static <T> PageDTO<T> empty() {
+        return new PageDTO<>(List.of(), null);
+    }
+
+    static <E, D> PageDTO<D> of(List<E> rows, int size, Function<E, D> mapper, Function<E, Long> id) {
+        boolean more = rows.size() > size;
+        List<D> items = new ArrayList<>(Math.min(rows.size(), size));
+        for (int i = 0; i < rows.size() && i < size; i++) {
+            items.add(mapper.apply(rows.get(i)));
+        }
+        return new PageDTO<>(items, more ? id.apply(rows.get(size - 1)) : null);
+    }
+}
@@ -2,6 +2,7 @@ package com.example.parking_rmi.service;
 
 import com.example.parking_rmi.Repository.ParkingLotRepository;
 import com.example.parking_rmi.Repository.ParkingSpotRepository;
+import com.example.parking_rmi.dto.PageDTO;
 import com.example.parking_rmi.dto.ParkingLotDTO;
 import com.example.parking_rmi.dto.ParkingSpotDTO;
 import com.example.parking_rmi.dto.ReservationDTO;
@@ -18,6 +19,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -29,6 +31,7 @@ public class ParkingLotService {
     // We might need to inject other services if we need their DTO mappers,
     // but for now, we will keep simple mappers here to avoid circular dependencies.
     private final ParkingSpotRepository parkingSpotRepository; // <--- INJECT THIS
+    private final LotCounters lotCounters;
 
     // ==========================================
     // 🆕 CREATE METHOD (Auto-Generates Spots)
@@ -87,6 +90,7 @@ public class ParkingLotService {
             // Batch save for performance
             parkingSpotRepository.saveAll(generatedSpots);
         }
+        lotCounters.lotCreated(savedLot.getId(), savedLot.getTotalSpots());
 
         // 4. Return DTO
         return mapToLotDTO(savedLot, false);
@@ -99,6 +103,20 @@ public class ParkingLotService {
                 .collect(Collectors.toList());
     }
 
+    // parkingLotIds = null: every lot
+    @Transactional(readOnly = true)
+    public PageDTO<ParkingLotDTO> getParkingLotsPage(Collection<Long> parkingLotIds, Long afterId, int size) {
+        if (Pages.noLots(parkingLotIds)) {
+            return Pages.empty();
+        }
+        int pageSize = Pages.size(size);
+        List<ParkingLot> rows = parkingLotIds == null
+                ? parkingLotRepository.findByIdGreaterThanOrderByIdAsc(Pages.after(afterId), Pages.limit(pageSize))
+                : parkingLotRepository.findByIdInAndIdGreaterThanOrderByIdAsc(parkingLotIds, Pages.after(afterId),
+                        Pages.limit(pageSize));
+        return Pages.of(rows, pageSize, e -> mapToLotDTO(e, false), ParkingLot::getId);
+    }
+
     @Transactional(readOnly = true)
     public ParkingLotDTO getParkingLotById(Long id) {
         // Use findByIdWithSpots if you have that custom query, otherwise findById
@@ -120,6 +138,15 @@ public class ParkingLotService {
         return total != null ? total : 0;
     }
 
+    @Transactional(readOnly = true)
+    public int getTotalAvailableSpots(Collection<Long> parkingLotIds) {
+        if (parkingLotIds.isEmpty()) {
+            return 0;
+        }
+        Integer total = parkingLotRepository.getTotalAvailableSpots(parkingLotIds);
+        return total != null ? total : 0;
+    }
+
     // --- Helper Mapper ---
     private ParkingLotDTO mapToLotDTO(ParkingLot e, boolean deep) {
         ParkingLotDTO d = new ParkingLotDTO();
@@ -130,7 +157,9 @@ public class ParkingLotService {
         d.setLatitude(e.getLatitude());
         d.setLongitude(e.getLongitude());
         d.setTotalSpots(e.getTotalSpots());
-        d.setAvailableSpots(e.getAvailableSpots());
+        // Live counter; the column lags by up to parking.counters.flush-ms
+        Integer available = lotCounters.available(e.getId());
+        d.setAvailableSpots(available != null ? available : e.getAvailableSpots());
         d.setRmiHost(e.getRmiHost());
         d.setRmiPort(e.getRmiPort());
         d.setRmiServiceName(e.getRmiServiceName());
@@ -0,0 +1,32 @@
+package com.example.parking_rmi.service;
+
+import com.example.parking_rmi.dto.ParkingLotDTO;
+import com.example.parking_rmi.dto.ParkingLotSnapshotDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Composite reads spanning several services.
+ * The inner @Transactional(readOnly = true) calls join the outer transaction,
+ * so a snapshot costs one DB session instead of three.
+ */
+@Service
+@RequiredArgsConstructor
+public class ParkingSnapshotService {
+
+    private final ParkingLotService parkingLotService;
+    private final ParkingSpotService parkingSpotService;
+    private final ReservationService reservationService;
+
+    @Transactional(readOnly = true)
+    public ParkingLotSnapshotDTO getParkingLotSnapshot(Long parkingLotId) {
+        ParkingLotDTO lot = parkingLotService.getParkingLotById(parkingLotId);
+        if (lot == null)
+            return null;
+
+        return new ParkingLotSnapshotDTO(lot,
+                parkingSpotService.getAllSpotsByParkingLot(parkingLotId),
+                reservationService.getReservationDTOsByParkingLot(parkingLotId));
+    }
+}
@@ -2,7 +2,10 @@ package com.example.parking_rmi.service;
 
 import com.example.parking_rmi.Repository.ParkingLotRepository;
 import com.example.parking_rmi.Repository.ParkingSpotRepository;
+import com.example.parking_rmi.dto.PageDTO;
 import com.example.parking_rmi.dto.ParkingSpotDTO;
+import com.example.parking_rmi.dto.SpotChangesDTO;
+import com.example.parking_rmi.journal.SpotTransition;
 import com.example.parking_rmi.model.ParkingLot;
 import com.example.parking_rmi.model.ParkingSpot;
 import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
@@ -11,6 +14,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
@@ -21,6 +26,10 @@ public class ParkingSpotService {
 
     private final ParkingSpotRepository parkingSpotRepository;
     private final ParkingLotRepository parkingLotRepository;
+    private final SpotChangeLog spotChangeLog;
+    private final SpotStateStore spotStates;
+    private final LotCounters lotCounters;
+    private final SpotHistory spotHistory;
 
     @Transactional(readOnly = true)
     public List<ParkingSpotDTO> findByStatus(SpotStatus status) {
@@ -29,18 +38,57 @@ public class ParkingSpotService {
     }
 
     @Transactional(readOnly = true)
-    public List<ParkingSpotDTO> findByParkingLotIdAndStatus(Long parkingLotId, SpotStatus status) {
-        return parkingSpotRepository.findByParkingLotIdAndStatus(parkingLotId, status).stream()
-            .map(this::mapToSpotDTO).collect(Collectors.toList());
+    public List<ParkingSpotDTO> findByParkingLotIdInAndStatus(Collection<Long> parkingLotIds, SpotStatus status) {
+        return parkingSpotRepository.findByParkingLotIdInAndStatus(parkingLotIds, status).stream()
+                .map(this::mapToSpotDTO).collect(Collectors.toList());
+    }
+
+    // parkingLotIds = null: every lot
+    @Transactional(readOnly = true)
+    public PageDTO<ParkingSpotDTO> findByStatusPage(Collection<Long> parkingLotIds, SpotStatus status, Long afterId,
+            int size) {
+        if (Pages.noLots(parkingLotIds)) {
+            return Pages.empty();
+        }
+        int pageSize = Pages.size(size);
+        List<ParkingSpot> rows = parkingLotIds == null
+                ? parkingSpotRepository.findByStatusAndIdGreaterThanOrderByIdAsc(status, Pages.after(afterId),
+                        Pages.limit(pageSize))
+                : parkingSpotRepository.findByParkingLotIdInAndStatusAndIdGreaterThanOrderByIdAsc(parkingLotIds,
+                        status, Pages.after(afterId), Pages.limit(pageSize));
+        return Pages.of(rows, pageSize, this::mapToSpotDTO, ParkingSpot::getId);
     }
 
+    // Ids from SpotStateStore, then a primary key lookup instead of a scan on status
     @Transactional(readOnly = true)
+    public List<ParkingSpotDTO> findByParkingLotIdAndStatus(Long parkingLotId, SpotStatus status) {
+        if (!spotStates.isEnabled()) {
+            return parkingSpotRepository.findByParkingLotIdAndStatus(parkingLotId, status).stream()
+                    .map(this::mapToSpotDTO).collect(Collectors.toList());
+        }
+        List<Long> ids = spotStates.firstSpotIds(parkingLotId, status, Integer.MAX_VALUE);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return parkingSpotRepository.findAllById(ids).stream()
+                .filter(spot -> spot.getStatus() == status) // changed since the store was read
+                .sorted(Comparator.comparing(ParkingSpot::getId))
+                .map(this::mapToSpotDTO).collect(Collectors.toList());
+    }
+
+    // Counters below come from SpotStateStore (no transaction, no connection) unless it is disabled
+
     public Long countAvailableSpots(Long parkingLotId) {
+        if (spotStates.isEnabled()) {
+            return (long) spotStates.count(parkingLotId, SpotStatus.AVAILABLE);
+        }
         return parkingSpotRepository.countAvailableSpots(parkingLotId);
     }
 
-    @Transactional(readOnly = true)
     public Long countOccupiedSpots(Long parkingLotId) {
+        if (spotStates.isEnabled()) {
+            return (long) spotStates.count(parkingLotId, SpotStatus.OCCUPIED);
+        }
         return parkingSpotRepository.countOccupiedSpots(parkingLotId);
     }
     
@@ -72,16 +120,16 @@ public class ParkingSpotService {
 
         try {
             SpotStatus newStatus = SpotStatus.valueOf(statusStr);
+            SpotStatus oldStatus = spot.getStatus();
             spot.setStatus(newStatus);
             parkingSpotRepository.save(spot);
 
-            // Update parent count
+            // Parent count: delta applied after commit, written to the lot row by LotCounters
             ParkingLot lot = spot.getParkingLot();
             if (lot != null) {
-                // Assuming you have a count query in repo
-                Long count = parkingSpotRepository.countAvailableSpots(lot.getId());
-                lot.setAvailableSpots(count != null ? count.intValue() : 0);
-                parkingLotRepository.save(lot);
+                lotCounters.transition(lot.getId(), oldStatus, newStatus);
+                spotChangeLog.spotChanged(spot);
+                spotHistory.record(lot.getId(), spotId, SpotTransition.Kind.STATUS, oldStatus, newStatus);
             }
             return true;
         } catch (Exception e) {
@@ -90,14 +138,35 @@ public class ParkingSpotService {
         }
     }
 
+    /**
+     * Spots changed since sinceVersion (see SpotChangeLog), or the whole lot if
+     * the client is too far behind. Nothing changed = no query at all.
+     */
     @Transactional(readOnly = true)
+    public SpotChangesDTO getSpotChangesSince(Long parkingLotId, long sinceVersion) {
+        SpotChangeLog.Delta delta = spotChangeLog.changesSince(parkingLotId, sinceVersion);
+        List<ParkingSpot> spots;
+        if (delta.full()) {
+            spots = parkingSpotRepository.findByParkingLotId(parkingLotId);
+        } else if (delta.spotIds().isEmpty()) {
+            spots = List.of();
+        } else {
+            spots = parkingSpotRepository.findAllById(delta.spotIds());
+        }
+        return new SpotChangesDTO(parkingLotId, delta.version(), delta.full(),
+                spots.stream().map(this::mapToSpotDTO).collect(Collectors.toList()));
+    }
+
     public int getAvailableSpotsCount(Long parkingLotId) {
-        Long count = parkingSpotRepository.countAvailableSpots(parkingLotId);
+        Long count = countAvailableSpots(parkingLotId);
         return count != null ? count.intValue() : 0;
     }
 
-    @Transactional(readOnly = true)
+    // From the store: share of the lot's spot rows that are not AVAILABLE
     public double getOccupancyRate(Long parkingLotId) {
+        if (spotStates.isEnabled()) {
+            return spotStates.occupancyRate(parkingLotId);
+        }
         ParkingLot lot = parkingLotRepository.findById(parkingLotId).orElse(null);
         if (lot == null || lot.getTotalSpots() == 0)
             return 0.0;
@@ -130,18 +199,13 @@ public class ParkingSpotService {
             return false;
         }
 
-
-        if (spot.getStatus() == SpotStatus.AVAILABLE) {
-            ParkingLot lot = spot.getParkingLot();
-            if (lot.getAvailableSpots() > 0) {
-                lot.setAvailableSpots(lot.getAvailableSpots() - 1);
-                parkingLotRepository.save(lot);
-            }
-        }
-
+        SpotStatus from = spot.getStatus();
+        lotCounters.transition(spot.getParkingLot().getId(), from, SpotStatus.OCCUPIED);
         spot.setStatus(SpotStatus.OCCUPIED);
         spot.setLastOccupiedAt(LocalDateTime.now()); 
         parkingSpotRepository.save(spot);
+        spotChangeLog.spotChanged(spot);
+        spotHistory.record(spot.getParkingLot().getId(), spotId, SpotTransition.Kind.ENTRY, from, SpotStatus.OCCUPIED);
         return true;
     }
 
@@ -156,14 +220,12 @@ public class ParkingSpotService {
         }
 
         // Free up the spot
+        SpotStatus from = spot.getStatus();
+        lotCounters.transition(spot.getParkingLot().getId(), from, SpotStatus.AVAILABLE);
         spot.setStatus(SpotStatus.AVAILABLE);
         parkingSpotRepository.save(spot);
-
-        ParkingLot lot = spot.getParkingLot();
-        if (lot.getAvailableSpots() < lot.getTotalSpots()) {
-            lot.setAvailableSpots(lot.getAvailableSpots() + 1);
-            parkingLotRepository.save(lot);
-        }
+        spotChangeLog.spotChanged(spot);
+        spotHistory.record(spot.getParkingLot().getId(), spotId, SpotTransition.Kind.EXIT, from, SpotStatus.AVAILABLE);
         return true;
     }
 }
\ No newline at end of file
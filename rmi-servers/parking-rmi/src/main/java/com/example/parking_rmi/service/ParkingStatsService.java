@@ -0,0 +1,80 @@
+package com.example.parking_rmi.service;
+
+import com.example.parking_rmi.Repository.ParkingLotRepository;
+import com.example.parking_rmi.Repository.ParkingSpotRepository;
+import com.example.parking_rmi.Repository.ReservationRepository;
+import com.example.parking_rmi.dto.ParkingLotStatsDTO;
+import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admin statistics for many lots at once.
+ * Three GROUP BY queries whatever the number of lots, instead of
+ * 3 RMI calls (and a full spot list) per lot.
+ */
+@Service
+@RequiredArgsConstructor
+public class ParkingStatsService {
+
+    private final ParkingLotRepository parkingLotRepository;
+    private final ParkingSpotRepository parkingSpotRepository;
+    private final ReservationRepository reservationRepository;
+
+    /**
+     * @param parkingLotIds lots to include, or null / empty for all lots
+     */
+    @Transactional(readOnly = true)
+    public List<ParkingLotStatsDTO> getParkingLotStats(List<Long> parkingLotIds) {
+        boolean all = parkingLotIds == null || parkingLotIds.isEmpty();
+
+        Map<Long, ParkingLotStatsDTO> stats = new LinkedHashMap<>();
+        List<Object[]> lots = all ? parkingLotRepository.findAllIdsAndNames()
+                : parkingLotRepository.findIdsAndNamesByIdIn(parkingLotIds);
+        for (Object[] row : lots) {
+            ParkingLotStatsDTO d = new ParkingLotStatsDTO();
+            d.setParkingLotId((Long) row[0]);
+            d.setName((String) row[1]);
+            stats.put(d.getParkingLotId(), d);
+        }
+        if (stats.isEmpty())
+            return new ArrayList<>();
+
+        List<Object[]> counts = all ? parkingSpotRepository.countSpotsGroupedByParkingLotAndStatus()
+                : parkingSpotRepository.countSpotsGroupedByParkingLotAndStatus(stats.keySet());
+        for (Object[] row : counts) {
+            ParkingLotStatsDTO d = stats.get((Long) row[0]);
+            if (d == null)
+                continue;
+            long count = ((Number) row[2]).longValue();
+            switch ((SpotStatus) row[1]) {
+                case AVAILABLE -> d.setAvailableSpots(count);
+                case OCCUPIED -> d.setOccupiedSpots(count);
+                case RESERVED -> d.setReservedSpots(count);
+                case MAINTENANCE -> d.setMaintenanceSpots(count);
+            }
+            d.setTotalSpots(d.getTotalSpots() + count);
+        }
+
+        List<Object[]> revenues = all ? reservationRepository.getTotalRevenueGroupedByParkingLot()
+                : reservationRepository.getTotalRevenueGroupedByParkingLot(stats.keySet());
+        for (Object[] row : revenues) {
+            ParkingLotStatsDTO d = stats.get((Long) row[0]);
+            if (d != null && row[1] != null) {
+                d.setTotalRevenue(((Number) row[1]).doubleValue());
+            }
+        }
+
+        for (ParkingLotStatsDTO d : stats.values()) {
+            d.setOccupancyRate(d.getTotalSpots() == 0 ? 0.0
+                    : ((double) (d.getTotalSpots() - d.getAvailableSpots()) / d.getTotalSpots()) * 100.0);
+        }
+        return new ArrayList<>(stats.values());
+    }
+}
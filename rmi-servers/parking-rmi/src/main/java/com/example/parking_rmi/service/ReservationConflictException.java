@@ -0,0 +1,14 @@
+package com.example.parking_rmi.service;
+
+/**
+ * The spot is already booked (PENDING or CONFIRMED) for part of the requested
+ * time window.
+ */
+public class ReservationConflictException extends SpotUnavailableException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ReservationConflictException(String message) {
+        super(message);
+    }
+}
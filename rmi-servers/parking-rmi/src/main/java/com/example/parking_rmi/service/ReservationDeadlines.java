@@ -0,0 +1,369 @@
+package com.example.parking_rmi.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.parking_rmi.Repository.ReservationRepository;
+import com.example.parking_rmi.journal.SpotTransition;
+import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
+import com.example.parking_rmi.model.Reservation.ReservationStatus;
+import com.example.parking_rmi.rmi.ServerBusyException;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Time-driven reservation changes (parking.deadlines.enabled), so a spot
+ * reserved by a driver who never came, or whose reservation has ended, does
+ * not stay RESERVED forever.
+ *
+ * Each reservation gets its deadlines in a TimingWheel when it is created
+ * (after commit), and all of them again from MySQL at startup (reseed()):
+ * - HOLD, hold-ahead-minutes before the start of an advance booking: the
+ *   spot goes AVAILABLE -> RESERVED if it is free, and the booking records
+ *   it (spot_held_at) so cancelReservation frees the spot like an immediate one
+ * - NO_SHOW, no-show-grace-minutes after the start: a reservation not
+ *   checked in whose spot is still RESERVED (no car entered) is CANCELLED
+ *   and the spot freed
+ * - END, at the end: a reservation still PENDING/CONFIRMED is COMPLETED
+ *   and its spot freed if no car is on it (CANCELLED as a no-show if the
+ *   spot is still RESERVED and nobody checked in)
+ *
+ * Every tick-ms the due deadlines are handled in batches of batch-size: one
+ * query reads the current reservation and spot rows, and the changes are
+ * written in one transaction as JDBC batches, each row update conditional on
+ * the status it was decided from. Cancelled or completed reservations keep
+ * their deadlines in the wheel; they find nothing left to do when they fire.
+ */
+@Slf4j
+@Service
+public class ReservationDeadlines {
+
+    private static final String UPDATE_RESERVATION = "UPDATE reservations SET status = ?,"
+            + " cancellation_reason = COALESCE(?, cancellation_reason), cancelled_at = COALESCE(?, cancelled_at),"
+            + " updated_at = ? WHERE id = ? AND status IN ('PENDING', 'CONFIRMED')";
+    // A HOLD is recorded on the booking first, only while it is still active
+    private static final String MARK_HELD = "UPDATE reservations SET spot_held_at = ?, updated_at = ?"
+            + " WHERE id = ? AND status IN ('PENDING', 'CONFIRMED') AND spot_held_at IS NULL";
+    private static final String UPDATE_SPOT = "UPDATE parking_spots SET status = ?, updated_at = ?"
+            + " WHERE id = ? AND status = ?";
+
+    enum Kind {
+        HOLD, NO_SHOW, END
+    }
+
+    record Deadline(long reservationId, Kind kind) {
+    }
+
+    // One decided change: reservation status (null = unchanged) and spot move (null = none)
+    record Change(Deadline deadline, Long parkingLotId, Long spotId, ReservationStatus status,
+            SpotStatus spotFrom, SpotStatus spotTo) {
+    }
+
+    private final ReservationRepository reservationRepository;
+    private final ReservationIndex reservationIndex;
+    private final LotCounters lotCounters;
+    private final SpotChangeLog spotChangeLog;
+    private final SpotHistory spotHistory;
+    private final LotShardService lotShard;
+    private final GateWriteBehind writeBehind;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long tickMillis;
+    private final long holdAheadMinutes;
+    private final long noShowGraceMinutes;
+    private final int batchSize;
+
+    // Guarded by itself
+    private final TimingWheel<Deadline> wheel;
+    // Due but not handled yet (past deadlines, failed batches); guarded by wheel
+    private final List<Deadline> due = new ArrayList<>();
+    private ScheduledExecutorService ticker;
+
+    public ReservationDeadlines(ReservationRepository reservationRepository, ReservationIndex reservationIndex,
+            LotCounters lotCounters, SpotChangeLog spotChangeLog, SpotHistory spotHistory,
+            LotShardService lotShard, GateWriteBehind writeBehind, JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${parking.deadlines.enabled:true}") boolean enabled,
+            @Value("${parking.deadlines.tick-ms:1000}") long tickMillis,
+            @Value("${parking.deadlines.wheel-slots:512}") int wheelSlots,
+            @Value("${parking.reservations.hold-ahead-minutes:15}") long holdAheadMinutes,
+            @Value("${parking.deadlines.no-show-grace-minutes:15}") long noShowGraceMinutes,
+            @Value("${parking.deadlines.batch-size:500}") int batchSize) {
+        this.reservationRepository = reservationRepository;
+        this.reservationIndex = reservationIndex;
+        this.lotCounters = lotCounters;
+        this.spotChangeLog = spotChangeLog;
+        this.spotHistory = spotHistory;
+        this.lotShard = lotShard;
+        this.writeBehind = writeBehind;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.tickMillis = Math.max(1, tickMillis);
+        this.holdAheadMinutes = holdAheadMinutes;
+        this.noShowGraceMinutes = noShowGraceMinutes;
+        this.batchSize = Math.max(1, batchSize);
+        this.wheel = new TimingWheel<>(this.tickMillis, wheelSlots, System.currentTimeMillis());
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "reservation-deadlines");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(this::tickQuietly, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /** Schedules the deadlines of a new reservation once the current transaction commits. */
+    public void schedule(Long reservationId, LocalDateTime start, LocalDateTime end, boolean advance) {
+        if (!enabled || reservationId == null) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            synchronized (wheel) {
+                add(reservationId, start, end, advance);
+            }
+        });
+    }
+
+    /** Schedules every PENDING/CONFIRMED reservation of the lots served here; past deadlines fire on the next tick. */
+    public int reseed() {
+        if (!enabled) {
+            return 0;
+        }
+        long started = System.nanoTime();
+        int count = 0;
+        int overdue;
+        List<Object[]> rows = reservationRepository.findActiveDeadlines();
+        synchronized (wheel) {
+            for (Object[] row : rows) {
+                if (lotShard.isEnabled() && !lotShard.owns((Long) row[1])) {
+                    continue;
+                }
+                LocalDateTime start = (LocalDateTime) row[2];
+                add((Long) row[0], start, (LocalDateTime) row[3], reservationIndex.isAdvance(start,
+                        (LocalDateTime) row[4]));
+                count++;
+            }
+            overdue = due.size();
+        }
+        log.info("Reservation deadlines: {} reservation(s) scheduled, {} deadline(s) already due, in {} ms", count,
+                overdue, (System.nanoTime() - started) / 1_000_000);
+        return count;
+    }
+
+    int pending() {
+        synchronized (wheel) {
+            return wheel.size() + due.size();
+        }
+    }
+
+    // Guarded by wheel
+    private void add(Long reservationId, LocalDateTime start, LocalDateTime end, boolean advance) {
+        if (start == null || end == null) {
+            return;
+        }
+        if (advance) {
+            add(millis(start.minusMinutes(holdAheadMinutes)), new Deadline(reservationId, Kind.HOLD));
+        }
+        LocalDateTime noShow = start.plusMinutes(noShowGraceMinutes);
+        if (noShow.isBefore(end)) {
+            add(millis(noShow), new Deadline(reservationId, Kind.NO_SHOW));
+        }
+        add(millis(end), new Deadline(reservationId, Kind.END));
+    }
+
+    private void add(long deadlineMillis, Deadline deadline) {
+        if (!wheel.add(deadlineMillis, deadline)) {
+            due.add(deadline);
+        }
+    }
+
+    private void tickQuietly() {
+        try {
+            tick(System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            log.warn("Reservation deadlines failed, retrying in {} ms: {}", tickMillis, e.toString());
+        }
+    }
+
+    /** Handles every deadline due by nowMillis; returns the number of reservations changed. */
+    int tick(long nowMillis) {
+        List<Deadline> batch;
+        synchronized (wheel) {
+            wheel.advance(nowMillis, due::add);
+            if (due.isEmpty()) {
+                return 0;
+            }
+            batch = new ArrayList<>(due);
+            due.clear();
+        }
+        int changed = 0;
+        for (int from = 0; from < batch.size(); from += batchSize) {
+            List<Deadline> chunk = batch.subList(from, Math.min(batch.size(), from + batchSize));
+            try {
+                // Spot rows with every acknowledged entry and exit, and none in flight
+                changed += writeBehind.exclusive(null, () -> handle(chunk));
+            } catch (RuntimeException | ServerBusyException e) {
+                synchronized (wheel) {
+                    due.addAll(batch.subList(from, batch.size()));
+                }
+                throw e instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getMessage(), e);
+            }
+        }
+        return changed;
+    }
+
+    private int handle(List<Deadline> deadlines) {
+        Map<Long, Deadline> byReservation = new LinkedHashMap<>();
+        for (Deadline deadline : deadlines) {
+            // Several deadlines of one reservation due together (catching up): the last one decides
+            byReservation.merge(deadline.reservationId(), deadline,
+                    (a, b) -> a.kind().compareTo(b.kind()) >= 0 ? a : b);
+        }
+        List<Change> changes = new ArrayList<>();
+        for (Object[] row : reservationRepository.findDeadlineStates(byReservation.keySet())) {
+            Change change = decide(byReservation.get((Long) row[0]), (ReservationStatus) row[1], row[2] != null,
+                    (Long) row[3], (Long) row[4], (SpotStatus) row[5]);
+            if (change != null) {
+                changes.add(change);
+            }
+        }
+        if (changes.isEmpty()) {
+            return 0;
+        }
+        int[] applied = transactionTemplate.execute(status -> write(changes));
+        log.info("Reservation deadlines: {} no-show(s) cancelled, {} reservation(s) completed, {} spot(s) held,"
+                + " {} spot(s) freed", applied[0], applied[1], applied[2], applied[3]);
+        return applied[0] + applied[1];
+    }
+
+    static Change decide(Deadline deadline, ReservationStatus status, boolean checkedIn, Long parkingLotId,
+            Long spotId, SpotStatus spotStatus) {
+        if (deadline == null || (status != ReservationStatus.PENDING && status != ReservationStatus.CONFIRMED)) {
+            return null; // cancelled or completed meanwhile
+        }
+        switch (deadline.kind()) {
+            case HOLD:
+                return spotStatus == SpotStatus.AVAILABLE
+                        ? new Change(deadline, parkingLotId, spotId, null, SpotStatus.AVAILABLE, SpotStatus.RESERVED)
+                        : null;
+            case NO_SHOW:
+                // A car on the spot (OCCUPIED) counts as the driver having come
+                return !checkedIn && spotStatus == SpotStatus.RESERVED
+                        ? new Change(deadline, parkingLotId, spotId, ReservationStatus.CANCELLED,
+                                SpotStatus.RESERVED, SpotStatus.AVAILABLE)
+                        : null;
+            default:
+                if (!checkedIn && spotStatus == SpotStatus.RESERVED) {
+                    // Never came: a no-show whose grace did not fit in the reservation, or was missed
+                    return new Change(deadline, parkingLotId, spotId, ReservationStatus.CANCELLED,
+                            SpotStatus.RESERVED, SpotStatus.AVAILABLE);
+                }
+                return spotStatus == SpotStatus.RESERVED
+                        ? new Change(deadline, parkingLotId, spotId, ReservationStatus.COMPLETED,
+                                SpotStatus.RESERVED, SpotStatus.AVAILABLE)
+                        : new Change(deadline, parkingLotId, spotId, ReservationStatus.COMPLETED, null, null);
+        }
+    }
+
+    // In the transaction; returns {cancelled, completed, held, freed}
+    private int[] write(List<Change> changes) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Change> reservations = changes.stream().filter(c -> c.status() != null).toList();
+        int[][] reservationRows = jdbcTemplate.batchUpdate(UPDATE_RESERVATION, reservations, batchSize,
+                (ps, c) -> {
+                    boolean noShow = c.status() == ReservationStatus.CANCELLED;
+                    ps.setString(1, c.status().name());
+                    ps.setString(2, noShow ? "No-show" : null);
+                    ps.setTimestamp(3, noShow ? now : null);
+                    ps.setTimestamp(4, now);
+                    ps.setLong(5, c.deadline().reservationId());
+                });
+        int[] result = new int[4];
+        List<Change> spots = new ArrayList<>();
+        int i = 0;
+        for (Change c : reservations) {
+            if (rows(reservationRows, i++) == 0) {
+                continue; // changed by someone else since it was read
+            }
+            result[c.status() == ReservationStatus.CANCELLED ? 0 : 1]++;
+            reservationIndex.release(c.deadline().reservationId());
+            if (c.spotTo() != null) {
+                spots.add(c);
+            }
+        }
+        // Holds: a booking cancelled since it was read (the row is locked by cancelReservation) keeps
+        // its spot free; a held one is freed on cancel, no-show or end
+        List<Change> holds = changes.stream().filter(c -> c.status() == null).toList();
+        if (!holds.isEmpty()) {
+            int[][] holdRows = jdbcTemplate.batchUpdate(MARK_HELD, holds, batchSize, (ps, c) -> {
+                ps.setTimestamp(1, now);
+                ps.setTimestamp(2, now);
+                ps.setLong(3, c.deadline().reservationId());
+            });
+            i = 0;
+            for (Change c : holds) {
+                if (rows(holdRows, i++) != 0) {
+                    spots.add(c);
+                }
+            }
+        }
+
+        int[][] spotRows = jdbcTemplate.batchUpdate(UPDATE_SPOT, spots, batchSize, (ps, c) -> {
+            ps.setString(1, c.spotTo().name());
+            ps.setTimestamp(2, now);
+            ps.setLong(3, c.spotId());
+            ps.setString(4, c.spotFrom().name());
+        });
+        i = 0;
+        for (Change c : spots) {
+            if (rows(spotRows, i++) == 0) {
+                continue;
+            }
+            result[c.spotTo() == SpotStatus.RESERVED ? 2 : 3]++;
+            lotCounters.transition(c.parkingLotId(), c.spotFrom(), c.spotTo());
+            spotChangeLog.spotChanged(c.parkingLotId(), c.spotId(), c.spotTo());
+            spotHistory.record(c.parkingLotId(), c.spotId(), c.deadline().kind() == Kind.HOLD
+                    ? SpotTransition.Kind.RESERVE : SpotTransition.Kind.EXPIRE, c.spotFrom(), c.spotTo());
+        }
+        return result;
+    }
+
+    // Row count of the index-th statement of a chunked batch (SUCCESS_NO_INFO counts as done)
+    private int rows(int[][] counts, int index) {
+        return counts[index / batchSize][index % batchSize];
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.parking_rmi.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.parking_rmi.Repository.ReservationRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Time windows booked on each spot by PENDING/CONFIRMED reservations, so a
+ * new reservation is checked against the others of its spot without a query.
+ *
+ * Per spot the windows [start, end) sit in a TreeMap by start and never
+ * overlap each other, so the only window that can overlap a new one is the
+ * last one starting before its end: one floorEntry, O(log n). Windows are
+ * added under the spot's lock while the reservation is created (two
+ * concurrent requests for the same window cannot both pass), dropped again
+ * if that transaction rolls back, and dropped after commit when the
+ * reservation is cancelled. Windows that have ended are pruned as the spot
+ * is checked.
+ *
+ * Loaded at startup (load()); until then hold() asks MySQL
+ * (findOverlappingReservations) as before.
+ *
+ * A reservation starting more than hold-ahead-minutes after it is made is an
+ * advance booking: it takes its window only and leaves the spot's status
+ * alone, so a spot can carry several bookings for different windows.
+ */
+@Slf4j
+@Service
+public class ReservationIndex {
+
+    private final ReservationRepository reservationRepository;
+    private final long holdAheadMinutes;
+    private final Map<Long, SpotWindows> spots = new ConcurrentHashMap<>();
+    private final Map<Long, Window> byReservation = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public ReservationIndex(ReservationRepository reservationRepository,
+            @Value("${parking.reservations.hold-ahead-minutes:15}") long holdAheadMinutes) {
+        this.reservationRepository = reservationRepository;
+        this.holdAheadMinutes = holdAheadMinutes;
+    }
+
+    /** A booked window; reservationId is set once the reservation row has its id. */
+    public static final class Window {
+        private final Long spotId;
+        private final long start;
+        private final long end;
+        private volatile Long reservationId;
+
+        Window(Long spotId, long start, long end, Long reservationId) {
+            this.spotId = spotId;
+            this.start = start;
+            this.end = end;
+            this.reservationId = reservationId;
+        }
+
+        public Long getReservationId() {
+            return reservationId;
+        }
+    }
+
+    /** Reads the windows of every PENDING/CONFIRMED reservation not ended yet. */
+    public int load() {
+        long started = System.nanoTime();
+        List<Object[]> rows = reservationRepository.findActiveWindows(LocalDateTime.now());
+        spots.clear();
+        byReservation.clear();
+        int overlapping = 0;
+        for (Object[] row : rows) {
+            Long reservationId = (Long) row[0];
+            Window window = new Window((Long) row[1], millis((LocalDateTime) row[2]), millis((LocalDateTime) row[3]),
+                    reservationId);
+            if (window.end <= window.start || !spots.computeIfAbsent(window.spotId, id -> new SpotWindows())
+                    .add(window, Long.MIN_VALUE)) {
+                overlapping++; // booked before this check existed
+                continue;
+            }
+            byReservation.put(reservationId, window);
+        }
+        loaded = true;
+        if (overlapping > 0) {
+            log.warn("Reservation index: {} reservation(s) overlap an earlier one on their spot and were skipped",
+                    overlapping);
+        }
+        log.info("Reservation index: {} window(s) on {} spot(s) in {} ms", byReservation.size(), spots.size(),
+                (System.nanoTime() - started) / 1_000_000);
+        return byReservation.size();
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /** true when a reservation starting at start, made at madeAt, books its window only. */
+    public boolean isAdvance(LocalDateTime start, LocalDateTime madeAt) {
+        return start != null && madeAt != null && start.isAfter(madeAt.plusMinutes(holdAheadMinutes));
+    }
+
+    /**
+     * Books [start, end) on spotId for the current transaction, or throws
+     * ReservationConflictException when another reservation of the spot
+     * overlaps it. Give the window its reservation id with bind(); a rollback
+     * frees it.
+     */
+    public Window hold(Long spotId, LocalDateTime start, LocalDateTime end) {
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("Reservation must end after it starts");
+        }
+        if (!loaded) {
+            if (!reservationRepository.findOverlappingReservations(spotId, start, end).isEmpty()) {
+                throw conflict(spotId);
+            }
+            return null;
+        }
+        Window window = new Window(spotId, millis(start), millis(end), null);
+        if (!spots.computeIfAbsent(spotId, id -> new SpotWindows()).add(window, System.currentTimeMillis())) {
+            throw conflict(spotId);
+        }
+        AfterCommit.onRollback(() -> remove(window));
+        return window;
+    }
+
+    public void bind(Window window, Long reservationId) {
+        if (window != null && reservationId != null) {
+            window.reservationId = reservationId;
+            byReservation.put(reservationId, window);
+        }
+    }
+
+    /** Frees the window of a reservation once the current transaction commits. */
+    public void release(Long reservationId) {
+        AfterCommit.run(() -> {
+            Window window = byReservation.get(reservationId);
+            if (window != null) {
+                remove(window);
+            }
+        });
+    }
+
+    /** true if no reservation of spotId overlaps [start, end). */
+    public boolean isFree(Long spotId, LocalDateTime start, LocalDateTime end) {
+        SpotWindows windows = spots.get(spotId);
+        return windows == null || windows.free(millis(start), millis(end));
+    }
+
+    public int size() {
+        return byReservation.size();
+    }
+
+    private void remove(Window window) {
+        SpotWindows windows = spots.get(window.spotId);
+        if (windows != null) {
+            windows.remove(window);
+        }
+        if (window.reservationId != null) {
+            byReservation.remove(window.reservationId, window);
+        }
+    }
+
+    private static ReservationConflictException conflict(Long spotId) {
+        return new ReservationConflictException("Spot " + spotId + " is already reserved for part of this time");
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private final class SpotWindows {
+        // Guarded by this: by start, never overlapping
+        private final TreeMap<Long, Window> windows = new TreeMap<>();
+
+        synchronized boolean add(Window window, long now) {
+            prune(now);
+            if (!free(window.start, window.end)) {
+                return false;
+            }
+            windows.put(window.start, window);
+            return true;
+        }
+
+        synchronized boolean free(long start, long end) {
+            Map.Entry<Long, Window> before = windows.lowerEntry(end);
+            return before == null || before.getValue().end <= start;
+        }
+
+        synchronized void remove(Window window) {
+            windows.remove(window.start, window);
+        }
+
+        // Ends are ordered like starts: ended windows are at the head
+        private void prune(long now) {
+            Map.Entry<Long, Window> first;
+            while ((first = windows.firstEntry()) != null && first.getValue().end <= now) {
+                windows.pollFirstEntry();
+                if (first.getValue().reservationId != null) {
+                    byReservation.remove(first.getValue().reservationId, first.getValue());
+                }
+            }
+        }
+    }
+}
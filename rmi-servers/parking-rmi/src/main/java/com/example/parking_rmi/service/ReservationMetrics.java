@@ -0,0 +1,107 @@
+package com.example.parking_rmi.service;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Counters of reservation attempts and of the ones lost to a concurrent
+ * change: spot conflicts (the spot was no longer AVAILABLE when read, or the
+ * conditional UPDATE found it taken) and window conflicts (ReservationIndex).
+ * Retries are the next-best attempts of SpotAllocator. Published on JMX.
+ */
+@Slf4j
+@Service
+public class ReservationMetrics implements ReservationMetricsMXBean {
+
+    private static final String NAME = "com.example.parking_rmi:type=Reservations";
+
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder committed = new LongAdder();
+    private final LongAdder spotConflicts = new LongAdder();
+    private final LongAdder windowConflicts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    @PostConstruct
+    public void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (Exception e) {
+            log.warn("Could not register JMX bean {}: {}", NAME, e.toString());
+        }
+    }
+
+    @PreDestroy
+    public void unregister() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(NAME));
+        } catch (Exception e) {
+            // already gone
+        }
+    }
+
+    void attempt() {
+        attempts.increment();
+    }
+
+    void committed() {
+        committed.increment();
+    }
+
+    void spotConflict() {
+        spotConflicts.increment();
+    }
+
+    void windowConflict() {
+        windowConflicts.increment();
+    }
+
+    void retry() {
+        retries.increment();
+    }
+
+    @Override
+    public long getAttempts() {
+        return attempts.sum();
+    }
+
+    @Override
+    public long getCommitted() {
+        return committed.sum();
+    }
+
+    @Override
+    public long getSpotConflicts() {
+        return spotConflicts.sum();
+    }
+
+    @Override
+    public long getWindowConflicts() {
+        return windowConflicts.sum();
+    }
+
+    @Override
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /** Share of attempts lost to a conflict, 0 before any attempt. */
+    @Override
+    public double getConflictRate() {
+        long total = attempts.sum();
+        return total == 0 ? 0 : (double) (spotConflicts.sum() + windowConflicts.sum()) / total;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.parking_rmi.service;
+
+/**
+ * JMX view of reservation outcomes (com.example.parking_rmi:type=Reservations).
+ */
+public interface ReservationMetricsMXBean {
+
+    long getAttempts();
+
+    long getCommitted();
+
+    long getSpotConflicts();
+
+    long getWindowConflicts();
+
+    long getRetries();
+
+    double getConflictRate();
+}
@@ -2,7 +2,9 @@ package com.example.parking_rmi.service;
 
 import com.example.parking_rmi.Repository.ParkingSpotRepository;
 import com.example.parking_rmi.Repository.ReservationRepository;
+import com.example.parking_rmi.dto.PageDTO;
 import com.example.parking_rmi.dto.ReservationDTO;
+import com.example.parking_rmi.journal.SpotTransition;
 import com.example.parking_rmi.model.ParkingSpot;
 import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
 import com.example.parking_rmi.model.Reservation;
@@ -12,6 +14,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -21,6 +24,12 @@ public class ReservationService {
 
     private final ParkingSpotRepository parkingSpotRepository;
     private final ReservationRepository reservationRepository;
+    private final SpotChangeLog spotChangeLog;
+    private final LotCounters lotCounters;
+    private final SpotHistory spotHistory;
+    private final ReservationIndex reservationIndex;
+    private final ReservationDeadlines reservationDeadlines;
+    private final ReservationMetrics reservationMetrics;
 
 
     @Transactional(readOnly = true)
@@ -34,9 +43,10 @@ public class ReservationService {
     @Transactional
     public ReservationDTO createReservation(ReservationDTO dto) {
         // 1. Fetch Spot
+        reservationMetrics.attempt();
         ParkingSpot spot = parkingSpotRepository.findById(dto.getParkingSpotId()).orElse(null);
-        if (spot == null || spot.getStatus() != SpotStatus.AVAILABLE) {
-            throw new IllegalArgumentException("Spot is null or not available");
+        if (spot == null) {
+            throw new SpotUnavailableException("Spot is null or not available");
         }
 
         // 2. Create Entity & Map Basic Fields
@@ -67,6 +77,31 @@ public class ReservationService {
             throw new IllegalArgumentException("You must provide either (Start + End) or (Start + Duration)");
         }
 
+        // Advance bookings only take their time window; the others need the spot free now
+        boolean advance = reservationIndex.isAdvance(entity.getStartTime(), entity.getCreatedAt());
+        if (!advance && spot.getStatus() != SpotStatus.AVAILABLE) {
+            reservationMetrics.spotConflict();
+            throw new SpotUnavailableException("Spot is null or not available");
+        }
+        if (advance && spot.getStatus() == SpotStatus.MAINTENANCE) {
+            throw new SpotUnavailableException("Spot is under maintenance");
+        }
+        ReservationIndex.Window window;
+        try {
+            window = reservationIndex.hold(spot.getId(), entity.getStartTime(), entity.getEndTime());
+        } catch (ReservationConflictException e) {
+            reservationMetrics.windowConflict();
+            throw e;
+        }
+
+        // Take the spot with a conditional UPDATE before inserting: of concurrent requests
+        // that all read it AVAILABLE, exactly one wins, and no row lock is held meanwhile
+        if (!advance && parkingSpotRepository.compareAndSetStatus(spot.getId(), SpotStatus.AVAILABLE,
+                SpotStatus.RESERVED, LocalDateTime.now()) == 0) {
+            reservationMetrics.spotConflict();
+            throw new SpotUnavailableException("Spot is null or not available");
+        }
+
         // 4. Calculate Price
         // Now it is safe to calculate because we guaranteed Duration and Dates are set
         BigDecimal hourlyRate = spot.getParkingLot().getHourlyRate();
@@ -78,9 +113,17 @@ public class ReservationService {
 
         // 6. Save & Update Spot
         Reservation saved = reservationRepository.save(entity);
+        reservationIndex.bind(window, saved.getId());
+        reservationDeadlines.schedule(saved.getId(), entity.getStartTime(), entity.getEndTime(), advance);
+        AfterCommit.run(reservationMetrics::committed);
+        if (advance) {
+            return mapToResDTO(saved);
+        }
 
-        spot.setStatus(SpotStatus.RESERVED);
-        parkingSpotRepository.save(spot);
+        lotCounters.transition(spot.getParkingLot().getId(), SpotStatus.AVAILABLE, SpotStatus.RESERVED);
+        spotChangeLog.spotChanged(spot, SpotStatus.RESERVED);
+        spotHistory.record(spot.getParkingLot().getId(), spot.getId(), SpotTransition.Kind.RESERVE,
+                SpotStatus.AVAILABLE, SpotStatus.RESERVED);
 
         return mapToResDTO(saved);
     }
@@ -140,20 +183,63 @@ public class ReservationService {
                 .map(this::mapToResDTO).collect(Collectors.toList());
     }
 
+    // Newest first; parkingLotIds = null: every lot
+    @Transactional(readOnly = true)
+    public PageDTO<ReservationDTO> getReservationsByUserEmailPage(String email, Collection<Long> parkingLotIds,
+            Long beforeId, int size) {
+        if (Pages.noLots(parkingLotIds)) {
+            return Pages.empty();
+        }
+        int pageSize = Pages.size(size);
+        List<Reservation> rows = parkingLotIds == null
+                ? reservationRepository.findActivePageByUserEmail(email, Pages.before(beforeId), Pages.limit(pageSize))
+                : reservationRepository.findActivePageByUserEmail(email, parkingLotIds, Pages.before(beforeId),
+                        Pages.limit(pageSize));
+        return Pages.of(rows, pageSize, this::mapToResDTO, Reservation::getId);
+    }
+
+    // Newest first
+    @Transactional(readOnly = true)
+    public PageDTO<ReservationDTO> getReservationsByParkingLotPage(long lotId, Long beforeId, int size) {
+        int pageSize = Pages.size(size);
+        List<Reservation> rows = reservationRepository.findPageByParkingLotId(lotId, Pages.before(beforeId),
+                Pages.limit(pageSize));
+        return Pages.of(rows, pageSize, this::mapToResDTO, Reservation::getId);
+    }
+
+    /** Lot of a reservation, null if there is none. */
+    public Long getParkingLotId(Long reservationId) {
+        return reservationRepository.findParkingLotIdByReservationId(reservationId);
+    }
+
     // 🚨 TRANSACTIONAL: Updates Reservation AND frees the Spot
     @Transactional
     public boolean cancelReservation(Long id) {
-        Reservation res = reservationRepository.findById(id).orElse(null);
+        // Locked: the HOLD deadline cannot take the spot between this read and the commit
+        Reservation res = reservationRepository.findByIdForUpdate(id).orElse(null);
         if (res == null)
             return false;
 
+        boolean wasActive = res.isActive(); // an EXPIRED or NO_SHOW booking no longer holds anything
         res.cancel("Cancelled by user"); // Updates Reservation status
+        reservationIndex.release(res.getId());
 
-        // Free the spot
+        // The booking holds its spot if it was immediate or its HOLD deadline ran. Only RESERVED is
+        // freed: a car that entered meanwhile keeps it OCCUPIED
         ParkingSpot spot = res.getParkingSpot();
-        if (spot != null) {
-            spot.setStatus(SpotStatus.AVAILABLE);
-            parkingSpotRepository.save(spot);
+        boolean held = !reservationIndex.isAdvance(res.getStartTime(), res.getCreatedAt())
+                || res.getSpotHeldAt() != null;
+        if (spot != null && wasActive && held
+                && parkingSpotRepository.compareAndSetStatus(spot.getId(), SpotStatus.RESERVED,
+                        SpotStatus.AVAILABLE, LocalDateTime.now()) > 0) {
+            if (spot.getParkingLot() != null) {
+                lotCounters.transition(spot.getParkingLot().getId(), SpotStatus.RESERVED, SpotStatus.AVAILABLE);
+            }
+            spotChangeLog.spotChanged(spot, SpotStatus.AVAILABLE);
+            if (spot.getParkingLot() != null) {
+                spotHistory.record(spot.getParkingLot().getId(), spot.getId(), SpotTransition.Kind.CANCEL,
+                        SpotStatus.RESERVED, SpotStatus.AVAILABLE);
+            }
         }
         reservationRepository.save(res);
         return true;
@@ -0,0 +1,321 @@
+package com.example.parking_rmi.service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.parking_rmi.Repository.ParkingSpotRepository;
+import com.example.parking_rmi.dto.ReservationDTO;
+import com.example.parking_rmi.dto.SpotEventDTO;
+import com.example.parking_rmi.dto.SpotPreferenceDTO;
+import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
+import com.example.parking_rmi.model.ParkingSpot.SpotType;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Picks and claims the best free spot of a lot (reserveBestAvailableSpot), so
+ * clients no longer race each other for a spot id they chose.
+ *
+ * Per lot, spots are grouped by profile (type, floor, section, accessible,
+ * covered, EV charging) and each profile keeps its free spots in a BitSet
+ * over ordinals sorted by id. A claim scores the non-empty profiles against
+ * the preferences (a lot has a handful of profiles, not thousands of spots)
+ * and takes the lowest free id of the best one under the lot's lock: two
+ * concurrent claims never get the same spot, and nothing scans parking_spots.
+ *
+ * Spot attributes are read once per lot on first use; statuses then follow
+ * the committed changes reported to SpotChangeLog. A claimed spot stays out
+ * of the free sets until the reservation has committed or failed. MySQL keeps
+ * the last word: when the reservation finds the spot taken, the lot is
+ * reloaded and the next best spot is claimed, up to max-attempts times. A
+ * spot booked for an overlapping window (ReservationIndex) stays claimed
+ * until the call ends, so the next attempt picks another one.
+ */
+@Slf4j
+@Service
+public class SpotAllocator {
+
+    private static final SpotStatus[] STATUSES = SpotStatus.values();
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+    private static final long REJECTED = Long.MIN_VALUE;
+
+    private final ParkingSpotRepository parkingSpotRepository;
+    private final SpotChangeLog spotChangeLog;
+    private final ReservationService reservationService;
+    private final ReservationMetrics reservationMetrics;
+    private final int maxAttempts;
+    private final Map<Long, LotPool> lots = new ConcurrentHashMap<>();
+
+    public SpotAllocator(ParkingSpotRepository parkingSpotRepository, SpotChangeLog spotChangeLog,
+            ReservationService reservationService, ReservationMetrics reservationMetrics,
+            @Value("${parking.allocation.max-attempts:3}") int maxAttempts) {
+        this.parkingSpotRepository = parkingSpotRepository;
+        this.spotChangeLog = spotChangeLog;
+        this.reservationService = reservationService;
+        this.reservationMetrics = reservationMetrics;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        spotChangeLog.addObserver(this::apply);
+    }
+
+    /**
+     * Reserves the best free spot of request.parkingLotId for these
+     * preferences; null if no free spot matches.
+     */
+    public ReservationDTO reserve(ReservationDTO request, SpotPreferenceDTO preferences) {
+        Long parkingLotId = request.getParkingLotId();
+        // Spots booked for an overlapping window stay claimed until the end, so they are not picked again
+        List<Runnable> booked = new ArrayList<>();
+        try {
+            for (int attempt = 0; attempt < maxAttempts; attempt++) {
+                if (attempt > 0) {
+                    reservationMetrics.retry();
+                }
+                LotPool pool = lot(parkingLotId);
+                Long spotId = pool.claim(preferences);
+                if (spotId == null) {
+                    return null;
+                }
+                try {
+                    request.setParkingSpotId(spotId);
+                    return reservationService.createReservation(request);
+                } catch (ReservationConflictException e) {
+                    log.debug("Spot {} of lot {} is booked at that time, trying the next best", spotId,
+                            parkingLotId);
+                    long claimed = spotId;
+                    booked.add(() -> pool.release(claimed));
+                    spotId = null;
+                } catch (SpotUnavailableException e) {
+                    // Changed by a path this pool did not hear about yet: read the lot again
+                    log.debug("Spot {} of lot {} was taken, trying the next best", spotId, parkingLotId);
+                    lots.remove(parkingLotId, pool);
+                } finally {
+                    if (spotId != null) {
+                        pool.release(spotId);
+                    }
+                }
+            }
+        } finally {
+            booked.forEach(Runnable::run);
+        }
+        throw new IllegalStateException("No spot of lot " + parkingLotId + " could be reserved after "
+                + maxAttempts + " attempts");
+    }
+
+    /** Takes the best free spot out of the free sets; null if none matches. Give it back with release. */
+    public Long claim(Long parkingLotId, SpotPreferenceDTO preferences) {
+        return lot(parkingLotId).claim(preferences);
+    }
+
+    /** Ends a claim: the spot is free again unless its status changed meanwhile. */
+    public void release(Long parkingLotId, Long spotId) {
+        LotPool pool = lots.get(parkingLotId);
+        if (pool != null) {
+            pool.release(spotId);
+        }
+    }
+
+    // SpotChangeLog observer, after commit
+    void apply(SpotEventDTO event) {
+        LotPool pool = lots.get(event.getParkingLotId());
+        if (pool == null) {
+            return;
+        }
+        if (event.getStatus() == null || !pool.set(event.getSpotId(), SpotStatus.valueOf(event.getStatus()))) {
+            lots.remove(event.getParkingLotId(), pool); // status or spot unknown: reload on next claim
+        }
+    }
+
+    private LotPool lot(Long parkingLotId) {
+        LotPool pool = lots.get(parkingLotId);
+        if (pool != null) {
+            return pool;
+        }
+        for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS; attempt++) {
+            long version = spotChangeLog.currentVersion(parkingLotId);
+            LotPool loaded = new LotPool(parkingSpotRepository.findAllocationRows(parkingLotId));
+            if (version == spotChangeLog.currentVersion(parkingLotId)) {
+                LotPool existing = lots.putIfAbsent(parkingLotId, loaded);
+                if (version == spotChangeLog.currentVersion(parkingLotId)) {
+                    return existing != null ? existing : loaded;
+                }
+                lots.remove(parkingLotId, loaded);
+            }
+        }
+        // Too busy to load quietly: claims on a private copy, MySQL settles any conflict
+        return new LotPool(parkingSpotRepository.findAllocationRows(parkingLotId));
+    }
+
+    /** Spot attributes that matter to a driver; spots sharing them are interchangeable. */
+    record Profile(SpotType type, int floor, String section, boolean accessible, boolean covered,
+            boolean electric) {
+    }
+
+    /**
+     * How well a profile fits, higher is better, REJECTED when strict and a
+     * preference is not met. Spots with features nobody asked for (accessible,
+     * EV, VIP) lose a little so they stay free for the drivers who need them.
+     */
+    static long score(Profile p, SpotPreferenceDTO prefs) {
+        if (prefs == null) {
+            prefs = new SpotPreferenceDTO();
+        }
+        long score = 0;
+        boolean miss = false;
+        if (prefs.getSpotType() != null) {
+            boolean match = p.type().name().equalsIgnoreCase(prefs.getSpotType());
+            score += match ? 1000 : 0;
+            miss |= !match;
+        } else if (p.type() == SpotType.HANDICAPPED || p.type() == SpotType.ELECTRIC || p.type() == SpotType.VIP) {
+            score -= 40;
+        }
+        if (Boolean.TRUE.equals(prefs.getAccessible())) {
+            score += p.accessible() ? 500 : 0;
+            miss |= !p.accessible();
+        } else if (p.accessible()) {
+            score -= 50;
+        }
+        if (Boolean.TRUE.equals(prefs.getElectricCharging())) {
+            score += p.electric() ? 300 : 0;
+            miss |= !p.electric();
+        } else if (p.electric()) {
+            score -= 30;
+        }
+        if (prefs.getCovered() != null) {
+            boolean match = prefs.getCovered() == p.covered();
+            score += match ? 100 : 0;
+            miss |= !match;
+        }
+        if (prefs.getFloorNumber() != null) {
+            int distance = Math.abs(prefs.getFloorNumber() - p.floor());
+            score += 60 - Math.min(60, distance * 15);
+            miss |= distance != 0;
+        }
+        if (prefs.getSection() != null) {
+            boolean match = prefs.getSection().equalsIgnoreCase(p.section());
+            score += match ? 20 : 0;
+            miss |= !match;
+        }
+        return prefs.isStrict() && miss ? REJECTED : score;
+    }
+
+    static final class LotPool {
+        private final long[] spotIds;
+        private final Map<Long, Integer> ordinals;
+        private final Profile[] profiles;
+        private final int[] profileOf;
+        private final byte[] statuses;
+        private final BitSet[] free;
+        private final int[] freeCounts;
+        private final BitSet claimed = new BitSet();
+
+        // Rows: [spotId, status, spotType, floor, section, accessible, covered, electric], by spot id
+        LotPool(List<Object[]> rows) {
+            int n = rows.size();
+            spotIds = new long[n];
+            ordinals = new HashMap<>(n * 2);
+            profileOf = new int[n];
+            statuses = new byte[n];
+            Map<Profile, Integer> indexes = new LinkedHashMap<>();
+            for (int o = 0; o < n; o++) {
+                Object[] row = rows.get(o);
+                spotIds[o] = (Long) row[0];
+                ordinals.put(spotIds[o], o);
+                statuses[o] = (byte) ((SpotStatus) row[1]).ordinal();
+                Profile profile = new Profile(row[2] != null ? (SpotType) row[2] : SpotType.STANDARD,
+                        row[3] != null ? (Integer) row[3] : 0, (String) row[4], Boolean.TRUE.equals(row[5]),
+                        Boolean.TRUE.equals(row[6]), Boolean.TRUE.equals(row[7]));
+                profileOf[o] = indexes.computeIfAbsent(profile, p -> indexes.size());
+            }
+            profiles = indexes.keySet().toArray(new Profile[0]);
+            free = new BitSet[profiles.length];
+            freeCounts = new int[profiles.length];
+            for (int i = 0; i < profiles.length; i++) {
+                free[i] = new BitSet(n);
+            }
+            for (int o = 0; o < n; o++) {
+                if (statuses[o] == SpotStatus.AVAILABLE.ordinal()) {
+                    free[profileOf[o]].set(o);
+                    freeCounts[profileOf[o]]++;
+                }
+            }
+        }
+
+        synchronized Long claim(SpotPreferenceDTO prefs) {
+            int best = -1;
+            long bestScore = REJECTED;
+            for (int i = 0; i < profiles.length; i++) {
+                if (freeCounts[i] == 0) {
+                    continue;
+                }
+                long score = score(profiles[i], prefs);
+                if (score == REJECTED) {
+                    continue;
+                }
+                // Ties: lower floor, then lower spot id
+                if (best < 0 || score > bestScore || (score == bestScore && (profiles[i].floor() < profiles[best].floor()
+                        || (profiles[i].floor() == profiles[best].floor()
+                                && free[i].nextSetBit(0) < free[best].nextSetBit(0))))) {
+                    best = i;
+                    bestScore = score;
+                }
+            }
+            if (best < 0) {
+                return null;
+            }
+            int ordinal = free[best].nextSetBit(0);
+            free[best].clear(ordinal);
+            freeCounts[best]--;
+            claimed.set(ordinal);
+            return spotIds[ordinal];
+        }
+
+        synchronized void release(long spotId) {
+            Integer ordinal = ordinals.get(spotId);
+            if (ordinal != null && claimed.get(ordinal)) {
+                claimed.clear(ordinal);
+                markFree(ordinal, statuses[ordinal] == SpotStatus.AVAILABLE.ordinal());
+            }
+        }
+
+        /** false if the spot is not part of this pool. */
+        synchronized boolean set(long spotId, SpotStatus status) {
+            Integer ordinal = ordinals.get(spotId);
+            if (ordinal == null) {
+                return false;
+            }
+            statuses[ordinal] = (byte) status.ordinal();
+            if (!claimed.get(ordinal)) {
+                markFree(ordinal, status == SpotStatus.AVAILABLE);
+            }
+            return true;
+        }
+
+        synchronized int freeCount() {
+            int total = 0;
+            for (int count : freeCounts) {
+                total += count;
+            }
+            return total;
+        }
+
+        SpotStatus status(int ordinal) {
+            return STATUSES[statuses[ordinal]];
+        }
+
+        private void markFree(int ordinal, boolean isFree) {
+            int profile = profileOf[ordinal];
+            if (free[profile].get(ordinal) != isFree) {
+                free[profile].set(ordinal, isFree);
+                freeCounts[profile] += isFree ? 1 : -1;
+            }
+        }
+    }
+}
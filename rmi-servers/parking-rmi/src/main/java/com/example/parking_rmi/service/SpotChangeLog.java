@@ -0,0 +1,175 @@
+package com.example.parking_rmi.service;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.parking_rmi.dto.SpotEventDTO;
+import com.example.parking_rmi.model.ParkingLot;
+import com.example.parking_rmi.model.ParkingSpot;
+
+/**
+ * Per-lot state version and the ids of the last spots that changed.
+ *
+ * Every spot status change bumps its lot's version once the transaction has
+ * committed, so a client that read version V and asks for "changes since V"
+ * never misses a committed change. Only the last N changes per lot are kept;
+ * a client further behind (or from before a server restart) gets a full list.
+ *
+ * Versions start at the server start time x 1000, so versions handed out by a
+ * previous run are always older than anything kept in memory.
+ *
+ * Observers (the remote event dispatcher) get one SpotEventDTO per committed
+ * change, on the committing thread: they must not block.
+ */
+@Service
+public class SpotChangeLog {
+
+    /** Spot ids changed after the requested version, or full = true if they are not all known. */
+    public record Delta(long version, boolean full, Set<Long> spotIds) {
+    }
+
+    private final int capacity;
+    private final long baseVersion = System.currentTimeMillis() * 1000;
+    private final Map<Long, LotLog> lots = new ConcurrentHashMap<>();
+    private final List<Consumer<SpotEventDTO>> observers = new CopyOnWriteArrayList<>();
+    private volatile Function<Long, Integer> availableSpots;
+
+    public SpotChangeLog(@Value("${parking.changes.capacity:1024}") int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    public void addObserver(Consumer<SpotEventDTO> observer) {
+        observers.add(observer);
+    }
+
+    /** Live available counter per lot for the events (LotCounters); null for unknown lots. */
+    public void setAvailableSpotsSource(Function<Long, Integer> availableSpots) {
+        this.availableSpots = availableSpots;
+    }
+
+    /** Records a status change of spotId, after commit when called inside a transaction. */
+    public void spotChanged(Long parkingLotId, Long spotId) {
+        if (parkingLotId == null || spotId == null) {
+            return;
+        }
+        afterCommit(new SpotEventDTO(parkingLotId, spotId, null, null, null, 0, false));
+    }
+
+    /** Same, with the new status known (a change applied without an entity, see GateWriteBehind). */
+    public void spotChanged(Long parkingLotId, Long spotId, ParkingSpot.SpotStatus status) {
+        if (parkingLotId == null || spotId == null) {
+            return;
+        }
+        afterCommit(new SpotEventDTO(parkingLotId, spotId, null, status != null ? status.name() : null, null, 0,
+                false));
+    }
+
+    /**
+     * Same, for a spot whose new status is already set: observers are told the
+     * status and the lot's available count once this change is applied. Call it
+     * after LotCounters.transition for the same change.
+     */
+    public void spotChanged(ParkingSpot spot) {
+        ParkingLot lot = spot.getParkingLot();
+        if (lot == null || spot.getId() == null) {
+            return;
+        }
+        afterCommit(new SpotEventDTO(lot.getId(), spot.getId(), spot.getSpotNumber(),
+                spot.getStatus() != null ? spot.getStatus().name() : null, lot.getAvailableSpots(), 0, false));
+    }
+
+    /** Same, for a spot changed by a conditional UPDATE: the entity still holds the old status. */
+    public void spotChanged(ParkingSpot spot, ParkingSpot.SpotStatus status) {
+        ParkingLot lot = spot.getParkingLot();
+        if (lot == null || spot.getId() == null) {
+            return;
+        }
+        afterCommit(new SpotEventDTO(lot.getId(), spot.getId(), spot.getSpotNumber(),
+                status != null ? status.name() : null, lot.getAvailableSpots(), 0, false));
+    }
+
+    private void afterCommit(SpotEventDTO event) {
+        AfterCommit.run(() -> record(event));
+    }
+
+    private void record(SpotEventDTO event) {
+        if (availableSpots != null) {
+            // Lot counter after this change (LotCounters applies its delta first, see spotChanged)
+            Integer available = availableSpots.apply(event.getParkingLotId());
+            if (available != null) {
+                event.setAvailableSpots(available);
+            }
+        }
+        event.setVersion(lot(event.getParkingLotId()).add(event.getSpotId()));
+        for (Consumer<SpotEventDTO> observer : observers) {
+            observer.accept(event);
+        }
+    }
+
+    public long currentVersion(Long parkingLotId) {
+        return lot(parkingLotId).currentVersion();
+    }
+
+    public Delta changesSince(Long parkingLotId, long sinceVersion) {
+        return lot(parkingLotId).since(sinceVersion);
+    }
+
+    private LotLog lot(Long parkingLotId) {
+        return lots.computeIfAbsent(parkingLotId, id -> new LotLog(capacity, baseVersion));
+    }
+
+    // Ring buffer of (version, spotId); one lock per lot, held for a few array accesses
+    private static final class LotLog {
+        private final long[] versions;
+        private final long[] spotIds;
+        private int next;
+        private int size;
+        private long version;
+
+        LotLog(int capacity, long baseVersion) {
+            this.versions = new long[capacity];
+            this.spotIds = new long[capacity];
+            this.version = baseVersion;
+        }
+
+        synchronized long add(long spotId) {
+            version++;
+            versions[next] = version;
+            spotIds[next] = spotId;
+            next = (next + 1) % versions.length;
+            if (size < versions.length) {
+                size++;
+            }
+            return version;
+        }
+
+        synchronized long currentVersion() {
+            return version;
+        }
+
+        synchronized Delta since(long sinceVersion) {
+            int capacity = versions.length;
+            long oldest = size == 0 ? version + 1 : versions[(next - size + capacity) % capacity];
+            if (sinceVersion <= 0 || sinceVersion > version || sinceVersion < oldest - 1) {
+                return new Delta(version, true, Set.of());
+            }
+            Set<Long> changed = new LinkedHashSet<>();
+            for (int i = 0; i < size; i++) {
+                int index = (next - size + i + capacity) % capacity;
+                if (versions[index] > sinceVersion) {
+                    changed.add(spotIds[index]);
+                }
+            }
+            return new Delta(version, false, changed);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.parking_rmi.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.parking_rmi.Repository.ParkingSpotRepository;
+import com.example.parking_rmi.dto.PageDTO;
+import com.example.parking_rmi.dto.SpotTransitionDTO;
+import com.example.parking_rmi.journal.SpotJournal;
+import com.example.parking_rmi.journal.SpotSnapshot;
+import com.example.parking_rmi.journal.SpotTransition;
+import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Every spot status change as an immutable, numbered event, plus periodic
+ * snapshots of SpotStateStore, in parking.history.dir.
+ *
+ * Services call record() next to their LotCounters/SpotChangeLog calls; the
+ * event is appended after commit, after the store has applied it, without
+ * waiting for the disk (the log is forced in groups). Every snapshot-ms a
+ * snapshot of the store is written if events were recorded since the last
+ * one, and on shutdown.
+ *
+ * On startup recover() replaces the full spot scan: it restores the newest
+ * snapshot, replays the events logged after it, then re-reads from MySQL
+ * only the spots written since the last event minus recovery-margin-ms
+ * (events lost with an unforced tail, writes from elsewhere). Without a
+ * snapshot the caller loads from MySQL as before and a snapshot is taken.
+ *
+ * The log is kept for getSpotHistory, within limits: after each snapshot the
+ * segments no kept snapshot needs any more are deleted, oldest first, while
+ * they are older than retention-hours or the log is over max-mb. Without the
+ * store (no snapshots, nothing to recover) every sealed segment qualifies.
+ */
+@Slf4j
+@Service
+public class SpotHistory {
+
+    private final SpotStateStore spotStates;
+    private final LotCounters lotCounters;
+    private final ParkingSpotRepository parkingSpotRepository;
+    private final boolean enabled;
+    private final Path dir;
+    private final int segmentBytes;
+    private final long snapshotMillis;
+    private final int snapshotsKept;
+    private final long recoveryMarginMillis;
+    private final long retentionMillis;
+    private final long maxBytes;
+
+    private SpotJournal journal;
+    private ScheduledExecutorService snapshotter;
+    // Guarded by this
+    private long snapshotSeq = -1;
+    private volatile boolean restored;
+
+    public SpotHistory(SpotStateStore spotStates, LotCounters lotCounters,
+            ParkingSpotRepository parkingSpotRepository,
+            @Value("${parking.history.enabled:true}") boolean enabled,
+            @Value("${parking.history.dir:data/history}") String dir,
+            @Value("${parking.history.segment-mb:64}") int segmentMb,
+            @Value("${parking.history.snapshot-ms:300000}") long snapshotMillis,
+            @Value("${parking.history.snapshots-kept:2}") int snapshotsKept,
+            @Value("${parking.history.recovery-margin-ms:60000}") long recoveryMarginMillis,
+            @Value("${parking.history.retention-hours:168}") long retentionHours,
+            @Value("${parking.history.max-mb:4096}") long maxMb) {
+        this.spotStates = spotStates;
+        this.lotCounters = lotCounters;
+        this.parkingSpotRepository = parkingSpotRepository;
+        this.enabled = enabled;
+        this.dir = Path.of(dir);
+        this.segmentBytes = Math.max(1, segmentMb) * 1024 * 1024;
+        this.snapshotMillis = snapshotMillis;
+        this.snapshotsKept = snapshotsKept;
+        this.recoveryMarginMillis = recoveryMarginMillis;
+        this.retentionMillis = TimeUnit.HOURS.toMillis(retentionHours);
+        this.maxBytes = maxMb * 1024 * 1024;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        journal = new SpotJournal(dir, segmentBytes, events -> { });
+        journal.open(journal.lastLoggedSeq());
+        snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "spot-history-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotter.scheduleWithFixedDelay(this::snapshotQuietly, snapshotMillis, snapshotMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (snapshotter != null) {
+            snapshotter.shutdownNow();
+            snapshotQuietly(); // the next start replays nothing
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** true once recover() restored the store and the lot counters. */
+    public boolean isRestored() {
+        return restored;
+    }
+
+    /** A spot went from one status to another; logged after commit. */
+    public void record(Long parkingLotId, Long spotId, SpotTransition.Kind kind, SpotStatus from, SpotStatus to) {
+        if (!enabled || parkingLotId == null || spotId == null || from == to) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            try {
+                journal.submit(SpotTransition.of(parkingLotId, spotId, kind, from, to));
+            } catch (IOException e) {
+                log.warn("Spot history: could not log {} of spot {}: {}", kind, spotId, e.toString());
+            }
+        });
+    }
+
+    /** Events of a spot, newest first; nextCursor is the seq to pass as beforeSeq for older ones. */
+    public PageDTO<SpotTransitionDTO> history(long spotId, Long beforeSeq, int size) {
+        int pageSize = Pages.size(size);
+        if (!enabled) {
+            return new PageDTO<>(List.of(), null);
+        }
+        try {
+            List<SpotTransition> events = journal.history(spotId, beforeSeq, pageSize + 1);
+            boolean more = events.size() > pageSize;
+            List<SpotTransitionDTO> items = new ArrayList<>(Math.min(events.size(), pageSize));
+            for (SpotTransition t : events.subList(0, Math.min(events.size(), pageSize))) {
+                items.add(new SpotTransitionDTO(t.seq(), t.parkingLotId(), t.spotId(), t.kind().name(),
+                        t.from() != null ? t.from().name() : null, t.to().name(), t.timestampMillis()));
+            }
+            return new PageDTO<>(items, more ? items.get(items.size() - 1).getSeq() : null);
+        } catch (IOException e) {
+            throw new IllegalStateException("Spot history unreadable: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Restores SpotStateStore and LotCounters for the given lots (all when
+     * null) from the newest snapshot and the events after it. False when
+     * there is nothing to restore from: load from MySQL, then call snapshot().
+     */
+    public boolean recover(Collection<Long> parkingLotIds) throws IOException {
+        if (!enabled || !spotStates.isEnabled()) {
+            return false;
+        }
+        long started = System.nanoTime();
+        SpotSnapshot snapshot = SpotSnapshot.readLatest(dir);
+        if (snapshot == null) {
+            return false;
+        }
+        Set<Long> owned = parkingLotIds != null ? Set.copyOf(parkingLotIds) : null;
+        int spots = spotStates.restore(snapshot, owned != null ? owned::contains : null);
+
+        Set<Long> missing = new HashSet<>();
+        long[] lastEventAt = { snapshot.takenAtMillis() };
+        int[] replayed = { 0 };
+        long lastSeq = journal.replay(snapshot.seq(), t -> {
+            if (owned == null || owned.contains(t.parkingLotId())) {
+                if (!spotStates.restoreSpot(t.parkingLotId(), t.spotId(), t.to())) {
+                    missing.add(t.parkingLotId());
+                }
+                replayed[0]++;
+            }
+            lastEventAt[0] = Math.max(lastEventAt[0], t.timestampMillis());
+        });
+
+        // What the log may lack: its unforced tail at a crash, writes by other processes
+        LocalDateTime since = LocalDateTime.ofInstant(Instant.ofEpochMilli(lastEventAt[0] - recoveryMarginMillis),
+                ZoneId.systemDefault());
+        List<Object[]> rows = parkingSpotRepository.findSpotStatesUpdatedSince(since);
+        for (Object[] row : rows) {
+            Long lotId = (Long) row[0];
+            if ((owned == null || owned.contains(lotId))
+                    && !spotStates.restoreSpot(lotId, (Long) row[1], (SpotStatus) row[2])) {
+                missing.add(lotId); // created after the snapshot
+            }
+        }
+        if (owned != null) {
+            owned.stream().filter(id -> !spotStates.loadedLotIds().contains(id)).forEach(missing::add);
+        }
+        int loaded = spotStates.load(missing);
+
+        Map<Long, int[]> counts = new LinkedHashMap<>();
+        for (Long lotId : spotStates.loadedLotIds()) {
+            counts.put(lotId, spotStates.counts(lotId));
+        }
+        lotCounters.restore(counts);
+        restored = true;
+        log.info("Spot history: restored {} spot(s) from snapshot {} + {} event(s) up to {}, {} row(s) re-read,"
+                + " {} spot(s) of {} new lot(s) loaded, in {} ms", spots, snapshot.seq(), replayed[0], lastSeq,
+                rows.size(), loaded, missing.size(), (System.nanoTime() - started) / 1_000_000);
+        return true;
+    }
+
+    /** Writes a snapshot of the store if events were logged since the last one. */
+    public synchronized void snapshot() throws IOException {
+        if (!enabled || !spotStates.isEnabled()) {
+            return;
+        }
+        // Events up to seq were applied to the store before being logged: the copy has them all
+        long seq = journal.lastSeq();
+        if (seq == snapshotSeq) {
+            return;
+        }
+        long takenAt = System.currentTimeMillis();
+        long started = System.nanoTime();
+        SpotSnapshot snapshot = new SpotSnapshot(seq, takenAt, spotStates.export());
+        long bytes = snapshot.write(dir, snapshotsKept);
+        snapshotSeq = seq;
+        log.info("Spot history: snapshot at event {} ({} lot(s), {} KB) in {} ms", seq, snapshot.lots().size(),
+                bytes / 1024, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /** Deletes the segments past retention-hours or max-mb that no kept snapshot needs. */
+    public void trim() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        // Recovery replays from the newest readable snapshot, which may be the oldest kept
+        long upToSeq = spotStates.isEnabled() ? SpotSnapshot.oldestSeq(dir) : journal.lastSeq();
+        if (upToSeq <= 0) {
+            return;
+        }
+        int deleted = journal.trim(upToSeq, System.currentTimeMillis() - retentionMillis, maxBytes);
+        if (deleted > 0) {
+            log.info("Spot history: deleted {} segment(s) up to event {}", deleted, upToSeq);
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+            trim();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Spot history snapshot failed: {}", e.toString());
+        }
+    }
+}
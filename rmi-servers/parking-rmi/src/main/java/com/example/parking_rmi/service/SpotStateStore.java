@@ -0,0 +1,340 @@
+package com.example.parking_rmi.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.parking_rmi.Repository.ParkingSpotRepository;
+import com.example.parking_rmi.dto.SpotEventDTO;
+import com.example.parking_rmi.journal.SpotSnapshot;
+import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory status of every spot, answering availability questions without
+ * a COUNT over parking_spots.
+ *
+ * Per lot, spots get an ordinal (by id at load time, then in arrival order)
+ * and each status has a BitSet over those ordinals plus a running count:
+ * counts are O(1), "first N spots with status S" walks the set words.
+ *
+ * Loaded at startup (a StartupWarmup) and lazily for lots not loaded yet.
+ * Kept write-through from the status changes ParkingSpotService and
+ * ReservationService report to SpotChangeLog, applied after commit so the
+ * store never shows a status that was rolled back. A lot that changes while
+ * it is being loaded is loaded again. With SpotHistory, a restart restores
+ * the lots from the last snapshot instead (see restore/restoreSpot).
+ */
+@Slf4j
+@Service
+public class SpotStateStore {
+
+    private static final SpotStatus[] STATUSES = SpotStatus.values();
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    private final ParkingSpotRepository parkingSpotRepository;
+    private final SpotChangeLog spotChangeLog;
+    private final boolean enabled;
+    private final Map<Long, LotState> lots = new ConcurrentHashMap<>();
+    private final Map<Long, Long> spotLots = new ConcurrentHashMap<>();
+
+    public SpotStateStore(ParkingSpotRepository parkingSpotRepository, SpotChangeLog spotChangeLog,
+            @Value("${parking.spot-state.enabled:true}") boolean enabled) {
+        this.parkingSpotRepository = parkingSpotRepository;
+        this.spotChangeLog = spotChangeLog;
+        this.enabled = enabled;
+        if (enabled) {
+            spotChangeLog.addObserver(this::apply);
+        }
+    }
+
+    /** false: callers query the database as before. */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Loads the given lots, or every lot when parkingLotIds is null. Returns the number of spots loaded. */
+    public int load(Collection<Long> parkingLotIds) {
+        if (parkingLotIds != null && parkingLotIds.isEmpty()) {
+            return 0;
+        }
+        Map<Long, Long> versions = new HashMap<>();
+        if (parkingLotIds != null) {
+            parkingLotIds.forEach(id -> versions.put(id, spotChangeLog.currentVersion(id)));
+        }
+        List<Object[]> rows = parkingLotIds == null ? parkingSpotRepository.findSpotStates()
+                : parkingSpotRepository.findSpotStates(parkingLotIds);
+        Map<Long, LotState> loaded = group(rows);
+        loaded.forEach((lotId, state) -> {
+            Long before = versions.get(lotId);
+            if (before != null && before != spotChangeLog.currentVersion(lotId)) {
+                // Changed during the query: load this one again on first use
+                lots.remove(lotId);
+            } else {
+                lots.put(lotId, state);
+                index(lotId, state);
+            }
+        });
+        log.info("Spot state store: {} spot(s) in {} lot(s)", rows.size(), loaded.size());
+        return rows.size();
+    }
+
+    public int count(Long parkingLotId, SpotStatus status) {
+        return lot(parkingLotId).count(status);
+    }
+
+    public int size(Long parkingLotId) {
+        return lot(parkingLotId).size();
+    }
+
+    /** Percentage of spots that are not AVAILABLE, 0 for an empty or unknown lot. */
+    public double occupancyRate(Long parkingLotId) {
+        LotState lot = lot(parkingLotId);
+        synchronized (lot) {
+            int total = lot.size();
+            return total == 0 ? 0.0 : (double) (total - lot.count(SpotStatus.AVAILABLE)) / total * 100.0;
+        }
+    }
+
+    /** Ids of the first limit spots of the lot with this status, in ordinal order. */
+    public List<Long> firstSpotIds(Long parkingLotId, SpotStatus status, int limit) {
+        return lot(parkingLotId).first(status, limit);
+    }
+
+    /** Lot of a spot of a loaded lot, null when the lot is not in memory. */
+    public Long lotOf(Long spotId) {
+        return spotId != null ? spotLots.get(spotId) : null;
+    }
+
+    /** Status of a spot of a loaded lot, null if the lot or spot is not in memory. */
+    public SpotStatus status(Long parkingLotId, Long spotId) {
+        LotState lot = lots.get(parkingLotId);
+        return lot != null ? lot.status(spotId) : null;
+    }
+
+    /**
+     * Sets the status of a spot of a loaded lot right away (not after a
+     * commit: for GateWriteBehind, whose journal is the commit) and returns
+     * the previous one; nothing changes when it already had this status.
+     * Null if the lot or spot is not in memory.
+     */
+    public SpotStatus swap(Long parkingLotId, Long spotId, SpotStatus status) {
+        LotState lot = lots.get(parkingLotId);
+        return lot != null ? lot.swap(spotId, status) : null;
+    }
+
+    /** Copy of every loaded lot, for a SpotSnapshot. */
+    public Map<Long, SpotSnapshot.Lot> export() {
+        Map<Long, SpotSnapshot.Lot> copy = new LinkedHashMap<>();
+        lots.forEach((lotId, lot) -> copy.put(lotId, lot.export()));
+        return copy;
+    }
+
+    /** Loads the lots of a snapshot accepted by filter (all when null); returns the number of spots. */
+    public int restore(SpotSnapshot snapshot, Predicate<Long> filter) {
+        int spots = 0;
+        for (Map.Entry<Long, SpotSnapshot.Lot> entry : snapshot.lots().entrySet()) {
+            if (filter != null && !filter.test(entry.getKey())) {
+                continue;
+            }
+            LotState state = new LotState();
+            SpotSnapshot.Lot lot = entry.getValue();
+            for (int i = 0; i < lot.spotIds().length; i++) {
+                state.set(lot.spotIds()[i], STATUSES[lot.statuses()[i]]);
+            }
+            lots.put(entry.getKey(), state);
+            index(entry.getKey(), state);
+            spots += state.size();
+        }
+        return spots;
+    }
+
+    /** Sets a spot of a loaded lot (adding it if new), during recovery; false if the lot is not loaded. */
+    public boolean restoreSpot(Long parkingLotId, Long spotId, SpotStatus status) {
+        LotState lot = lots.get(parkingLotId);
+        if (lot == null) {
+            return false;
+        }
+        lot.set(spotId, status);
+        spotLots.put(spotId, parkingLotId);
+        return true;
+    }
+
+    public Set<Long> loadedLotIds() {
+        return Set.copyOf(lots.keySet());
+    }
+
+    /** Spot count per status ordinal of a loaded lot, null if the lot is not loaded. */
+    public int[] counts(Long parkingLotId) {
+        LotState lot = lots.get(parkingLotId);
+        return lot != null ? lot.counts() : null;
+    }
+
+    // SpotChangeLog observer, after commit
+    void apply(SpotEventDTO event) {
+        if (event.getStatus() == null) {
+            lots.remove(event.getParkingLotId()); // status unknown: reload on next read
+            return;
+        }
+        LotState lot = lots.get(event.getParkingLotId());
+        if (lot != null) {
+            lot.set(event.getSpotId(), SpotStatus.valueOf(event.getStatus()));
+        }
+    }
+
+    private LotState lot(Long parkingLotId) {
+        LotState lot = lots.get(parkingLotId);
+        if (lot != null) {
+            return lot;
+        }
+        for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS; attempt++) {
+            long version = spotChangeLog.currentVersion(parkingLotId);
+            LotState loaded = group(parkingSpotRepository.findSpotStates(List.of(parkingLotId)))
+                    .getOrDefault(parkingLotId, new LotState());
+            if (version == spotChangeLog.currentVersion(parkingLotId)) {
+                if (loaded.size() == 0) {
+                    return loaded; // unknown or empty lot: not cached
+                }
+                // A change committed from now on finds the lot in the map
+                LotState existing = lots.putIfAbsent(parkingLotId, loaded);
+                if (version == spotChangeLog.currentVersion(parkingLotId)) {
+                    if (existing != null) {
+                        return existing;
+                    }
+                    index(parkingLotId, loaded);
+                    return loaded;
+                }
+                lots.remove(parkingLotId, loaded);
+            }
+        }
+        // Lot too busy to catch a quiet moment: answer from a fresh read without caching it
+        return group(parkingSpotRepository.findSpotStates(List.of(parkingLotId)))
+                .getOrDefault(parkingLotId, new LotState());
+    }
+
+    private void index(Long parkingLotId, LotState state) {
+        for (Long spotId : state.spotIds()) {
+            spotLots.put(spotId, parkingLotId);
+        }
+    }
+
+    private static Map<Long, LotState> group(List<Object[]> rows) {
+        Map<Long, LotState> grouped = new HashMap<>();
+        for (Object[] row : rows) {
+            grouped.computeIfAbsent((Long) row[0], id -> new LotState()).set((Long) row[1], (SpotStatus) row[2]);
+        }
+        return grouped;
+    }
+
+    static final class LotState {
+        private long[] spotIds = new long[16];
+        private int size;
+        private final Map<Long, Integer> ordinals = new HashMap<>();
+        private final BitSet[] byStatus = new BitSet[STATUSES.length];
+        private final int[] counts = new int[STATUSES.length];
+
+        LotState() {
+            for (int i = 0; i < byStatus.length; i++) {
+                byStatus[i] = new BitSet();
+            }
+        }
+
+        synchronized void set(long spotId, SpotStatus status) {
+            Integer ordinal = ordinals.get(spotId);
+            if (ordinal == null) {
+                ordinal = size++;
+                if (ordinal == spotIds.length) {
+                    spotIds = Arrays.copyOf(spotIds, ordinal * 2);
+                }
+                spotIds[ordinal] = spotId;
+                ordinals.put(spotId, ordinal);
+            } else {
+                for (int i = 0; i < byStatus.length; i++) {
+                    if (byStatus[i].get(ordinal)) {
+                        byStatus[i].clear(ordinal);
+                        counts[i]--;
+                    }
+                }
+            }
+            byStatus[status.ordinal()].set(ordinal);
+            counts[status.ordinal()]++;
+        }
+
+        synchronized SpotStatus status(long spotId) {
+            Integer ordinal = ordinals.get(spotId);
+            if (ordinal == null) {
+                return null;
+            }
+            for (int i = 0; i < byStatus.length; i++) {
+                if (byStatus[i].get(ordinal)) {
+                    return STATUSES[i];
+                }
+            }
+            return null;
+        }
+
+        synchronized SpotStatus swap(long spotId, SpotStatus status) {
+            if (!ordinals.containsKey(spotId)) {
+                return null;
+            }
+            SpotStatus previous = status(spotId);
+            if (previous != status) {
+                set(spotId, status);
+            }
+            return previous;
+        }
+
+        synchronized SpotSnapshot.Lot export() {
+            long[] ids = Arrays.copyOf(spotIds, size);
+            byte[] statuses = new byte[size];
+            for (int i = 0; i < byStatus.length; i++) {
+                BitSet bits = byStatus[i];
+                for (int o = bits.nextSetBit(0); o >= 0; o = bits.nextSetBit(o + 1)) {
+                    statuses[o] = (byte) i;
+                }
+            }
+            return new SpotSnapshot.Lot(ids, statuses);
+        }
+
+        synchronized int[] counts() {
+            return counts.clone();
+        }
+
+        synchronized List<Long> spotIds() {
+            List<Long> ids = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                ids.add(spotIds[i]);
+            }
+            return ids;
+        }
+
+        synchronized int count(SpotStatus status) {
+            return counts[status.ordinal()];
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized List<Long> first(SpotStatus status, int limit) {
+            BitSet bits = byStatus[status.ordinal()];
+            List<Long> ids = new ArrayList<>(Math.min(Math.max(limit, 0), counts[status.ordinal()]));
+            for (int i = bits.nextSetBit(0); i >= 0 && ids.size() < limit; i = bits.nextSetBit(i + 1)) {
+                ids.add(spotIds[i]);
+            }
+            return ids;
+        }
+    }
+}
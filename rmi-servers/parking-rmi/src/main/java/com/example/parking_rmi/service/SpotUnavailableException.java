@@ -0,0 +1,15 @@
+package com.example.parking_rmi.service;
+
+/**
+ * The spot asked for is gone or no longer AVAILABLE. Still an
+ * IllegalArgumentException for existing callers; SpotAllocator catches it to
+ * move on to the next best spot.
+ */
+public class SpotUnavailableException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    public SpotUnavailableException(String message) {
+        super(message);
+    }
+}
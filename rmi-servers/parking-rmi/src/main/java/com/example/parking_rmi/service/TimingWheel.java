@@ -0,0 +1,122 @@
+package com.example.parking_rmi.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: items due at a time in epoch millis, found
+ * again when the wheel is advanced past that time.
+ *
+ * Level 0 has one bucket per tick over slots ticks, level 1 one bucket per
+ * slots ticks, and so on; levels are added as far deadlines need them. An
+ * item goes into the bucket of the coarsest level it fits in (add is O(1)),
+ * and a bucket of level l is moved down one level when level 0 reaches its
+ * time, so each item is touched once per level at most. Deadlines are
+ * rounded down to the tick.
+ *
+ * Not thread-safe: the owner synchronizes.
+ */
+final class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final int slots;
+    private final List<List<Entry<T>>[]> levels = new ArrayList<>();
+    private long tick; // last tick advanced to
+    private int size;
+
+    private record Entry<T>(long tick, T item) {
+    }
+
+    TimingWheel(long tickMillis, int slots, long startMillis) {
+        this.tickMillis = Math.max(1, tickMillis);
+        this.slots = Math.max(2, slots);
+        this.tick = startMillis / this.tickMillis;
+    }
+
+    /** Schedules item at deadlineMillis; false (not added) if that tick has passed: the item is due now. */
+    boolean add(long deadlineMillis, T item) {
+        Entry<T> entry = new Entry<>(deadlineMillis / tickMillis, item);
+        if (entry.tick() <= tick) {
+            return false;
+        }
+        place(entry);
+        size++;
+        return true;
+    }
+
+    /** Moves the wheel to nowMillis, handing every item due by then to due, in deadline order by tick. */
+    int advance(long nowMillis, Consumer<T> due) {
+        long target = nowMillis / tickMillis;
+        int fired = 0;
+        while (tick < target && size > 0) {
+            tick++;
+            // Coarser buckets reaching their time are spread over the finer levels first
+            long span = 1;
+            for (int level = 1; level < levels.size(); level++) {
+                span *= slots;
+                if (tick % span != 0) {
+                    break;
+                }
+                List<Entry<T>> bucket = take(level, (int) ((tick / span) % slots));
+                if (bucket != null) {
+                    for (Entry<T> entry : bucket) {
+                        if (entry.tick() <= tick) {
+                            fire(entry, due);
+                            fired++;
+                        } else {
+                            place(entry);
+                        }
+                    }
+                }
+            }
+            List<Entry<T>> bucket = levels.isEmpty() ? null : take(0, (int) (tick % slots));
+            if (bucket != null) {
+                for (Entry<T> entry : bucket) {
+                    fire(entry, due);
+                    fired++;
+                }
+            }
+        }
+        if (tick < target) {
+            tick = target; // nothing scheduled: jump
+        }
+        return fired;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void fire(Entry<T> entry, Consumer<T> due) {
+        size--;
+        due.accept(entry.item());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void place(Entry<T> entry) {
+        long delta = entry.tick() - tick;
+        int level = 0;
+        long span = 1;
+        while (delta >= span * slots) {
+            span *= slots;
+            level++;
+        }
+        while (levels.size() <= level) {
+            levels.add(new List[slots]);
+        }
+        int slot = (int) ((entry.tick() / span) % slots);
+        List<Entry<T>>[] buckets = levels.get(level);
+        if (buckets[slot] == null) {
+            buckets[slot] = new ArrayList<>();
+        }
+        buckets[slot].add(entry);
+    }
+
+    private List<Entry<T>> take(int level, int slot) {
+        List<Entry<T>>[] buckets = levels.get(level);
+        List<Entry<T>> bucket = buckets[slot];
+        buckets[slot] = null;
+        return bucket;
+    }
+}
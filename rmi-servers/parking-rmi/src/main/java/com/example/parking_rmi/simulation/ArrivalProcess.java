@@ -0,0 +1,105 @@
+package com.example.parking_rmi.simulation;
+
+import java.util.SplittableRandom;
+
+/**
+ * When cars arrive and how long they stay.
+ *
+ * Arrivals are a Poisson process whose rate follows the simulated time of
+ * day: constant for "poisson"; for "rush", a quiet night (a fifth of the
+ * rate) rising to rushPeak times the rate around 08:30 and 17:30. Times are
+ * drawn by thinning: candidates at the peak rate, each kept with the
+ * probability rate(t) / peak rate, which gives exactly that time-varying
+ * Poisson process. Dwell times are log-normal around their median, as
+ * parking durations are: most stays short, a long tail of all-day ones.
+ *
+ * Not thread-safe: one instance per generating thread.
+ */
+public class ArrivalProcess {
+
+    private final double rate;
+    private final boolean rush;
+    private final double rushPeak;
+    private final double timeScale;
+    private final double startHour;
+    private final double dwellMedianMinutes;
+    private final double dwellSigma;
+    private final SplittableRandom random;
+    private final double maxRate;
+
+    public ArrivalProcess(TrafficProfile profile, SplittableRandom random) {
+        this(profile.rate(), profile.arrivals().equals("rush"), profile.rushPeak(), profile.timeScale(),
+                profile.startHour(), profile.dwellMinutes(), profile.dwellSigma(), random);
+    }
+
+    ArrivalProcess(double rate, boolean rush, double rushPeak, double timeScale, double startHour,
+            double dwellMedianMinutes, double dwellSigma, SplittableRandom random) {
+        if (rate <= 0 || timeScale <= 0) {
+            throw new IllegalArgumentException("rate and timeScale must be positive");
+        }
+        this.rate = rate;
+        this.rush = rush;
+        this.rushPeak = Math.max(1, rushPeak);
+        this.timeScale = timeScale;
+        this.startHour = startHour;
+        this.dwellMedianMinutes = dwellMedianMinutes;
+        this.dwellSigma = dwellSigma;
+        this.random = random;
+        this.maxRate = rate * (rush ? this.rushPeak : 1);
+    }
+
+    /** Arrivals per wall second at a simulated hour of the day (0 to 24). */
+    public double rateAt(double hour) {
+        if (!rush) {
+            return rate;
+        }
+        double morning = bump(hour, 8.5, 1.0);
+        double evening = bump(hour, 17.5, 1.25);
+        double daytime = 0.2 + 0.3 * bump(hour, 13, 4); // night floor, busier midday
+        return rate * Math.min(rushPeak, daytime + (rushPeak - 0.2) * Math.max(morning, evening));
+    }
+
+    /** Simulated hour of the day after seconds of wall time. */
+    public double hourAt(double seconds) {
+        double hour = (startHour + seconds * timeScale / 3600) % 24;
+        return hour < 0 ? hour + 24 : hour;
+    }
+
+    /** Wall time in seconds of the next arrival after the given one. */
+    public double nextArrival(double seconds) {
+        double t = seconds;
+        while (true) {
+            t += -Math.log(1 - random.nextDouble()) / maxRate;
+            if (!rush || random.nextDouble() * maxRate <= rateAt(hourAt(t))) {
+                return t;
+            }
+        }
+    }
+
+    /** Wall time in seconds a car stays (its simulated dwell divided by the time scale). */
+    public double dwellSeconds() {
+        double minutes = dwellMedianMinutes * Math.exp(dwellSigma * gaussian());
+        return minutes * 60 / timeScale;
+    }
+
+    public double uniform() {
+        return random.nextDouble();
+    }
+
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    // Standard normal (Box-Muller)
+    private double gaussian() {
+        double u = 1 - random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    // 1 at the center, falling off over about width hours either side (with wrap-around at midnight)
+    private static double bump(double hour, double center, double width) {
+        double d = Math.abs(hour - center);
+        d = Math.min(d, 24 - d);
+        return Math.exp(-0.5 * (d / width) * (d / width));
+    }
+}
@@ -0,0 +1,484 @@
+package com.example.parking_rmi.simulation;
+
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.rmi.registry.LocateRegistry;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.parking_rmi.ParkingRmiApplication;
+import com.example.parking_rmi.Interface.ParkingService;
+import com.example.parking_rmi.dto.PageDTO;
+import com.example.parking_rmi.dto.ParkingLotDTO;
+import com.example.parking_rmi.dto.ParkingSpotDTO;
+import com.example.parking_rmi.dto.ReservationDTO;
+import com.example.parking_rmi.dto.SpotPreferenceDTO;
+import com.example.parking_rmi.impliment.ParkingServiceImp;
+import com.example.parking_rmi.simulation.TrafficReport.Operation;
+
+/**
+ * City-scale synthetic traffic against ParkingService, for capacity planning:
+ * what rate a server sustains, with which error rate and latencies.
+ *
+ * Open loop: arrivals follow ArrivalProcess whatever the response times, and
+ * each one is a car that drives in, a driver who books a spot or a lookup of
+ * a lot's free count (see TrafficProfile for the mix). The lot is picked in
+ * proportion to its size. A car that got in leaves after its dwell time; a
+ * booking is cancelled or checked in a few simulated minutes later, then
+ * leaves like a car. Spots are picked from the generator's own view of the
+ * free spots of each lot, loaded at the start and kept up to date from its
+ * own calls; spots taken by other clients are found out by rejected entries.
+ *
+ * Calls run on virtual threads, at most maxInFlight at a time: an arrival
+ * finding them all busy is dropped and counted, follow-ups (exits, cancels,
+ * check-ins) wait. Progress is printed every reportSeconds, the
+ * TrafficReport at the end.
+ *
+ * Usage: TrafficGenerator [key=value ...], e.g. mode=rmi host=localhost
+ * rate=500 arrivals=rush seconds=300 createLots=2000 spotsPerLot=250.
+ * mode=local starts the server in this JVM (its RMI port must be free) and
+ * calls ParkingServiceImp directly: no network, no serialization.
+ */
+public class TrafficGenerator {
+
+    // Simulated minutes between a booking and its cancellation or check-in, at most
+    private static final double FOLLOW_UP_MINUTES = 10;
+
+    private final ParkingService service;
+    private final TrafficProfile profile;
+    private final TrafficReport report = new TrafficReport();
+    private final ExecutorService calls = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService timers = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "traffic-timers");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Semaphore inFlight;
+    private final AtomicLong drivers = new AtomicLong();
+
+    private final List<Lot> lots = new ArrayList<>();
+    private long[] cumulativeSpots;
+    // What this run holds, released by cleanup: spot -> lot, reservation -> spot
+    private final Map<Long, Lot> parked = new ConcurrentHashMap<>();
+    private final Map<Long, Long> bookings = new ConcurrentHashMap<>();
+
+    public TrafficGenerator(ParkingService service, TrafficProfile profile) {
+        this.service = service;
+        this.profile = profile;
+        this.inFlight = new Semaphore(Math.max(1, profile.maxInFlight()));
+    }
+
+    public static void main(String[] args) throws Exception {
+        TrafficProfile profile = TrafficProfile.parse(args);
+        ConfigurableApplicationContext context = null;
+        ParkingService service;
+        if (profile.mode().equals("local")) {
+            context = SpringApplication.run(ParkingRmiApplication.class);
+            service = context.getBean(ParkingServiceImp.class);
+            System.out.println("✅ Server started in-process");
+        } else {
+            service = (ParkingService) LocateRegistry.getRegistry(profile.host(), profile.port())
+                    .lookup("parkingService");
+            System.out.println("✅ Connected to " + profile.host() + ":" + profile.port());
+        }
+        try {
+            new TrafficGenerator(service, profile).run(System.out);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    public TrafficReport run(PrintStream out) throws Exception {
+        setup(out);
+        if (lots.isEmpty()) {
+            out.println("No active parking lot with spots: nothing to drive (see createLots)");
+            return report;
+        }
+        out.printf("🏁 %s arrivals at %,.0f/s%s for %d s, simulated clock x%.0f from %s, %,d lot(s), %,d spot(s)%n",
+                profile.arrivals(), profile.rate(),
+                profile.arrivals().equals("rush") ? " (peaks x" + profile.rushPeak() + ")" : "", profile.seconds(),
+                profile.timeScale(), clock(profile.startHour()), lots.size(),
+                cumulativeSpots[cumulativeSpots.length - 1]);
+
+        ArrivalProcess arrivals = new ArrivalProcess(profile, new SplittableRandom(profile.seed()));
+        long start = System.nanoTime();
+        long end = start + profile.seconds() * 1_000_000_000L;
+        long reportEvery = Math.max(1, profile.reportSeconds()) * 1_000_000_000L;
+        long nextReport = start + reportEvery;
+        long offered = 0;
+        long lastOffered = 0;
+        long lastCalls = 0;
+        for (double t = arrivals.nextArrival(0); ; t = arrivals.nextArrival(t)) {
+            long due = start + (long) (t * 1e9);
+            if (due >= end) {
+                break;
+            }
+            long now;
+            while ((now = System.nanoTime()) < due) {
+                if (now >= nextReport) {
+                    long calls = report.calls();
+                    double seconds = reportEvery / 1e9;
+                    out.printf("  [%5.0fs] %s  offered %,8.0f/s  calls %,8.0f/s  errors %,d  dropped %,d"
+                            + "  in flight %,d  parked %,d%n", (now - start) / 1e9,
+                            clock(arrivals.hourAt((now - start) / 1e9)), (offered - lastOffered) / seconds,
+                            (calls - lastCalls) / seconds, report.errors(), report.getDropped(),
+                            profile.maxInFlight() - inFlight.availablePermits(), parked.size());
+                    lastOffered = offered;
+                    lastCalls = calls;
+                    nextReport += reportEvery;
+                }
+                LockSupport.parkNanos(Math.min(due - now, 1_000_000));
+            }
+            offered++;
+            arrive(arrivals, due);
+        }
+
+        timers.shutdownNow(); // exits and check-ins not due yet are left to cleanup
+        calls.shutdown();
+        calls.awaitTermination(30, TimeUnit.SECONDS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        out.printf("📊 %,d arrival(s) offered (%,.0f/s)%n", offered, offered / seconds);
+        report.print(out, seconds);
+        if (profile.cleanup()) {
+            cleanup(out);
+        }
+        return report;
+    }
+
+    // ==================== ARRIVALS ====================
+
+    // Decisions are drawn here, on the arrival thread, so a seed replays the same traffic
+    private void arrive(ArrivalProcess arrivals, long due) {
+        Lot lot = pickLot(arrivals.uniform());
+        double kind = arrivals.uniform();
+        if (kind < profile.lookupShare()) {
+            submit(() -> lookup(lot, due));
+            return;
+        }
+        double dwell = arrivals.dwellSeconds();
+        if (kind < profile.lookupShare() + profile.reservationShare()) {
+            boolean cancel = arrivals.uniform() < profile.cancelShare();
+            double followUp = arrivals.uniform() * FOLLOW_UP_MINUTES * 60 / profile.timeScale();
+            submit(() -> reserve(lot, dwell, cancel, followUp, due));
+            return;
+        }
+        Long spotId = lot.take();
+        if (spotId == null) {
+            report.noSpot(Operation.ENTRY); // lot full as far as we know
+            return;
+        }
+        submit(() -> enter(lot, spotId, dwell, due));
+    }
+
+    private Lot pickLot(double u) {
+        long target = (long) (u * cumulativeSpots[cumulativeSpots.length - 1]);
+        int low = 0;
+        int high = cumulativeSpots.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulativeSpots[mid] > target) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return lots.get(low);
+    }
+
+    private void submit(Runnable call) {
+        if (!inFlight.tryAcquire()) {
+            report.dropped();
+            return;
+        }
+        try {
+            calls.execute(() -> {
+                try {
+                    call.run();
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+        }
+    }
+
+    // A follow-up due after seconds of wall time; waits for a free slot instead of being dropped
+    private void after(double seconds, LongConsumer call) {
+        long delay = (long) (seconds * 1e9);
+        long due = System.nanoTime() + delay;
+        try {
+            timers.schedule(() -> {
+                try {
+                    calls.execute(() -> {
+                        inFlight.acquireUninterruptibly();
+                        try {
+                            call.accept(due);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // Run over: left to cleanup
+                }
+            }, delay, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // Run over: left to cleanup
+        }
+    }
+
+    // ==================== OPERATIONS ====================
+
+    private void lookup(Lot lot, long due) {
+        try {
+            service.getAvailableSpotsCount(lot.id);
+            report.ok(Operation.LOOKUP, due);
+        } catch (Exception e) {
+            report.error(Operation.LOOKUP, due);
+        }
+    }
+
+    private void enter(Lot lot, Long spotId, double dwell, long due) {
+        try {
+            if (service.simulateCarEntry(spotId)) {
+                report.ok(Operation.ENTRY, due);
+                parked.put(spotId, lot);
+                after(dwell, exitDue -> exit(lot, spotId, exitDue));
+            } else {
+                report.rejected(Operation.ENTRY, due);
+                lot.give(spotId); // taken by someone else: tried again once the others came round
+            }
+        } catch (Exception e) {
+            report.error(Operation.ENTRY, due);
+            lot.give(spotId);
+        }
+    }
+
+    private void exit(Lot lot, Long spotId, long due) {
+        try {
+            if (service.simulateCarExit(spotId)) {
+                report.ok(Operation.EXIT, due);
+            } else {
+                report.rejected(Operation.EXIT, due);
+            }
+            parked.remove(spotId);
+            lot.give(spotId);
+        } catch (Exception e) {
+            report.error(Operation.EXIT, due); // still parked: cleanup tries again
+        }
+    }
+
+    private void reserve(Lot lot, double dwell, boolean cancel, double followUp, long due) {
+        long driver = drivers.incrementAndGet();
+        double simulatedHours = dwell * profile.timeScale() / 3600;
+        ReservationDTO request = ReservationDTO.builder()
+                .userName("Traffic driver " + driver)
+                .userEmail("driver-" + driver + "@traffic.invalid")
+                .licensePlate(String.format("SIM-%06d", driver % 1_000_000))
+                .startTime(LocalDateTime.now())
+                .durationHours(Math.max(1, (int) Math.ceil(simulatedHours)))
+                .parkingLotId(lot.id)
+                .build();
+        ReservationDTO booked;
+        try {
+            booked = service.reserveBestAvailableSpot(request, new SpotPreferenceDTO());
+        } catch (Exception e) {
+            report.error(Operation.RESERVE, due);
+            return;
+        }
+        if (booked == null || booked.getParkingSpotId() == null) {
+            report.rejected(Operation.RESERVE, due);
+            return;
+        }
+        report.ok(Operation.RESERVE, due);
+        Long spotId = booked.getParkingSpotId();
+        lot.remove(spotId);
+        bookings.put(booked.getId(), spotId);
+        if (cancel) {
+            after(followUp, cancelDue -> cancel(lot, booked.getId(), spotId, cancelDue));
+        } else {
+            after(followUp, entryDue -> checkIn(lot, booked.getId(), spotId, dwell, entryDue));
+        }
+    }
+
+    private void cancel(Lot lot, Long reservationId, Long spotId, long due) {
+        try {
+            if (service.cancelReservation(reservationId)) {
+                report.ok(Operation.CANCEL, due);
+                lot.give(spotId);
+            } else {
+                report.rejected(Operation.CANCEL, due);
+            }
+            bookings.remove(reservationId);
+        } catch (Exception e) {
+            report.error(Operation.CANCEL, due);
+        }
+    }
+
+    private void checkIn(Lot lot, Long reservationId, Long spotId, double dwell, long due) {
+        bookings.remove(reservationId);
+        enter(lot, spotId, dwell, due);
+    }
+
+    // ==================== SETUP / CLEANUP ====================
+
+    private void setup(PrintStream out) throws Exception {
+        long started = System.nanoTime();
+        for (int i = 0; i < profile.createLots(); i++) {
+            ParkingLotDTO lot = new ParkingLotDTO();
+            lot.setName("Traffic lot " + (i + 1));
+            lot.setAddress((i + 1) + " Simulation Street");
+            lot.setCity("Simulation");
+            lot.setTotalSpots(profile.spotsPerLot());
+            lot.setHourlyRate(BigDecimal.valueOf(2.5));
+            lot.setOpeningTime("00:00");
+            lot.setClosingTime("23:59");
+            if (profile.mode().equals("rmi")) {
+                lot.setRmiHost(profile.host()); // created on, and served by, the instance driven
+                lot.setRmiPort(profile.port());
+            }
+            service.createParkingLot(lot);
+        }
+
+        List<ParkingLotDTO> active = new ArrayList<>();
+        Long after = null;
+        do {
+            PageDTO<ParkingLotDTO> page = service.getParkingLotsPage(after, 500);
+            for (ParkingLotDTO lot : page.getItems()) {
+                if ("ACTIVE".equals(lot.getStatus()) && (profile.lots() <= 0 || active.size() < profile.lots())) {
+                    active.add(lot);
+                }
+            }
+            after = page.getNextCursor();
+        } while (after != null && (profile.lots() <= 0 || active.size() < profile.lots()));
+
+        // Spot lists in parallel: thousands of lots load in seconds
+        List<Future<Lot>> loading = new ArrayList<>(active.size());
+        Semaphore loads = new Semaphore(64);
+        for (ParkingLotDTO dto : active) {
+            loading.add(calls.submit(() -> {
+                loads.acquireUninterruptibly();
+                try {
+                    Lot lot = new Lot(dto.getId());
+                    for (ParkingSpotDTO spot : service.getAllSpotsByParkingLot(dto.getId())) {
+                        lot.spots++;
+                        if ("AVAILABLE".equals(spot.getStatus())) {
+                            lot.give(spot.getId());
+                        }
+                    }
+                    return lot;
+                } finally {
+                    loads.release();
+                }
+            }));
+        }
+        for (Future<Lot> future : loading) {
+            Lot lot = future.get();
+            if (lot.spots > 0) {
+                lots.add(lot);
+            }
+        }
+        cumulativeSpots = new long[lots.size()];
+        long total = 0;
+        for (int i = 0; i < lots.size(); i++) {
+            total += lots.get(i).spots;
+            cumulativeSpots[i] = total;
+        }
+        out.printf("Setup: %,d lot(s) created, %,d loaded in %.1f s%n", profile.createLots(), lots.size(),
+                (System.nanoTime() - started) / 1e9);
+    }
+
+    // Not measured: gives back what the run still holds so the next one starts from the same state
+    private void cleanup(PrintStream out) throws InterruptedException {
+        AtomicLong cancelled = new AtomicLong();
+        AtomicLong exited = new AtomicLong();
+        try (ExecutorService cleaner = Executors.newVirtualThreadPerTaskExecutor()) {
+            Semaphore limit = new Semaphore(64);
+            for (Long reservationId : bookings.keySet()) {
+                limit.acquire();
+                cleaner.execute(() -> {
+                    try {
+                        if (service.cancelReservation(reservationId)) {
+                            cancelled.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        // Left to the reservation deadlines
+                    } finally {
+                        limit.release();
+                    }
+                });
+            }
+            for (Long spotId : parked.keySet()) {
+                limit.acquire();
+                cleaner.execute(() -> {
+                    try {
+                        if (service.simulateCarExit(spotId)) {
+                            exited.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        // Stays occupied
+                    } finally {
+                        limit.release();
+                    }
+                });
+            }
+        }
+        out.printf("Cleanup: %,d booking(s) cancelled, %,d car(s) out%n", cancelled.get(), exited.get());
+    }
+
+    private static String clock(double hour) {
+        int minutes = (int) (hour * 60) % (24 * 60);
+        return String.format("%02d:%02d", minutes / 60, minutes % 60);
+    }
+
+    // Free spots of a lot as this run knows them, oldest freed first
+    private static final class Lot {
+        private final Long id;
+        private int spots;
+        private final Set<Long> free = new LinkedHashSet<>();
+
+        Lot(Long id) {
+            this.id = id;
+        }
+
+        synchronized Long take() {
+            Iterator<Long> it = free.iterator();
+            if (!it.hasNext()) {
+                return null;
+            }
+            Long spotId = it.next();
+            it.remove();
+            return spotId;
+        }
+
+        synchronized void give(Long spotId) {
+            free.add(spotId);
+        }
+
+        synchronized void remove(Long spotId) {
+            free.remove(spotId);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.parking_rmi.simulation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Settings of a TrafficGenerator run, from key=value arguments (defaults in
+ * parse). Rates and shares are per arrival; times marked "simulated" are on
+ * the simulated clock, which runs timeScale times faster than the wall clock
+ * (60: one simulated hour per wall minute).
+ *
+ * - mode: rmi (a running server at host:port) or local (in-process, the
+ *   application context started on the configured database)
+ * - rate: arrivals per wall second at a curve value of 1; arrivals: poisson
+ *   (constant rate) or rush (morning and evening peaks of rushPeak times the
+ *   rate, quiet nights), the simulated clock starting at startHour
+ * - dwellMinutes / dwellSigma: median and log-normal spread of the simulated
+ *   time a car stays
+ * - lookupShare, reservationShare: arrivals that only read a lot's count or
+ *   book a spot (reserveBestAvailableSpot); the rest drive in. cancelShare of
+ *   the reservations are cancelled, the others check in
+ * - lots: at most this many lots driven (0: all); createLots new lots of
+ *   spotsPerLot spots are created first
+ * - seconds, maxInFlight (arrivals beyond it are dropped and counted),
+ *   reportSeconds, seed, cleanup (exit the cars and cancel the bookings
+ *   still held at the end)
+ */
+public record TrafficProfile(String mode, String host, int port, double rate, String arrivals, double rushPeak,
+        double timeScale, double startHour, double dwellMinutes, double dwellSigma, double lookupShare,
+        double reservationShare, double cancelShare, int lots, int createLots, int spotsPerLot, int seconds,
+        int maxInFlight, int reportSeconds, long seed, boolean cleanup) {
+
+    public static TrafficProfile parse(String... args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got " + arg);
+            }
+            values.put(arg.substring(0, eq).trim(), arg.substring(eq + 1).trim());
+        }
+        TrafficProfile profile = new TrafficProfile(
+                text(values, "mode", "rmi"),
+                text(values, "host", "localhost"),
+                (int) number(values, "port", 1099),
+                number(values, "rate", 200),
+                text(values, "arrivals", "rush"),
+                number(values, "rushPeak", 3),
+                number(values, "timeScale", 60),
+                number(values, "startHour", 6),
+                number(values, "dwellMinutes", 90),
+                number(values, "dwellSigma", 0.8),
+                number(values, "lookupShare", 0.3),
+                number(values, "reservationShare", 0.2),
+                number(values, "cancelShare", 0.3),
+                (int) number(values, "lots", 0),
+                (int) number(values, "createLots", 0),
+                (int) number(values, "spotsPerLot", 200),
+                (int) number(values, "seconds", 60),
+                (int) number(values, "maxInFlight", 1024),
+                (int) number(values, "reportSeconds", 10),
+                (long) number(values, "seed", 42),
+                Boolean.parseBoolean(text(values, "cleanup", "true")));
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown setting(s): " + values.keySet());
+        }
+        if (!profile.mode.equals("rmi") && !profile.mode.equals("local")) {
+            throw new IllegalArgumentException("mode must be rmi or local");
+        }
+        if (!profile.arrivals.equals("poisson") && !profile.arrivals.equals("rush")) {
+            throw new IllegalArgumentException("arrivals must be poisson or rush");
+        }
+        if (profile.lookupShare + profile.reservationShare > 1) {
+            throw new IllegalArgumentException("lookupShare + reservationShare must not exceed 1");
+        }
+        return profile;
+    }
+
+    private static String text(Map<String, String> values, String key, String fallback) {
+        String value = values.remove(key);
+        return value != null ? value : fallback;
+    }
+
+    private static double number(Map<String, String> values, String key, double fallback) {
+        String value = values.remove(key);
+        return value != null ? Double.parseDouble(value) : fallback;
+    }
+}
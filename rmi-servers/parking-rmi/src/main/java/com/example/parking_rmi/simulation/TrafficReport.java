@@ -0,0 +1,117 @@
+package com.example.parking_rmi.simulation;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.example.parking_rmi.rmi.LatencyHistogram;
+
+/**
+ * Outcome counts and latencies of a TrafficGenerator run, per operation.
+ *
+ * ok: the call did what was asked; rejected: it answered no (spot taken,
+ * lot full, nothing to book), a normal outcome under load; error: it threw;
+ * no spot: not sent, the generator knew no free spot in the lot.
+ * Latency runs from the time the operation was due, not the time it was
+ * sent, so a saturated client or server shows up as latency instead of
+ * silently lowering the offered rate.
+ */
+public class TrafficReport {
+
+    public enum Operation {
+        LOOKUP, ENTRY, EXIT, RESERVE, CANCEL
+    }
+
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+    private final LongAdder dropped = new LongAdder();
+
+    public TrafficReport() {
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+    }
+
+    public void ok(Operation operation, long dueNanos) {
+        Stats s = stats.get(operation);
+        s.ok.increment();
+        s.latency.record(System.nanoTime() - dueNanos);
+    }
+
+    public void rejected(Operation operation, long dueNanos) {
+        Stats s = stats.get(operation);
+        s.rejected.increment();
+        s.latency.record(System.nanoTime() - dueNanos);
+    }
+
+    public void error(Operation operation, long dueNanos) {
+        Stats s = stats.get(operation);
+        s.errors.increment();
+        s.latency.record(System.nanoTime() - dueNanos);
+    }
+
+    /** Not sent: no free spot known in the lot. */
+    public void noSpot(Operation operation) {
+        stats.get(operation).noSpot.increment();
+    }
+
+    /** An arrival not sent because maxInFlight calls were already running. */
+    public void dropped() {
+        dropped.increment();
+    }
+
+    public long calls() {
+        long calls = 0;
+        for (Stats s : stats.values()) {
+            calls += s.latency.getCount();
+        }
+        return calls;
+    }
+
+    public long errors() {
+        long errors = 0;
+        for (Stats s : stats.values()) {
+            errors += s.errors.sum();
+        }
+        return errors;
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long count(Operation operation) {
+        Stats s = stats.get(operation);
+        return s.ok.sum() + s.rejected.sum() + s.errors.sum() + s.noSpot.sum();
+    }
+
+    public void print(PrintStream out, double seconds) {
+        out.printf("  %-8s %10s %10s %10s %8s %10s %10s %9s %9s %9s %9s %9s%n", "op", "calls", "ok", "rejected",
+                "errors", "no spot", "calls/s", "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms");
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            Stats s = entry.getValue();
+            long calls = s.latency.getCount();
+            out.printf("  %-8s %,10d %,10d %,10d %,8d %,10d %,10.0f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey(), calls, s.ok.sum(), s.rejected.sum(), s.errors.sum(), s.noSpot.sum(),
+                    calls / seconds,
+                    millis(s.latency.percentileNanos(0.5)), millis(s.latency.percentileNanos(0.9)),
+                    millis(s.latency.percentileNanos(0.99)), millis(s.latency.percentileNanos(0.999)),
+                    millis(s.latency.getMaxNanos()));
+        }
+        long calls = calls();
+        out.printf("  %,d calls in %.1f s: %,.0f calls/s, error rate %.3f%%, %,d arrival(s) dropped%n", calls,
+                seconds, calls / seconds, calls == 0 ? 0.0 : 100.0 * errors() / calls, dropped.sum());
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static final class Stats {
+        private final LongAdder ok = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder noSpot = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+    }
+}
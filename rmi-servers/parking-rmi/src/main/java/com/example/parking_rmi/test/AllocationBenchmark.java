@@ -0,0 +1,189 @@
+package com.example.parking_rmi.test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import com.example.parking_rmi.Repository.ParkingSpotRepository;
+import com.example.parking_rmi.dto.SpotPreferenceDTO;
+import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
+import com.example.parking_rmi.model.ParkingSpot.SpotType;
+import com.example.parking_rmi.service.SpotAllocator;
+import com.example.parking_rmi.service.SpotChangeLog;
+
+/**
+ * Many threads picking the best free spot of one lot, holding it and giving
+ * it back, two ways:
+ * - scan: every spot scored under the lot lock (what picking from a
+ *   SELECT of the lot's spots amounts to, minus the query)
+ * - SpotAllocator.claim/release (free spots per profile)
+ *
+ * The reservation itself (MySQL) is not measured. A spot held by two threads
+ * at once is a double allocation and is counted.
+ *
+ * Usage: AllocationBenchmark [threads] [allocationsPerThread] [spots]
+ */
+public class AllocationBenchmark {
+
+    private static final SpotType[] TYPES = { SpotType.STANDARD, SpotType.STANDARD, SpotType.STANDARD,
+            SpotType.COMPACT, SpotType.LARGE, SpotType.HANDICAPPED, SpotType.ELECTRIC };
+    private static final SpotPreferenceDTO[] PREFERENCES = {
+            new SpotPreferenceDTO(),
+            new SpotPreferenceDTO(null, 2, null, null, true, null, false),
+            new SpotPreferenceDTO("COMPACT", null, null, null, null, null, false),
+            new SpotPreferenceDTO(null, null, null, true, null, null, false),
+            new SpotPreferenceDTO(null, 0, "B", null, null, true, false) };
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int ops = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int spots = args.length > 2 ? Integer.parseInt(args[2]) : 5_000;
+        System.out.println("🏁 " + threads + " threads x " + ops + " allocations on one lot of " + spots + " spots");
+
+        List<Object[]> rows = rows(spots);
+        for (int round = 0; round < 2; round++) { // first round warms up the JIT
+            boolean print = round == 1;
+
+            Object lock = new Object();
+            byte[] statuses = new byte[spots];
+            for (int i = 0; i < spots; i++) {
+                statuses[i] = (byte) ((SpotStatus) rows.get(i)[1]).ordinal();
+            }
+            run("scan        ", threads, ops, spots, print, prefs -> {
+                synchronized (lock) {
+                    int best = -1;
+                    int bestScore = Integer.MIN_VALUE;
+                    for (int i = 0; i < spots; i++) {
+                        if (statuses[i] == SpotStatus.AVAILABLE.ordinal()) {
+                            int score = score(rows.get(i), prefs);
+                            if (score > bestScore) {
+                                best = i;
+                                bestScore = score;
+                            }
+                        }
+                    }
+                    if (best >= 0) {
+                        statuses[best] = (byte) SpotStatus.RESERVED.ordinal();
+                    }
+                    return best < 0 ? null : (long) best + 1;
+                }
+            }, spotId -> {
+                synchronized (lock) {
+                    statuses[(int) (spotId - 1)] = (byte) SpotStatus.AVAILABLE.ordinal();
+                }
+            });
+
+            ParkingSpotRepository repository = (ParkingSpotRepository) Proxy.newProxyInstance(
+                    ParkingSpotRepository.class.getClassLoader(), new Class<?>[] { ParkingSpotRepository.class },
+                    (proxy, method, a) -> {
+                        if (method.getName().equals("findAllocationRows")) {
+                            return rows;
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    });
+            SpotAllocator allocator = new SpotAllocator(repository, new SpotChangeLog(1024), null, null, 3);
+            run("SpotAllocator", threads, ops, spots, print, prefs -> allocator.claim(1L, prefs),
+                    spotId -> allocator.release(1L, spotId));
+        }
+    }
+
+    // Rows as ParkingSpotRepository.findAllocationRows returns them; about a third of the spots free
+    private static List<Object[]> rows(int spots) {
+        List<Object[]> rows = new ArrayList<>(spots);
+        for (int i = 0; i < spots; i++) {
+            SpotType type = TYPES[i % TYPES.length];
+            SpotStatus status = i % 3 == 0 ? SpotStatus.AVAILABLE : SpotStatus.OCCUPIED;
+            rows.add(new Object[] { (long) i + 1, status, type, (i / 250) % 4, String.valueOf((char) ('A' + i % 5)),
+                    type == SpotType.HANDICAPPED, i % 4 != 0, type == SpotType.ELECTRIC });
+        }
+        return rows;
+    }
+
+    // The weights of SpotAllocator, spot by spot
+    private static int score(Object[] row, SpotPreferenceDTO prefs) {
+        int score = 0;
+        if (prefs.getSpotType() != null && ((SpotType) row[2]).name().equals(prefs.getSpotType())) {
+            score += 1000;
+        }
+        if (Boolean.TRUE.equals(prefs.getAccessible()) && (Boolean) row[5]) {
+            score += 500;
+        }
+        if (Boolean.TRUE.equals(prefs.getElectricCharging()) && (Boolean) row[7]) {
+            score += 300;
+        }
+        if (prefs.getCovered() != null && prefs.getCovered() == (Boolean) row[6]) {
+            score += 100;
+        }
+        if (prefs.getFloorNumber() != null) {
+            score += 60 - Math.min(60, Math.abs(prefs.getFloorNumber() - (Integer) row[3]) * 15);
+        }
+        if (prefs.getSection() != null && prefs.getSection().equals(row[4])) {
+            score += 20;
+        }
+        return score;
+    }
+
+    @FunctionalInterface
+    private interface Claim {
+        Long claim(SpotPreferenceDTO preferences);
+    }
+
+    @FunctionalInterface
+    private interface Release {
+        void release(long spotId);
+    }
+
+    private static void run(String name, int threads, int ops, int spots, boolean print, Claim claim,
+            Release release) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        AtomicInteger ready = new AtomicInteger();
+        AtomicIntegerArray holders = new AtomicIntegerArray(spots + 1);
+        AtomicInteger doubles = new AtomicInteger();
+        AtomicInteger none = new AtomicInteger();
+        for (int t = 0; t < threads; t++) {
+            int id = t + 1;
+            Thread thread = new Thread(() -> {
+                ready.incrementAndGet();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < ops; i++) {
+                    Long spotId = claim.claim(PREFERENCES[(i + id) % PREFERENCES.length]);
+                    if (spotId == null) {
+                        none.incrementAndGet();
+                        continue;
+                    }
+                    int spot = spotId.intValue();
+                    if (!holders.compareAndSet(spot, 0, id)) {
+                        doubles.incrementAndGet();
+                        continue;
+                    }
+                    holders.set(spot, 0);
+                    release.release(spotId);
+                }
+                done.countDown();
+            });
+            thread.start();
+        }
+        while (ready.get() < threads) {
+            Thread.onSpinWait();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+
+        if (print) {
+            long total = (long) threads * ops;
+            double seconds = elapsed / 1e9;
+            System.out.printf("  %s %,14.0f allocations/s   double allocations: %,d   none free: %,d%n", name,
+                    total / seconds, doubles.get(), none.get());
+        }
+    }
+}
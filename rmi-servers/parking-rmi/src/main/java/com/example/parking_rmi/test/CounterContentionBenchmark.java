@@ -0,0 +1,104 @@
+package com.example.parking_rmi.test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
+import com.example.parking_rmi.service.LotCounters;
+
+/**
+ * Many threads moving spots of one lot in and out, three ways:
+ * - entity style: read availableSpots, add one, write it back (the old code path)
+ * - the same under a lock (what a SELECT ... FOR UPDATE on the lot row amounts to)
+ * - LotCounters.transition (atomic adds; the flush to MySQL is not measured)
+ *
+ * Every thread does as many entries as exits, so the final count must equal
+ * the initial one; anything else is lost updates.
+ *
+ * Usage: CounterContentionBenchmark [threads] [opsPerThread]
+ */
+public class CounterContentionBenchmark {
+
+    private static final int INITIAL = 1_000_000;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int ops = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        System.out.println("🏁 " + threads + " threads x " + ops + " ops on one lot");
+
+        for (int round = 0; round < 2; round++) { // first round warms up the JIT
+            boolean print = round == 1;
+
+            AtomicInteger plain = new AtomicInteger(INITIAL);
+            run("read-modify-write", threads, ops, print, i -> {
+                int value = plain.get();
+                plain.set(value + (i % 2 == 0 ? -1 : 1));
+            }, plain::get);
+
+            Object lock = new Object();
+            int[] locked = { INITIAL };
+            run("synchronized     ", threads, ops, print, i -> {
+                synchronized (lock) {
+                    locked[0] += i % 2 == 0 ? -1 : 1;
+                }
+            }, () -> locked[0]);
+
+            LotCounters counters = new LotCounters(null, null, null, 60_000);
+            // Not loaded from MySQL: start with every spot AVAILABLE
+            counters.lotCreated(1L, INITIAL);
+            run("LotCounters      ", threads, ops, print, i -> {
+                if (i % 2 == 0) {
+                    counters.transition(1L, SpotStatus.AVAILABLE, SpotStatus.OCCUPIED);
+                } else {
+                    counters.transition(1L, SpotStatus.OCCUPIED, SpotStatus.AVAILABLE);
+                }
+            }, () -> counters.available(1L));
+        }
+    }
+
+    @FunctionalInterface
+    private interface Op {
+        void run(int i);
+    }
+
+    @FunctionalInterface
+    private interface Reading {
+        int get();
+    }
+
+    private static void run(String name, int threads, int ops, boolean print, Op op, Reading reading)
+            throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        AtomicInteger ready = new AtomicInteger();
+        for (int t = 0; t < threads; t++) {
+            Thread thread = new Thread(() -> {
+                ready.incrementAndGet();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < ops; i++) {
+                    op.run(i);
+                }
+                done.countDown();
+            });
+            thread.start();
+        }
+        while (ready.get() < threads) {
+            Thread.onSpinWait();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+
+        if (print) {
+            long total = (long) threads * ops;
+            double seconds = elapsed / 1e9;
+            System.out.printf("  %s %,14.0f ops/s   lost updates: %,d%n", name, total / seconds,
+                    Math.abs(INITIAL - reading.get()));
+        }
+    }
+}
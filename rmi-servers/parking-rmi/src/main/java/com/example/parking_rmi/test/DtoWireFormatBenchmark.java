@@ -0,0 +1,104 @@
+package com.example.parking_rmi.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.parking_rmi.dto.ParkingSpotDTO;
+
+/**
+ * Serialized size and encode/decode time of a spot list:
+ * previous default Serializable format vs the Externalizable DTO format.
+ *
+ * Usage: DtoWireFormatBenchmark [spots] [iterations]
+ */
+public class DtoWireFormatBenchmark {
+
+    /** Field-for-field copy of ParkingSpotDTO as it was with default serialization. */
+    static class LegacySpotDTO implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        Long id;
+        String spotNumber;
+        String status;
+        String spotType;
+        Integer floorNumber;
+        String section;
+        Boolean isAccessible;
+        Boolean isCovered;
+        Boolean isElectricCharging;
+        LocalDateTime lastOccupiedAt;
+        Long parkingLotId;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        String[] statuses = { "AVAILABLE", "OCCUPIED", "RESERVED" };
+
+        ArrayList<LegacySpotDTO> legacy = new ArrayList<>();
+        ArrayList<ParkingSpotDTO> compact = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            LocalDateTime occupied = i % 3 == 1 ? LocalDateTime.now().minusMinutes(i) : null;
+            LegacySpotDTO l = new LegacySpotDTO();
+            l.id = (long) i;
+            l.spotNumber = "A-" + i;
+            l.status = statuses[i % 3];
+            l.spotType = "STANDARD";
+            l.floorNumber = 1 + i / 500;
+            l.section = "A";
+            l.isAccessible = i % 20 == 0;
+            l.isCovered = true;
+            l.isElectricCharging = i % 50 == 0;
+            l.lastOccupiedAt = occupied;
+            l.parkingLotId = 1L;
+            legacy.add(l);
+            compact.add(new ParkingSpotDTO(l.id, l.spotNumber, l.status, l.spotType, l.floorNumber, l.section,
+                    l.isAccessible, l.isCovered, l.isElectricCharging, l.lastOccupiedAt, l.parkingLotId));
+        }
+
+        System.out.println(count + " spots, " + iterations + " iterations");
+        measure("Serializable (before)", legacy, iterations);
+        measure("Externalizable (now) ", compact, iterations);
+    }
+
+    private static void measure(String label, List<?> list, int iterations) throws Exception {
+        byte[] bytes = encode(list);
+        for (int i = 0; i < iterations / 5; i++) {
+            decode(encode(list));
+        }
+
+        long encodeNanos = 0;
+        long decodeNanos = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            bytes = encode(list);
+            encodeNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            decode(bytes);
+            decodeNanos += System.nanoTime() - start;
+        }
+        System.out.printf("%s : %,d bytes  encode=%.3fms  decode=%.3fms%n", label, bytes.length,
+                encodeNanos / iterations / 1_000_000.0, decodeNanos / iterations / 1_000_000.0);
+    }
+
+    private static byte[] encode(Object value) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object decode(byte[] bytes) throws Exception {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+}
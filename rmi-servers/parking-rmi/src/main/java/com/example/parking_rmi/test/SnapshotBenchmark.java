@@ -0,0 +1,63 @@
+package com.example.parking_rmi.test;
+
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.util.Arrays;
+
+import com.example.parking_rmi.Interface.ParkingService;
+
+/**
+ * Compares the lot detail page cost against a running server:
+ * 3 sequential RMI calls vs the single getParkingLotSnapshot call.
+ *
+ * Usage: SnapshotBenchmark [host] [port] [parkingLotId] [iterations]
+ */
+public class SnapshotBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 1099;
+        long lotId = args.length > 2 ? Long.parseLong(args[2]) : 1L;
+        int iterations = args.length > 3 ? Integer.parseInt(args[3]) : 500;
+
+        Registry registry = LocateRegistry.getRegistry(host, port);
+        ParkingService service = (ParkingService) registry.lookup("parkingService");
+        System.out.println("✅ Connected to " + host + ":" + port + " - lot " + lotId);
+
+        // Warm up both paths (class loading, JIT, connection reuse)
+        for (int i = 0; i < 50; i++) {
+            threeCalls(service, lotId);
+            service.getParkingLotSnapshot(lotId);
+        }
+
+        long[] sequential = new long[iterations];
+        long[] snapshot = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            threeCalls(service, lotId);
+            sequential[i] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            service.getParkingLotSnapshot(lotId);
+            snapshot[i] = System.nanoTime() - start;
+        }
+
+        report("3 sequential calls", sequential);
+        report("snapshot call     ", snapshot);
+    }
+
+    private static void threeCalls(ParkingService service, long lotId) throws Exception {
+        service.getParkingLotById(lotId);
+        service.getAllSpotsByParkingLot(lotId);
+        service.getReservationDTOsByParkingLot(lotId);
+    }
+
+    private static void report(String label, long[] samples) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        double avg = Arrays.stream(sorted).average().orElse(0) / 1_000_000.0;
+        System.out.printf("%s : avg=%.3fms p50=%.3fms p99=%.3fms%n", label, avg,
+                sorted[sorted.length / 2] / 1_000_000.0,
+                sorted[(int) (sorted.length * 0.99)] / 1_000_000.0);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.parking_rmi.test;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.example.parking_rmi.dto.ParkingSpotDTO;
+import com.example.parking_rmi.rmi.RmiSocketOptions;
+import com.example.parking_rmi.rmi.TunedClientSocketFactory;
+import com.example.parking_rmi.rmi.TunedServerSocketFactory;
+import com.example.parking_rmi.rmi.TunedSocket;
+
+/**
+ * Bytes on the wire and latency of a large spot list over loopback RMI,
+ * plain sockets vs deflate-compressed sockets. No database needed.
+ *
+ * Usage: SocketFactoryBenchmark [spotsPerLot] [iterations]
+ */
+public class SocketFactoryBenchmark {
+
+    public interface SpotSource extends Remote {
+        List<ParkingSpotDTO> getAllSpotsByParkingLot(Long parkingLotId) throws RemoteException;
+    }
+
+    static class SyntheticLot implements SpotSource {
+        private final List<ParkingSpotDTO> spots = new ArrayList<>();
+
+        SyntheticLot(int count) {
+            String[] statuses = { "AVAILABLE", "OCCUPIED", "RESERVED" };
+            for (int i = 1; i <= count; i++) {
+                spots.add(new ParkingSpotDTO((long) i, "A-" + i, statuses[i % 3], "STANDARD",
+                        1 + i / 500, "A", i % 20 == 0, true, i % 50 == 0, null, 1L));
+            }
+        }
+
+        @Override
+        public List<ParkingSpotDTO> getAllSpotsByParkingLot(Long parkingLotId) {
+            return spots;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int spots = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+
+        System.out.println("Lot with " + spots + " spots, " + iterations + " calls");
+        run("plain     ", new RmiSocketOptions(false, 1, true, 0, 0), spots, iterations);
+        run("deflate(1)", new RmiSocketOptions(true, 1, true, 65536, 65536), spots, iterations);
+        run("deflate(6)", new RmiSocketOptions(true, 6, true, 65536, 65536), spots, iterations);
+        System.exit(0);
+    }
+
+    private static void run(String label, RmiSocketOptions options, int spots, int iterations) throws Exception {
+        SyntheticLot lot = new SyntheticLot(spots);
+        SpotSource stub = (SpotSource) UnicastRemoteObject.exportObject(lot, 0,
+                new TunedClientSocketFactory(options), new TunedServerSocketFactory(options));
+
+        for (int i = 0; i < 50; i++) {
+            stub.getAllSpotsByParkingLot(1L);
+        }
+
+        long[] samples = new long[iterations];
+        long sentBefore = TunedSocket.getBytesSent();
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            stub.getAllSpotsByParkingLot(1L);
+            samples[i] = System.nanoTime() - start;
+        }
+        // Loopback: both ends count, so sent bytes = request + response of every call
+        long bytesPerCall = (TunedSocket.getBytesSent() - sentBefore) / iterations;
+        UnicastRemoteObject.unexportObject(lot, true);
+
+        Arrays.sort(samples);
+        System.out.printf("%s : %,d bytes/call  p50=%.3fms p99=%.3fms%n", label, bytesPerCall,
+                samples[iterations / 2] / 1_000_000.0, samples[(int) (iterations * 0.99)] / 1_000_000.0);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.parking_rmi.dto;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
+
+public class DtoWireFormatTest {
+
+    @SuppressWarnings("unchecked")
+    private static <T> T roundTrip(T value) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (T) in.readObject();
+        }
+    }
+
+    @Test
+    void testSpotRoundTrip_WithNulls() throws Exception {
+        ParkingSpotDTO spot = new ParkingSpotDTO(7L, "B-12", "OCCUPIED", "ELECTRIC", 2, null,
+                true, null, true, LocalDateTime.of(2026, 3, 1, 8, 30, 15, 123456000), 3L);
+
+        assertEquals(spot, roundTrip(spot));
+        assertEquals(new ParkingSpotDTO(), roundTrip(new ParkingSpotDTO()));
+    }
+
+    @Test
+    void testUnknownStatusString_IsKept() throws Exception {
+        ParkingSpotDTO spot = new ParkingSpotDTO();
+        spot.setStatus("SOMETHING_NEW");
+
+        assertEquals("SOMETHING_NEW", roundTrip(spot).getStatus());
+    }
+
+    @Test
+    void testOrdinalOutOfRange_IsRejected() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeByte(SpotStatus.values().length);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertThrows(InvalidObjectException.class, () -> DtoWire.readEnum(in, SpotStatus.values()));
+        }
+    }
+
+    @Test
+    void testReservationRoundTrip_Decimals() throws Exception {
+        ReservationDTO reservation = ReservationDTO.builder()
+                .id(1L).userName("Fatima").userEmail("fatima@test.com").userPhone("0612345678")
+                .licensePlate("12345-A-6")
+                .startTime(LocalDateTime.of(2026, 1, 1, 10, 0))
+                .endTime(LocalDateTime.of(2026, 1, 1, 12, 0))
+                .durationHours(2).status("CONFIRMED").paymentStatus("PAID")
+                .totalAmount(new BigDecimal("20.50"))
+                .parkingLotId(1L).parkingSpotId(10L)
+                .build();
+
+        ReservationDTO copy = roundTrip(reservation);
+        assertEquals(reservation, copy);
+        assertEquals(2, copy.getTotalAmount().scale());
+
+        // Too large for a scaled long: falls back to the String form
+        reservation.setTotalAmount(new BigDecimal("123456789012345678901234567890.12"));
+        assertEquals(reservation.getTotalAmount(), roundTrip(reservation).getTotalAmount());
+    }
+
+    @Test
+    void testLotRoundTrip_WithChildren() throws Exception {
+        ParkingLotDTO lot = new ParkingLotDTO();
+        lot.setId(1L);
+        lot.setName("Agdal");
+        lot.setLatitude(new BigDecimal("33.97160000"));
+        lot.setLongitude(new BigDecimal("-6.84980000"));
+        lot.setStatus("FULL");
+        lot.setHourlyRate(new BigDecimal("10.00"));
+        List<ParkingSpotDTO> spots = new ArrayList<>();
+        spots.add(new ParkingSpotDTO(1L, "A-1", "AVAILABLE", "STANDARD", 1, "A", false, true, false, null, 1L));
+        lot.setParkingSpot(spots);
+        lot.setReservations(null);
+
+        ParkingLotDTO copy = roundTrip(lot);
+        assertEquals(lot, copy);
+        assertNull(copy.getReservations());
+    }
+}
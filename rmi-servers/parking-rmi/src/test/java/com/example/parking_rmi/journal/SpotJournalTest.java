@@ -0,0 +1,139 @@
+package com.example.parking_rmi.journal;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
+
+public class SpotJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testConcurrentAppends_AreDurableInOrder_AndReplayed() throws Exception {
+        List<SpotTransition> durable = new CopyOnWriteArrayList<>();
+        // Small segments: the log rolls several times
+        try (SpotJournal journal = new SpotJournal(dir, 40 * 50, durable::addAll)) {
+            journal.open(0);
+            ExecutorService pool = Executors.newFixedThreadPool(8);
+            List<Future<Long>> seqs = new ArrayList<>();
+            for (long spot = 1; spot <= 400; spot++) {
+                long spotId = spot;
+                seqs.add(pool.submit(() -> journal.append(() -> SpotTransition.of(7L, spotId,
+                        SpotTransition.Kind.ENTRY, SpotStatus.AVAILABLE, SpotStatus.OCCUPIED))));
+            }
+            for (Future<Long> seq : seqs) {
+                assertTrue(seq.get() > 0);
+            }
+            pool.shutdown();
+            assertEquals(-1, journal.append(() -> null));
+        }
+        assertEquals(400, durable.size());
+        for (int i = 0; i < durable.size(); i++) {
+            assertEquals(i + 1, durable.get(i).seq());
+        }
+
+        List<SpotTransition> replayed = new ArrayList<>();
+        assertEquals(400, new SpotJournal(dir, 40 * 50, batch -> { }).replay(replayed::add));
+        assertEquals(durable, replayed);
+    }
+
+    @Test
+    void testReplay_StopsAtTornRecord_AndSkipsCheckpointed() throws Exception {
+        try (SpotJournal journal = new SpotJournal(dir, 4096, batch -> { })) {
+            journal.open(0);
+            for (long spot = 1; spot <= 5; spot++) {
+                long spotId = spot;
+                journal.append(() -> SpotTransition.of(1L, spotId, SpotTransition.Kind.EXIT, SpotStatus.OCCUPIED,
+                        SpotStatus.AVAILABLE));
+            }
+            journal.checkpoint(2);
+        }
+        // Crash in the middle of record 5
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.filter(p -> p.getFileName().toString().endsWith(".log")).findFirst().orElseThrow();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(4L * SpotJournal.RECORD_BYTES + 20);
+            file.write(0x5A);
+        }
+
+        SpotJournal reopened = new SpotJournal(dir, 4096, batch -> { });
+        List<SpotTransition> replayed = new ArrayList<>();
+        long last = reopened.replay(replayed::add);
+        assertEquals(4, last);
+        assertEquals(List.of(3L, 4L), replayed.stream().map(SpotTransition::seq).toList());
+        assertEquals(SpotStatus.OCCUPIED, replayed.get(0).from());
+
+        // Appending resumes after the last good record
+        reopened.open(last);
+        assertEquals(5, reopened.append(() -> SpotTransition.of(1L, 9L, SpotTransition.Kind.ENTRY, null,
+                SpotStatus.OCCUPIED)));
+        reopened.close();
+        List<SpotTransition> again = new ArrayList<>();
+        assertEquals(5, new SpotJournal(dir, 4096, batch -> { }).replay(again::add));
+        assertEquals(5, again.get(again.size() - 1).seq());
+        assertNull(again.get(again.size() - 1).from());
+    }
+
+    @Test
+    void testHistory_SkipsSegmentsWithoutTheSpot_AndTrimKeepsWhatRecoveryNeeds() throws Exception {
+        long old = System.currentTimeMillis() - 3 * 24 * 3_600_000L;
+        // 10 records per segment: spot 1, then spot 2, then spot 1 again (the last two recent)
+        try (SpotJournal journal = new SpotJournal(dir, 40 * 10, batch -> { })) {
+            journal.open(0);
+            for (int i = 0; i < 31; i++) {
+                long spotId = i / 10 == 1 ? 2L : 1L;
+                long at = i < 10 ? old : System.currentTimeMillis();
+                journal.submit(new SpotTransition(0, 1L, spotId, SpotTransition.Kind.ENTRY, SpotStatus.AVAILABLE,
+                        SpotStatus.OCCUPIED, at));
+            }
+        }
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(dir)) {
+            segments = files.filter(p -> p.getFileName().toString().endsWith(".log")).sorted().toList();
+        }
+        assertEquals(4, segments.size());
+
+        SpotJournal reopened = new SpotJournal(dir, 40 * 10, batch -> { });
+        reopened.open(reopened.lastLoggedSeq());
+        assertEquals(21, reopened.history(1L, null, 100).size()); // first read: summaries built
+        // Plant a spot 1 record in the spot 2 segment: it is seen only if that segment is read
+        try (RandomAccessFile first = new RandomAccessFile(segments.get(0).toFile(), "r");
+                RandomAccessFile second = new RandomAccessFile(segments.get(1).toFile(), "rw")) {
+            byte[] record = new byte[SpotJournal.RECORD_BYTES];
+            first.readFully(record);
+            second.write(record);
+        }
+        assertEquals(21, reopened.history(1L, null, 100).size());
+        assertEquals(List.of(10L, 9L), reopened.history(1L, 11L, 2).stream().map(SpotTransition::seq).toList());
+
+        // Only the first segment is old, and records past 25 are needed by recovery
+        assertEquals(0, reopened.trim(5, System.currentTimeMillis() - 3_600_000L, Long.MAX_VALUE));
+        assertEquals(1, reopened.trim(25, System.currentTimeMillis() - 3_600_000L, Long.MAX_VALUE));
+        // Over the size limit: recent segments go too, never past upToSeq nor the one being written
+        assertEquals(1, reopened.trim(25, 0, 0));
+        assertEquals(2, reopened.trim(Long.MAX_VALUE, 0, 0)); // 21-30 and 31, sealed by the reopen
+        assertEquals(List.of(), reopened.history(1L, null, 100));
+        reopened.submit(SpotTransition.of(1L, 1L, SpotTransition.Kind.EXIT, SpotStatus.OCCUPIED,
+                SpotStatus.AVAILABLE));
+        assertEquals(List.of(32L), reopened.history(1L, null, 100).stream().map(SpotTransition::seq).toList());
+        reopened.close();
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.parking_rmi.rmi;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+public class CallLimiterTest {
+
+    @Test
+    void testCallRunsWithinLimit() throws Exception {
+        CallLimiter limiter = new CallLimiter(CallClass.READ, 2, 0, 0);
+
+        assertEquals("ok", limiter.call("getAllParkingLots", () -> "ok"));
+        assertEquals(1, limiter.getAdmitted());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void testRejectsWhenQueueFull() throws Exception {
+        CallLimiter limiter = new CallLimiter(CallClass.WRITE, 1, 0, 0);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> running = executor.submit(() -> limiter.call("simulateCarEntry", () -> {
+                started.countDown();
+                await(release);
+                return true;
+            }));
+            started.await(5, TimeUnit.SECONDS);
+
+            assertThrows(ServerBusyException.class, () -> limiter.call("simulateCarExit", () -> true));
+            assertEquals(1, limiter.getRejected());
+            assertEquals(1, limiter.getInFlight());
+
+            release.countDown();
+            assertEquals(true, running.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testQueuedCallTimesOut() throws Exception {
+        CallLimiter limiter = new CallLimiter(CallClass.ADMIN, 1, 5, 50);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> limiter.call("getParkingLotStats", () -> {
+                started.countDown();
+                await(release);
+                return null;
+            }));
+            started.await(5, TimeUnit.SECONDS);
+
+            assertThrows(ServerBusyException.class, () -> limiter.call("findByStatus", () -> null));
+            assertEquals(1, limiter.getTimedOut());
+            assertEquals(0, limiter.getQueueDepth());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.parking_rmi.rmi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    void testPercentiles_WithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1_000);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertWithin(500_000, histogram.percentileNanos(0.50));
+        assertWithin(990_000, histogram.percentileNanos(0.99));
+        assertWithin(999_000, histogram.percentileNanos(0.999));
+        assertEquals(1_000_000, histogram.getMaxNanos());
+    }
+
+    @Test
+    void testBucketBoundaries() {
+        for (long value : new long[] { 0, 1, 15, 16, 17, 31, 32, 1_000, 123_456_789, 1L << 40 }) {
+            long estimate = LatencyHistogram.valueOf(LatencyHistogram.bucketOf(value));
+            assertTrue(Math.abs(estimate - value) <= Math.max(1, value / 16), value + " -> " + estimate);
+        }
+    }
+
+    @Test
+    void testMethodMetrics_CountsErrors() throws Exception {
+        MethodMetrics metrics = new MethodMetrics("cancelReservation");
+
+        metrics.record(() -> true);
+        assertThrows(ServerBusyException.class, () -> metrics.record(() -> {
+            throw new ServerBusyException("busy");
+        }));
+
+        assertEquals(2, metrics.getCalls());
+        assertEquals(1, metrics.getErrors());
+        assertEquals(0, metrics.getInFlight());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / 16, "expected ~" + expected + " but was " + actual);
+    }
+}
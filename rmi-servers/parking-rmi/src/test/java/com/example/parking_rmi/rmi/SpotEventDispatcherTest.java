@@ -0,0 +1,117 @@
+package com.example.parking_rmi.rmi;
+
+import java.rmi.ConnectException;
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.example.parking_rmi.Interface.SpotEventListener;
+import com.example.parking_rmi.dto.SpotEventDTO;
+
+public class SpotEventDispatcherTest {
+
+    @Test
+    void testSlowListenerGetsCoalescedEvents() throws Exception {
+        CountDownLatch firstCall = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingQueue<List<SpotEventDTO>> batches = new LinkedBlockingQueue<>();
+        SpotEventListener listener = events -> {
+            batches.add(events);
+            firstCall.countDown();
+            await(release);
+        };
+
+        try (SpotEventDispatcher dispatcher = new SpotEventDispatcher(100, 100, 3)) {
+            dispatcher.subscribe(listener, 1L);
+            dispatcher.publish(event(1L, 10L, "OCCUPIED", 1));
+            assertTrue(firstCall.await(5, TimeUnit.SECONDS));
+
+            // Listener is stuck: publishing must not block and keeps only the latest status per spot
+            dispatcher.publish(event(1L, 11L, "RESERVED", 2));
+            dispatcher.publish(event(1L, 10L, "AVAILABLE", 3));
+            dispatcher.publish(event(1L, 11L, "OCCUPIED", 4));
+            dispatcher.publish(event(2L, 20L, "OCCUPIED", 5)); // not subscribed
+            release.countDown();
+
+            assertEquals(1, batches.poll(5, TimeUnit.SECONDS).size());
+            List<SpotEventDTO> second = batches.poll(5, TimeUnit.SECONDS);
+            assertNotNull(second);
+            assertEquals(2, second.size());
+            assertEquals("AVAILABLE", second.get(0).getStatus());
+            assertEquals("OCCUPIED", second.get(1).getStatus());
+            assertEquals(1, dispatcher.getCoalesced());
+            assertNull(batches.poll(200, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    void testOverflowTurnsIntoResync() throws Exception {
+        CountDownLatch firstCall = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingQueue<List<SpotEventDTO>> batches = new LinkedBlockingQueue<>();
+        SpotEventListener listener = events -> {
+            batches.add(events);
+            firstCall.countDown();
+            await(release);
+        };
+
+        try (SpotEventDispatcher dispatcher = new SpotEventDispatcher(3, 100, 3)) {
+            dispatcher.subscribe(listener, null);
+            dispatcher.publish(event(1L, 1L, "OCCUPIED", 1));
+            assertTrue(firstCall.await(5, TimeUnit.SECONDS));
+            for (long spot = 2; spot <= 10; spot++) {
+                dispatcher.publish(event(1L, spot, "OCCUPIED", spot));
+            }
+            release.countDown();
+
+            batches.poll(5, TimeUnit.SECONDS);
+            List<SpotEventDTO> resync = batches.poll(5, TimeUnit.SECONDS);
+            assertNotNull(resync);
+            assertTrue(resync.get(0).isResync());
+            assertEquals(1L, resync.get(0).getParkingLotId());
+            assertTrue(dispatcher.getOverflows() > 0);
+        }
+    }
+
+    @Test
+    void testUnreachableListenerIsDropped() throws Exception {
+        CountDownLatch called = new CountDownLatch(1);
+        SpotEventListener listener = events -> {
+            called.countDown();
+            throw new ConnectException("gone");
+        };
+
+        try (SpotEventDispatcher dispatcher = new SpotEventDispatcher(100, 100, 3)) {
+            dispatcher.subscribe(listener, null);
+            dispatcher.publish(event(1L, 1L, "OCCUPIED", 1));
+            assertTrue(called.await(5, TimeUnit.SECONDS));
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (dispatcher.getSubscriberCount() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, dispatcher.getSubscriberCount());
+        }
+    }
+
+    private static SpotEventDTO event(Long lotId, Long spotId, String status, long version) {
+        return new SpotEventDTO(lotId, spotId, "S" + spotId, status, 0, version, false);
+    }
+
+    private static void await(CountDownLatch latch) throws RemoteException {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.parking_rmi.rmi;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.example.parking_rmi.dto.ParkingSpotDTO;
+
+public class TunedSocketFactoryTest {
+
+    public interface SpotSource extends Remote {
+        List<ParkingSpotDTO> spots(int count) throws RemoteException;
+    }
+
+    static class SpotSourceImpl implements SpotSource {
+        @Override
+        public List<ParkingSpotDTO> spots(int count) {
+            List<ParkingSpotDTO> list = new ArrayList<>();
+            for (int i = 1; i <= count; i++) {
+                list.add(new ParkingSpotDTO((long) i, "A-" + i, "AVAILABLE", "STANDARD", 1, "A",
+                        false, true, false, null, 1L));
+            }
+            return list;
+        }
+    }
+
+    private long bytesForCall(RmiSocketOptions options, int count) throws Exception {
+        SpotSourceImpl impl = new SpotSourceImpl();
+        SpotSource stub = (SpotSource) UnicastRemoteObject.exportObject(impl, 0,
+                new TunedClientSocketFactory(options), new TunedServerSocketFactory(options));
+        try {
+            stub.spots(1); // open the connection first
+            long before = TunedSocket.getBytesSent();
+            List<ParkingSpotDTO> result = stub.spots(count);
+            assertEquals(count, result.size());
+            assertEquals("A-" + count, result.get(count - 1).getSpotNumber());
+            return TunedSocket.getBytesSent() - before;
+        } finally {
+            UnicastRemoteObject.unexportObject(impl, true);
+        }
+    }
+
+    @Test
+    void testCompressedRoundTrip_SendsFewerBytes() throws Exception {
+        RmiSocketOptions plain = new RmiSocketOptions(false, 1, true, 0, 0);
+        RmiSocketOptions compressed = new RmiSocketOptions(true, 1, true, 65536, 65536);
+
+        long plainBytes = bytesForCall(plain, 2000);
+        long compressedBytes = bytesForCall(compressed, 2000);
+
+        assertTrue(compressedBytes * 3 < plainBytes,
+                "compressed=" + compressedBytes + " plain=" + plainBytes);
+    }
+
+    @Test
+    void testFactoriesWithSameOptionsAreEqual() {
+        // RMI reuses connections only between equal client factories
+        assertEquals(new TunedClientSocketFactory(new RmiSocketOptions()),
+                new TunedClientSocketFactory(new RmiSocketOptions()));
+    }
+}
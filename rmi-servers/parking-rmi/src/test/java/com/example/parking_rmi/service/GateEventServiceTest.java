@@ -0,0 +1,164 @@
+package com.example.parking_rmi.service;
+
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import com.example.parking_rmi.Repository.ParkingSpotRepository;
+import com.example.parking_rmi.dto.GateEventDTO;
+import com.example.parking_rmi.dto.GateEventResultDTO;
+import com.example.parking_rmi.journal.SpotTransition;
+import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
+
+public class GateEventServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private final ParkingSpotRepository parkingSpotRepository = mock(ParkingSpotRepository.class);
+    private final LotCounters lotCounters = mock(LotCounters.class);
+    private final SpotChangeLog spotChangeLog = mock(SpotChangeLog.class);
+    private final SpotHistory spotHistory = mock(SpotHistory.class);
+    private final LotShardService lotShard = mock(LotShardService.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final GateEventService service = new GateEventService(parkingSpotRepository, lotCounters, spotChangeLog,
+            spotHistory, lotShard, jdbcTemplate, 100);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testApply_OneUpdatePerSpot_NetCountersPerLot_ResultsInOrder() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { 1L, 10L, SpotStatus.AVAILABLE });
+        rows.add(new Object[] { 2L, 20L, SpotStatus.OCCUPIED });
+        rows.add(new Object[] { 1L, 11L, SpotStatus.OCCUPIED });
+        rows.add(new Object[] { 3L, 30L, SpotStatus.AVAILABLE });
+        when(parkingSpotRepository.findSpotStatesByIdIn(anyCollection())).thenReturn(rows);
+        when(lotShard.owns(anyLong())).thenAnswer(call -> !Long.valueOf(3L).equals(call.getArgument(0)));
+        // Spot 10 written, spot 20 changed by someone else meanwhile
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any()))
+                .thenReturn(new int[][] { { 1, 0 } });
+
+        List<GateEventResultDTO> results = service.apply(List.of(
+                new GateEventDTO(10L, "ENTRY", 1_000L),
+                new GateEventDTO(10L, "exit", 2_000L),
+                new GateEventDTO(10L, "ENTRY", 3_000L),
+                new GateEventDTO(11L, "ENTRY", 1_000L),
+                new GateEventDTO(20L, "EXIT", 1_000L),
+                new GateEventDTO(30L, "ENTRY", 1_000L),
+                new GateEventDTO(99L, "ENTRY", 1_000L),
+                new GateEventDTO(10L, "PARK", 1_000L)));
+
+        assertEquals(List.of("APPLIED", "APPLIED", "APPLIED", "UNCHANGED", "CONFLICT", "WRONG_SHARD", "NOT_FOUND",
+                "INVALID"), results.stream().map(GateEventResultDTO::getResult).toList());
+        assertEquals(1L, results.get(0).getParkingLotId());
+
+        ArgumentCaptor<Collection<?>> written = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), written.capture(), anyInt(), any());
+        assertEquals(2, written.getValue().size()); // 10 and 20 only, each once
+
+        ArgumentCaptor<int[]> delta = ArgumentCaptor.forClass(int[].class);
+        verify(lotCounters, times(1)).add(eq(1L), delta.capture());
+        int[] expected = new int[SpotStatus.values().length];
+        expected[SpotStatus.AVAILABLE.ordinal()] = -1;
+        expected[SpotStatus.OCCUPIED.ordinal()] = 1;
+        assertArrayEquals(expected, delta.getValue());
+        verify(lotCounters, never()).add(eq(2L), any());
+        verify(lotCounters, never()).transition(any(), any(), any());
+
+        verify(spotChangeLog).spotChanged(1L, 10L, SpotStatus.OCCUPIED);
+        verify(spotChangeLog, never()).spotChanged(eq(2L), any(), any());
+        verify(spotHistory, times(2)).record(1L, 10L, SpotTransition.Kind.ENTRY, SpotStatus.AVAILABLE,
+                SpotStatus.OCCUPIED);
+        verify(spotHistory).record(1L, 10L, SpotTransition.Kind.EXIT, SpotStatus.OCCUPIED, SpotStatus.AVAILABLE);
+        verify(spotHistory, never()).record(eq(2L), any(), any(), any(), any());
+    }
+
+    @Test
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    void testApply_BackDatedEvent_IsStillReReadByRecovery() throws Exception {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { 1L, 10L, SpotStatus.AVAILABLE });
+        when(parkingSpotRepository.findSpotStates()).thenReturn(rows);
+        when(parkingSpotRepository.findSpotStatesByIdIn(anyCollection())).thenReturn(rows);
+        when(lotShard.owns(anyLong())).thenReturn(true);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any()))
+                .thenReturn(new int[][] { { 1 } });
+        SpotStateStore store = new SpotStateStore(parkingSpotRepository, new SpotChangeLog(16), true);
+        SpotHistory history = history(store);
+        store.load(null);
+        history.snapshot();
+
+        // A gate controller replaying a car that came in two days ago
+        long enteredAt = System.currentTimeMillis() - 2 * 24 * 3_600_000L;
+        long before = System.currentTimeMillis();
+        service.apply(List.of(new GateEventDTO(10L, "ENTRY", enteredAt)));
+
+        // The row as MySQL gets it
+        ArgumentCaptor<Collection> batch = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<ParameterizedPreparedStatementSetter> setter =
+                ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), batch.capture(), anyInt(), setter.capture());
+        PreparedStatement ps = mock(PreparedStatement.class);
+        setter.getValue().setValues(ps, batch.getValue().iterator().next());
+        ArgumentCaptor<Timestamp> stamps = ArgumentCaptor.forClass(Timestamp.class);
+        verify(ps, times(2)).setTimestamp(anyInt(), stamps.capture());
+        assertEquals(enteredAt, stamps.getAllValues().get(0).getTime()); // last_occupied_at
+        Timestamp updatedAt = stamps.getAllValues().get(1);
+        assertTrue(updatedAt.getTime() >= before);
+
+        // Crash before the history event reached the disk: recovery re-reads the row by updated_at
+        when(parkingSpotRepository.findSpotStatesUpdatedSince(any())).thenAnswer(call -> {
+            List<Object[]> recent = new ArrayList<>();
+            if (!updatedAt.toLocalDateTime().isBefore(call.getArgument(0))) {
+                recent.add(new Object[] { 1L, 10L, SpotStatus.OCCUPIED });
+            }
+            return recent;
+        });
+        SpotStateStore restarted = new SpotStateStore(parkingSpotRepository, new SpotChangeLog(16), true);
+        SpotHistory recovered = history(restarted);
+        assertTrue(recovered.recover(null));
+        assertEquals(List.of(10L), restarted.firstSpotIds(1L, SpotStatus.OCCUPIED, 5));
+        recovered.stop();
+    }
+
+    @Test
+    void testApply_RejectsOversizedBatch() {
+        List<GateEventDTO> events = new ArrayList<>();
+        for (long i = 0; i < 101; i++) {
+            events.add(new GateEventDTO(i, "ENTRY", null));
+        }
+        assertThrows(IllegalArgumentException.class, () -> service.apply(events));
+        assertEquals(List.of(), service.apply(List.of()));
+    }
+
+    private SpotHistory history(SpotStateStore store) throws Exception {
+        SpotHistory history = new SpotHistory(store, mock(LotCounters.class), parkingSpotRepository, true,
+                dir.toString(), 1, 3_600_000, 2, 60_000, 168, 4096);
+        history.start();
+        return history;
+    }
+}
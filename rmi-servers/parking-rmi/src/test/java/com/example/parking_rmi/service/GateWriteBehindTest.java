@@ -0,0 +1,114 @@
+package com.example.parking_rmi.service;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.parking_rmi.Repository.ParkingSpotRepository;
+import com.example.parking_rmi.journal.SpotTransition;
+import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
+import com.example.parking_rmi.rmi.ServerBusyException;
+
+public class GateWriteBehindTest {
+
+    @TempDir
+    Path dir;
+
+    private final ParkingSpotRepository repository = mock(ParkingSpotRepository.class);
+    private final LotCounters counters = mock(LotCounters.class);
+    private final SpotHistory history = mock(SpotHistory.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testUnmatchedFlush_ReloadsTheSpot_AndUndoesItsCount() throws Exception {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { 1L, 10L, SpotStatus.AVAILABLE });
+        when(repository.findSpotStates()).thenReturn(rows);
+        SpotStateStore store = new SpotStateStore(repository, new SpotChangeLog(16), true);
+        store.load(null);
+        TransactionTemplate tx = mock(TransactionTemplate.class);
+        when(tx.execute(any())).thenAnswer(i -> ((TransactionCallback<Object>) i.getArgument(0)).doInTransaction(null));
+        // Flush-ms of an hour: flushes happen in exclusive() and reconcile() only
+        GateWriteBehind writeBehind = new GateWriteBehind(store, counters, new SpotChangeLog(16), history,
+                mock(LotShardService.class), repository, jdbcTemplate, tx, true, dir.toString(), 1, 100, 3_600_000,
+                1000);
+        writeBehind.start();
+
+        // Acknowledged once on disk, and only then in the store
+        assertTrue(writeBehind.enter(10L));
+        assertEquals(SpotStatus.OCCUPIED, store.status(1L, 10L));
+        assertFalse(writeBehind.enter(10L));
+
+        // Someone outside this process reserved the spot in MySQL before the flush: the row does not match
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any())).thenReturn(new int[][] { { 0 } });
+        boolean ran = writeBehind.exclusive(1L, () -> {
+            verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+            return true;
+        });
+        assertTrue(ran);
+        verify(counters).transition(1L, SpotStatus.AVAILABLE, SpotStatus.OCCUPIED);
+
+        List<Object[]> actual = new ArrayList<>();
+        actual.add(new Object[] { 1L, 10L, SpotStatus.RESERVED });
+        when(repository.findSpotStatesByIdIn(anyCollection())).thenReturn(actual);
+        writeBehind.reconcile();
+        assertEquals(SpotStatus.RESERVED, store.status(1L, 10L));
+        verify(counters).transition(1L, SpotStatus.OCCUPIED, SpotStatus.RESERVED);
+        verify(history).record(1L, 10L, SpotTransition.Kind.STATUS, SpotStatus.OCCUPIED, SpotStatus.RESERVED);
+
+        // Nothing left to reconcile
+        writeBehind.reconcile();
+        verify(repository, times(1)).findSpotStatesByIdIn(anyCollection());
+        writeBehind.stop();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFailedFlush_RefusesTheStatusWrite_AndDroppedLotGoesSynchronous() throws Exception {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { 1L, 10L, SpotStatus.AVAILABLE });
+        rows.add(new Object[] { 1L, 11L, SpotStatus.AVAILABLE });
+        when(repository.findSpotStates()).thenReturn(rows);
+        SpotChangeLog changeLog = new SpotChangeLog(16);
+        SpotStateStore store = new SpotStateStore(repository, changeLog, true);
+        store.load(null);
+        TransactionTemplate tx = mock(TransactionTemplate.class);
+        when(tx.execute(any())).thenThrow(new IllegalStateException("MySQL down"));
+        GateWriteBehind writeBehind = new GateWriteBehind(store, counters, changeLog, history,
+                mock(LotShardService.class), repository, jdbcTemplate, tx, true, dir.toString(), 1, 100, 3_600_000,
+                1000);
+        writeBehind.start();
+
+        // The entry is journaled but cannot reach MySQL: a reservation must not take the spot there
+        assertTrue(writeBehind.enter(10L));
+        AtomicBoolean ran = new AtomicBoolean();
+        assertThrows(ServerBusyException.class, () -> writeBehind.exclusive(1L, () -> ran.getAndSet(true)));
+        assertFalse(ran.get());
+
+        // Lot dropped from the store (its status became unknown): not "already occupied", the caller goes synchronous
+        changeLog.spotChanged(1L, 11L);
+        assertNull(writeBehind.enter(11L));
+        writeBehind.stop();
+    }
+}
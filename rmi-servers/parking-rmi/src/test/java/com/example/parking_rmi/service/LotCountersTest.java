@@ -0,0 +1,104 @@
+package com.example.parking_rmi.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.parking_rmi.Repository.ParkingLotRepository;
+import com.example.parking_rmi.Repository.ParkingSpotRepository;
+import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
+
+public class LotCountersTest {
+
+    private final ParkingLotRepository lotRepository = mock(ParkingLotRepository.class);
+    private final ParkingSpotRepository spotRepository = mock(ParkingSpotRepository.class);
+
+    @Test
+    void testConcurrentTransitions_AreNotLost_AndFlushAsOneDelta() throws Exception {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { 1L, SpotStatus.AVAILABLE, 10_000L });
+        when(spotRepository.countSpotsGroupedByParkingLotAndStatus()).thenReturn(rows);
+        LotCounters counters = new LotCounters(lotRepository, spotRepository, null, 60_000);
+        counters.load(null);
+
+        int threads = 8;
+        int perThread = 1000;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    counters.transition(1L, SpotStatus.AVAILABLE, SpotStatus.OCCUPIED);
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(10_000 - threads * perThread, counters.available(1L));
+        assertEquals(threads * perThread, counters.count(1L, SpotStatus.OCCUPIED));
+        assertEquals(1, counters.flush());
+        verify(lotRepository).addAvailableSpots(1L, -threads * perThread);
+        assertEquals(0, counters.flush()); // nothing left
+    }
+
+    @Test
+    void testFailedFlush_KeepsDelta_AndUnknownLotFallsBack() {
+        LotCounters counters = new LotCounters(lotRepository, spotRepository, null, 60_000);
+        when(lotRepository.addAvailableSpots(anyLong(), anyInt()))
+                .thenThrow(new IllegalStateException("db down"))
+                .thenReturn(1);
+
+        counters.transition(2L, SpotStatus.OCCUPIED, SpotStatus.AVAILABLE);
+        counters.transition(2L, SpotStatus.RESERVED, SpotStatus.AVAILABLE);
+        counters.transition(2L, SpotStatus.RESERVED, SpotStatus.OCCUPIED); // no change in available spots
+        assertNull(counters.available(2L)); // never loaded: readers use the column
+
+        assertEquals(0, counters.flush());
+        assertEquals(1, counters.flush());
+        verify(lotRepository, times(2)).addAvailableSpots(eq(2L), eq(2));
+    }
+
+    @Test
+    void testTransitionDuringLoad_IsKeptOnTopOfTheQueriedCounts() {
+        LotCounters counters = new LotCounters(lotRepository, spotRepository, null, 60_000);
+        counters.transition(3L, SpotStatus.AVAILABLE, SpotStatus.OCCUPIED); // before the query: in its result
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { 3L, SpotStatus.AVAILABLE, 9L });
+        rows.add(new Object[] { 3L, SpotStatus.OCCUPIED, 1L });
+        when(spotRepository.countSpotsGroupedByParkingLotAndStatus()).thenAnswer(call -> {
+            // Commits after the query read the rows: not in its result
+            counters.transition(3L, SpotStatus.AVAILABLE, SpotStatus.RESERVED);
+            return rows;
+        });
+
+        counters.load(null);
+
+        assertEquals(8, counters.available(3L));
+        assertEquals(1, counters.count(3L, SpotStatus.RESERVED));
+        verify(lotRepository).setAvailableSpotsIfDifferent(3L, 9);
+        assertEquals(1, counters.flush());
+        verify(lotRepository).addAvailableSpots(3L, -1);
+    }
+}
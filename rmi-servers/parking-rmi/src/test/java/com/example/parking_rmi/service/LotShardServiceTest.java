@@ -0,0 +1,56 @@
+package com.example.parking_rmi.service;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.example.parking_rmi.Repository.ParkingLotRepository;
+import com.example.parking_rmi.Repository.ParkingSpotRepository;
+import com.example.parking_rmi.Repository.ReservationRepository;
+import com.example.parking_rmi.rmi.WrongShardException;
+
+public class LotShardServiceTest {
+
+    private ParkingLotRepository parkingLotRepository;
+    private ParkingSpotRepository parkingSpotRepository;
+    private LotShardService lotShard;
+
+    @BeforeEach
+    void setUp() {
+        parkingLotRepository = mock(ParkingLotRepository.class);
+        parkingSpotRepository = mock(ParkingSpotRepository.class);
+        lotShard = new LotShardService(parkingLotRepository, parkingSpotRepository,
+                mock(ReservationRepository.class), true, "north", 1099);
+        when(parkingLotRepository.findIdsAndServiceNamesByRmiHostAndRmiPort("north", 1099))
+                .thenReturn(List.<Object[]>of(new Object[] { 1L, "parking-agdal" }));
+    }
+
+    @Test
+    void testSpotOfOtherInstance_IsRejected() {
+        when(parkingSpotRepository.findParkingLotIdBySpotId(10L)).thenReturn(2L);
+        when(parkingLotRepository.findRmiHostAndPortById(2L))
+                .thenReturn(List.<Object[]>of(new Object[] { "south", 1100 }));
+
+        WrongShardException e = assertThrows(WrongShardException.class, () -> lotShard.checkSpot(10L));
+        assertEquals(2L, e.getParkingLotId());
+    }
+
+    @Test
+    void testOwnedAndUnknownLots_AreAccepted() {
+        when(parkingLotRepository.findRmiHostAndPortById(99L)).thenReturn(List.of());
+
+        assertDoesNotThrow(() -> lotShard.checkLot(1L));
+        assertDoesNotThrow(() -> lotShard.checkLot(99L));
+    }
+
+    @Test
+    void testFilterOwned_KeepsOwnLotsOnly() {
+        assertEquals(List.of(1L), lotShard.filterOwned(List.of(1L, 2L, 3L), id -> id));
+    }
+}
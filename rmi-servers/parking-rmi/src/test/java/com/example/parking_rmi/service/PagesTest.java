@@ -0,0 +1,38 @@
+package com.example.parking_rmi.service;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+
+import com.example.parking_rmi.dto.PageDTO;
+
+public class PagesTest {
+
+    @Test
+    void testExtraRowMeansNextPage() {
+        // Repository asked for size + 1 rows
+        PageDTO<Long> page = Pages.of(List.of(10L, 11L, 12L), 2, Function.identity(), Function.identity());
+
+        assertEquals(List.of(10L, 11L), page.getItems());
+        assertEquals(11L, page.getNextCursor());
+    }
+
+    @Test
+    void testLastPageHasNoCursor() {
+        PageDTO<Long> page = Pages.of(List.of(10L, 11L), 2, Function.identity(), Function.identity());
+
+        assertEquals(List.of(10L, 11L), page.getItems());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testSizeIsBounded() {
+        assertEquals(Pages.DEFAULT_SIZE, Pages.size(0));
+        assertEquals(Pages.MAX_SIZE, Pages.size(1_000_000));
+        assertEquals(0L, Pages.after(null));
+        assertEquals(Long.MAX_VALUE, Pages.before(null));
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.parking_rmi.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.example.parking_rmi.Repository.ParkingLotRepository;
+import com.example.parking_rmi.Repository.ParkingSpotRepository;
+import com.example.parking_rmi.Repository.ReservationRepository;
+import com.example.parking_rmi.dto.ParkingLotStatsDTO;
+import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
+
+@ExtendWith(MockitoExtension.class)
+public class ParkingStatsServiceTest {
+
+    @Mock
+    private ParkingLotRepository parkingLotRepository;
+
+    @Mock
+    private ParkingSpotRepository parkingSpotRepository;
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @InjectMocks
+    private ParkingStatsService parkingStatsService;
+
+    @Test
+    void testGetParkingLotStats_AllLots() {
+        when(parkingLotRepository.findAllIdsAndNames()).thenReturn(List.of(
+                new Object[] { 1L, "Agdal" },
+                new Object[] { 2L, "Hassan" }));
+        when(parkingSpotRepository.countSpotsGroupedByParkingLotAndStatus()).thenReturn(List.of(
+                new Object[] { 1L, SpotStatus.AVAILABLE, 6L },
+                new Object[] { 1L, SpotStatus.OCCUPIED, 3L },
+                new Object[] { 1L, SpotStatus.MAINTENANCE, 1L }));
+        when(reservationRepository.getTotalRevenueGroupedByParkingLot()).thenReturn(List.<Object[]>of(
+                new Object[] { 1L, new BigDecimal("120.50") }));
+
+        List<ParkingLotStatsDTO> result = parkingStatsService.getParkingLotStats(null);
+
+        assertEquals(2, result.size());
+        ParkingLotStatsDTO agdal = result.get(0);
+        assertEquals(10, agdal.getTotalSpots());
+        assertEquals(6, agdal.getAvailableSpots());
+        assertEquals(3, agdal.getOccupiedSpots());
+        assertEquals(1, agdal.getMaintenanceSpots());
+        assertEquals(120.50, agdal.getTotalRevenue());
+        assertEquals(40.0, agdal.getOccupancyRate());
+
+        // Lot without spots is still listed, with zeros
+        assertEquals(0, result.get(1).getTotalSpots());
+        assertEquals(0.0, result.get(1).getOccupancyRate());
+    }
+
+    @Test
+    void testGetParkingLotStats_UnknownIds() {
+        when(parkingLotRepository.findIdsAndNamesByIdIn(List.of(99L))).thenReturn(List.of());
+
+        assertTrue(parkingStatsService.getParkingLotStats(List.of(99L)).isEmpty());
+    }
+}
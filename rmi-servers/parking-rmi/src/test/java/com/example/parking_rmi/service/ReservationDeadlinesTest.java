@@ -0,0 +1,203 @@
+package com.example.parking_rmi.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.parking_rmi.Repository.ReservationRepository;
+import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
+import com.example.parking_rmi.model.Reservation.ReservationStatus;
+import com.example.parking_rmi.service.ReservationDeadlines.Change;
+import com.example.parking_rmi.service.ReservationDeadlines.Deadline;
+import com.example.parking_rmi.service.ReservationDeadlines.Kind;
+
+public class ReservationDeadlinesTest {
+
+    @Test
+    void testTimingWheel_FiresEveryItemAtItsTick_AcrossLevels() {
+        Random random = new Random(42);
+        long start = 1_000_000;
+        TimingWheel<Long> wheel = new TimingWheel<>(10, 8, start);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            // Up to 8^4 ticks ahead: four levels
+            long deadline = start + 10 + random.nextInt(10 * 8 * 8 * 8 * 8);
+            assertTrue(wheel.add(deadline, deadline));
+            deadlines.add(deadline);
+        }
+        assertFalse(wheel.add(start + 5, 0L)); // same tick: due now
+
+        List<Long> fired = new ArrayList<>();
+        for (long now = start; wheel.size() > 0; now += 7 + random.nextInt(200)) {
+            long at = now;
+            wheel.advance(now, deadline -> {
+                // Never late by more than the step, never early
+                assertTrue(deadline / 10 <= at / 10);
+                fired.add(deadline);
+            });
+            if (fired.size() < 4_000 && random.nextInt(10) == 0) { // some added while running
+                long deadline = now + random.nextInt(100_000);
+                if (wheel.add(deadline, deadline)) {
+                    deadlines.add(deadline);
+                }
+            }
+        }
+        assertEquals(deadlines.size(), fired.size());
+        deadlines.sort(null);
+        fired.sort(null);
+        assertEquals(deadlines, fired);
+    }
+
+    @Test
+    void testDecide_NoShowEndAndHold() {
+        Deadline noShow = new Deadline(1, Kind.NO_SHOW);
+        Deadline end = new Deadline(1, Kind.END);
+        Deadline hold = new Deadline(1, Kind.HOLD);
+
+        Change c = ReservationDeadlines.decide(noShow, ReservationStatus.PENDING, false, 5L, 9L, SpotStatus.RESERVED);
+        assertEquals(ReservationStatus.CANCELLED, c.status());
+        assertEquals(SpotStatus.AVAILABLE, c.spotTo());
+        // The car came
+        assertNull(ReservationDeadlines.decide(noShow, ReservationStatus.PENDING, false, 5L, 9L, SpotStatus.OCCUPIED));
+        // Cancelled meanwhile
+        assertNull(ReservationDeadlines.decide(end, ReservationStatus.CANCELLED, false, 5L, 9L, SpotStatus.RESERVED));
+
+        c = ReservationDeadlines.decide(end, ReservationStatus.CONFIRMED, false, 5L, 9L, SpotStatus.OCCUPIED);
+        assertEquals(ReservationStatus.COMPLETED, c.status());
+        assertNull(c.spotTo()); // the car is still there
+        c = ReservationDeadlines.decide(end, ReservationStatus.CONFIRMED, true, 5L, 9L, SpotStatus.RESERVED);
+        assertEquals(ReservationStatus.COMPLETED, c.status());
+        assertEquals(SpotStatus.AVAILABLE, c.spotTo());
+
+        c = ReservationDeadlines.decide(hold, ReservationStatus.PENDING, false, 5L, 9L, SpotStatus.AVAILABLE);
+        assertNull(c.status());
+        assertEquals(SpotStatus.RESERVED, c.spotTo());
+        assertNull(ReservationDeadlines.decide(hold, ReservationStatus.PENDING, false, 5L, 9L, SpotStatus.OCCUPIED));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReseed_OverdueAndNoShowHandledOnFirstTick_InOneTransaction() {
+        ReservationRepository repository = mock(ReservationRepository.class);
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        TransactionTemplate tx = mock(TransactionTemplate.class);
+        LotCounters counters = mock(LotCounters.class);
+        when(tx.execute(any())).thenAnswer(i -> ((TransactionCallback<Object>) i.getArgument(0)).doInTransaction(null));
+        when(jdbc.batchUpdate(anyString(), anyCollection(), anyInt(), any())).thenAnswer(i -> {
+            int[] rows = new int[((List<?>) i.getArgument(1)).size()];
+            Arrays.fill(rows, 1);
+            return new int[][] { rows };
+        });
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> active = new ArrayList<>();
+        active.add(new Object[] { 1L, 5L, now.minusHours(3), now.minusHours(1), now.minusHours(3) }); // ended
+        active.add(new Object[] { 2L, 5L, now.minusHours(1), now.plusHours(1), now.minusHours(1) }); // grace over
+        active.add(new Object[] { 3L, 5L, now.plusDays(1), now.plusDays(1).plusHours(2), now }); // advance booking
+        when(repository.findActiveDeadlines()).thenReturn(active);
+        List<Object[]> states = new ArrayList<>();
+        states.add(new Object[] { 1L, ReservationStatus.PENDING, null, 5L, 11L, SpotStatus.RESERVED });
+        states.add(new Object[] { 2L, ReservationStatus.PENDING, null, 5L, 12L, SpotStatus.OCCUPIED });
+        when(repository.findDeadlineStates(anyCollection())).thenReturn(states);
+
+        ReservationDeadlines deadlines = new ReservationDeadlines(repository, new ReservationIndex(repository, 15),
+                counters, new SpotChangeLog(16), mock(SpotHistory.class), mock(LotShardService.class),
+                writeBehind(), jdbc, tx, true, 1000, 64, 15, 15, 500);
+        assertEquals(3, deadlines.reseed());
+        assertEquals(7, deadlines.pending());
+
+        // 1: nobody came and it has ended -> no-show, spot freed; 2: a car is on the spot -> nothing
+        long later = now.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + 1000;
+        assertEquals(1, deadlines.tick(later));
+        verify(repository, times(1)).findDeadlineStates(anyCollection());
+        verify(jdbc, times(2)).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+        verify(counters, times(1)).transition(5L, SpotStatus.RESERVED, SpotStatus.AVAILABLE);
+        // END of 2, HOLD, NO_SHOW and END of 3
+        assertEquals(4, deadlines.pending());
+        assertEquals(0, deadlines.tick(later + 1000));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testHold_IsRecordedOnTheBooking_AndSkippedOnceCancelled() {
+        ReservationRepository repository = mock(ReservationRepository.class);
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        TransactionTemplate tx = mock(TransactionTemplate.class);
+        LotCounters counters = mock(LotCounters.class);
+        when(tx.execute(any())).thenAnswer(i -> ((TransactionCallback<Object>) i.getArgument(0)).doInTransaction(null));
+        List<String> statements = new ArrayList<>();
+        boolean[] cancelled = { false };
+        when(jdbc.batchUpdate(anyString(), anyCollection(), anyInt(), any())).thenAnswer(i -> {
+            String sql = i.getArgument(0);
+            statements.add(sql);
+            int[] rows = new int[((List<?>) i.getArgument(1)).size()];
+            // The booking row only takes the hold while it is active
+            Arrays.fill(rows, sql.contains("spot_held_at") && cancelled[0] ? 0 : 1);
+            return new int[][] { rows };
+        });
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> active = new ArrayList<>();
+        // Advance booking whose hold time has come
+        active.add(new Object[] { 1L, 5L, now.plusMinutes(10), now.plusHours(2), now.minusDays(1) });
+        when(repository.findActiveDeadlines()).thenReturn(active);
+        List<Object[]> states = new ArrayList<>();
+        states.add(new Object[] { 1L, ReservationStatus.PENDING, null, 5L, 11L, SpotStatus.AVAILABLE });
+        when(repository.findDeadlineStates(anyCollection())).thenReturn(states);
+
+        ReservationDeadlines deadlines = new ReservationDeadlines(repository, new ReservationIndex(repository, 15),
+                counters, new SpotChangeLog(16), mock(SpotHistory.class), mock(LotShardService.class),
+                writeBehind(), jdbc, tx, true, 1000, 64, 15, 15, 500);
+        deadlines.reseed();
+        long later = now.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + 1000;
+        deadlines.tick(later);
+        int held = statements.indexOf(statements.stream().filter(sql -> sql.contains("spot_held_at")).findFirst()
+                .orElseThrow());
+        assertTrue(statements.get(held + 1).startsWith("UPDATE parking_spots")); // marked first, then taken
+        verify(counters).transition(5L, SpotStatus.AVAILABLE, SpotStatus.RESERVED);
+
+        // Cancelled between the read and the write: the spot is left AVAILABLE
+        statements.clear();
+        cancelled[0] = true;
+        ReservationDeadlines again = new ReservationDeadlines(repository, new ReservationIndex(repository, 15),
+                counters, new SpotChangeLog(16), mock(SpotHistory.class), mock(LotShardService.class),
+                writeBehind(), jdbc, tx, true, 1000, 64, 15, 15, 500);
+        again.reseed();
+        again.tick(later);
+        assertTrue(statements.stream().anyMatch(sql -> sql.contains("spot_held_at")));
+        verify(counters, times(1)).transition(5L, SpotStatus.AVAILABLE, SpotStatus.RESERVED);
+    }
+
+    // No write-behind: exclusive() just runs the write
+    @SuppressWarnings("unchecked")
+    private static GateWriteBehind writeBehind() {
+        GateWriteBehind writeBehind = mock(GateWriteBehind.class);
+        try {
+            when(writeBehind.exclusive(any(), any()))
+                    .thenAnswer(i -> ((GateWriteBehind.SpotWrite<Object, Exception>) i.getArgument(1)).run());
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+        return writeBehind;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.parking_rmi.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.example.parking_rmi.Repository.ReservationRepository;
+import com.example.parking_rmi.model.Reservation;
+
+public class ReservationIndexTest {
+
+    private final ReservationRepository repository = mock(ReservationRepository.class);
+    private final LocalDateTime base = LocalDateTime.now().plusDays(1).withNano(0);
+
+    private ReservationIndex loaded(Object[]... rows) {
+        List<Object[]> list = new ArrayList<>(List.of(rows));
+        when(repository.findActiveWindows(any())).thenReturn(list);
+        ReservationIndex index = new ReservationIndex(repository, 15);
+        index.load();
+        return index;
+    }
+
+    private LocalDateTime at(int hour) {
+        return base.plusHours(hour);
+    }
+
+    @Test
+    void testHold_RejectsOverlaps_AcceptsAdjacentWindows() {
+        ReservationIndex index = loaded(
+                new Object[] { 1L, 10L, at(2), at(4) },
+                new Object[] { 2L, 10L, at(8), at(9) });
+
+        assertThrows(ReservationConflictException.class, () -> index.hold(10L, at(3), at(5)));
+        assertThrows(ReservationConflictException.class, () -> index.hold(10L, at(1), at(3)));
+        assertThrows(ReservationConflictException.class, () -> index.hold(10L, at(0), at(10)));
+        assertThrows(ReservationConflictException.class, () -> index.hold(10L, at(8), at(9)));
+        index.bind(index.hold(10L, at(4), at(8)), 3L);
+        index.bind(index.hold(10L, at(0), at(2)), 4L);
+        index.bind(index.hold(11L, at(3), at(5)), 5L); // another spot
+        assertEquals(5, index.size());
+
+        // Cancelled (outside a transaction: right away)
+        index.release(3L);
+        assertTrue(index.isFree(10L, at(5), at(6)));
+        assertFalse(index.isFree(10L, at(3), at(5)));
+        assertThrows(IllegalArgumentException.class, () -> index.hold(10L, at(6), at(6)));
+    }
+
+    @Test
+    void testHold_EndedWindowsArePruned_OverlapsAtLoadSkipped() {
+        LocalDateTime now = LocalDateTime.now();
+        ReservationIndex index = loaded(
+                new Object[] { 1L, 10L, now.minusHours(2), now.minusSeconds(1) },
+                new Object[] { 2L, 10L, now.minusHours(3), now.minusHours(1) }, // overlaps 1
+                new Object[] { 3L, 10L, at(1), at(2) });
+        assertEquals(2, index.size());
+
+        index.bind(index.hold(10L, now.minusHours(1), now.plusHours(1)), 4L);
+        assertEquals(2, index.size()); // 1 has ended
+    }
+
+    @Test
+    void testHold_NotLoaded_AsksMySql() {
+        ReservationIndex index = new ReservationIndex(repository, 15);
+        when(repository.findOverlappingReservations(10L, at(1), at(2))).thenReturn(List.of(new Reservation()));
+        when(repository.findOverlappingReservations(10L, at(3), at(4))).thenReturn(List.of());
+
+        assertThrows(ReservationConflictException.class, () -> index.hold(10L, at(1), at(2)));
+        assertNull(index.hold(10L, at(3), at(4)));
+        assertTrue(index.isAdvance(at(0), LocalDateTime.now()));
+        assertFalse(index.isAdvance(LocalDateTime.now().plusMinutes(10), LocalDateTime.now()));
+    }
+
+    @Test
+    void testHold_Concurrent_AcceptedWindowsNeverOverlap() throws Exception {
+        ReservationIndex index = loaded();
+        List<long[]> accepted = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 2_000; i++) {
+                    int start = random.nextInt(0, 1_000);
+                    int length = random.nextInt(1, 10);
+                    try {
+                        index.hold(10L, base.plusMinutes(start), base.plusMinutes(start + length));
+                        accepted.add(new long[] { start, start + length });
+                    } catch (ReservationConflictException e) {
+                        // taken
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        accepted.sort((a, b) -> Long.compare(a[0], b[0]));
+        for (int i = 1; i < accepted.size(); i++) {
+            assertTrue(accepted.get(i - 1)[1] <= accepted.get(i)[0]);
+        }
+        assertFalse(accepted.isEmpty());
+    }
+}
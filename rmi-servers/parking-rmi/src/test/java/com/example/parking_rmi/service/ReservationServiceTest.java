@@ -1,15 +1,25 @@
 package com.example.parking_rmi.service;
 
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -18,7 +28,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import com.example.parking_rmi.Repository.ParkingSpotRepository;
 import com.example.parking_rmi.Repository.ReservationRepository;
 import com.example.parking_rmi.dto.ReservationDTO;
+import com.example.parking_rmi.model.ParkingLot;
 import com.example.parking_rmi.model.ParkingSpot;
+import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
 import com.example.parking_rmi.model.Reservation;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +42,24 @@ public class ReservationServiceTest {
     @Mock
     private ParkingSpotRepository parkingSpotRepository;
 
+    @Mock
+    private SpotChangeLog spotChangeLog;
+
+    @Mock
+    private LotCounters lotCounters;
+
+    @Mock
+    private SpotHistory spotHistory;
+
+    @Mock
+    private ReservationIndex reservationIndex;
+
+    @Mock
+    private ReservationDeadlines reservationDeadlines;
+
+    @Spy
+    private ReservationMetrics reservationMetrics = new ReservationMetrics();
+
     @InjectMocks
     private ReservationService reservationService;
 
@@ -45,7 +75,7 @@ public class ReservationServiceTest {
         mockRes.setParkingSpot(mockSpot);
 
         // Dire à Mockito : "Si on cherche l'ID 1, retourne cette réservation"
-        when(reservationRepository.findById(resId)).thenReturn(Optional.of(mockRes));
+        when(reservationRepository.findByIdForUpdate(resId)).thenReturn(Optional.of(mockRes));
 
         // 2. Exécuter la méthode
         boolean result = reservationService.cancelReservation(resId);
@@ -55,6 +85,69 @@ public class ReservationServiceTest {
         verify(reservationRepository, times(1)).save(any(Reservation.class)); // Vérifier qu'on a sauvegardé
     }
 
+    @Test
+    void testCancelReservation_AfterHold_FreesTheReservedSpotOnly() {
+        ParkingLot lot = new ParkingLot();
+        lot.setId(5L);
+        ParkingSpot spot = new ParkingSpot();
+        spot.setId(9L);
+        spot.setStatus(SpotStatus.AVAILABLE); // as loaded before the HOLD: never trusted for the release
+        spot.setParkingLot(lot);
+        // Advance booking whose HOLD deadline set the spot RESERVED
+        Reservation advance = new Reservation();
+        advance.setId(1L);
+        advance.setStatus(Reservation.ReservationStatus.PENDING);
+        advance.setCreatedAt(LocalDateTime.now().minusDays(1));
+        advance.setStartTime(LocalDateTime.now().plusMinutes(10));
+        advance.setSpotHeldAt(LocalDateTime.now().minusMinutes(5));
+        advance.setParkingSpot(spot);
+        when(reservationRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(advance));
+        when(reservationIndex.isAdvance(any(), any())).thenReturn(true);
+        when(parkingSpotRepository.compareAndSetStatus(eq(9L), eq(SpotStatus.RESERVED), eq(SpotStatus.AVAILABLE),
+                any())).thenReturn(1);
+
+        assertTrue(reservationService.cancelReservation(1L));
+        verify(lotCounters).transition(5L, SpotStatus.RESERVED, SpotStatus.AVAILABLE);
+
+        // Not held yet: the spot is not this booking's to free
+        Reservation notHeld = new Reservation();
+        notHeld.setId(2L);
+        notHeld.setStatus(Reservation.ReservationStatus.PENDING);
+        notHeld.setParkingSpot(spot);
+        when(reservationRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(notHeld));
+        assertTrue(reservationService.cancelReservation(2L));
+        verify(parkingSpotRepository, times(1)).compareAndSetStatus(any(), any(), any(), any());
+    }
+
+    @Test
+    void testCancelReservation_LeavesAnOccupiedSpot_AndNeverFreesForAnInactiveBooking() {
+        ParkingLot lot = new ParkingLot();
+        lot.setId(5L);
+        ParkingSpot spot = new ParkingSpot();
+        spot.setId(9L);
+        spot.setStatus(SpotStatus.OCCUPIED); // the driver came in
+        spot.setParkingLot(lot);
+        Reservation checkedIn = new Reservation();
+        checkedIn.setId(1L);
+        checkedIn.setStatus(Reservation.ReservationStatus.CONFIRMED);
+        checkedIn.setParkingSpot(spot);
+        when(reservationRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(checkedIn));
+
+        assertTrue(reservationService.cancelReservation(1L));
+        // Only RESERVED -> AVAILABLE is tried, and it matches nothing
+        verify(parkingSpotRepository).compareAndSetStatus(eq(9L), eq(SpotStatus.RESERVED), eq(SpotStatus.AVAILABLE),
+                any());
+        verify(lotCounters, times(0)).transition(any(), any(), any());
+
+        Reservation expired = new Reservation();
+        expired.setId(2L);
+        expired.setStatus(Reservation.ReservationStatus.EXPIRED);
+        expired.setParkingSpot(spot);
+        when(reservationRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(expired));
+        assertTrue(reservationService.cancelReservation(2L));
+        verify(parkingSpotRepository, times(1)).compareAndSetStatus(any(), any(), any(), any());
+    }
+
     @Test
     void testGetReservationById_NotFound() {
         // Dire à Mockito : "Si on cherche l'ID 99, retourne vide"
@@ -64,4 +157,58 @@ public class ReservationServiceTest {
 
         assertNull(result);
     }
+
+    @Test
+    void testCreateReservation_Concurrent_OnlyOneRequestGetsTheSpot() throws Exception {
+        ParkingLot lot = new ParkingLot();
+        lot.setId(1L);
+        lot.setHourlyRate(BigDecimal.TEN);
+        // Every request reads the spot AVAILABLE, as concurrent transactions would
+        when(parkingSpotRepository.findById(7L)).thenAnswer(invocation -> {
+            ParkingSpot spot = new ParkingSpot();
+            spot.setId(7L);
+            spot.setStatus(SpotStatus.AVAILABLE);
+            spot.setParkingLot(lot);
+            return Optional.of(spot);
+        });
+        // The row: only one conditional UPDATE can match
+        AtomicReference<SpotStatus> row = new AtomicReference<>(SpotStatus.AVAILABLE);
+        when(parkingSpotRepository.compareAndSetStatus(eq(7L), any(), any(), any())).thenAnswer(
+                invocation -> row.compareAndSet(invocation.getArgument(1), invocation.getArgument(2)) ? 1 : 0);
+        when(reservationRepository.save(any(Reservation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger won = new AtomicInteger();
+        AtomicInteger lost = new AtomicInteger();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ReservationDTO dto = ReservationDTO.builder().parkingLotId(1L).parkingSpotId(7L)
+                        .startTime(LocalDateTime.now()).durationHours(2).build();
+                try {
+                    start.await();
+                    reservationService.createReservation(dto);
+                    won.incrementAndGet();
+                } catch (SpotUnavailableException e) {
+                    lost.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals(1, won.get());
+        assertEquals(threads - 1, lost.get());
+        assertEquals(SpotStatus.RESERVED, row.get());
+        verify(reservationRepository, times(1)).save(any(Reservation.class)); // losers insert nothing
+        assertEquals(threads - 1, reservationMetrics.getSpotConflicts());
+        assertEquals(1, reservationMetrics.getCommitted());
+    }
 }
@@ -0,0 +1,137 @@
+package com.example.parking_rmi.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.parking_rmi.Repository.ParkingSpotRepository;
+import com.example.parking_rmi.dto.ReservationDTO;
+import com.example.parking_rmi.dto.SpotPreferenceDTO;
+import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
+import com.example.parking_rmi.model.ParkingSpot.SpotType;
+
+public class SpotAllocatorTest {
+
+    private final ParkingSpotRepository repository = mock(ParkingSpotRepository.class);
+    private final ReservationService reservationService = mock(ReservationService.class);
+    private final SpotChangeLog changeLog = new SpotChangeLog(16);
+
+    private SpotAllocator allocator(Object[]... spots) {
+        List<Object[]> rows = new ArrayList<>(List.of(spots));
+        when(repository.findAllocationRows(1L)).thenReturn(rows);
+        return new SpotAllocator(repository, changeLog, reservationService, new ReservationMetrics(), 3);
+    }
+
+    private static Object[] spot(long id, SpotStatus status, SpotType type, int floor, boolean accessible,
+            boolean covered, boolean electric) {
+        return new Object[] { id, status, type, floor, "A", accessible, covered, electric };
+    }
+
+    @Test
+    void testClaim_PicksBestProfile_AndKeepsSpecialSpotsForWhoNeedsThem() {
+        SpotAllocator allocator = allocator(
+                spot(1, SpotStatus.AVAILABLE, SpotType.HANDICAPPED, 0, true, false, false),
+                spot(2, SpotStatus.AVAILABLE, SpotType.ELECTRIC, 0, false, true, true),
+                spot(3, SpotStatus.OCCUPIED, SpotType.STANDARD, 0, false, true, false),
+                spot(4, SpotStatus.AVAILABLE, SpotType.STANDARD, 2, false, true, false),
+                spot(5, SpotStatus.AVAILABLE, SpotType.STANDARD, 1, false, false, false));
+
+        // No preference: a plain spot, lowest floor first
+        assertEquals(5L, allocator.claim(1L, new SpotPreferenceDTO()));
+        // Covered near floor 1: one floor off beats uncovered
+        assertEquals(4L, allocator.claim(1L, new SpotPreferenceDTO(null, 1, null, null, true, null, false)));
+        assertEquals(2L, allocator.claim(1L, new SpotPreferenceDTO(null, null, null, null, null, true, false)));
+        assertEquals(1L, allocator.claim(1L, new SpotPreferenceDTO(null, null, null, true, null, null, false)));
+        assertNull(allocator.claim(1L, new SpotPreferenceDTO()));
+
+        // Released and still AVAILABLE: free again; turned OCCUPIED meanwhile: not
+        changeLog.spotChanged(1L, 4L, SpotStatus.OCCUPIED);
+        allocator.release(1L, 4L);
+        allocator.release(1L, 5L);
+        assertEquals(5L, allocator.claim(1L, new SpotPreferenceDTO()));
+        assertNull(allocator.claim(1L, new SpotPreferenceDTO()));
+        verify(repository, times(1)).findAllocationRows(1L);
+    }
+
+    @Test
+    void testClaim_Strict_RejectsAnyMismatch() {
+        SpotAllocator allocator = allocator(
+                spot(1, SpotStatus.AVAILABLE, SpotType.STANDARD, 0, false, false, false),
+                spot(2, SpotStatus.AVAILABLE, SpotType.COMPACT, 1, false, true, false));
+
+        assertNull(allocator.claim(1L, new SpotPreferenceDTO("LARGE", null, null, null, null, null, true)));
+        assertNull(allocator.claim(1L, new SpotPreferenceDTO(null, 2, null, null, null, null, true)));
+        assertEquals(2L, allocator.claim(1L, new SpotPreferenceDTO("compact", 1, "a", null, true, null, true)));
+        // Not strict: the nearest floor will do
+        assertEquals(1L, allocator.claim(1L, new SpotPreferenceDTO(null, 2, null, null, null, null, false)));
+    }
+
+    @Test
+    void testClaim_Concurrent_NeverHandsOutASpotTwice() throws Exception {
+        Object[][] spots = new Object[500][];
+        for (int i = 0; i < spots.length; i++) {
+            spots[i] = spot(i + 1, SpotStatus.AVAILABLE, SpotType.values()[i % 3], i % 4, false, i % 2 == 0, false);
+        }
+        SpotAllocator allocator = allocator(spots);
+        Set<Long> claimed = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                Long spotId;
+                while ((spotId = allocator.claim(1L, new SpotPreferenceDTO())) != null) {
+                    assertTrue(claimed.add(spotId));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(500, claimed.size());
+    }
+
+    @Test
+    void testReserve_SpotTakenMeanwhile_ReloadsAndTakesTheNextBest() {
+        SpotAllocator allocator = allocator(
+                spot(1, SpotStatus.AVAILABLE, SpotType.STANDARD, 0, false, false, false),
+                spot(2, SpotStatus.AVAILABLE, SpotType.STANDARD, 1, false, false, false));
+        when(reservationService.createReservation(any())).thenAnswer(invocation -> {
+            ReservationDTO dto = invocation.getArgument(0);
+            if (dto.getParkingSpotId() == 1L) {
+                // Reserved by a path the allocator did not hear about
+                when(repository.findAllocationRows(1L)).thenReturn(List.<Object[]>of(
+                        spot(1, SpotStatus.RESERVED, SpotType.STANDARD, 0, false, false, false),
+                        spot(2, SpotStatus.AVAILABLE, SpotType.STANDARD, 1, false, false, false)));
+                throw new SpotUnavailableException("Spot is null or not available");
+            }
+            return dto;
+        });
+
+        ReservationDTO request = ReservationDTO.builder().parkingLotId(1L).build();
+        ReservationDTO reserved = allocator.reserve(request, new SpotPreferenceDTO());
+
+        assertEquals(2L, reserved.getParkingSpotId());
+        verify(reservationService, times(2)).createReservation(any());
+        verify(repository, times(2)).findAllocationRows(1L);
+        Set<Long> left = new HashSet<>();
+        Long spotId;
+        while ((spotId = allocator.claim(1L, new SpotPreferenceDTO())) != null) {
+            left.add(spotId);
+        }
+        // Spot 2 stays free here: no RESERVED event was published by the mock
+        assertEquals(Set.of(2L), left);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.parking_rmi.service;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class SpotChangeLogTest {
+
+    @Test
+    void testDelta_ReturnsSpotsChangedSinceVersion() {
+        SpotChangeLog log = new SpotChangeLog(16);
+        long v0 = log.currentVersion(1L);
+
+        log.spotChanged(1L, 10L);
+        long v1 = log.currentVersion(1L);
+        log.spotChanged(1L, 11L);
+        log.spotChanged(1L, 10L);
+        log.spotChanged(2L, 99L);
+
+        SpotChangeLog.Delta delta = log.changesSince(1L, v1);
+        assertFalse(delta.full());
+        assertEquals(Set.of(10L, 11L), delta.spotIds());
+        assertEquals(v0 + 3, delta.version());
+
+        SpotChangeLog.Delta none = log.changesSince(1L, delta.version());
+        assertFalse(none.full());
+        assertTrue(none.spotIds().isEmpty());
+    }
+
+    @Test
+    void testClientTooFarBehind_GetsFullSnapshot() {
+        SpotChangeLog log = new SpotChangeLog(4);
+        long v0 = log.currentVersion(1L);
+        for (long spot = 1; spot <= 10; spot++) {
+            log.spotChanged(1L, spot);
+        }
+
+        assertTrue(log.changesSince(1L, v0).full());
+        assertTrue(log.changesSince(1L, 0).full());
+        // Version from a previous server run
+        assertTrue(log.changesSince(1L, 42).full());
+        assertFalse(log.changesSince(1L, v0 + 6).full());
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.parking_rmi.service;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.parking_rmi.Repository.ParkingSpotRepository;
+import com.example.parking_rmi.dto.PageDTO;
+import com.example.parking_rmi.dto.SpotTransitionDTO;
+import com.example.parking_rmi.journal.SpotTransition.Kind;
+import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
+
+public class SpotHistoryTest {
+
+    @TempDir
+    Path dir;
+
+    private final ParkingSpotRepository repository = mock(ParkingSpotRepository.class);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRestart_RestoresSnapshotPlusTail_WithoutScanningSpots() throws Exception {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { 1L, 10L, SpotStatus.AVAILABLE });
+        rows.add(new Object[] { 1L, 11L, SpotStatus.AVAILABLE });
+        rows.add(new Object[] { 2L, 20L, SpotStatus.AVAILABLE });
+        when(repository.findSpotStates()).thenReturn(rows);
+
+        // First run: full load, snapshot, then changes after the snapshot
+        SpotChangeLog changeLog = new SpotChangeLog(16);
+        SpotStateStore store = new SpotStateStore(repository, changeLog, true);
+        SpotHistory history = history(store, mock(LotCounters.class));
+        assertFalse(history.recover(null));
+        store.load(null);
+        history.snapshot();
+        change(changeLog, history, 1L, 10L, Kind.ENTRY, SpotStatus.AVAILABLE, SpotStatus.OCCUPIED);
+        change(changeLog, history, 2L, 20L, Kind.RESERVE, SpotStatus.AVAILABLE, SpotStatus.RESERVED);
+        change(changeLog, history, 1L, 10L, Kind.EXIT, SpotStatus.OCCUPIED, SpotStatus.AVAILABLE);
+        change(changeLog, history, 1L, 11L, Kind.ENTRY, SpotStatus.AVAILABLE, SpotStatus.OCCUPIED);
+        // Crash: no stop(), no final snapshot
+
+        // A change the log never got, and a lot created after the snapshot
+        List<Object[]> recent = new ArrayList<>();
+        recent.add(new Object[] { 2L, 20L, SpotStatus.OCCUPIED });
+        recent.add(new Object[] { 3L, 30L, SpotStatus.AVAILABLE });
+        when(repository.findSpotStatesUpdatedSince(any())).thenReturn(recent);
+        List<Object[]> lot3 = new ArrayList<>();
+        lot3.add(new Object[] { 3L, 30L, SpotStatus.AVAILABLE });
+        when(repository.findSpotStates(Set.of(3L))).thenReturn(lot3);
+
+        LotCounters counters = mock(LotCounters.class);
+        SpotStateStore restarted = new SpotStateStore(repository, new SpotChangeLog(16), true);
+        SpotHistory recovered = history(restarted, counters);
+        assertTrue(recovered.recover(null));
+        assertTrue(recovered.isRestored());
+
+        assertEquals(List.of(10L), restarted.firstSpotIds(1L, SpotStatus.AVAILABLE, 5));
+        assertEquals(List.of(11L), restarted.firstSpotIds(1L, SpotStatus.OCCUPIED, 5));
+        assertEquals(List.of(20L), restarted.firstSpotIds(2L, SpotStatus.OCCUPIED, 5));
+        assertEquals(List.of(30L), restarted.firstSpotIds(3L, SpotStatus.AVAILABLE, 5));
+        assertEquals(1L, restarted.lotOf(11L));
+        verify(repository, times(1)).findSpotStates(); // only the first run scanned every spot
+
+        ArgumentCaptor<Map<Long, int[]>> counts = ArgumentCaptor.forClass(Map.class);
+        verify(counters).restore(counts.capture());
+        int[] lot1 = new int[SpotStatus.values().length];
+        lot1[SpotStatus.AVAILABLE.ordinal()] = 1;
+        lot1[SpotStatus.OCCUPIED.ordinal()] = 1;
+        assertArrayEquals(lot1, counts.getValue().get(1L));
+
+        // History of spot 10, newest first, one per page
+        PageDTO<SpotTransitionDTO> page = recovered.history(10L, null, 1);
+        assertEquals(1, page.getItems().size());
+        assertEquals("EXIT", page.getItems().get(0).getKind());
+        PageDTO<SpotTransitionDTO> older = recovered.history(10L, page.getNextCursor(), 1);
+        assertEquals("ENTRY", older.getItems().get(0).getKind());
+        assertEquals("AVAILABLE", older.getItems().get(0).getFromStatus());
+        assertNull(older.getNextCursor());
+        recovered.stop();
+    }
+
+    private SpotHistory history(SpotStateStore store, LotCounters counters) throws Exception {
+        SpotHistory history = new SpotHistory(store, counters, repository, true, dir.toString(), 1, 3_600_000, 2,
+                60_000, 168, 4096);
+        history.start();
+        return history;
+    }
+
+    // What a service does in its transaction (no transaction here: applied right away)
+    private static void change(SpotChangeLog changeLog, SpotHistory history, Long lotId, Long spotId, Kind kind,
+            SpotStatus from, SpotStatus to) {
+        changeLog.spotChanged(lotId, spotId, to);
+        history.record(lotId, spotId, kind, from, to);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.parking_rmi.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.parking_rmi.Repository.ParkingSpotRepository;
+import com.example.parking_rmi.model.ParkingLot;
+import com.example.parking_rmi.model.ParkingSpot;
+import com.example.parking_rmi.model.ParkingSpot.SpotStatus;
+
+public class SpotStateStoreTest {
+
+    private final ParkingSpotRepository repository = mock(ParkingSpotRepository.class);
+    private final SpotChangeLog changeLog = new SpotChangeLog(16);
+
+    @Test
+    void testCountsAndFirstAvailable_FollowCommittedChanges() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { 1L, 10L, SpotStatus.AVAILABLE });
+        rows.add(new Object[] { 1L, 11L, SpotStatus.OCCUPIED });
+        rows.add(new Object[] { 1L, 12L, SpotStatus.AVAILABLE });
+        rows.add(new Object[] { 2L, 20L, SpotStatus.RESERVED });
+        when(repository.findSpotStates()).thenReturn(rows);
+        SpotStateStore store = new SpotStateStore(repository, changeLog, true);
+
+        assertEquals(4, store.load(null));
+        assertEquals(2, store.count(1L, SpotStatus.AVAILABLE));
+        assertEquals(1, store.count(1L, SpotStatus.OCCUPIED));
+        assertEquals(List.of(10L, 12L), store.firstSpotIds(1L, SpotStatus.AVAILABLE, 5));
+        assertEquals(List.of(10L), store.firstSpotIds(1L, SpotStatus.AVAILABLE, 1));
+
+        changeLog.spotChanged(spot(1L, 10L, SpotStatus.RESERVED));
+        changeLog.spotChanged(spot(1L, 13L, SpotStatus.AVAILABLE)); // spot not known yet
+        assertEquals(List.of(12L, 13L), store.firstSpotIds(1L, SpotStatus.AVAILABLE, 5));
+        assertEquals(4, store.size(1L));
+        assertEquals(50.0, store.occupancyRate(1L), 0.001);
+        assertEquals(1, store.count(2L, SpotStatus.RESERVED));
+        verify(repository, times(0)).findSpotStates(anyCollection());
+    }
+
+    @Test
+    void testLazyLoad_RetriesWhenLotChangesDuringQuery() {
+        AtomicInteger queries = new AtomicInteger();
+        when(repository.findSpotStates(anyCollection())).thenAnswer(invocation -> {
+            List<Object[]> rows = new ArrayList<>();
+            if (queries.incrementAndGet() == 1) {
+                // A reservation commits while the first read is running
+                rows.add(new Object[] { 1L, 10L, SpotStatus.AVAILABLE });
+                changeLog.spotChanged(spot(1L, 10L, SpotStatus.RESERVED));
+            } else {
+                rows.add(new Object[] { 1L, 10L, SpotStatus.RESERVED });
+            }
+            return rows;
+        });
+        SpotStateStore store = new SpotStateStore(repository, changeLog, true);
+
+        assertEquals(0, store.count(1L, SpotStatus.AVAILABLE));
+        assertEquals(1, store.count(1L, SpotStatus.RESERVED));
+        assertEquals(2, queries.get()); // cached after the second read
+    }
+
+    private static ParkingSpot spot(Long lotId, Long spotId, SpotStatus status) {
+        ParkingLot lot = new ParkingLot();
+        lot.setId(lotId);
+        ParkingSpot spot = new ParkingSpot();
+        spot.setId(spotId);
+        spot.setStatus(status);
+        spot.setParkingLot(lot);
+        return spot;
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.parking_rmi.simulation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.example.parking_rmi.Interface.ParkingService;
+import com.example.parking_rmi.dto.PageDTO;
+import com.example.parking_rmi.dto.ParkingLotDTO;
+import com.example.parking_rmi.dto.ParkingSpotDTO;
+import com.example.parking_rmi.dto.ReservationDTO;
+import com.example.parking_rmi.simulation.TrafficReport.Operation;
+
+public class TrafficGeneratorTest {
+
+    @Test
+    void testPoissonArrivals_MatchTheRate() {
+        ArrivalProcess process = new ArrivalProcess(500, false, 1, 60, 6, 90, 0.8, new SplittableRandom(1));
+        int arrivals = 0;
+        for (double t = process.nextArrival(0); t < 100; t = process.nextArrival(t)) {
+            arrivals++;
+        }
+        assertEquals(50_000, arrivals, 50_000 * 0.02);
+    }
+
+    @Test
+    void testRushArrivals_PeakMorningAndEvening_QuietAtNight() {
+        // One simulated day per 24 wall seconds
+        ArrivalProcess process = new ArrivalProcess(1000, true, 3, 3600, 0, 90, 0.8, new SplittableRandom(2));
+        int[] perHour = new int[24];
+        for (double t = process.nextArrival(0); t < 24; t = process.nextArrival(t)) {
+            perHour[(int) process.hourAt(t)]++;
+        }
+        assertTrue(perHour[8] > 2.5 * 1000 && perHour[17] > 2.5 * 1000, perHour[8] + " / " + perHour[17]);
+        assertTrue(perHour[3] < 0.3 * 1000, String.valueOf(perHour[3]));
+        assertTrue(perHour[8] > 5 * perHour[3]);
+    }
+
+    @Test
+    void testDwell_IsLogNormalAroundTheMedian() {
+        ArrivalProcess process = new ArrivalProcess(1, false, 1, 60, 0, 90, 0.8, new SplittableRandom(3));
+        double[] dwell = new double[20_001];
+        for (int i = 0; i < dwell.length; i++) {
+            dwell[i] = process.dwellSeconds();
+        }
+        java.util.Arrays.sort(dwell);
+        assertEquals(90, dwell[dwell.length / 2], 90 * 0.05); // 90 simulated minutes = 90 wall seconds at x60
+    }
+
+    @Test
+    void testProfile_RejectsUnknownSettings() {
+        assertEquals(750, TrafficProfile.parse("rate=750").rate());
+        assertThrows(IllegalArgumentException.class, () -> TrafficProfile.parse("rat=750"));
+        assertThrows(IllegalArgumentException.class, () -> TrafficProfile.parse("mode=http"));
+    }
+
+    @Test
+    void testRun_AgainstInMemoryService_EveryCarThatGotInGetsOut() throws Exception {
+        FakeParking parking = new FakeParking(20, 50);
+        TrafficProfile profile = TrafficProfile.parse("rate=2000", "arrivals=poisson", "seconds=2",
+                "timeScale=3600", "dwellMinutes=30", "reportSeconds=1");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        TrafficReport report = new TrafficGenerator(parking.service, profile).run(new PrintStream(output));
+
+        assertEquals(0, report.errors(), output.toString());
+        assertTrue(report.count(Operation.ENTRY) > 1000, output.toString());
+        assertTrue(report.count(Operation.LOOKUP) > 500 && report.count(Operation.RESERVE) > 300);
+        assertTrue(report.count(Operation.EXIT) > 0 && report.count(Operation.CANCEL) > 0);
+        // cleanup=true: nothing left occupied or booked
+        assertEquals(0, parking.occupied());
+        assertTrue(output.toString().contains("error rate"));
+    }
+
+    // Lots of spots in maps; entry/exit/reserve/cancel with the server's rules
+    private static final class FakeParking {
+        private final Map<Long, String> statuses = new ConcurrentHashMap<>();
+        private final Map<Long, Long> spotLots = new ConcurrentHashMap<>();
+        private final Map<Long, Long> reservations = new ConcurrentHashMap<>();
+        private final AtomicLong ids = new AtomicLong();
+        private final List<ParkingLotDTO> lots = new ArrayList<>();
+        private final ParkingService service;
+
+        FakeParking(int lotCount, int spotsPerLot) {
+            for (long lot = 1; lot <= lotCount; lot++) {
+                ParkingLotDTO dto = new ParkingLotDTO();
+                dto.setId(lot);
+                dto.setStatus("ACTIVE");
+                lots.add(dto);
+                for (int s = 0; s < spotsPerLot; s++) {
+                    long spotId = lot * 1000 + s;
+                    statuses.put(spotId, "AVAILABLE");
+                    spotLots.put(spotId, lot);
+                }
+            }
+            service = (ParkingService) Proxy.newProxyInstance(ParkingService.class.getClassLoader(),
+                    new Class<?>[] { ParkingService.class }, (proxy, method, args) -> switch (method.getName()) {
+                        case "getParkingLotsPage" -> new PageDTO<>(args[0] == null ? lots : List.of(), null);
+                        case "getAllSpotsByParkingLot" -> spotLots.entrySet().stream()
+                                .filter(e -> e.getValue().equals(args[0])).map(e -> {
+                                    ParkingSpotDTO spot = new ParkingSpotDTO();
+                                    spot.setId(e.getKey());
+                                    spot.setStatus(statuses.get(e.getKey()));
+                                    return spot;
+                                }).toList();
+                        case "getAvailableSpotsCount" -> (int) spotLots.entrySet().stream()
+                                .filter(e -> e.getValue().equals(args[0])
+                                        && statuses.get(e.getKey()).equals("AVAILABLE"))
+                                .count();
+                        case "simulateCarEntry" -> !"OCCUPIED".equals(statuses.put((Long) args[0], "OCCUPIED"));
+                        case "simulateCarExit" -> !"AVAILABLE".equals(statuses.put((Long) args[0], "AVAILABLE"));
+                        case "reserveBestAvailableSpot" -> reserve((ReservationDTO) args[0]);
+                        case "cancelReservation" -> {
+                            Long spotId = reservations.remove(args[0]);
+                            yield spotId != null && statuses.replace(spotId, "RESERVED", "AVAILABLE");
+                        }
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+
+        private ReservationDTO reserve(ReservationDTO request) {
+            for (Map.Entry<Long, Long> e : spotLots.entrySet()) {
+                if (e.getValue().equals(request.getParkingLotId())
+                        && statuses.replace(e.getKey(), "AVAILABLE", "RESERVED")) {
+                    request.setId(ids.incrementAndGet());
+                    request.setParkingSpotId(e.getKey());
+                    reservations.put(request.getId(), e.getKey());
+                    return request;
+                }
+            }
+            return null;
+        }
+
+        long occupied() {
+            return statuses.values().stream().filter(s -> !s.equals("AVAILABLE")).count();
+        }
+    }
+}